@@ -0,0 +1,311 @@
+/**
+ * SortMetrics.java
+ */
+
+package uk.co.bluettduncanj.metrics;
+
+
+/**
+ * <p>Opt-in instrumentation for the sorting classes: comparisons, swaps, moves, maximum recursion depth, leaf sorts and
+ * scratch bytes allocated, reported per top-level sort call to a {@link SortMetricsListener}.</p>
+ * 
+ * <p>Instrumentation is switched on by starting the JVM with <tt>-Duk.co.bluettduncanj.metrics=true</tt>. The switch is
+ * read once into the <tt>static final</tt> field {@link #ENABLED}, and every recording method starts by testing it, so when
+ * it is off the JIT compiler folds the recording calls away entirely and the sorting loops are compiled exactly as if they
+ * were never instrumented.</p>
+ * 
+ * <p>Sorting classes use the recording methods as follows:</p>
+ * 
+ * <pre>
+ * public static void sort(int[] array, int start, int end) {
+ *   SortStats stats = SortMetrics.begin("MySort", end - start + 1);
+ *   try {
+ *     sortRecursively(array, start, end);   // calls SortMetrics.comparison(), swap(), enter()/exit() etc.
+ *   }
+ *   finally {
+ *     SortMetrics.end(stats);
+ *   }
+ * }
+ * </pre>
+ * 
+ * <p>Counts are recorded against the current thread. A sort that is called from within another instrumented sort (e.g. an
+ * insertion sort at the leaves of a quicksort) adds to the outer sort's statistics rather than starting its own. Fork/join
+ * tasks carry the {@link SortStats} of the sort that created them and {@link #attach(SortStats, int)} it while they
+ * run.</p>
+ * 
+ * <p>{@link #end(SortStats)} must be called in a <tt>finally</tt> block (as must {@link #detach(Object)}), so that a sort
+ * that throws doesn't leave its recorder attached to the thread, which would keep every later sort on that thread from
+ * being recorded.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public final class SortMetrics {
+  
+  /**
+   * Whether instrumentation is enabled. This is a compile-time-foldable constant as far as the JIT compiler is concerned.
+   */
+  public static final boolean ENABLED = Boolean.getBoolean("uk.co.bluettduncanj.metrics");
+  
+  private static final ThreadLocal<Recorder> CURRENT = new ThreadLocal<Recorder>();
+  
+  /**
+   * The token returned by {@link #attach(SortStats, int)} when the thread was not recording anything before.
+   */
+  private static final Object NOTHING_ATTACHED = new Object();
+  
+  private static volatile SortMetricsListener listener;
+  
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private SortMetrics() {}
+  
+  /**
+   * Sets the listener that is told about every instrumented sort, replacing any previous one.
+   * 
+   * @param listener
+   *          The new listener, or null to stop reporting.
+   */
+  public static void setListener(SortMetricsListener listener) {
+    SortMetrics.listener = listener;
+  }
+  
+  /**
+   * Starts recording a top-level sort call on the current thread.
+   * 
+   * @param engine
+   *          The name of the sorting class.
+   * @param length
+   *          The number of elements being sorted.
+   * @return the statistics to pass to {@link #end(SortStats)}, or null if instrumentation is disabled or a sort is already
+   *         being recorded on this thread.
+   */
+  public static SortStats begin(String engine, int length) {
+    if (!ENABLED || CURRENT.get() != null) {
+      return null;
+    }
+    SortStats stats = new SortStats(engine, length);
+    CURRENT.set(new Recorder(stats, 0));
+    return stats;
+  }
+  
+  /**
+   * Finishes recording a top-level sort call, and reports it to the listener.
+   * 
+   * @param stats
+   *          The value returned by the matching call to {@link #begin(String, int)}.
+   */
+  public static void end(SortStats stats) {
+    if (!ENABLED || stats == null) {
+      return;
+    }
+    CURRENT.get().flush();
+    CURRENT.remove();
+    stats.finish();
+    SortMetricsListener l = listener;
+    if (l != null) {
+      l.sortCompleted(stats);
+    }
+  }
+  
+  /**
+   * @return the statistics of the sort being recorded on the current thread, or null if there is none. Fork/join tasks
+   *         should capture this when they are created.
+   */
+  public static SortStats current() {
+    if (!ENABLED) {
+      return null;
+    }
+    Recorder recorder = CURRENT.get();
+    return (recorder != null) ? recorder.stats : null;
+  }
+  
+  /**
+   * @return the current recursion depth on this thread.
+   */
+  public static int depth() {
+    if (!ENABLED) {
+      return 0;
+    }
+    Recorder recorder = CURRENT.get();
+    return (recorder != null) ? recorder.depth : 0;
+  }
+  
+  /**
+   * Starts recording counts on the current thread against <tt>stats</tt>, e.g. when a fork/join task starts to run.
+   * Calls may nest (a worker thread may run another task while waiting for a join), so the returned token must be passed
+   * to {@link #detach(Object)} when the task finishes.
+   * 
+   * @param stats
+   *          The statistics captured by {@link #current()}, which may be null.
+   * @param depth
+   *          The recursion depth that the task starts at.
+   * @return a token to pass to {@link #detach(Object)}.
+   */
+  public static Object attach(SortStats stats, int depth) {
+    if (!ENABLED || stats == null) {
+      return null;
+    }
+    Recorder previous = CURRENT.get();
+    CURRENT.set(new Recorder(stats, depth));
+    return (previous != null) ? previous : NOTHING_ATTACHED;
+  }
+  
+  /**
+   * Stops recording counts against the statistics given to the matching {@link #attach(SortStats, int)} call, and
+   * restores whatever the current thread was recording before.
+   * 
+   * @param token
+   *          The value returned by the matching call to {@link #attach(SortStats, int)}.
+   */
+  public static void detach(Object token) {
+    if (!ENABLED || token == null) {
+      return;
+    }
+    CURRENT.get().flush();
+    if (token instanceof Recorder) {
+      CURRENT.set((Recorder) token);
+    }
+    else {
+      CURRENT.remove();
+    }
+  }
+  
+  /**
+   * Records one element comparison.
+   */
+  public static void comparison() {
+    if (ENABLED) {
+      Recorder recorder = CURRENT.get();
+      if (recorder != null) {
+        recorder.comparisons++;
+      }
+    }
+  }
+  
+  /**
+   * Records a number of element comparisons, e.g. those made by a bulk pass.
+   * 
+   * @param count
+   *          The number of comparisons made.
+   */
+  public static void comparisons(long count) {
+    if (ENABLED) {
+      Recorder recorder = CURRENT.get();
+      if (recorder != null) {
+        recorder.comparisons += count;
+      }
+    }
+  }
+  
+  /**
+   * Records one exchange of two elements.
+   */
+  public static void swap() {
+    if (ENABLED) {
+      Recorder recorder = CURRENT.get();
+      if (recorder != null) {
+        recorder.swaps++;
+      }
+    }
+  }
+  
+  /**
+   * Records one element write that is not part of a swap.
+   */
+  public static void move() {
+    moves(1);
+  }
+  
+  /**
+   * Records a number of element writes that are not part of swaps, e.g. a block copy.
+   * 
+   * @param count
+   *          The number of elements written.
+   */
+  public static void moves(long count) {
+    if (ENABLED) {
+      Recorder recorder = CURRENT.get();
+      if (recorder != null) {
+        recorder.moves += count;
+      }
+    }
+  }
+  
+  /**
+   * Records that a sub-array was handed to a leaf-level sort, e.g. insertion sort.
+   */
+  public static void leaf() {
+    if (ENABLED) {
+      Recorder recorder = CURRENT.get();
+      if (recorder != null) {
+        recorder.leaves++;
+      }
+    }
+  }
+  
+  /**
+   * Records an allocation of scratch space.
+   * 
+   * @param bytes
+   *          The size of the allocation, in bytes.
+   */
+  public static void scratch(long bytes) {
+    if (ENABLED) {
+      Recorder recorder = CURRENT.get();
+      if (recorder != null) {
+        recorder.scratchBytes += bytes;
+      }
+    }
+  }
+  
+  /**
+   * Records entry into one more level of recursion. Must be paired with {@link #exit()}.
+   */
+  public static void enter() {
+    if (ENABLED) {
+      Recorder recorder = CURRENT.get();
+      if (recorder != null && ++recorder.depth > recorder.maxDepth) {
+        recorder.maxDepth = recorder.depth;
+      }
+    }
+  }
+  
+  /**
+   * Records return from one level of recursion.
+   */
+  public static void exit() {
+    if (ENABLED) {
+      Recorder recorder = CURRENT.get();
+      if (recorder != null) {
+        recorder.depth--;
+      }
+    }
+  }
+  
+  /**
+   * Per-thread counts, which are added to the shared statistics when the thread stops recording.
+   */
+  private static final class Recorder {
+    private final SortStats stats;
+    private int depth;
+    private int maxDepth;
+    private long comparisons;
+    private long swaps;
+    private long moves;
+    private long leaves;
+    private long scratchBytes;
+    
+    private Recorder(SortStats stats, int depth) {
+      this.stats = stats;
+      this.depth = depth;
+      this.maxDepth = depth;
+    }
+    
+    private void flush() {
+      stats.add(comparisons, swaps, moves, maxDepth, leaves, scratchBytes);
+      comparisons = swaps = moves = leaves = scratchBytes = 0;
+    }
+  }
+  
+}
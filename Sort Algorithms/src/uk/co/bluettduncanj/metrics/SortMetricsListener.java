@@ -0,0 +1,25 @@
+/**
+ * SortMetricsListener.java
+ */
+
+package uk.co.bluettduncanj.metrics;
+
+
+/**
+ * A listener that is told about the statistics of every instrumented sort, once it has finished.
+ * 
+ * @see SortMetrics
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public interface SortMetricsListener {
+  
+  /**
+   * Called on the thread that started the sort, once the sort has finished.
+   * 
+   * @param stats
+   *          The statistics of the sort.
+   */
+  void sortCompleted(SortStats stats);
+  
+}
@@ -0,0 +1,124 @@
+/**
+ * SortStats.java
+ */
+
+package uk.co.bluettduncanj.metrics;
+
+
+/**
+ * <p>The statistics gathered for a single top-level sort call, when instrumentation is enabled.</p>
+ * 
+ * <p>Counts from every thread that took part in the sort (e.g. fork/join workers) are added together, and the maximum
+ * recursion depth is the deepest reached by any of them.</p>
+ * 
+ * @see SortMetrics
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public final class SortStats {
+  
+  private final String engine;
+  private final int length;
+  private final long startNanos;
+  private long elapsedNanos;
+  
+  private long comparisons;
+  private long swaps;
+  private long moves;
+  private int maxDepth;
+  private long leaves;
+  private long scratchBytes;
+  
+  SortStats(String engine, int length) {
+    this.engine = engine;
+    this.length = length;
+    this.startNanos = System.nanoTime();
+  }
+  
+  /**
+   * Adds the counts recorded by one thread to these statistics.
+   */
+  synchronized void add(long comparisons, long swaps, long moves, int maxDepth, long leaves, long scratchBytes) {
+    this.comparisons += comparisons;
+    this.swaps += swaps;
+    this.moves += moves;
+    this.maxDepth = Math.max(this.maxDepth, maxDepth);
+    this.leaves += leaves;
+    this.scratchBytes += scratchBytes;
+  }
+  
+  synchronized void finish() {
+    elapsedNanos = System.nanoTime() - startNanos;
+  }
+  
+  /**
+   * @return the simple name of the sorting class that was called.
+   */
+  public String getEngine() {
+    return engine;
+  }
+  
+  /**
+   * @return the number of elements that were sorted.
+   */
+  public int getLength() {
+    return length;
+  }
+  
+  /**
+   * @return the wall-clock duration of the sort, in nanoseconds.
+   */
+  public synchronized long getElapsedNanos() {
+    return elapsedNanos;
+  }
+  
+  /**
+   * @return the number of element comparisons made.
+   */
+  public synchronized long getComparisons() {
+    return comparisons;
+  }
+  
+  /**
+   * @return the number of times two elements were exchanged.
+   */
+  public synchronized long getSwaps() {
+    return swaps;
+  }
+  
+  /**
+   * @return the number of single element writes that were not part of a swap, e.g. when merging or shifting.
+   */
+  public synchronized long getMoves() {
+    return moves;
+  }
+  
+  /**
+   * @return the maximum recursion depth reached, where the top-level call has a depth of 0.
+   */
+  public synchronized int getMaxDepth() {
+    return maxDepth;
+  }
+  
+  /**
+   * @return the number of sub-arrays that were handed to insertion sort (or another leaf-level sort).
+   */
+  public synchronized long getLeaves() {
+    return leaves;
+  }
+  
+  /**
+   * @return the number of bytes of scratch space that were allocated.
+   */
+  public synchronized long getScratchBytes() {
+    return scratchBytes;
+  }
+  
+  @Override
+  public synchronized String toString() {
+    return engine + "[length=" + length + ", elapsedNanos=" + elapsedNanos + ", comparisons=" + comparisons 
+        + ", swaps=" + swaps + ", moves=" + moves + ", maxDepth=" + maxDepth + ", leaves=" + leaves 
+        + ", scratchBytes=" + scratchBytes + "]";
+  }
+  
+}
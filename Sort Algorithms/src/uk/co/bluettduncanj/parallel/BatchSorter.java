@@ -0,0 +1,184 @@
+/**
+ * BatchSorter.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy;
+import uk.co.bluettduncanj.serial.RadixSort;
+import uk.co.bluettduncanj.serial.SmallSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * <p>Sorts batches of many small, independent <tt>int</tt> arrays, where splitting up any one array (as
+ * {@link ParallelQuicksort} does) costs more than it saves, but sorting different arrays at once doesn't.</p>
+ *
+ * <p>Each batch is grouped into size classes (lengths within a power of two of each other), and each size class is cut
+ * into tasks of about {@link #TASK_ELEMENTS} elements, so that a task sorts many arrays of similar length with the same
+ * engine one after another, and no task is much longer than any other. Tasks are submitted largest size class first,
+ * which keeps the long tasks from being left until the end of the batch. Each array is sorted with:</p>
+ *
+ * <ul>
+ *   <li>{@code SmallSort}, if it has at most {@link #SMALL_SORT_CUTOFF} elements;</li>
+ *   <li>{@code QuicksortBentleyMcIlroy}, if it has fewer than {@link #RADIX_SORT_CUTOFF} elements;</li>
+ *   <li>{@code RadixSort} otherwise, with scratch space borrowed from a {@code SortWorkspace}.</li>
+ * </ul>
+ *
+ * <p>Workspaces are kept in a pool that belongs to the <tt>BatchSorter</tt>: a task takes one when it starts and gives
+ * it back when it finishes, so there are never more workspaces than tasks that have run at once, whatever kind of
+ * threads the executor uses. Tasks run on the shared parallel sorting pool by default, or on any <tt>Executor</tt>; on
+ * Java 21 and later that can be a virtual-thread-per-task executor.</p>
+ *
+ * <p>A <tt>BatchSorter</tt> is thread-safe, and is intended to be created once and shared.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class BatchSorter {
+  
+  /**
+   * The approximate number of elements sorted by each task. A task always sorts at least one array.
+   */
+  public static final int TASK_ELEMENTS = 1 << 15;
+  
+  /**
+   * Arrays of this many elements or fewer are sorted with {@code SmallSort}.
+   */
+  public static final int SMALL_SORT_CUTOFF = 47;
+  
+  /**
+   * Arrays of this many elements or more are radix sorted.
+   */
+  public static final int RADIX_SORT_CUTOFF = 1 << 12;
+  
+  private final Executor executor;
+  private final ConcurrentLinkedQueue<SortWorkspace> workspaces = new ConcurrentLinkedQueue<SortWorkspace>();
+  
+  /**
+   * Creates a <tt>BatchSorter</tt> that runs its tasks on the pool shared by the parallel sorting classes.
+   */
+  public BatchSorter() {
+    this(SortPool.POOL);
+  }
+  
+  /**
+   * Creates a <tt>BatchSorter</tt> that runs its tasks on <tt>executor</tt>.
+   *
+   * @param executor
+   *          The executor to run sorting tasks on.
+   * @throws NullPointerException if executor is null.
+   */
+  public BatchSorter(Executor executor) {
+    if (executor == null) {
+      throw new NullPointerException("executor");
+    }
+    this.executor = executor;
+  }
+  
+  /**
+   * A convenience method for sort(Collection&lt;int[]&gt; arrays).
+   *
+   * @param arrays
+   *          The arrays to sort.
+   * @return a future that completes when every array is sorted.
+   */
+  public CompletableFuture<Void> sort(int[]... arrays) {
+    return sort(Arrays.asList(arrays));
+  }
+  
+  /**
+   * Starts sorting every array in a batch into ascending order, and returns immediately.
+   *
+   * @param arrays
+   *          The arrays to sort. No array may appear more than once, or be modified until the batch is complete.
+   * @return a future that completes when every array is sorted, or completes exceptionally if any task fails.
+   * @throws NullPointerException if arrays is or contains null.
+   * @throws java.util.concurrent.RejectedExecutionException if the executor rejects a task; tasks that were already
+   *           submitted still run.
+   */
+  public CompletableFuture<Void> sort(Collection<int[]> arrays) {
+    // Size class k holds the arrays with between 2^(k-1) and 2^k - 1 elements
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    List<int[]>[] sizeClasses = new List[Integer.SIZE];
+    for (int[] array : arrays) {
+      if (array.length < 2) {
+        continue;
+      }
+      int k = Integer.SIZE - Integer.numberOfLeadingZeros(array.length);
+      if (sizeClasses[k] == null) {
+        sizeClasses[k] = new ArrayList<int[]>();
+      }
+      sizeClasses[k].add(array);
+    }
+    
+    List<CompletableFuture<Void>> tasks = new ArrayList<CompletableFuture<Void>>();
+    for (int k = sizeClasses.length - 1; k >= 0; k--) {
+      List<int[]> sizeClass = sizeClasses[k];
+      if (sizeClass == null) {
+        continue;
+      }
+      int from = 0, elements = 0;
+      for (int i = 0; i < sizeClass.size(); i++) {
+        elements += sizeClass.get(i).length;
+        if (elements >= TASK_ELEMENTS || i == sizeClass.size() - 1) {
+          tasks.add(CompletableFuture.runAsync(new Task(sizeClass.subList(from, i + 1)), executor));
+          from = i + 1;
+          elements = 0;
+        }
+      }
+    }
+    return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[tasks.size()]));
+  }
+  
+  /**
+   * Sorts one array with the engine that suits its length.
+   */
+  private static void sort(int[] array, SortWorkspace workspace) {
+    if (array.length <= SMALL_SORT_CUTOFF) {
+      SmallSort.sort(array, 0, array.length - 1);
+    }
+    else if (array.length < RADIX_SORT_CUTOFF) {
+      QuicksortBentleyMcIlroy.quicksort(array);
+    }
+    else {
+      RadixSort.sort(array, workspace);
+    }
+  }
+  
+  /**
+   * Sorts a run of arrays from one size class with a workspace borrowed from the pool.
+   */
+  private final class Task implements Runnable {
+    
+    private final List<int[]> arrays;
+    
+    Task(List<int[]> arrays) {
+      this.arrays = arrays;
+    }
+    
+    @Override
+    public void run() {
+      SortWorkspace workspace = workspaces.poll();
+      if (workspace == null) {
+        workspace = new SortWorkspace();
+      }
+      try {
+        for (int[] array : arrays) {
+          sort(array, workspace);
+        }
+      }
+      finally {
+        workspaces.offer(workspace);
+      }
+    }
+  }
+  
+}
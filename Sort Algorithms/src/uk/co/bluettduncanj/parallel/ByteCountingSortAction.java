@@ -0,0 +1,49 @@
+/**
+ * ByteCountingSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+
+/**
+ * A <tt>CountingSortAction</tt> for sorting <tt>byte</tt> arrays, used by <tt>ParallelCountingSort</tt>.
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+class ByteCountingSortAction extends CountingSortAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = -4423779317316932651L;
+  
+  private final byte[] array;
+  
+  /**
+   * @param array
+   *          The array of bytes to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   */
+  ByteCountingSortAction(byte[] array, int lo, int hi) {
+    super(lo, hi, 1 << Byte.SIZE);
+    this.array = array;
+  }
+  
+  @Override
+  protected void count(int from, int to, int[] histogram) {
+    byte[] array = this.array;
+    for (int i = from; i <= to; i++) {
+      histogram[array[i] - Byte.MIN_VALUE]++;
+    }
+  }
+  
+  @Override
+  protected void fill(int from, int to, int bucket) {
+    byte value = (byte) (bucket + Byte.MIN_VALUE);
+    for (int i = from; i < to; i++) {
+      array[i] = value;
+    }
+  }
+  
+}
@@ -0,0 +1,49 @@
+/**
+ * CharCountingSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+
+/**
+ * A <tt>CountingSortAction</tt> for sorting <tt>char</tt> arrays, used by <tt>ParallelCountingSort</tt>.
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+class CharCountingSortAction extends CountingSortAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 2597105473418120717L;
+  
+  private final char[] array;
+  
+  /**
+   * @param array
+   *          The array of chars to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   */
+  CharCountingSortAction(char[] array, int lo, int hi) {
+    super(lo, hi, 1 << Character.SIZE);
+    this.array = array;
+  }
+  
+  @Override
+  protected void count(int from, int to, int[] histogram) {
+    char[] array = this.array;
+    for (int i = from; i <= to; i++) {
+      histogram[array[i]]++;
+    }
+  }
+  
+  @Override
+  protected void fill(int from, int to, int bucket) {
+    char value = (char) bucket;
+    for (int i = from; i < to; i++) {
+      array[i] = value;
+    }
+  }
+  
+}
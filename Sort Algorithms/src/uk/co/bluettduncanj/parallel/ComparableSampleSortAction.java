@@ -0,0 +1,119 @@
+/**
+ * ComparableSampleSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import uk.co.bluettduncanj.serial.ListMergeSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * A <tt>SampleSortAction</tt> for sorting arrays of <tt>Comparable</tt>s into their natural order, used by
+ * <tt>ParallelSampleSort</tt>. Buckets are sorted with {@code ListMergeSort}, so the sort is stable.
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+class ComparableSampleSortAction<T extends Comparable<? super T>> extends SampleSortAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 5411316945417300185L;
+  
+  private final T[] array;
+  private final Comparator<T> comparator = Comparator.naturalOrder();
+  private Object[] aux;
+  private T[] splitters;
+  private T[] tree;
+  
+  /**
+   * @param array
+   *          The array of Comparables to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   * @param workspace
+   *          The workspace to borrow the scratch array from.
+   */
+  ComparableSampleSortAction(T[] array, int lo, int hi, SortWorkspace workspace) {
+    super(lo, hi, workspace);
+    this.array = array;
+  }
+  
+  @Override
+  protected void selectSplitters(int[] sample) {
+    T[] values = Arrays.copyOf(array, sample.length);
+    for (int i = 0; i < sample.length; i++) {
+      values[i] = array[sample[i]];
+    }
+    Arrays.sort(values, comparator);
+    
+    // The last splitter is repeated, so that the equality test needs no bounds check: a value in the last bucket is
+    // greater than it
+    int buckets = 1 << logBuckets;
+    splitters = Arrays.copyOf(values, buckets);
+    for (int b = 0; b < buckets - 1; b++) {
+      splitters[b] = values[(b + 1) * OVERSAMPLING - 1];
+    }
+    splitters[buckets - 1] = splitters[buckets - 2];
+    int[] order = treeOrder(logBuckets);
+    tree = Arrays.copyOf(values, buckets);
+    tree[0] = null;
+    for (int j = 1; j < buckets; j++) {
+      tree[j] = splitters[order[j]];
+    }
+    aux = workspace.objects(0, length);
+  }
+  
+  @Override
+  protected void classify(int from, int to, int[] count) {
+    T[] array = this.array, tree = this.tree, splitters = this.splitters;
+    short[] oracle = this.oracle;
+    int logBuckets = this.logBuckets, buckets = 1 << logBuckets;
+    for (int i = from; i < to; i++) {
+      T value = array[i];
+      int j = 1;
+      for (int level = 0; level < logBuckets; level++) {
+        j = 2 * j + (value.compareTo(tree[j]) > 0 ? 1 : 0);
+      }
+      int b = j - buckets;
+      int bucket = 2 * b + (value.compareTo(splitters[b]) == 0 ? 1 : 0);
+      oracle[i - lo] = (short) bucket;
+      count[bucket]++;
+    }
+  }
+  
+  @Override
+  protected void scatter(int from, int to, int[] offsets) {
+    T[] array = this.array;
+    Object[] aux = this.aux;
+    short[] oracle = this.oracle;
+    for (int i = from; i < to; i++) {
+      aux[offsets[oracle[i - lo]]++] = array[i];
+    }
+  }
+  
+  @Override
+  protected void finishBucket(int from, int to, boolean sort) {
+    System.arraycopy(aux, from, array, lo + from, to - from);
+    Arrays.fill(aux, from, to, null);
+    if (sort) {
+      ListMergeSort.sort(array, lo + from, lo + to - 1, comparator, SortWorkspace.forCurrentThread());
+    }
+  }
+  
+  @Override
+  protected void release(boolean completed) {
+    // Each bucket clears its part of the scratch array as it is copied back, unless the sort failed first
+    if (!completed && aux != null) {
+      Arrays.fill(aux, 0, length, null);
+    }
+    aux = null;
+    splitters = null;
+    tree = null;
+  }
+  
+}
@@ -0,0 +1,381 @@
+/**
+ * ConcurrentTopK.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.co.bluettduncanj.serial.RadixSort;
+
+
+/**
+ * <p>Collects the K items with the highest scores out of a stream of scored items that many threads offer at once, for
+ * example the top 1,000 results of a search that is spread over many request threads. Unlike a
+ * <tt>PriorityQueue</tt> (see {@code NaiveHeapSort}), it never holds more than a bounded number of items, stores scores
+ * unboxed, and is thread-safe.</p>
+ *
+ * <p>Offers go to one of several <i>stripes</i>, chosen by the offering thread, so that threads rarely contend for the
+ * same lock. Each stripe is a min-heap of at most K items, ordered by score, so a stripe's lowest score is its entry
+ * threshold once it is full. A stripe that holds K items also proves that no score below its lowest can be in the
+ * overall top K, so the greatest such score is published as a shared threshold, and any offer below it is rejected
+ * with a single volatile read, without locking. Once the collector has seen enough items, that is the fate of almost
+ * every offer.</p>
+ *
+ * <p>{@link #merge()} folds the stripes into a single heap of the overall top K, emptying them, and raises the
+ * threshold to the K-th best score seen so far; it can be called periodically (e.g. from a
+ * <tt>ScheduledExecutorService</tt>) to keep the threshold tight. {@link #snapshot()} merges and returns the current
+ * top K, best first. Both lock each stripe only long enough to swap its heap for an empty one, so offers are not held
+ * up by the merge itself.</p>
+ *
+ * <p>Scores are <tt>long</tt>s, or <tt>double</tt>s mapped to <tt>long</tt>s in the same order (as for
+ * {@code RadixSort}), and a collector should be given only one kind. Items whose scores tie with the K-th best may be
+ * kept or dropped arbitrarily.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ *
+ * @param <T>
+ *          The type of item collected.
+ */
+public final class ConcurrentTopK<T> {
+  
+  private final int k;
+  private final Stripe[] stripes;
+  private final int stripeMask;
+  
+  /**
+   * Offers with scores below this can't be in the top K. It only ever increases.
+   */
+  private final AtomicLong threshold = new AtomicLong(Long.MIN_VALUE);
+  
+  /**
+   * The top K of the items merged so far, and an empty heap to swap into the next stripe to be merged. Guarded by
+   * <tt>this</tt>.
+   */
+  private final BoundedHeap merged;
+  private BoundedHeap spare;
+  
+  /**
+   * Creates a collector with two stripes per available processor.
+   *
+   * @param k
+   *          The number of items to keep.
+   * @throws IllegalArgumentException
+   *           If <tt>k</tt> is not positive.
+   */
+  public ConcurrentTopK(int k) {
+    this(k, 2 * Runtime.getRuntime().availableProcessors());
+  }
+  
+  /**
+   * Creates a collector.
+   *
+   * @param k
+   *          The number of items to keep.
+   * @param stripes
+   *          The number of stripes to spread offers over, rounded up to a power of 2. More stripes mean less
+   *          contention, but up to K items more memory each.
+   * @throws IllegalArgumentException
+   *           If <tt>k</tt> or <tt>stripes</tt> is not positive.
+   */
+  public ConcurrentTopK(int k, int stripes) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive: " + k);
+    }
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("stripes must be positive: " + stripes);
+    }
+    this.k = k;
+    int n = Integer.highestOneBit(Math.min(stripes, 1 << 16) * 2 - 1);
+    this.stripes = new Stripe[n];
+    for (int i = 0; i < n; i++) {
+      this.stripes[i] = new Stripe(new BoundedHeap(k));
+    }
+    this.stripeMask = n - 1;
+    this.merged = new BoundedHeap(k);
+    this.spare = new BoundedHeap(k);
+  }
+  
+  /**
+   * Offers an item with a <tt>long</tt> score.
+   *
+   * @param score
+   *          The item's score; higher is better.
+   * @param item
+   *          The item.
+   * @return false if the item was rejected because it can't be in the top K, or true if it was kept for now (it may
+   *         still be displaced by better items).
+   */
+  public boolean offer(long score, T item) {
+    // The fast path: most offers are rejected here once the collector has seen K good items
+    if (score < threshold.get()) {
+      return false;
+    }
+    
+    Stripe stripe = stripes[stripeIndex()];
+    long lowest;
+    synchronized (stripe) {
+      BoundedHeap heap = stripe.heap;
+      if (!heap.offer(score, item)) {
+        return false;
+      }
+      if (!heap.isFull()) {
+        return true;
+      }
+      lowest = heap.lowestScore();
+    }
+    raiseThreshold(lowest);
+    return true;
+  }
+  
+  /**
+   * Offers an item with a <tt>double</tt> score, ordered as by {@code Double.compare}.
+   *
+   * @param score
+   *          The item's score; higher is better.
+   * @param item
+   *          The item.
+   * @return as {@link #offer(long, Object)}.
+   */
+  public boolean offer(double score, T item) {
+    return offer(toScore(score), item);
+  }
+  
+  /**
+   * Folds every stripe into the overall top K, and raises the threshold to the K-th best score if at least K items
+   * have been kept.
+   */
+  public synchronized void merge() {
+    for (Stripe stripe : stripes) {
+      BoundedHeap drained;
+      synchronized (stripe) {
+        drained = stripe.heap;
+        if (drained.size == 0) {
+          continue;
+        }
+        stripe.heap = spare;
+      }
+      for (int i = 0; i < drained.size; i++) {
+        merged.offer(drained.scores[i], drained.items[i]);
+      }
+      drained.clear();
+      spare = drained;
+    }
+    if (merged.isFull()) {
+      raiseThreshold(merged.lowestScore());
+    }
+  }
+  
+  /**
+   * Merges the stripes (see {@link #merge()}) and returns the top K items offered so far.
+   *
+   * @return at most K entries, in descending order of score.
+   */
+  public synchronized List<Entry<T>> snapshot() {
+    merge();
+    List<Entry<T>> entries = new ArrayList<Entry<T>>(merged.size);
+    for (int i = 0; i < merged.size; i++) {
+      @SuppressWarnings("unchecked")
+      T item = (T) merged.items[i];
+      entries.add(new Entry<T>(merged.scores[i], item));
+    }
+    Collections.sort(entries, Entry.BEST_FIRST);
+    return entries;
+  }
+  
+  /**
+   * @return the number of items kept.
+   */
+  public int capacity() {
+    return k;
+  }
+  
+  /**
+   * @return the score below which offers are currently rejected without locking, or <tt>Long.MIN_VALUE</tt> if no
+   *         stripe has filled up and nothing has been merged.
+   */
+  public long getThreshold() {
+    return threshold.get();
+  }
+  
+  /**
+   * Maps a <tt>double</tt> score to a <tt>long</tt> one, such that comparing two of them as signed integers gives the
+   * same result as {@code Double.compare} on the originals.
+   */
+  static long toScore(double score) {
+    return RadixSort.toSortableBits(score) ^ Long.MIN_VALUE;
+  }
+  
+  /**
+   * The inverse of {@link #toScore(double)}.
+   */
+  static double fromScore(long score) {
+    return RadixSort.fromSortableBits(score ^ Long.MIN_VALUE);
+  }
+  
+  private void raiseThreshold(long score) {
+    long current;
+    while (score > (current = threshold.get())) {
+      if (threshold.compareAndSet(current, score)) {
+        return;
+      }
+    }
+  }
+  
+  /**
+   * Chooses the offering thread's stripe by a hash of its ID, so that each thread always uses the same stripe and
+   * different threads are spread evenly between them.
+   */
+  private int stripeIndex() {
+    long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    return (int) (h >>> 32) & stripeMask;
+  }
+  
+  /**
+   * A scored item in a snapshot.
+   *
+   * @param <T>
+   *          The type of item.
+   */
+  public static final class Entry<T> {
+    
+    static final Comparator<Entry<?>> BEST_FIRST = new Comparator<Entry<?>>() {
+      @Override
+      public int compare(Entry<?> a, Entry<?> b) {
+        return Long.compare(b.score, a.score);
+      }
+    };
+    
+    private final long score;
+    private final T item;
+    
+    Entry(long score, T item) {
+      this.score = score;
+      this.item = item;
+    }
+    
+    /**
+     * @return the score the item was offered with, if it was a <tt>long</tt>.
+     */
+    public long getScore() {
+      return score;
+    }
+    
+    /**
+     * @return the score the item was offered with, if it was a <tt>double</tt>.
+     */
+    public double getDoubleScore() {
+      return fromScore(score);
+    }
+    
+    /**
+     * @return the item.
+     */
+    public T getItem() {
+      return item;
+    }
+    
+    @Override
+    public String toString() {
+      return score + "=" + item;
+    }
+  }
+  
+  /**
+   * Holds a stripe's heap, which <tt>merge()</tt> swaps for an empty one. Guarded by itself.
+   */
+  private static final class Stripe {
+    
+    BoundedHeap heap;
+    
+    Stripe(BoundedHeap heap) {
+      this.heap = heap;
+    }
+  }
+  
+  /**
+   * A binary min-heap of at most <tt>capacity</tt> scored items, in parallel arrays so that scores aren't boxed. Not
+   * thread-safe.
+   */
+  private static final class BoundedHeap {
+    
+    final long[] scores;
+    final Object[] items;
+    int size;
+    
+    BoundedHeap(int capacity) {
+      scores = new long[capacity];
+      items = new Object[capacity];
+    }
+    
+    boolean isFull() {
+      return size == scores.length;
+    }
+    
+    long lowestScore() {
+      return scores[0];
+    }
+    
+    /**
+     * Adds an item if the heap isn't full, or replaces the lowest-scoring item if the new one scores higher.
+     *
+     * @return true if the item was added.
+     */
+    boolean offer(long score, Object item) {
+      if (size < scores.length) {
+        siftUp(size++, score, item);
+        return true;
+      }
+      if (score <= scores[0]) {
+        return false;
+      }
+      siftDown(0, score, item);
+      return true;
+    }
+    
+    void clear() {
+      Arrays.fill(items, 0, size, null);
+      size = 0;
+    }
+    
+    // Move a hole at index i up until score can be placed in it
+    private void siftUp(int i, long score, Object item) {
+      while (i > 0) {
+        int parent = (i - 1) >>> 1;
+        if (scores[parent] <= score) {
+          break;
+        }
+        scores[i] = scores[parent];
+        items[i] = items[parent];
+        i = parent;
+      }
+      scores[i] = score;
+      items[i] = item;
+    }
+    
+    // Move a hole at index i down until score can be placed in it
+    private void siftDown(int i, long score, Object item) {
+      int half = size >>> 1;
+      while (i < half) {
+        int child = 2 * i + 1;
+        if (child + 1 < size && scores[child + 1] < scores[child]) {
+          child++;
+        }
+        if (score <= scores[child]) {
+          break;
+        }
+        scores[i] = scores[child];
+        items[i] = items[child];
+        i = child;
+      }
+      scores[i] = score;
+      items[i] = item;
+    }
+  }
+  
+}
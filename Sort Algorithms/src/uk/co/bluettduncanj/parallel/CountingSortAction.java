@@ -0,0 +1,144 @@
+/**
+ * CountingSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * <p>A <tt>RecursiveAction</tt> that runs a parallel counting sort, used by <tt>ParallelCountingSort</tt>.</p>
+ * 
+ * <p>The range is divided into blocks, and every block builds its own histogram in parallel. The histograms are summed,
+ * and the buckets are then divided into chunks holding roughly equal numbers of elements, which are written back in
+ * parallel.</p>
+ * 
+ * <p>Subclasses provide the type-specific histogram and write-back loops, so that each loop only ever sees one array
+ * type.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+abstract class CountingSortAction extends RecursiveAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = -1383040398215101873L;
+  
+  /**
+   * Blocks are never made smaller than this, nor smaller than the histogram, so that summing the per-block histograms
+   * never costs more than building them.
+   */
+  private static final int MIN_BLOCK_SIZE = 1 << 13;
+  
+  protected final int lo;
+  protected final int hi;
+  private final int buckets;
+  
+  /**
+   * @param lo
+   *          The first index of the range to sort.
+   * @param hi
+   *          The last index of the range to sort.
+   * @param buckets
+   *          The number of buckets in the histogram.
+   */
+  CountingSortAction(int lo, int hi, int buckets) {
+    this.lo = lo;
+    this.hi = hi;
+    this.buckets = buckets;
+  }
+  
+  /**
+   * Adds the values at indices <tt>from</tt> to <tt>to</tt> (inclusive) to <tt>histogram</tt>.
+   */
+  protected abstract void count(int from, int to, int[] histogram);
+  
+  /**
+   * Writes the value of <tt>bucket</tt> into indices <tt>from</tt> to <tt>to</tt> (exclusive).
+   */
+  protected abstract void fill(int from, int to, int bucket);
+  
+  @Override
+  protected void compute() {
+    int length = hi - lo + 1;
+    int parallelism = (getPool() != null) ? getPool().getParallelism() : 1;
+    int blocks = Math.max(1, Math.min(parallelism, length / Math.max(MIN_BLOCK_SIZE, buckets)));
+    
+    // Build one histogram per block in parallel
+    final int[][] histograms = new int[blocks][buckets];
+    List<RecursiveAction> actions = new ArrayList<RecursiveAction>(blocks);
+    for (int b = 0; b < blocks; b++) {
+      final int from = lo + (int) ((long) b * length / blocks);
+      final int to = lo + (int) ((long) (b + 1) * length / blocks) - 1;
+      final int[] histogram = histograms[b];
+      actions.add(new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected void compute() {
+          count(from, to, histogram);
+        }
+      });
+    }
+    invokeAll(actions);
+    
+    int[] total = histograms[0];
+    for (int b = 1; b < blocks; b++) {
+      int[] histogram = histograms[b];
+      for (int d = 0; d < buckets; d++) {
+        total[d] += histogram[d];
+      }
+    }
+    
+    // Write back chunks of consecutive buckets, each holding about length / blocks elements, in parallel
+    actions.clear();
+    int chunkSize = Math.max(1, length / blocks);
+    int chunkStart = lo, chunkFirstBucket = 0, chunkCount = 0;
+    for (int d = 0; d < buckets; d++) {
+      chunkCount += total[d];
+      if (chunkCount >= chunkSize || d == buckets - 1) {
+        actions.add(new FillAction(total, chunkFirstBucket, d, chunkStart));
+        chunkStart += chunkCount;
+        chunkFirstBucket = d + 1;
+        chunkCount = 0;
+      }
+    }
+    invokeAll(actions);
+  }
+  
+  /**
+   * Writes back the values of buckets <tt>firstBucket</tt> to <tt>lastBucket</tt> (inclusive), starting at index
+   * <tt>start</tt>.
+   */
+  private final class FillAction extends RecursiveAction {
+    
+    /** serialVersionUID */
+    private static final long serialVersionUID = 5052442167380745106L;
+    
+    private final int[] total;
+    private final int firstBucket;
+    private final int lastBucket;
+    private final int start;
+    
+    private FillAction(int[] total, int firstBucket, int lastBucket, int start) {
+      this.total = total;
+      this.firstBucket = firstBucket;
+      this.lastBucket = lastBucket;
+      this.start = start;
+    }
+    
+    @Override
+    protected void compute() {
+      int k = start;
+      for (int d = firstBucket; d <= lastBucket; d++) {
+        int count = total[d];
+        if (count > 0) {
+          fill(k, k + count, d);
+          k += count;
+        }
+      }
+    }
+  }
+  
+}
@@ -0,0 +1,49 @@
+/**
+ * DoubleRadixSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import uk.co.bluettduncanj.serial.RadixSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * A <tt>RadixSortAction</tt> for sorting <tt>double</tt> arrays into {@code Double.compare} order, used by
+ * <tt>ParallelRadixSort</tt>.
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+class DoubleRadixSortAction extends RadixSortAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = -6390911297634460716L;
+  
+  private final double[] array;
+  
+  /**
+   * @param array
+   *          The array of doubles to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  DoubleRadixSortAction(double[] array, int lo, int hi, SortWorkspace workspace) {
+    super(lo, hi, Long.SIZE / Byte.SIZE, workspace);
+    this.array = array;
+  }
+  
+  @Override
+  protected long key(int index) {
+    return RadixSort.toSortableBits(array[index]);
+  }
+  
+  @Override
+  protected void store(int index, long key) {
+    array[index] = RadixSort.fromSortableBits(key);
+  }
+  
+}
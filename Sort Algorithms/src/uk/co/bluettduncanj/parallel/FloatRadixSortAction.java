@@ -0,0 +1,49 @@
+/**
+ * FloatRadixSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import uk.co.bluettduncanj.serial.RadixSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * A <tt>RadixSortAction</tt> for sorting <tt>float</tt> arrays into {@code Float.compare} order, used by
+ * <tt>ParallelRadixSort</tt>. Keys only occupy the low 32 bits, so only 4 passes are made.
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+class FloatRadixSortAction extends RadixSortAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 7762271680216342218L;
+  
+  private final float[] array;
+  
+  /**
+   * @param array
+   *          The array of floats to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  FloatRadixSortAction(float[] array, int lo, int hi, SortWorkspace workspace) {
+    super(lo, hi, Integer.SIZE / Byte.SIZE, workspace);
+    this.array = array;
+  }
+  
+  @Override
+  protected long key(int index) {
+    return RadixSort.toSortableBits(array[index]) & 0xFFFFFFFFL;
+  }
+  
+  @Override
+  protected void store(int index, long key) {
+    array[index] = RadixSort.fromSortableBits((int) key);
+  }
+  
+}
@@ -0,0 +1,56 @@
+/**
+ * IntCountingSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+
+/**
+ * A <tt>CountingSortAction</tt> for sorting <tt>int</tt> arrays, used by <tt>ParallelCountingSort</tt>.
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+class IntCountingSortAction extends CountingSortAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 6306402278926117548L;
+  
+  private final int[] array;
+  private final int min;
+  
+  /**
+   * @param array
+   *          The array of ints to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   * @param min
+   *          The minimum value in the range.
+   * @param max
+   *          The maximum value in the range.
+   */
+  IntCountingSortAction(int[] array, int lo, int hi, int min, int max) {
+    super(lo, hi, (int) ((long) max - min + 1));
+    this.array = array;
+    this.min = min;
+  }
+  
+  @Override
+  protected void count(int from, int to, int[] histogram) {
+    int[] array = this.array;
+    int min = this.min;
+    for (int i = from; i <= to; i++) {
+      histogram[array[i] - min]++;
+    }
+  }
+  
+  @Override
+  protected void fill(int from, int to, int bucket) {
+    int value = bucket + min;
+    for (int i = from; i < to; i++) {
+      array[i] = value;
+    }
+  }
+  
+}
@@ -0,0 +1,77 @@
+/**
+ * IntMultiwayMergeAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.RecursiveAction;
+
+import uk.co.bluettduncanj.serial.MultiwayMerge;
+
+
+/**
+ * <p>A <tt>RecursiveAction</tt> that merges sorted <tt>int</tt> runs into one array, used by
+ * <tt>ParallelMultiwayMerge</tt>.</p>
+ *
+ * <p>The output is divided into a number of equal parts, and each part is merged independently: its first and last
+ * ranks are located in every run with {@code MultiwayMerge.split}, and the values between them are merged with
+ * {@code MultiwayMerge.merge}. The parts are divided between forked tasks by halving, as in
+ * <tt>ParallelQuicksort</tt>.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+class IntMultiwayMergeAction extends RecursiveAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 5402153961836480245L;
+  
+  private final int[][] runs;
+  private final int[] out;
+  private final int parts;
+  private final int firstPart;
+  private final int lastPart;
+  
+  /**
+   * @param runs
+   *          The sorted arrays to merge.
+   * @param out
+   *          The array to merge into, as long as all of the runs together.
+   * @param parts
+   *          The number of parts to divide the output into.
+   * @param firstPart
+   *          The first part to merge.
+   * @param lastPart
+   *          The last part to merge.
+   */
+  IntMultiwayMergeAction(int[][] runs, int[] out, int parts, int firstPart, int lastPart) {
+    this.runs = runs;
+    this.out = out;
+    this.parts = parts;
+    this.firstPart = firstPart;
+    this.lastPart = lastPart;
+  }
+  
+  @Override
+  protected void compute() {
+    if (firstPart < lastPart) {
+      int mid = (firstPart + lastPart) >>> 1;
+      invokeAll(new IntMultiwayMergeAction(runs, out, parts, firstPart, mid),
+                new IntMultiwayMergeAction(runs, out, parts, mid + 1, lastPart));
+      return;
+    }
+    int from = rank(firstPart), to = rank(firstPart + 1);
+    int[] fromPositions = new int[runs.length];
+    int[] toPositions = new int[runs.length];
+    MultiwayMerge.split(runs, from, fromPositions);
+    MultiwayMerge.split(runs, to, toPositions);
+    MultiwayMerge.merge(runs, fromPositions, toPositions, out, from);
+  }
+  
+  /**
+   * @return the rank of the first value of a part.
+   */
+  private int rank(int part) {
+    return (int) ((long) out.length * part / parts);
+  }
+  
+}
@@ -0,0 +1,188 @@
+/**
+ * IntPartitionAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * <p>A <tt>RecursiveAction</tt> that 3-way partitions a range of an <tt>int</tt> array around a pivot value in parallel,
+ * used by <tt>IntQuicksortAction</tt> for ranges too large to partition on one thread.</p>
+ *
+ * <p>The range is divided into equal blocks, and the partition is made in three steps, as in <tt>RadixSortAction</tt>:
+ * every block counts its values that are less than and equal to the pivot in parallel, the counts are turned into
+ * per-block offsets in each of the three partitions with a (cheap, serial) prefix sum, and then every block scatters its
+ * values into a scratch array in parallel, which is finally copied back in parallel. Every step reads and writes
+ * contiguous memory, and no block ever waits for another.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+class IntPartitionAction extends RecursiveAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 7063021931575382946L;
+  
+  /**
+   * Blocks are never made smaller than this, so that the serial prefix sum stays cheap relative to the work it describes.
+   */
+  private static final int MIN_BLOCK_SIZE = 1 << 13;
+  
+  private enum Phase { COUNT, SCATTER, COPY }
+  
+  private final int[] array;
+  private final int[] aux;
+  private final int auxBase;
+  private final int lo;
+  private final int length;
+  private final int pivot;
+  
+  private int blocks;
+  private int[] less;
+  private int[] equal;
+  private int lessEnd;
+  private int greaterStart;
+  
+  /**
+   * @param array
+   *          The array to partition.
+   * @param aux
+   *          A scratch array, in which index <tt>i - auxBase</tt> may be used for every index <tt>i</tt> in the range.
+   * @param auxBase
+   *          The index in <tt>array</tt> that corresponds to index 0 in <tt>aux</tt>.
+   * @param lo
+   *          The first index of the range to partition.
+   * @param hi
+   *          The last index of the range to partition.
+   * @param pivot
+   *          The value to partition around.
+   */
+  IntPartitionAction(int[] array, int[] aux, int auxBase, int lo, int hi, int pivot) {
+    this.array = array;
+    this.aux = aux;
+    this.auxBase = auxBase;
+    this.lo = lo;
+    this.length = hi - lo + 1;
+    this.pivot = pivot;
+  }
+  
+  /**
+   * @return the first index of the values equal to the pivot, once the action is complete.
+   */
+  int lessEnd() {
+    return lessEnd;
+  }
+  
+  /**
+   * @return the first index of the values greater than the pivot, once the action is complete.
+   */
+  int greaterStart() {
+    return greaterStart;
+  }
+  
+  @Override
+  protected void compute() {
+    int parallelism = (getPool() != null) ? getPool().getParallelism() : 1;
+    blocks = Math.max(1, Math.min(length / MIN_BLOCK_SIZE, parallelism * 4));
+    less = new int[blocks];
+    equal = new int[blocks];
+    
+    runBlocks(Phase.COUNT);
+    
+    // Turn the counts into each block's starting index in each partition: less[b] becomes the index of block b's first
+    // value less than the pivot, and equal[b] the index of its first value equal to it. Values greater than the pivot
+    // start wherever the other two leave off
+    int totalLess = 0, totalEqual = 0;
+    for (int b = 0; b < blocks; b++) {
+      totalLess += less[b];
+      totalEqual += equal[b];
+    }
+    lessEnd = lo + totalLess;
+    greaterStart = lessEnd + totalEqual;
+    for (int b = 0, lessSum = lo, equalSum = lessEnd; b < blocks; b++) {
+      int lessCount = less[b], equalCount = equal[b];
+      less[b] = lessSum;
+      equal[b] = equalSum;
+      lessSum += lessCount;
+      equalSum += equalCount;
+    }
+    
+    runBlocks(Phase.SCATTER);
+    runBlocks(Phase.COPY);
+    less = null;
+    equal = null;
+  }
+  
+  private void runBlocks(Phase phase) {
+    BlockAction[] actions = new BlockAction[blocks];
+    for (int b = 0; b < blocks; b++) {
+      actions[b] = new BlockAction(phase, b);
+    }
+    invokeAll(actions);
+  }
+  
+  /**
+   * Runs one phase of the partition over one block of the range.
+   */
+  private final class BlockAction extends RecursiveAction {
+    
+    /** serialVersionUID */
+    private static final long serialVersionUID = -4447624510945436719L;
+    
+    private final Phase phase;
+    private final int block;
+    
+    private BlockAction(Phase phase, int block) {
+      this.phase = phase;
+      this.block = block;
+    }
+    
+    @Override
+    protected void compute() {
+      int from = lo + (int) ((long) block * length / blocks);
+      int to = lo + (int) ((long) (block + 1) * length / blocks);
+      int[] array = IntPartitionAction.this.array;
+      int[] aux = IntPartitionAction.this.aux;
+      int pivot = IntPartitionAction.this.pivot;
+      switch (phase) {
+        case COUNT:
+          int lessCount = 0, equalCount = 0;
+          for (int i = from; i < to; i++) {
+            int value = array[i];
+            if (value < pivot) {
+              lessCount++;
+            }
+            else if (value == pivot) {
+              equalCount++;
+            }
+          }
+          less[block] = lessCount;
+          equal[block] = equalCount;
+          break;
+        case SCATTER:
+          // Every value in an earlier block that is neither less than nor equal to the pivot is greater than it
+          int lessIndex = less[block], equalIndex = equal[block];
+          int greaterIndex = greaterStart + (from - lo) - (lessIndex - lo) - (equalIndex - lessEnd);
+          int base = auxBase;
+          for (int i = from; i < to; i++) {
+            int value = array[i];
+            if (value < pivot) {
+              aux[lessIndex++ - base] = value;
+            }
+            else if (value == pivot) {
+              aux[equalIndex++ - base] = value;
+            }
+            else {
+              aux[greaterIndex++ - base] = value;
+            }
+          }
+          break;
+        case COPY:
+          System.arraycopy(aux, from - auxBase, array, from, to - from);
+          break;
+      }
+    }
+  }
+  
+}
@@ -4,25 +4,60 @@
 
 package uk.co.bluettduncanj.parallel;
 
-import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.CountedCompleter;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+import uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy;
+import uk.co.bluettduncanj.serial.SortWorkspace;
 
 
 /**
- * An implementation of <tt>RecursiveAction</tt> for quicksorting <tt>int</tt> arrays, used by <tt>ParallelQuicksort</tt>.
+ * <p>An implementation of <tt>CountedCompleter</tt> for quicksorting <tt>int</tt> arrays, used by
+ * <tt>ParallelQuicksort</tt>.</p>
+ * 
+ * <p>Each task 3-way partitions its range, forks a new task for the larger of the two
+ * unsorted partitions, and carries on partitioning the smaller one itself, until what it has left is no bigger than
+ * {@link ParallelQuicksort#SEQUENTIAL_CUTOFF}, which it sorts with {@code QuicksortBentleyMcIlroy}. So there is only one
+ * new task per split, and no task ever waits for another: a task completes once it and all of the tasks it forked have
+ * finished, and the sort is complete when the first task is.</p>
+ * 
+ * <p>Ranges of at least {@link ParallelQuicksort#PARALLEL_PARTITION_CUTOFF} elements are partitioned by the whole pool
+ * (see <tt>IntPartitionAction</tt>), through a scratch array that the first task borrows from a <tt>SortWorkspace</tt> and shares
+ * with all of the others, so that the first few levels of the sort aren't limited to one task each. Smaller ranges are partitioned with
+ * the Bentley-McIlroy method.</p>
  * 
  * @since 1.7
  * 
  * @author Jonathan Bluett-Duncan
  */
 @Deprecated
-public class IntQuicksortAction extends RecursiveAction {
-
+public class IntQuicksortAction extends CountedCompleter<Void> {
+  
   /** serialVersionUID */
   private static final long serialVersionUID = -8148918232918180414L;
   
-  private int[] array;
-  private int lo;
-  private int hi;
+  private final int[] array;
+  private final int lo;
+  private final int hi;
+  
+  // Instrumentation: the statistics of the sort this task belongs to (null when disabled), and its recursion depth
+  private final SortStats stats;
+  private final int depth;
+  
+  // Task tree counts for ParallelSortEvent (null unless the event is enabled), and this task's depth in the task tree
+  private final TaskTrace trace;
+  private final int taskDepth;
+  
+  // Cancellation, deadline and progress reporting for asynchronous sorts (null for synchronous ones)
+  private final SortControl control;
+  
+  // Where the scratch space for parallel partitions is borrowed from, by the first task that needs it
+  private final SortWorkspace workspace;
+  
+  // Scratch space for parallel partitions (null until needed), where aux[i - auxBase] is used for array[i]
+  private int[] aux;
+  private int auxBase;
   
   /**
    * Public <tt>IntQuicksortAction</tt> constructor.
@@ -35,221 +70,255 @@ public class IntQuicksortAction extends RecursiveAction {
    *          The index in <tt>array</tt> to sort to.
    */
   public IntQuicksortAction(int array[], int lo, int hi) {
+    this(array, lo, hi, new SortWorkspace());
+  }
+  
+  /**
+   * Constructs an <tt>IntQuicksortAction</tt> that borrows its scratch space from <tt>workspace</tt>.
+   * 
+   * @param <tt>workspace</tt>
+   *          The workspace to borrow the scratch array for parallel partitions from, which must not be used by anything
+   *          else until the sort is complete.
+   */
+  public IntQuicksortAction(int array[], int lo, int hi, SortWorkspace workspace) {
+    this(null, array, lo, hi, null, 0, null, workspace, null, 0);
+  }
+  
+  /**
+   * Constructs an <tt>IntQuicksortAction</tt> that records the shape of its task tree in <tt>trace</tt>.
+   * 
+   * @param <tt>trace</tt>
+   *          The counts shared by all tasks of the sort, or null to record nothing.
+   * @param <tt>taskDepth</tt>
+   *          The depth of this task in the task tree.
+   * @param <tt>control</tt>
+   *          The control of the asynchronous sort that this task is part of, or null if the sort is synchronous.
+   * @param <tt>workspace</tt>
+   *          The workspace to borrow the scratch array for parallel partitions from.
+   */
+  IntQuicksortAction(int array[], int lo, int hi, TaskTrace trace, int taskDepth, SortControl control,
+      SortWorkspace workspace) {
+    this(null, array, lo, hi, trace, taskDepth, control, workspace, null, 0);
+  }
+  
+  /**
+   * Constructs an <tt>IntQuicksortAction</tt> that was forked by <tt>parent</tt>, which doesn't complete until this
+   * task has.
+   */
+  private IntQuicksortAction(IntQuicksortAction parent, int array[], int lo, int hi, TaskTrace trace, int taskDepth,
+      SortControl control, SortWorkspace workspace, int[] aux, int auxBase) {
+    super(parent);
     this.lo = lo;
     this.hi = hi;
     this.array = array;
+    this.stats = SortMetrics.current();
+    this.depth = SortMetrics.depth();
+    this.trace = trace;
+    this.taskDepth = taskDepth;
+    this.control = control;
+    this.workspace = workspace;
+    this.aux = aux;
+    this.auxBase = auxBase;
   }
   
   /**
    * <p>Runs a Bentley-McIlroy 3-way partitioning Quicksort.</p>
    * 
    * <p>Sorts values according to the parameters passed to the <tt>IntQuicksortAction</tt> constructor.</p>
-   *
-   * @see java.util.concurrent.RecursiveAction#compute()
+   * 
+   * @see java.util.concurrent.CountedCompleter#compute()
    */
   @Override
-  protected void compute() {
-    int length = hi - lo + 1;
-    
-    // Use insertion sort if array is very small
-    if (length <= ParallelQuicksort.INSERTION_SORT_CUTOFF) {
-      insertionSort(lo, hi);
-      return;
-    }
-    
-    // Use median of lo, mid and hi elements as pivot for small-ish arrays
-    else if (length <= ParallelQuicksort.SIMPLE_MEDIAN3_CUTOFF) {
-      int mid = lo + (length / 2);
-      int pivot = median3(lo, mid, hi);
-      swap(lo, pivot);
+  public void compute() {
+    Object token = SortMetrics.attach(stats, depth);
+    try {
+      sort();
     }
-    
-    // Use "Tukey's ninther" as pivot for large arrays
-    else {
-      int eps = length / 8;
-      int mid = lo + (length / 2);
-      int med1 = median3(lo, lo + eps, lo + eps + eps);
-      int med2 = median3(mid - 1, mid, mid + 1);
-      int med3 = median3(hi - eps - eps, hi - eps, hi);
-      int pivotIndex = median3(med1, med2, med3); // Tukey's ninther
-      swap(lo, pivotIndex);
-    }
-    
-    // 3-way partition using the Bentley-McIlroy method
-    int i = lo, j = hi + 1, p = lo, q = j;
-    while (true) {
-      int pivot = array[lo];
-      while (array[++i] < pivot) {
-        if (i == hi) 
-          break;
-      }
-      while (pivot < array[--j]) {
-        if (j == lo) 
-          break;
-      }
-      if (i >= j) 
-        break;
-      swap(i, j);
-      if (array[i] == pivot)
-        swap(++p, i);
-      if (array[j] == pivot)
-        swap(--q, j);
-    }
-    swap(lo, j);
-    
-    i = j + 1;
-    j--;
-    for (int k = lo + 1; k <= p; k++)
-      swap(k, j--);
-    for (int k = hi; k >= q; k--)
-      swap(k, i++);
-    
-    // Recursively quicksort the two partitions not equal to the pivot...
-    if (length <= ParallelQuicksort.SEQUENTIAL_CUTOFF) {                  // ...sequentially if array is small
-      sortSequentially(array, lo, j);
-      sortSequentially(array, i, hi);
-    } else {                                                              // ...in parallel if array is large
-      IntQuicksortAction left  = new IntQuicksortAction(array, lo, j);
-      IntQuicksortAction right = new IntQuicksortAction(array, i, hi);
-      left.fork(); 
-      right.compute();
-      left.join();
+    finally {
+      SortMetrics.detach(token);
     }
+    tryComplete();
   }
   
-  private void sortSequentially(int[] array, int lo, int hi) {
-    int length = hi - lo + 1;
-    
-    // Use insertion sort if array is very small
-    if (length <= ParallelQuicksort.INSERTION_SORT_CUTOFF) {
-      insertionSort(lo, hi);
-      return;
-    }
-    
-    // Use median of lo, mid and hi elements as pivot for small-ish arrays
-    else if (length <= ParallelQuicksort.SIMPLE_MEDIAN3_CUTOFF) {
-      int mid = lo + (length / 2);
-      int pivot = median3(lo, mid, hi);
-      swap(lo, pivot);
+  private void sort() {
+    if (trace != null) {
+      trace.taskStarted(taskDepth);
     }
     
-    // Use "Tukey's ninther" as pivot for large arrays
-    else {
-      int eps = length / 8;
-      int mid = lo + (length / 2);
-      int med1 = median3(lo, lo + eps, lo + eps + eps);
-      int med2 = median3(mid - 1, mid, mid + 1);
-      int med3 = median3(hi - eps - eps, hi - eps, hi);
-      int pivotIndex = median3(med1, med2, med3); // Tukey's ninther
-      swap(lo, pivotIndex);
+    int lo = this.lo, hi = this.hi, levels = 0;
+    while (hi - lo + 1 > ParallelQuicksort.SEQUENTIAL_CUTOFF) {
+      if (control != null && control.shouldStop()) {
+        break;
+      }
+      int length = hi - lo + 1;
+      int i, j;
+      
+      // Partition large ranges in parallel...
+      if (length >= ParallelQuicksort.PARALLEL_PARTITION_CUTOFF && inForkJoinPool()
+          && getPool().getParallelism() > 1) {
+        if (aux == null) {
+          aux = workspace.ints(0, length);                                // Records the scratch space if it grows
+          auxBase = lo;
+        }
+        IntPartitionAction partition = new IntPartitionAction(array, aux, auxBase, lo, hi, array[pivotIndex(lo, hi)]);
+        partition.invoke();
+        SortMetrics.comparisons(4L * length);                             // At most 2 in each of 2 passes
+        SortMetrics.moves(2L * length);
+        j = partition.lessEnd() - 1;
+        i = partition.greaterStart();
+      }
+      
+      // ...and smaller ones in place, using the Bentley-McIlroy method
+      else {
+        swap(lo, pivotIndex(lo, hi));
+        i = lo;
+        j = hi + 1;
+        int p = lo, q = j;
+        while (true) {
+          int pivot = array[lo];
+          while (less(array[++i], pivot)) {
+            if (i == hi)
+              break;
+          }
+          while (less(pivot, array[--j])) {
+            if (j == lo)
+              break;
+          }
+          if (i >= j)
+            break;
+          swap(i, j);
+          if (equal(array[i], pivot))
+            swap(++p, i);
+          if (equal(array[j], pivot))
+            swap(--q, j);
+        }
+        swap(lo, j);
+        
+        i = j + 1;
+        j--;
+        for (int k = lo + 1; k <= p; k++)
+          swap(k, j--);
+        for (int k = hi; k >= q; k--)
+          swap(k, i++);
+      }
+      
+      if (control != null) {
+        control.finished(i - j - 1);                                      // The elements equal to the pivot are in place
+      }
+      
+      // Fork the larger partition, so that thieves take the most work, and carry on with the smaller one
+      SortMetrics.enter();
+      levels++;
+      addToPendingCount(1);
+      if (trace != null) {
+        trace.taskForked();
+      }
+      if (j - lo < hi - i) {
+        new IntQuicksortAction(this, array, i, hi, trace, taskDepth + 1, control, workspace, aux, auxBase).fork();
+        hi = j;
+      }
+      else {
+        new IntQuicksortAction(this, array, lo, j, trace, taskDepth + 1, control, workspace, aux, auxBase).fork();
+        lo = i;
+      }
     }
     
-    // 3-way partition using the Bentley-McIlroy method
-    int i = lo, j = hi + 1, p = lo, q = j;
-    while (true) {
-      int pivot = array[lo];
-      while (array[++i] < pivot) {
-        if (i == hi) 
-          break;
+    // Sort what's left with the serial engine
+    if (control == null || !control.shouldStop()) {
+      if (trace != null) {
+        trace.sequentialLeaf();
       }
-      while (pivot < array[--j]) {
-        if (j == lo) 
-          break;
+      QuicksortBentleyMcIlroy.quicksort(array, lo, hi);
+      if (control != null) {
+        control.finished(hi - lo + 1);
       }
-      if (i >= j) 
-        break;
-      swap(i, j);
-      if (array[i] == pivot)
-        swap(++p, i);
-      if (array[j] == pivot)
-        swap(--q, j);
     }
-    swap(lo, j);
-    
-    i = j + 1;
-    j--;
-    for (int k = lo + 1; k <= p; k++)
-      swap(k, j--);
-    for (int k = hi; k >= q; k--)
-      swap(k, i++);
-    
-    // Recursively sort in a sequential manner
-    sortSequentially(array, lo, j);
-    sortSequentially(array, i, hi);
+    while (levels-- > 0) {
+      SortMetrics.exit();
+    }
   }
   
   /**
-   * Insertion sort - Used on 'sufficiently small' (sub-)arrays.
+   * Chooses a pivot for a range: the median of the first, middle and last elements for small-ish ranges, and "Tukey's
+   * ninther" for large ones.
    * 
-   * Sorts a range of values between two inclusive indexes (<tt>lo</tt> and <tt>hi</tt>) within the array of integers.
-   * 
-   * This implementation uses the half-exchanges and sentinel approach for optimised sorting.
-   * 
-   * @param lo
-   *          The index <tt>array</tt> to sort from.
-   * @param hi
-   *          The index <tt>array</tt> to sort to.
+   * @return the index of the pivot.
    */
-  private void insertionSort(int lo, int hi) {
-    
-    // Put smallest element in position to serve as sentinel
-    for (int i = hi; i > lo; i--)
-      if (array[i] < array[i-1]) 
-        swap(i, i - 1);
-
-    // Insertion sort with half-exchanges
-    for (int i = lo + 2; i <= hi; i++) {
-      int value = array[i];
-      int j = i;
-      while (value < array[j-1]) {
-        array[j] = array[j-1];
-        j--;
-      }
-      array[j] = value;
+  private int pivotIndex(int lo, int hi) {
+    int length = hi - lo + 1;
+    int mid = lo + (length / 2);
+    if (length <= ParallelQuicksort.SIMPLE_MEDIAN3_CUTOFF) {
+      return median3(lo, mid, hi);
     }
+    int eps = length / 8;
+    int med1 = median3(lo, lo + eps, lo + eps + eps);
+    int med2 = median3(mid - 1, mid, mid + 1);
+    int med3 = median3(hi - eps - eps, hi - eps, hi);
+    return median3(med1, med2, med3); // Tukey's ninther
   }
   
   /**
    * Swap elements at two indices in <tt>array</tt>.
    * 
-   * @param i 
+   * @param i
    *          The index of the first element.
-   * @param j 
+   * @param j
    *          The index of the second element.
    */
   private void swap(int i, int j) {
+    SortMetrics.swap();
     int tmp = array[i];
     array[i] = array[j];
     array[j] = tmp;
   }
-
+  
   /**
    * Finds the median of values at three given indices in <tt>array</tt>, and returns the index of the median.
    * 
-   * @param a 
+   * @param a
    *          The first index.
-   * @param b 
+   * @param b
    *          The second index.
-   * @param c 
+   * @param c
    *          The third index.
    * 
    * @return the position of the median of elements in <tt>array</tt> at positions <tt>a</tt>, <tt>b</tt> and <tt>c</tt>.
    */
   private int median3(int a, int b, int c) {
-    if (array[a] > array[b]) {
-      if (array[b] > array[c])
+    if (less(array[b], array[a])) {
+      if (less(array[c], array[b]))
         return b;
-      if (array[a] > array[c])
+      if (less(array[c], array[a]))
         return c;
       return a;
     }
     else {
-      if (array[a] > array[c])
+      if (less(array[c], array[a]))
         return a;
-      if (array[b] > array[c])
+      if (less(array[c], array[b]))
         return c;
       return b;
     }
   }
   
+  /**
+   * Compares two values, recording the comparison when instrumentation is enabled.
+   * 
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(int a, int b) {
+    SortMetrics.comparison();
+    return a < b;
+  }
+  
+  /**
+   * Tests two values for equality, recording the comparison when instrumentation is enabled.
+   * 
+   * @return true if <tt>a</tt> equals <tt>b</tt>.
+   */
+  private static boolean equal(int a, int b) {
+    SortMetrics.comparison();
+    return a == b;
+  }
+  
 }
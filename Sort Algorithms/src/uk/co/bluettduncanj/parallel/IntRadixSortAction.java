@@ -0,0 +1,48 @@
+/**
+ * IntRadixSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * A <tt>RadixSortAction</tt> for sorting <tt>int</tt> arrays into ascending order, used by <tt>ParallelRadixSort</tt>.
+ * Keys are the values with their sign bit flipped, and only occupy the low 32 bits, so only 4 passes are made.
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+class IntRadixSortAction extends RadixSortAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = -2380567715520147381L;
+  
+  private final int[] array;
+  
+  /**
+   * @param array
+   *          The array of ints to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  IntRadixSortAction(int[] array, int lo, int hi, SortWorkspace workspace) {
+    super(lo, hi, Integer.SIZE / Byte.SIZE, workspace);
+    this.array = array;
+  }
+  
+  @Override
+  protected long key(int index) {
+    return (array[index] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+  }
+  
+  @Override
+  protected void store(int index, long key) {
+    array[index] = (int) key ^ Integer.MIN_VALUE;
+  }
+  
+}
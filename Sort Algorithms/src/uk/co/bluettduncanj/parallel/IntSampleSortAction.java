@@ -0,0 +1,118 @@
+/**
+ * IntSampleSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.Arrays;
+
+import uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy;
+import uk.co.bluettduncanj.serial.RadixSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * A <tt>SampleSortAction</tt> for sorting <tt>int</tt> arrays into ascending order, used by <tt>ParallelSampleSort</tt>.
+ * Buckets are sorted with {@code QuicksortBentleyMcIlroy}, or with {@code RadixSort} if they have at least
+ * {@link ParallelSampleSort#RADIX_SORT_CUTOFF} values.
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+class IntSampleSortAction extends SampleSortAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = -3050771434806154032L;
+  
+  private final int[] array;
+  private int[] aux;
+  private int[] splitters;
+  private int[] tree;
+  
+  /**
+   * @param array
+   *          The array of ints to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   * @param workspace
+   *          The workspace to borrow the scratch array from.
+   */
+  IntSampleSortAction(int[] array, int lo, int hi, SortWorkspace workspace) {
+    super(lo, hi, workspace);
+    this.array = array;
+  }
+  
+  @Override
+  protected void selectSplitters(int[] sample) {
+    int[] values = new int[sample.length];
+    for (int i = 0; i < sample.length; i++) {
+      values[i] = array[sample[i]];
+    }
+    Arrays.sort(values);
+    
+    // The last splitter is repeated, so that the equality test needs no bounds check: a value in the last bucket is
+    // greater than it
+    int buckets = 1 << logBuckets;
+    splitters = new int[buckets];
+    for (int b = 0; b < buckets - 1; b++) {
+      splitters[b] = values[(b + 1) * OVERSAMPLING - 1];
+    }
+    splitters[buckets - 1] = splitters[buckets - 2];
+    int[] order = treeOrder(logBuckets);
+    tree = new int[buckets];
+    for (int j = 1; j < buckets; j++) {
+      tree[j] = splitters[order[j]];
+    }
+    aux = workspace.ints(0, length);
+  }
+  
+  @Override
+  protected void classify(int from, int to, int[] count) {
+    int[] array = this.array, tree = this.tree, splitters = this.splitters;
+    short[] oracle = this.oracle;
+    int logBuckets = this.logBuckets, buckets = 1 << logBuckets;
+    for (int i = from; i < to; i++) {
+      int value = array[i];
+      int j = 1;
+      for (int level = 0; level < logBuckets; level++) {
+        j = 2 * j + (value > tree[j] ? 1 : 0);
+      }
+      int b = j - buckets;
+      int bucket = 2 * b + (value == splitters[b] ? 1 : 0);
+      oracle[i - lo] = (short) bucket;
+      count[bucket]++;
+    }
+  }
+  
+  @Override
+  protected void scatter(int from, int to, int[] offsets) {
+    int[] array = this.array, aux = this.aux;
+    short[] oracle = this.oracle;
+    for (int i = from; i < to; i++) {
+      aux[offsets[oracle[i - lo]]++] = array[i];
+    }
+  }
+  
+  @Override
+  protected void finishBucket(int from, int to, boolean sort) {
+    System.arraycopy(aux, from, array, lo + from, to - from);
+    if (!sort) {
+      return;
+    }
+    if (to - from < ParallelSampleSort.RADIX_SORT_CUTOFF) {
+      QuicksortBentleyMcIlroy.quicksort(array, lo + from, lo + to - 1);
+    }
+    else {
+      RadixSort.sort(array, lo + from, lo + to - 1, SortWorkspace.forCurrentThread());
+    }
+  }
+  
+  @Override
+  protected void release(boolean completed) {
+    aux = null;
+    splitters = null;
+    tree = null;
+  }
+  
+}
@@ -0,0 +1,78 @@
+/**
+ * InversionCountTask.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.RecursiveTask;
+
+import uk.co.bluettduncanj.serial.InversionCount;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * <p>A <tt>RecursiveTask</tt> that mergesorts a range of ints and counts its inversions, used by
+ * <tt>ParallelPresortedness</tt>.</p>
+ *
+ * <p>The two halves of the range are sorted and counted in parallel, and then merged in parallel by an
+ * <tt>InversionMergeTask</tt>, which counts the inversions between them. Ranges of at most {@link #SEQUENTIAL_CUTOFF}
+ * values are sorted and counted sequentially by {@code InversionCount}.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+class InversionCountTask extends RecursiveTask<Long> {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = -4126357001894765302L;
+  
+  static final int SEQUENTIAL_CUTOFF = 1 << 13;
+  
+  private final int[] array;
+  private final int[] aux;
+  private final int offset;
+  private final int lo;
+  private final int hi;
+  
+  /**
+   * @param array
+   *          The array to sort.
+   * @param aux
+   *          The auxiliary array, whose index 0 corresponds to index <tt>offset</tt> of <tt>array</tt>.
+   * @param offset
+   *          The index of <tt>array</tt> that the auxiliary array starts at.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   */
+  InversionCountTask(int[] array, int[] aux, int offset, int lo, int hi) {
+    this.array = array;
+    this.aux = aux;
+    this.offset = offset;
+    this.lo = lo;
+    this.hi = hi;
+  }
+  
+  @Override
+  protected Long compute() {
+    if (hi - lo + 1 <= SEQUENTIAL_CUTOFF) {
+      return InversionCount.sort(array, lo, hi, SortWorkspace.forCurrentThread());
+    }
+    int mid = (lo + hi) >>> 1;
+    InversionCountTask left = new InversionCountTask(array, aux, offset, lo, mid);
+    InversionCountTask right = new InversionCountTask(array, aux, offset, mid + 1, hi);
+    invokeAll(left, right);
+    long inversions = left.join() + right.join();
+    
+    // The halves are already in order, so there are no inversions between them
+    if (array[mid] <= array[mid + 1]) {
+      return inversions;
+    }
+    System.arraycopy(array, lo, aux, lo - offset, hi - lo + 1);
+    int rightFirst = mid + 1 - offset;
+    InversionMergeTask merge = new InversionMergeTask(aux, lo - offset, mid - offset, rightFirst, hi - offset,
+        rightFirst, array, lo);
+    return inversions + merge.invoke();
+  }
+  
+}
@@ -0,0 +1,106 @@
+/**
+ * InversionMergeTask.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.RecursiveTask;
+
+import uk.co.bluettduncanj.serial.InversionCount;
+
+
+/**
+ * <p>A <tt>RecursiveTask</tt> that merges two sorted ranges in parallel and counts the inversions between them, used by
+ * <tt>InversionCountTask</tt>.</p>
+ *
+ * <p>The longer range is split at its middle value, and the shorter one at the first value that belongs after it (so
+ * that ties still go to the left range first); the two pairs of pieces then merge into adjacent parts of the output
+ * independently. Every piece of the left range counts its inversions from the start of the whole right range, so the
+ * counts of the pieces simply add up. Merges of at most {@link #SEQUENTIAL_CUTOFF} values are done sequentially by
+ * {@code InversionCount}.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+class InversionMergeTask extends RecursiveTask<Long> {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 7760285311092541637L;
+  
+  static final int SEQUENTIAL_CUTOFF = 1 << 13;
+  
+  private final int[] from;
+  private final int leftStart, leftEnd;
+  private final int rightStart, rightEnd;
+  private final int rightFirst;
+  private final int[] to;
+  private final int toStart;
+  
+  /**
+   * See {@code InversionCount.merge} for the meaning of the parameters.
+   */
+  InversionMergeTask(int[] from, int leftStart, int leftEnd, int rightStart, int rightEnd, int rightFirst, int[] to,
+      int toStart) {
+    this.from = from;
+    this.leftStart = leftStart;
+    this.leftEnd = leftEnd;
+    this.rightStart = rightStart;
+    this.rightEnd = rightEnd;
+    this.rightFirst = rightFirst;
+    this.to = to;
+    this.toStart = toStart;
+  }
+  
+  @Override
+  protected Long compute() {
+    int leftLength = leftEnd - leftStart + 1, rightLength = rightEnd - rightStart + 1;
+    if (leftLength + rightLength <= SEQUENTIAL_CUTOFF || leftLength == 0) {
+      return InversionCount.merge(from, leftStart, leftEnd, rightStart, rightEnd, rightFirst, to, toStart);
+    }
+    
+    int leftSplit, rightSplit;
+    if (leftLength >= rightLength) {
+      // Right values less than the left's middle value go before it
+      leftSplit = (leftStart + leftEnd) >>> 1;
+      rightSplit = lowerBound(from, rightStart, rightEnd + 1, from[leftSplit]);
+    }
+    else {
+      // Left values equal to the right's middle value go before it
+      rightSplit = (rightStart + rightEnd) >>> 1;
+      leftSplit = upperBound(from, leftStart, leftEnd + 1, from[rightSplit]);
+    }
+    int toSplit = toStart + (leftSplit - leftStart) + (rightSplit - rightStart);
+    InversionMergeTask before = new InversionMergeTask(from, leftStart, leftSplit - 1, rightStart, rightSplit - 1,
+        rightFirst, to, toStart);
+    InversionMergeTask after = new InversionMergeTask(from, leftSplit, leftEnd, rightSplit, rightEnd, rightFirst, to,
+        toSplit);
+    invokeAll(before, after);
+    return before.join() + after.join();
+  }
+  
+  /**
+   * @return the first index from <tt>lo</tt> to <tt>hi - 1</tt> whose value is at least <tt>value</tt>, or
+   *         <tt>hi</tt> if there is none.
+   */
+  private static int lowerBound(int[] array, int lo, int hi, int value) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (array[mid] < value) lo = mid + 1;
+      else                    hi = mid;
+    }
+    return lo;
+  }
+  
+  /**
+   * @return the first index from <tt>lo</tt> to <tt>hi - 1</tt> whose value is greater than <tt>value</tt>, or
+   *         <tt>hi</tt> if there is none.
+   */
+  private static int upperBound(int[] array, int lo, int hi, int value) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (array[mid] <= value) lo = mid + 1;
+      else                     hi = mid;
+    }
+    return lo;
+  }
+  
+}
@@ -0,0 +1,110 @@
+/**
+ * LongSampleSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.Arrays;
+
+import uk.co.bluettduncanj.serial.RadixSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * A <tt>SampleSortAction</tt> for sorting <tt>long</tt> arrays into ascending order, used by
+ * <tt>ParallelSampleSort</tt>. Buckets are sorted with {@code RadixSort}.
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+class LongSampleSortAction extends SampleSortAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = -3050771434806154032L;
+  
+  private final long[] array;
+  private long[] aux;
+  private long[] splitters;
+  private long[] tree;
+  
+  /**
+   * @param array
+   *          The array of longs to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   * @param workspace
+   *          The workspace to borrow the scratch array from.
+   */
+  LongSampleSortAction(long[] array, int lo, int hi, SortWorkspace workspace) {
+    super(lo, hi, workspace);
+    this.array = array;
+  }
+  
+  @Override
+  protected void selectSplitters(int[] sample) {
+    long[] values = new long[sample.length];
+    for (int i = 0; i < sample.length; i++) {
+      values[i] = array[sample[i]];
+    }
+    Arrays.sort(values);
+    
+    // The last splitter is repeated, so that the equality test needs no bounds check: a value in the last bucket is
+    // greater than it
+    int buckets = 1 << logBuckets;
+    splitters = new long[buckets];
+    for (int b = 0; b < buckets - 1; b++) {
+      splitters[b] = values[(b + 1) * OVERSAMPLING - 1];
+    }
+    splitters[buckets - 1] = splitters[buckets - 2];
+    int[] order = treeOrder(logBuckets);
+    tree = new long[buckets];
+    for (int j = 1; j < buckets; j++) {
+      tree[j] = splitters[order[j]];
+    }
+    aux = workspace.longs(0, length);
+  }
+  
+  @Override
+  protected void classify(int from, int to, int[] count) {
+    long[] array = this.array, tree = this.tree, splitters = this.splitters;
+    short[] oracle = this.oracle;
+    int logBuckets = this.logBuckets, buckets = 1 << logBuckets;
+    for (int i = from; i < to; i++) {
+      long value = array[i];
+      int j = 1;
+      for (int level = 0; level < logBuckets; level++) {
+        j = 2 * j + (value > tree[j] ? 1 : 0);
+      }
+      int b = j - buckets;
+      int bucket = 2 * b + (value == splitters[b] ? 1 : 0);
+      oracle[i - lo] = (short) bucket;
+      count[bucket]++;
+    }
+  }
+  
+  @Override
+  protected void scatter(int from, int to, int[] offsets) {
+    long[] array = this.array, aux = this.aux;
+    short[] oracle = this.oracle;
+    for (int i = from; i < to; i++) {
+      aux[offsets[oracle[i - lo]]++] = array[i];
+    }
+  }
+  
+  @Override
+  protected void finishBucket(int from, int to, boolean sort) {
+    System.arraycopy(aux, from, array, lo + from, to - from);
+    if (sort) {
+      RadixSort.sort(array, lo + from, lo + to - 1, SortWorkspace.forCurrentThread());
+    }
+  }
+  
+  @Override
+  protected void release(boolean completed) {
+    aux = null;
+    splitters = null;
+    tree = null;
+  }
+  
+}
@@ -0,0 +1,67 @@
+/**
+ * ParallelAmericanFlagSort.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+
+import uk.co.bluettduncanj.serial.AmericanFlagSort;
+
+
+/**
+ * <p>The <tt>ParallelAmericanFlagSort</tt> class is a parallelised version of {@code AmericanFlagSort}, which sorts
+ * <tt>String</tt> arrays into the order of {@link String#compareTo(String)}, and <tt>byte[]</tt> arrays into unsigned
+ * lexicographic order.</p>
+ * 
+ * <p>A range is distributed into buckets by its first distinguishing digit, in place, by one task; the buckets are then
+ * sorted concurrently, each one being split again in the same way while it has at least {@link #PARALLEL_CUTOFF} keys
+ * (see <tt>StringFlagSortAction</tt>). Smaller buckets, and ranges smaller than {@link #PARALLEL_CUTOFF}, are sorted
+ * sequentially with {@code AmericanFlagSort}.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public final class ParallelAmericanFlagSort {
+  
+  private static final ForkJoinPool sortPool = SortPool.POOL;
+  
+  public static final int PARALLEL_CUTOFF = 1 << 13;
+  
+  /*
+   * Private constructor - prevent instantiation.
+   */
+  private ParallelAmericanFlagSort() {}
+  
+  public static void sort(String[] array) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1);
+    }
+  }
+  
+  public static void sort(String[] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      AmericanFlagSort.sort(array, lo, hi);
+      return;
+    }
+    sortPool.invoke(new StringFlagSortAction(array, lo, hi, 0));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+  public static void sort(byte[][] array) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1);
+    }
+  }
+  
+  public static void sort(byte[][] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      AmericanFlagSort.sort(array, lo, hi);
+      return;
+    }
+    sortPool.invoke(new ByteArrayFlagSortAction(array, lo, hi, 0));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+}
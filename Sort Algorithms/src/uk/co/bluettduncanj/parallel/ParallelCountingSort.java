@@ -0,0 +1,153 @@
+/**
+ * ParallelCountingSort.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import uk.co.bluettduncanj.serial.CountingSort;
+
+
+/**
+ * <p>The <tt>ParallelCountingSort</tt> class is a parallelised version of {@code CountingSort}, for <tt>byte</tt>,
+ * <tt>short</tt> and <tt>char</tt> arrays, and for <tt>int</tt> arrays whose range of values is small relative to their
+ * length.</p>
+ * 
+ * <p>Histograms are built per block in parallel and the sorted values are written back in parallel (see
+ * <tt>CountingSortAction</tt>). The minimum and maximum of an <tt>int</tt> array are found with a parallel reduction; if
+ * its range is too wide to count, it is quicksorted in parallel instead. Ranges smaller than {@link #PARALLEL_CUTOFF} are
+ * sorted sequentially with {@code CountingSort}.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public final class ParallelCountingSort {
+  
+  private static final ForkJoinPool sortPool = SortPool.POOL;
+  
+  public static final int PARALLEL_CUTOFF = 1 << 17;
+  
+  /*
+   * Private constructor - prevent instantiation.
+   */
+  private ParallelCountingSort() {}
+  
+  public static void sort(byte[] array) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1);
+    }
+  }
+  
+  public static void sort(byte[] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      CountingSort.sort(array, lo, hi);
+      return;
+    }
+    sortPool.invoke(new ByteCountingSortAction(array, lo, hi));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+  public static void sort(short[] array) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1);
+    }
+  }
+  
+  public static void sort(short[] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      CountingSort.sort(array, lo, hi);
+      return;
+    }
+    sortPool.invoke(new ShortCountingSortAction(array, lo, hi));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+  public static void sort(char[] array) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1);
+    }
+  }
+  
+  public static void sort(char[] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      CountingSort.sort(array, lo, hi);
+      return;
+    }
+    sortPool.invoke(new CharCountingSortAction(array, lo, hi));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+  public static void sort(int[] array) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1);
+    }
+  }
+  
+  @SuppressWarnings("deprecation")
+  public static void sort(int[] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      CountingSort.sort(array, lo, hi);
+      return;
+    }
+    int[] minMax = sortPool.invoke(new MinMaxTask(array, lo, hi));
+    if (CountingSort.isCountable(hi - lo + 1, minMax[0], minMax[1])) {
+      sortPool.invoke(new IntCountingSortAction(array, lo, hi, minMax[0], minMax[1]));
+      SortPool.sorted(hi - lo + 1);
+    }
+    else {
+      ParallelQuicksort.sort(array, lo, hi);
+    }
+  }
+  
+  /**
+   * Finds the minimum and maximum values of <tt>array[lo..hi]</tt> by parallel reduction.
+   */
+  private static final class MinMaxTask extends RecursiveTask<int[]> {
+    
+    /** serialVersionUID */
+    private static final long serialVersionUID = -2176420436262553367L;
+    
+    private static final int SEQUENTIAL_CUTOFF = 1 << 15;
+    
+    private final int[] array;
+    private final int lo;
+    private final int hi;
+    
+    private MinMaxTask(int[] array, int lo, int hi) {
+      this.array = array;
+      this.lo = lo;
+      this.hi = hi;
+    }
+    
+    @Override
+    protected int[] compute() {
+      if (hi - lo < SEQUENTIAL_CUTOFF) {
+        int min = array[lo], max = min;
+        for (int i = lo + 1; i <= hi; i++) {
+          int value = array[i];
+          if (value < min) {
+            min = value;
+          }
+          else if (value > max) {
+            max = value;
+          }
+        }
+        return new int[] { min, max };
+      }
+      int mid = lo + (hi - lo) / 2;
+      MinMaxTask left = new MinMaxTask(array, lo, mid);
+      left.fork();
+      int[] right = new MinMaxTask(array, mid + 1, hi).compute();
+      int[] result = left.join();
+      result[0] = Math.min(result[0], right[0]);
+      result[1] = Math.max(result[1], right[1]);
+      return result;
+    }
+  }
+  
+}
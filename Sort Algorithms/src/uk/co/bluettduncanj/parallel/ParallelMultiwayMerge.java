@@ -0,0 +1,92 @@
+/**
+ * ParallelMultiwayMerge.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+
+import uk.co.bluettduncanj.serial.MultiwayMerge;
+
+
+/**
+ * <p>The <tt>ParallelMultiwayMerge</tt> class merges already sorted <tt>int</tt> and <tt>long</tt> arrays ("runs"),
+ * such as the sorted outputs of several shards, into one sorted array, without throwing away their order by
+ * concatenating and re-sorting them.</p>
+ *
+ * <p>The output is divided into several parts per worker of the pool (each of at least {@link #MIN_PART_SIZE} values),
+ * and the part boundaries are located in every run by multi-sequence selection, so that every part can be merged
+ * independently and in parallel (see <tt>IntMultiwayMergeAction</tt>). Merges smaller than {@link #PARALLEL_CUTOFF}
+ * are done sequentially with {@code MultiwayMerge}.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public final class ParallelMultiwayMerge {
+  
+  private static final ForkJoinPool sortPool = SortPool.POOL;
+  
+  public static final int PARALLEL_CUTOFF = 1 << 16;
+  
+  /**
+   * Parts of the output are never made smaller than this, so that locating their boundaries stays cheap relative to
+   * merging them.
+   */
+  public static final int MIN_PART_SIZE = 1 << 13;
+  
+  /**
+   * The number of parts per worker of the pool, to even out the differences in how long the parts take to merge.
+   */
+  private static final int PARTS_PER_WORKER = 4;
+  
+  /*
+   * Private constructor - prevent instantiation.
+   */
+  private ParallelMultiwayMerge() {}
+  
+  /**
+   * Merges sorted runs into a new sorted array.
+   * 
+   * @param runs
+   *          The sorted arrays to merge.
+   * @return a sorted array of every value in <tt>runs</tt>.
+   * @throws IllegalArgumentException
+   *           If the runs hold more values in all than an array can.
+   */
+  public static int[] mergeSorted(int[]... runs) {
+    int n = MultiwayMerge.totalLength(runs);
+    if (n < PARALLEL_CUTOFF) {
+      return MultiwayMerge.merge(runs);
+    }
+    int[] out = new int[n];
+    int parts = parts(n);
+    sortPool.invoke(new IntMultiwayMergeAction(runs, out, parts, 0, parts - 1));
+    SortPool.sorted(n);
+    return out;
+  }
+  
+  /**
+   * Merges sorted runs into a new sorted array.
+   * 
+   * @param runs
+   *          The sorted arrays to merge.
+   * @return a sorted array of every value in <tt>runs</tt>.
+   * @throws IllegalArgumentException
+   *           If the runs hold more values in all than an array can.
+   */
+  public static long[] mergeSorted(long[]... runs) {
+    int n = MultiwayMerge.totalLength(runs);
+    if (n < PARALLEL_CUTOFF) {
+      return MultiwayMerge.merge(runs);
+    }
+    long[] out = new long[n];
+    int parts = parts(n);
+    sortPool.invoke(new LongMultiwayMergeAction(runs, out, parts, 0, parts - 1));
+    SortPool.sorted(n);
+    return out;
+  }
+  
+  private static int parts(int n) {
+    return Math.max(1, Math.min(PARTS_PER_WORKER * sortPool.getParallelism(), n / MIN_PART_SIZE));
+  }
+  
+}
@@ -0,0 +1,163 @@
+/**
+ * ParallelPresortedness.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import uk.co.bluettduncanj.serial.InversionCount;
+import uk.co.bluettduncanj.serial.Presortedness;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * <p>The <tt>ParallelPresortedness</tt> class is a parallelised version of {@code Presortedness}, which measures how
+ * disordered an array of ints is, and of {@code InversionCount}, which counts its inversions with a mergesort.</p>
+ *
+ * <p>{@link #isSorted(int[], int, int)}, {@link #runs(int[], int, int)} and {@link #longestRun(int[], int, int)} are
+ * parallel scans (see <tt>RunScanTask</tt>); <tt>isSorted</tt> stops as soon as any task finds a value out of order.
+ * Inversions are counted by a fork/join mergesort whose merges are also parallel (see <tt>InversionCountTask</tt>),
+ * and the maximum displacement by sorting the values paired with their indexes with {@code ParallelSampleSort}.
+ * Ranges smaller than {@link #PARALLEL_CUTOFF} are measured sequentially.</p>
+ *
+ * <p>The overloads of <tt>inversions</tt> and <tt>sort</tt> that take a <tt>SortWorkspace</tt> borrow the mergesort's
+ * copy and auxiliary array from it, instead of allocating new ones; the workspace must not be used by anything else
+ * until they return.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public final class ParallelPresortedness {
+  
+  private static final ForkJoinPool sortPool = SortPool.POOL;
+  
+  public static final int PARALLEL_CUTOFF = 1 << 16;
+  
+  /*
+   * Private constructor - prevent instantiation.
+   */
+  private ParallelPresortedness() {}
+  
+  public static boolean isSorted(int[] array) {
+    return array.length < 2 || isSorted(array, 0, array.length-1);
+  }
+  
+  /**
+   * @return true if array[lo..hi] is in non-descending order.
+   */
+  public static boolean isSorted(int[] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      return Presortedness.isSorted(array, lo, hi);
+    }
+    AtomicBoolean descentFound = new AtomicBoolean();
+    sortPool.invoke(new RunScanTask(array, lo, hi, descentFound));
+    return !descentFound.get();
+  }
+  
+  public static int runs(int[] array) {
+    return (array.length == 0) ? 0 : runs(array, 0, array.length-1);
+  }
+  
+  /**
+   * @return the number of maximal non-descending runs in array[lo..hi].
+   */
+  public static int runs(int[] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      return Presortedness.runs(array, lo, hi);
+    }
+    RunScanTask scan = new RunScanTask(array, lo, hi, null);
+    sortPool.invoke(scan);
+    return scan.descents + 1;
+  }
+  
+  public static int longestRun(int[] array) {
+    return (array.length == 0) ? 0 : longestRun(array, 0, array.length-1);
+  }
+  
+  /**
+   * @return the length of the longest non-descending run in array[lo..hi].
+   */
+  public static int longestRun(int[] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      return Presortedness.longestRun(array, lo, hi);
+    }
+    RunScanTask scan = new RunScanTask(array, lo, hi, null);
+    sortPool.invoke(scan);
+    return scan.longestRun;
+  }
+  
+  public static long inversions(int[] array) {
+    return (array.length < 2) ? 0 : inversions(array, 0, array.length-1);
+  }
+  
+  /**
+   * @return the number of inversions in array[lo..hi], which is left as it was.
+   */
+  public static long inversions(int[] array, int lo, int hi) {
+    return inversions(array, lo, hi, new SortWorkspace());
+  }
+  
+  /**
+   * As {@link #inversions(int[], int, int)}, but borrows the copy of the range and the auxiliary array from
+   * <tt>workspace</tt>.
+   */
+  public static long inversions(int[] array, int lo, int hi, SortWorkspace workspace) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      return InversionCount.count(array, lo, hi, workspace);
+    }
+    int length = hi - lo + 1;
+    int[] copy = workspace.ints(1, length);
+    System.arraycopy(array, lo, copy, 0, length);
+    return sortPool.invoke(new InversionCountTask(copy, workspace.ints(0, length), 0, 0, length - 1));
+  }
+  
+  public static long sort(int[] array) {
+    return (array.length < 2) ? 0 : sort(array, 0, array.length-1);
+  }
+  
+  /**
+   * Sorts array[lo..hi], and counts the inversions it had.
+   * 
+   * @return the number of inversions that the range had.
+   */
+  public static long sort(int[] array, int lo, int hi) {
+    return sort(array, lo, hi, new SortWorkspace());
+  }
+  
+  /**
+   * As {@link #sort(int[], int, int)}, but borrows the auxiliary array from <tt>workspace</tt>.
+   */
+  public static long sort(int[] array, int lo, int hi, SortWorkspace workspace) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      return InversionCount.sort(array, lo, hi, workspace);
+    }
+    long inversions = sortPool.invoke(new InversionCountTask(array, workspace.ints(0, hi - lo + 1), lo, lo, hi));
+    SortPool.sorted(hi - lo + 1);
+    return inversions;
+  }
+  
+  public static int maxDisplacement(int[] array) {
+    return (array.length < 2) ? 0 : maxDisplacement(array, 0, array.length-1);
+  }
+  
+  /**
+   * @return the greatest distance between the index of a value in array[lo..hi] and its index once the range is stably
+   *         sorted.
+   */
+  public static int maxDisplacement(int[] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      return Presortedness.maxDisplacement(array, lo, hi);
+    }
+    long[] keys = Presortedness.indexedKeys(array, lo, hi);
+    ParallelSampleSort.sort(keys);
+    return Presortedness.maxDisplacement(keys);
+  }
+  
+}
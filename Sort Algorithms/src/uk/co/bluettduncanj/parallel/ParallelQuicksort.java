@@ -4,7 +4,16 @@
 
 package uk.co.bluettduncanj.parallel;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+import uk.co.bluettduncanj.tuning.Cutoff;
 
 
 /**
@@ -17,6 +26,13 @@ import java.util.concurrent.ForkJoinPool;
  * as outlined in their journal article <i>Engineering a sort function</i>.
  * </p>
  * 
+ * <p>The <tt>int</tt> sorts that are given a <tt>SortWorkspace</tt> borrow the scratch array for their parallel
+ * partitions from it, instead of allocating a new one; the workspace must not be used by anything else until the sort
+ * returns.</p>
+ * 
+ * <p><tt>int</tt> arrays can also be sorted asynchronously with <tt>sortAsync</tt>, which returns a
+ * <tt>CompletableFuture</tt> that can be cancelled or given a deadline, and optionally reports progress.</p>
+ * 
  * <p>However, it should be noted that this class in its current state actually runs slower than I'd expect it to. It's probably
  * due to a mistake on my part, so please don't actually use this class in any production code!</p>
  * 
@@ -42,11 +58,14 @@ public class ParallelQuicksort {
   // using "10. Faster (Unstable) Merge" at http://algs4.cs.princeton.edu/22mergesort/, or a merge that only uses
   // a half-size array (if possible without much effort), or both.
   
-  private static final ForkJoinPool sortPool    = new ForkJoinPool();
+  private static final ForkJoinPool sortPool    = SortPool.POOL;
   
-  public static final int INSERTION_SORT_CUTOFF =    7;
-  public static final int SIMPLE_MEDIAN3_CUTOFF =   40;
-  public static final int SEQUENTIAL_CUTOFF     = 2048;
+  // Machine-tuned cutoffs (see Cutoff), which default to 9, 40, 2048 and 2^18. Sub-arrays of at most SEQUENTIAL_CUTOFF
+  // elements are sorted by QuicksortBentleyMcIlroy, so INSERTION_SORT_CUTOFF is that class's insertion sort cutoff
+  public static final int INSERTION_SORT_CUTOFF     = Cutoff.BENTLEY_MCILROY_INSERTION_SORT.value() - 1;
+  public static final int SIMPLE_MEDIAN3_CUTOFF     = Cutoff.PARALLEL_QUICKSORT_MEDIAN3.value();
+  public static final int SEQUENTIAL_CUTOFF         = Cutoff.PARALLEL_QUICKSORT_SEQUENTIAL.value();
+  public static final int PARALLEL_PARTITION_CUTOFF = Cutoff.PARALLEL_QUICKSORT_PARALLEL_PARTITION.value();
   
   /*
    * Private constructor - prevent instantiation.
@@ -57,46 +76,224 @@ public class ParallelQuicksort {
     sort(array, 0, array.length-1);
   }
   
+  public static void sort(int[] array, SortWorkspace workspace) {
+    sort(array, 0, array.length-1, workspace);
+  }
+  
   public static void sort(int[] array, int lo, int hi) {
-    checkRange(lo, hi, array.length);
-    sortPool.invoke(new IntQuicksortAction(array, lo, hi));
+    sort(array, lo, hi, new SortWorkspace());
   }
   
-  /*
-  public static void sort(long[] array) {
-    sort(array, 0, array.length-1);
+  public static void sort(int[] array, int lo, int hi, SortWorkspace workspace) {
+    SortPool.checkRange(lo, hi, array.length);
+    invoke(array, lo, hi, null, workspace);
   }
   
-  public static void sort(long[] array, int lo, int hi) {
-    checkRange(lo, hi, array.length);
-    sortPool.invoke(new LongQuicksortAction(array, lo, hi));
+  /**
+   * A convenience method for sortAsync(int[] array, int lo, int hi, SortProgressListener listener) that sorts an entire
+   * array without reporting progress.
+   * 
+   * @param array
+   *          The array to sort.
+   * @return a future that completes when the array is sorted.
+   */
+  public static CompletableFuture<Void> sortAsync(int[] array) {
+    return sortAsync(array, 0, array.length-1, null);
+  }
+  
+  /**
+   * <p>Starts sorting a range of an array in the background, and returns immediately.</p>
+   * 
+   * <p>Cancelling the returned future stops the sort's tasks cooperatively. Each task checks whether to stop before
+   * each partitioning step and before its sequential leaf, but a step that has already started runs to completion, so
+   * stopping can take as long as partitioning the whole range (the first step). The future is only completed once
+   * every task has stopped, so <tt>cancel</tt> blocks until then, and once the future is done the range is no longer in
+   * use. A sort that is stopped leaves the range holding the same values in an unspecified order. Completing the
+   * future in any other way (e.g. with <tt>complete</tt>) also stops the tasks, but doesn't wait for them.</p>
+   * 
+   * @param array
+   *          The array to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   * @param listener
+   *          Receives the estimated fraction of the sort that is complete as it progresses, or null.
+   * @return a future that completes when the range is sorted, or completes exceptionally if the sort fails.
+   */
+  public static CompletableFuture<Void> sortAsync(int[] array, int lo, int hi, SortProgressListener listener) {
+    SortPool.checkRange(lo, hi, array.length);
+    return start(array, lo, hi, SortControl.NO_TIMEOUT, listener);
+  }
+  
+  /**
+   * As {@link #sortAsync(int[], int, int, SortProgressListener)}, except that the sort is stopped if it hasn't finished
+   * within the given time, and the future is completed exceptionally with a <tt>TimeoutException</tt> once its tasks
+   * have stopped.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   * @param timeout
+   *          The maximum time to spend sorting.
+   * @param unit
+   *          The unit of <tt>timeout</tt>.
+   * @param listener
+   *          Receives the estimated fraction of the sort that is complete as it progresses, or null.
+   * @return a future that completes when the range is sorted, or completes exceptionally if the sort times out or fails.
+   */
+  public static CompletableFuture<Void> sortAsync(int[] array, int lo, int hi, long timeout, TimeUnit unit,
+      SortProgressListener listener) {
+    SortPool.checkRange(lo, hi, array.length);
+    return start(array, lo, hi, unit.toNanos(timeout), listener);
   }
   
+  private static CompletableFuture<Void> start(final int[] array, final int lo, final int hi, long timeoutNanos,
+      SortProgressListener listener) {
+    final SortFuture future = new SortFuture();
+    final SortControl control = new SortControl(future, timeoutNanos, hi - lo + 1, listener);
+    future.control = control;
+    try {
+      sortPool.execute(new Runnable() {
+        @Override
+        public void run() {
+          Throwable failure = null;
+          try {
+            invoke(array, lo, hi, control, new SortWorkspace());
+          }
+          catch (Throwable t) {
+            failure = t;
+          }
+          future.settle(failure);
+        }
+      });
+    }
+    catch (RuntimeException e) {
+      future.settle(e);
+    }
+    return future;
+  }
+  
+  /**
+   * The future of an asynchronous sort, which is only completed once the sort's tasks have all stopped.
+   */
+  private static final class SortFuture extends CompletableFuture<Void> {
+    
+    private final CountDownLatch settled = new CountDownLatch(1);
+    
+    // Set before the sort starts
+    SortControl control;
+    
+    /**
+     * Stops the sort, and waits for its tasks to stop.
+     * 
+     * @return true if the sort was cancelled, or false if it had already finished or been stopped for another reason.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      control.stop(new CancellationException("Sort cancelled"));
+      try {
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+          @Override
+          public boolean block() throws InterruptedException {
+            settled.await();
+            return true;
+          }
+          
+          @Override
+          public boolean isReleasable() {
+            return settled.getCount() == 0;
+          }
+        });
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return isCancelled();
+    }
+    
+    /**
+     * Completes the future once the sort's tasks have stopped: exceptionally if the sort failed or was stopped, or
+     * normally if it finished.
+     */
+    void settle(Throwable failure) {
+      Throwable stopCause = control.stopCause();
+      if (failure != null) {
+        completeExceptionally(failure);
+      }
+      else if (stopCause instanceof CancellationException) {
+        super.cancel(false);
+      }
+      else if (stopCause != null) {
+        completeExceptionally(stopCause);
+      }
+      else {
+        complete(null);                                                   // No effect if completed from outside
+      }
+      settled.countDown();
+    }
+  }
+  
+  /*
+   * Runs a sort in the pool, with instrumentation, and waits for it to finish.
+   */
+  private static void invoke(int[] array, int lo, int hi, SortControl control, SortWorkspace workspace) {
+    ParallelSortEvent event = new ParallelSortEvent();
+    TaskTrace trace = event.isEnabled() ? new TaskTrace() : null;
+    SortStats stats = SortMetrics.begin("ParallelQuicksort", hi - lo + 1);
+    try {
+      event.begin();
+      sortPool.invoke(new IntQuicksortAction(array, lo, hi, trace, 0, control, workspace));
+      event.end();
+      SortPool.sorted(hi - lo + 1);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+    if (trace != null) {
+      event.commit(hi - lo + 1, trace);
+    }
+  }
+  
+  /*
+   * byte, short and char arrays have such small domains that counting sort is strictly better than quicksort for them.
+   */
+  
   public static void sort(byte[] array) {
-    sort(array, 0, array.length-1);
+    ParallelCountingSort.sort(array);
   }
   
   public static void sort(byte[] array, int lo, int hi) {
-    checkRange(lo, hi, array.length);
-    sortPool.invoke(new ByteQuicksortAction(array, lo, hi));
+    ParallelCountingSort.sort(array, lo, hi);
   }
   
   public static void sort(short[] array) {
-    sort(array, 0, array.length-1);
+    ParallelCountingSort.sort(array);
   }
   
   public static void sort(short[] array, int lo, int hi) {
-    checkRange(lo, hi, array.length);
-    sortPool.invoke(new ShortQuicksortAction(array, lo, hi));
+    ParallelCountingSort.sort(array, lo, hi);
   }
   
   public static void sort(char[] array) {
-    sort(array, 0, array.length-1);
+    ParallelCountingSort.sort(array);
   }
   
   public static void sort(char[] array, int lo, int hi) {
-    checkRange(lo, hi, array.length);
-    sortPool.invoke(new CharQuicksortAction(array, lo, hi));
+    ParallelCountingSort.sort(array, lo, hi);
+  }
+  
+  /*
+  public static void sort(long[] array) {
+    sort(array, 0, array.length-1);
+  }
+  
+  public static void sort(long[] array, int lo, int hi) {
+    SortPool.checkRange(lo, hi, array.length);
+    sortPool.invoke(new LongQuicksortAction(array, lo, hi));
   }
   
   public static void sort(double[] array) {
@@ -104,7 +301,7 @@ public class ParallelQuicksort {
   }
   
   public static void sort(double[] array, int lo, int hi) {
-    checkRange(lo, hi, array.length);
+    SortPool.checkRange(lo, hi, array.length);
     sortPool.invoke(new DoubleQuicksortAction(array, lo, hi));
   }
   
@@ -113,7 +310,7 @@ public class ParallelQuicksort {
   }
   
   public static void sort(float[] array, int lo, int hi) {
-    checkRange(lo, hi, array.length);
+    SortPool.checkRange(lo, hi, array.length);
     sortPool.invoke(new FloatQuicksortAction(array, lo, hi));
   }
   
@@ -122,7 +319,7 @@ public class ParallelQuicksort {
   }
   
   public static <T extends Comparable<? super T>> void sort(T[] array, int lo, int hi) {
-    checkRange(lo, hi, array.length);
+    SortPool.checkRange(lo, hi, array.length);
     sortPool.invoke(new ComparableQuicksortAction(array, lo, hi));
   }
   
@@ -131,35 +328,9 @@ public class ParallelQuicksort {
   }
   
   public static <T> void sort(T[] array, int lo, int hi, Comparator<T> c) {
-    checkRange(lo, hi, array.length);
+    SortPool.checkRange(lo, hi, array.length);
     sortPool.invoke(new ComparatorQuicksortAction(array, lo, hi, c));
   }
   */
   
-  /**
-   * Checks that <tt>lo</tt> and <tt>hi</tt> are valid indices for a particular collection with 0-based indexing.
-   * 
-   * @param lo
-   *          Index to sort from.
-   * @param hi
-   *          Index to sort to.
-   * @param length
-   *          Size of collection to be sorted, which is assumed to have 0-based indexing.
-   * @throws IllegalArgumentException if lo > hi.
-   * @throws ArrayIndexOutOfBoundsException if lo < 0 or hi >= length.
-   */
-  private static void checkRange(int lo, int hi, int length) 
-      throws IllegalArgumentException, ArrayIndexOutOfBoundsException {
-    
-    if (lo > hi) {
-      throw new IllegalArgumentException("lo(" + lo + ") > hi(" + hi + ")");
-    }
-    if (lo < 0) {
-      throw new ArrayIndexOutOfBoundsException(lo);
-    }
-    if (hi >= length) {
-      throw new ArrayIndexOutOfBoundsException(hi);
-    }
-  }
-  
 }
@@ -0,0 +1,110 @@
+/**
+ * ParallelRadixSort.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+
+import uk.co.bluettduncanj.serial.RadixSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * <p>The <tt>ParallelRadixSort</tt> class is a parallelised version of {@code RadixSort}, which sorts <tt>double</tt> and
+ * <tt>float</tt> arrays into exactly the order defined by {@code Double.compare} and {@code Float.compare}, and
+ * <tt>int</tt> arrays into ascending order.</p>
+ * 
+ * <p>Every LSD pass builds per-block histograms and scatters per-block in parallel (see <tt>RadixSortAction</tt>). Ranges
+ * smaller than {@link #PARALLEL_CUTOFF} are sorted sequentially with {@code RadixSort}.</p>
+ * 
+ * <p>The keys and the scratch array take 16 bytes per element. Callers that sort often can pass a {@code SortWorkspace}
+ * to borrow them from, rather than allocating them on every call. The workspace must not be used by anything else until
+ * the sort returns, so a pool worker's own workspace (see {@code SortWorkspace.forCurrentThread()}) is not suitable.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public final class ParallelRadixSort {
+  
+  private static final ForkJoinPool sortPool = SortPool.POOL;
+  
+  public static final int PARALLEL_CUTOFF = 1 << 16;
+  
+  /*
+   * Private constructor - prevent instantiation.
+   */
+  private ParallelRadixSort() {}
+  
+  public static void sort(double[] array) {
+    sort(array, new SortWorkspace());
+  }
+  
+  public static void sort(double[] array, SortWorkspace workspace) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1, workspace);
+    }
+  }
+  
+  public static void sort(double[] array, int lo, int hi) {
+    sort(array, lo, hi, new SortWorkspace());
+  }
+  
+  public static void sort(double[] array, int lo, int hi, SortWorkspace workspace) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      RadixSort.sort(array, lo, hi, workspace);
+      return;
+    }
+    sortPool.invoke(new DoubleRadixSortAction(array, lo, hi, workspace));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+  public static void sort(float[] array) {
+    sort(array, new SortWorkspace());
+  }
+  
+  public static void sort(float[] array, SortWorkspace workspace) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1, workspace);
+    }
+  }
+  
+  public static void sort(float[] array, int lo, int hi) {
+    sort(array, lo, hi, new SortWorkspace());
+  }
+  
+  public static void sort(float[] array, int lo, int hi, SortWorkspace workspace) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      RadixSort.sort(array, lo, hi, workspace);
+      return;
+    }
+    sortPool.invoke(new FloatRadixSortAction(array, lo, hi, workspace));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+  public static void sort(int[] array) {
+    sort(array, new SortWorkspace());
+  }
+  
+  public static void sort(int[] array, SortWorkspace workspace) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1, workspace);
+    }
+  }
+  
+  public static void sort(int[] array, int lo, int hi) {
+    sort(array, lo, hi, new SortWorkspace());
+  }
+  
+  public static void sort(int[] array, int lo, int hi, SortWorkspace workspace) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (hi - lo + 1 < PARALLEL_CUTOFF) {
+      RadixSort.sort(array, lo, hi, workspace);
+      return;
+    }
+    sortPool.invoke(new IntRadixSortAction(array, lo, hi, workspace));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+}
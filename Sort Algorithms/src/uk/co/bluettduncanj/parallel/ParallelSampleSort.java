@@ -0,0 +1,132 @@
+/**
+ * ParallelSampleSort.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+
+import uk.co.bluettduncanj.serial.ListMergeSort;
+import uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy;
+import uk.co.bluettduncanj.serial.RadixSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * <p>The <tt>ParallelSampleSort</tt> class sorts <tt>int</tt>, <tt>long</tt> and <tt>Comparable</tt> arrays with a
+ * parallel sample sort, which divides the whole range into many buckets in a single parallel pass and then sorts the
+ * buckets independently, so that every worker is busy from the start, rather than after log<sub>2</sub>P levels of
+ * recursion as in {@link ParallelQuicksort}, and the work is balanced by an oversampled choice of splitters rather than
+ * by the luck of each pivot (see <tt>SampleSortAction</tt>).</p>
+ * 
+ * <p>Buckets are sorted by the serial engines: <tt>int</tt>s with {@code QuicksortBentleyMcIlroy} or {@code RadixSort},
+ * <tt>long</tt>s with {@code RadixSort}, and <tt>Comparable</tt>s with {@code ListMergeSort}, which makes the sort of
+ * <tt>Comparable</tt>s stable. Ranges smaller than {@link #PARALLEL_CUTOFF}, or sorted in a pool with no parallelism,
+ * are sorted by the same engines sequentially.</p>
+ * 
+ * <p>The sort uses O(N) extra memory: a scratch copy of the range, and the bucket of every element (2 bytes each). Callers
+ * that sort often can pass a {@code SortWorkspace} to borrow the scratch copy from, rather than allocating it on every
+ * call. The workspace must not be used by anything else until the sort returns, so a pool worker's own workspace (see
+ * {@code SortWorkspace.forCurrentThread()}) is not suitable.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public final class ParallelSampleSort {
+  
+  private static final ForkJoinPool sortPool = SortPool.POOL;
+  
+  public static final int PARALLEL_CUTOFF = 1 << 16;
+  
+  /**
+   * Buckets of <tt>int</tt>s with at least this many elements are radix sorted, rather than quicksorted.
+   */
+  public static final int RADIX_SORT_CUTOFF = 1 << 12;
+  
+  /*
+   * Private constructor - prevent instantiation.
+   */
+  private ParallelSampleSort() {}
+  
+  public static void sort(int[] array) {
+    sort(array, new SortWorkspace());
+  }
+  
+  public static void sort(int[] array, SortWorkspace workspace) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1, workspace);
+    }
+  }
+  
+  public static void sort(int[] array, int lo, int hi) {
+    sort(array, lo, hi, new SortWorkspace());
+  }
+  
+  public static void sort(int[] array, int lo, int hi, SortWorkspace workspace) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (!isParallel(hi - lo + 1)) {
+      if (hi - lo + 1 < RADIX_SORT_CUTOFF) {
+        QuicksortBentleyMcIlroy.quicksort(array, lo, hi);
+      }
+      else {
+        RadixSort.sort(array, lo, hi, workspace);
+      }
+      return;
+    }
+    sortPool.invoke(new IntSampleSortAction(array, lo, hi, workspace));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+  public static void sort(long[] array) {
+    sort(array, new SortWorkspace());
+  }
+  
+  public static void sort(long[] array, SortWorkspace workspace) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1, workspace);
+    }
+  }
+  
+  public static void sort(long[] array, int lo, int hi) {
+    sort(array, lo, hi, new SortWorkspace());
+  }
+  
+  public static void sort(long[] array, int lo, int hi, SortWorkspace workspace) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (!isParallel(hi - lo + 1)) {
+      RadixSort.sort(array, lo, hi, workspace);
+      return;
+    }
+    sortPool.invoke(new LongSampleSortAction(array, lo, hi, workspace));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+  public static <T extends Comparable<? super T>> void sort(T[] array) {
+    sort(array, new SortWorkspace());
+  }
+  
+  public static <T extends Comparable<? super T>> void sort(T[] array, SortWorkspace workspace) {
+    if (array.length > 1) {
+      sort(array, 0, array.length-1, workspace);
+    }
+  }
+  
+  public static <T extends Comparable<? super T>> void sort(T[] array, int lo, int hi) {
+    sort(array, lo, hi, new SortWorkspace());
+  }
+  
+  public static <T extends Comparable<? super T>> void sort(T[] array, int lo, int hi, SortWorkspace workspace) {
+    SortPool.checkRange(lo, hi, array.length);
+    if (!isParallel(hi - lo + 1)) {
+      ListMergeSort.sort(array, lo, hi, Comparator.<T>naturalOrder(), workspace);
+      return;
+    }
+    sortPool.invoke(new ComparableSampleSortAction<T>(array, lo, hi, workspace));
+    SortPool.sorted(hi - lo + 1);
+  }
+  
+  private static boolean isParallel(int length) {
+    return length >= PARALLEL_CUTOFF && sortPool.getParallelism() > 1;
+  }
+  
+}
@@ -0,0 +1,199 @@
+/**
+ * ParallelSortEvent.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * <p>A JDK Flight Recorder event, emitted once for each top-level call to <tt>ParallelQuicksort.sort</tt>.</p>
+ *
+ * <p>The event's duration covers the whole sort, including any time spent waiting for a worker thread. Its fields show
+ * how the sort was split up, which separates the usual causes of a slow sort: a large duration with few tasks forked
+ * points at pool contention, a maximum depth far beyond log<sub>2</sub>(<tt>length</tt>) points at bad pivots, and a
+ * small number of sequential leaves means that most of the work was done without any parallelism.</p>
+ *
+ * <p>Enable the event in a recording with <tt>uk.co.bluettduncanj.ParallelSort#enabled=true</tt>. Task counts are only
+ * collected while it is enabled.</p>
+ *
+ * <p>The code targets Java 8, whose class library has no <tt>jdk.jfr</tt> package, so the event type is defined at run
+ * time with <tt>jdk.jfr.EventFactory</tt>, through reflection. The reflection is done by a holder class that is only
+ * loaded once <tt>jdk.jfr.Event</tt> has been found; without it, every <tt>ParallelSortEvent</tt> is disabled and each
+ * of its methods does nothing.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+final class ParallelSortEvent {
+  
+  /**
+   * The name of the event type.
+   */
+  static final String NAME = "uk.co.bluettduncanj.ParallelSort";
+  
+  private static final boolean JFR_AVAILABLE = isJfrAvailable();
+  
+  /**
+   * The underlying <tt>jdk.jfr.Event</tt>, or null if JFR isn't available.
+   */
+  private final Object event;
+  
+  /**
+   * Creates an event, which is disabled if JFR isn't available.
+   */
+  ParallelSortEvent() {
+    this.event = JFR_AVAILABLE ? Jfr.newEvent() : null;
+  }
+  
+  /**
+   * @return true if the event is enabled in a recording, in which case the sort should collect its task counts.
+   */
+  boolean isEnabled() {
+    return event != null && (Boolean) Jfr.invoke(Jfr.IS_ENABLED, event);
+  }
+  
+  /**
+   * Starts timing the event.
+   */
+  void begin() {
+    if (event != null) {
+      Jfr.invoke(Jfr.BEGIN, event);
+    }
+  }
+  
+  /**
+   * Stops timing the event.
+   */
+  void end() {
+    if (event != null) {
+      Jfr.invoke(Jfr.END, event);
+    }
+  }
+  
+  /**
+   * Sets the event's fields and writes it to the recordings that it is enabled in, unless its duration is below their
+   * threshold.
+   *
+   * @param length
+   *          The number of elements sorted.
+   * @param trace
+   *          The task counts of the sort.
+   */
+  void commit(int length, TaskTrace trace) {
+    if (event == null || !(Boolean) Jfr.invoke(Jfr.SHOULD_COMMIT, event)) {
+      return;
+    }
+    Jfr.invoke(Jfr.SET, event, 0, length);
+    Jfr.invoke(Jfr.SET, event, 1, trace.tasksForked());
+    Jfr.invoke(Jfr.SET, event, 2, trace.maxDepth());
+    Jfr.invoke(Jfr.SET, event, 3, trace.sequentialLeaves());
+    Jfr.invoke(Jfr.COMMIT, event);
+  }
+  
+  private static boolean isJfrAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event");
+    }
+    catch (ClassNotFoundException e) {
+      return false;
+    }
+    // The holder may still fail to define the event type, e.g. on a Java 8 runtime with a different JFR
+    return Jfr.FACTORY != null;
+  }
+  
+  /**
+   * Defines the event type and looks up the methods of <tt>jdk.jfr.Event</tt>. Not loaded unless JFR is available.
+   */
+  private static final class Jfr {
+    
+    static final Object FACTORY;
+    static final Method NEW_EVENT, IS_ENABLED, BEGIN, END, SHOULD_COMMIT, SET, COMMIT;
+    
+    static {
+      Object factory = null;
+      Method newEvent = null, isEnabled = null, begin = null, end = null, shouldCommit = null, set = null,
+          commit = null;
+      try {
+        Class<?> eventClass = Class.forName("jdk.jfr.Event");
+        Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+        List<Object> annotations = Arrays.asList(
+            annotation("Name", NAME),
+            annotation("Label", "Parallel Sort"),
+            annotation("Category", new String[] {"Sort Algorithms", "Parallel"}),
+            annotation("Description", "A top-level parallel quicksort call"),
+            annotation("StackTrace", false));
+        // In the order of the indexes passed to set() by commit()
+        List<Object> fields = Arrays.asList(
+            field(int.class, "length", "Length", "Number of elements sorted"),
+            field(long.class, "tasksForked", "Tasks Forked", "Number of fork/join tasks forked"),
+            field(int.class, "maxDepth", "Maximum Depth",
+                "Deepest level of the fork/join task tree, where the top-level task is at depth 0"),
+            field(long.class, "sequentialLeaves", "Sequential Leaves",
+                "Number of sub-arrays that were sorted sequentially rather than being split further"));
+        factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+        newEvent = factoryClass.getMethod("newEvent");
+        isEnabled = eventClass.getMethod("isEnabled");
+        begin = eventClass.getMethod("begin");
+        end = eventClass.getMethod("end");
+        shouldCommit = eventClass.getMethod("shouldCommit");
+        set = eventClass.getMethod("set", int.class, Object.class);
+        commit = eventClass.getMethod("commit");
+      }
+      catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+        factory = null;
+      }
+      FACTORY = factory;
+      NEW_EVENT = newEvent;
+      IS_ENABLED = isEnabled;
+      BEGIN = begin;
+      END = end;
+      SHOULD_COMMIT = shouldCommit;
+      SET = set;
+      COMMIT = commit;
+    }
+    
+    static Object newEvent() {
+      return invoke(NEW_EVENT, FACTORY);
+    }
+    
+    static Object invoke(Method method, Object target, Object... args) {
+      try {
+        return method.invoke(target, args);
+      }
+      catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("JFR call failed: " + method, e);
+      }
+    }
+    
+    /**
+     * @return a <tt>jdk.jfr.AnnotationElement</tt> for the <tt>jdk.jfr</tt> annotation with the given simple name.
+     */
+    private static Object annotation(String name, Object value) throws ReflectiveOperationException {
+      Class<?> type = Class.forName("jdk.jfr." + name);
+      Constructor<?> constructor = Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class,
+          Object.class);
+      return constructor.newInstance(type.asSubclass(Annotation.class), value);
+    }
+    
+    /**
+     * @return a labelled and described <tt>jdk.jfr.ValueDescriptor</tt>.
+     */
+    private static Object field(Class<?> type, String name, String label, String description)
+        throws ReflectiveOperationException {
+      List<Object> annotations = new ArrayList<Object>(2);
+      annotations.add(annotation("Label", label));
+      annotations.add(annotation("Description", description));
+      Constructor<?> constructor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class,
+          List.class);
+      return constructor.newInstance(type, name, Collections.unmodifiableList(annotations));
+    }
+  }
+  
+}
@@ -0,0 +1,65 @@
+/**
+ * ParallelSortPoolMXBean.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+
+/**
+ * <p>JMX management interface for the <tt>ForkJoinPool</tt> shared by the parallel sorting classes in this package.</p>
+ * 
+ * <p>The pool is registered with the platform MBean server as
+ * <tt>uk.co.bluettduncanj.parallel:type=ParallelSortPool</tt> when the first parallel sort class is loaded. Every
+ * attribute is read live from the pool, so a monitoring tool can tell whether a slow sort is queued behind other work
+ * (queued submissions), is starved of threads (active and running threads), or is load balancing (steal count).</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public interface ParallelSortPoolMXBean {
+  
+  /**
+   * @return the targeted number of worker threads in the pool.
+   */
+  int getParallelism();
+  
+  /**
+   * @return the number of worker threads that have started but not yet terminated.
+   */
+  int getPoolSize();
+  
+  /**
+   * @return an estimate of the number of threads that are currently stealing or executing tasks.
+   */
+  int getActiveThreadCount();
+  
+  /**
+   * @return an estimate of the number of worker threads that are not blocked waiting to join tasks.
+   */
+  int getRunningThreadCount();
+  
+  /**
+   * @return an estimate of the total number of tasks stolen from one thread's work queue by another.
+   */
+  long getStealCount();
+  
+  /**
+   * @return an estimate of the number of sorts submitted to the pool that have not yet begun executing.
+   */
+  int getQueuedSubmissionCount();
+  
+  /**
+   * @return an estimate of the total number of tasks currently held in worker threads' queues.
+   */
+  long getQueuedTaskCount();
+  
+  /**
+   * @return the number of sorts that have completed in the pool.
+   */
+  long getSortCount();
+  
+  /**
+   * @return the total number of elements sorted by the sorts that have completed in the pool.
+   */
+  long getSortedElementCount();
+  
+}
@@ -0,0 +1,184 @@
+/**
+ * RadixSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * <p>A <tt>RecursiveAction</tt> that runs a parallel least-significant-digit radix sort over unsigned <tt>long</tt> keys,
+ * used by <tt>ParallelRadixSort</tt>.</p>
+ * 
+ * <p>The range is divided into equal blocks, and each pass is made of three steps: every block builds a histogram of its
+ * own digits in parallel, the per-block histograms are turned into per-block bucket offsets with a (cheap, serial) prefix
+ * sum, and then every block scatters its keys into the scratch array in parallel. Because each block writes to its own
+ * disjoint slice of every bucket, the sort remains stable, which LSD radix sort depends on.</p>
+ * 
+ * <p>The keys and the scratch array are borrowed from the two <tt>long</tt> buffers of a {@code SortWorkspace}.</p>
+ * 
+ * <p>Subclasses map the values being sorted to order-preserving keys and back.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+abstract class RadixSortAction extends RecursiveAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 4215036911752358713L;
+  
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX      = 1 << RADIX_BITS;
+  private static final int DIGIT_MASK = RADIX - 1;
+  
+  /**
+   * Blocks are never made smaller than this, so that per-block histograms stay cheap relative to the work they describe.
+   */
+  private static final int MIN_BLOCK_SIZE = 1 << 13;
+  
+  private enum Phase { MAP, COUNT, SCATTER, UNMAP }
+  
+  protected final int lo;
+  protected final int length;
+  private final int passes;
+  private final SortWorkspace workspace;
+  
+  private long[] keys;
+  private long[] aux;
+  private int blocks;
+  private int[][] counts;
+  
+  /**
+   * @param lo
+   *          The first index of the range to sort.
+   * @param hi
+   *          The last index of the range to sort.
+   * @param passes
+   *          The number of 8-bit digits in each key.
+   * @param workspace
+   *          The workspace to borrow the key buffers from. It must not be used by anything else until the sort is done.
+   */
+  RadixSortAction(int lo, int hi, int passes, SortWorkspace workspace) {
+    this.lo = lo;
+    this.length = hi - lo + 1;
+    this.passes = passes;
+    this.workspace = workspace;
+  }
+  
+  /**
+   * @return the order-preserving unsigned key for the value at <tt>index</tt>.
+   */
+  protected abstract long key(int index);
+  
+  /**
+   * Stores the value that <tt>key</tt> was mapped from at <tt>index</tt>.
+   */
+  protected abstract void store(int index, long key);
+  
+  @Override
+  protected void compute() {
+    keys = workspace.longs(0, length);
+    aux = workspace.longs(1, length);
+    int parallelism = (getPool() != null) ? getPool().getParallelism() : 1;
+    blocks = Math.max(1, Math.min(length / MIN_BLOCK_SIZE, parallelism * 4));
+    counts = new int[blocks][RADIX];
+    
+    runBlocks(Phase.MAP, 0);
+    for (int pass = 0; pass < passes; pass++) {
+      int shift = pass * RADIX_BITS;
+      runBlocks(Phase.COUNT, shift);
+      
+      // Compute each block's starting offset in each bucket, skipping the pass if every key has the same digit
+      int firstDigit = (int) (keys[0] >>> shift) & DIGIT_MASK;
+      int firstDigitCount = 0;
+      for (int b = 0; b < blocks; b++) {
+        firstDigitCount += counts[b][firstDigit];
+      }
+      if (firstDigitCount == length) {
+        continue;
+      }
+      for (int d = 0, sum = 0; d < RADIX; d++) {
+        for (int b = 0; b < blocks; b++) {
+          int count = counts[b][d];
+          counts[b][d] = sum;
+          sum += count;
+        }
+      }
+      
+      runBlocks(Phase.SCATTER, shift);
+      long[] tmp = keys;
+      keys = aux;
+      aux = tmp;
+    }
+    runBlocks(Phase.UNMAP, 0);
+    
+    keys = null;
+    aux = null;
+    counts = null;
+  }
+  
+  private void runBlocks(Phase phase, int shift) {
+    BlockAction[] actions = new BlockAction[blocks];
+    for (int b = 0; b < blocks; b++) {
+      actions[b] = new BlockAction(phase, b, shift);
+    }
+    invokeAll(actions);
+  }
+  
+  /**
+   * Runs one phase of a pass over one block of the range.
+   */
+  private final class BlockAction extends RecursiveAction {
+    
+    /** serialVersionUID */
+    private static final long serialVersionUID = -2920853361620954218L;
+    
+    private final Phase phase;
+    private final int block;
+    private final int shift;
+    
+    private BlockAction(Phase phase, int block, int shift) {
+      this.phase = phase;
+      this.block = block;
+      this.shift = shift;
+    }
+    
+    @Override
+    protected void compute() {
+      int from = (int) ((long) block * length / blocks);
+      int to = (int) ((long) (block + 1) * length / blocks);
+      long[] keys = RadixSortAction.this.keys;
+      switch (phase) {
+        case MAP:
+          for (int i = from; i < to; i++) {
+            keys[i] = key(lo + i);
+          }
+          break;
+        case COUNT:
+          int[] count = counts[block];
+          Arrays.fill(count, 0);
+          for (int i = from; i < to; i++) {
+            count[(int) (keys[i] >>> shift) & DIGIT_MASK]++;
+          }
+          break;
+        case SCATTER:
+          int[] offsets = counts[block];
+          long[] aux = RadixSortAction.this.aux;
+          for (int i = from; i < to; i++) {
+            long key = keys[i];
+            aux[offsets[(int) (key >>> shift) & DIGIT_MASK]++] = key;
+          }
+          break;
+        case UNMAP:
+          for (int i = from; i < to; i++) {
+            store(lo + i, keys[i]);
+          }
+          break;
+      }
+    }
+  }
+  
+}
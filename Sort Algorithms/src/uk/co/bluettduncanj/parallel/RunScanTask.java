@@ -0,0 +1,134 @@
+/**
+ * RunScanTask.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * <p>A <tt>RecursiveAction</tt> that scans a range of ints for its descents (indexes whose value is less than the one
+ * before) and its non-descending runs, used by <tt>ParallelPresortedness</tt>.</p>
+ *
+ * <p>The range is halved until it is at most {@link #SEQUENTIAL_CUTOFF} values long, and each half is summarised by
+ * its number of descents, the lengths of its first and last runs, and the length of its longest run; two summaries
+ * are combined by checking the single pair of values either side of the boundary between them. A scan that only needs
+ * to know whether there is any descent at all is given a shared flag, which the first descent found sets, and which
+ * every other task checks so that it can stop early.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+class RunScanTask extends RecursiveAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 2284506309141760219L;
+  
+  static final int SEQUENTIAL_CUTOFF = 1 << 15;
+  
+  /**
+   * How many values a sequential scan checks between looks at the stop flag.
+   */
+  private static final int STOP_CHECK_INTERVAL = 1 << 12;
+  
+  private final int[] array;
+  private final int lo;
+  private final int hi;
+  private final AtomicBoolean descentFound;
+  
+  /** The results of the scan, once it has completed. */
+  int descents;
+  int firstRun;
+  int lastRun;
+  int longestRun;
+  
+  /**
+   * @param array
+   *          The array to scan.
+   * @param lo
+   *          The index in <tt>array</tt> to scan from.
+   * @param hi
+   *          The index in <tt>array</tt> to scan to, at least <tt>lo</tt>.
+   * @param descentFound
+   *          If not null, the scan stops as soon as any task finds a descent, and sets this flag; only
+   *          {@link #descents} is then meaningful, and only as to whether it is zero.
+   */
+  RunScanTask(int[] array, int lo, int hi, AtomicBoolean descentFound) {
+    this.array = array;
+    this.lo = lo;
+    this.hi = hi;
+    this.descentFound = descentFound;
+  }
+  
+  @Override
+  protected void compute() {
+    if (hi - lo + 1 <= SEQUENTIAL_CUTOFF) {
+      if (descentFound != null) {
+        scanForDescent();
+      }
+      else {
+        scan();
+      }
+      return;
+    }
+    
+    int mid = (lo + hi) >>> 1;
+    RunScanTask left = new RunScanTask(array, lo, mid, descentFound);
+    RunScanTask right = new RunScanTask(array, mid + 1, hi, descentFound);
+    invokeAll(left, right);
+    
+    // Runs either side of the boundary join up unless the boundary is itself a descent
+    boolean join = array[mid + 1] >= array[mid];
+    descents = left.descents + right.descents + (join ? 0 : 1);
+    if (descentFound != null) {
+      if (descents > 0) {
+        descentFound.set(true);
+      }
+      return;
+    }
+    firstRun = (join && left.firstRun == mid - lo + 1) ? left.firstRun + right.firstRun : left.firstRun;
+    lastRun = (join && right.lastRun == hi - mid) ? right.lastRun + left.lastRun : right.lastRun;
+    longestRun = Math.max(Math.max(left.longestRun, right.longestRun), join ? left.lastRun + right.firstRun : 0);
+  }
+  
+  private void scan() {
+    int run = 1;
+    firstRun = 0;
+    longestRun = 1;
+    for (int i = lo + 1; i <= hi; i++) {
+      if (array[i] < array[i - 1]) {
+        descents++;
+        if (firstRun == 0) {
+          firstRun = run;
+        }
+        run = 1;
+      }
+      else {
+        run++;
+        longestRun = Math.max(longestRun, run);
+      }
+    }
+    lastRun = run;
+    if (firstRun == 0) {
+      firstRun = run;
+    }
+  }
+  
+  private void scanForDescent() {
+    for (int from = lo + 1; from <= hi; from += STOP_CHECK_INTERVAL) {
+      if (descentFound.get()) {
+        return;
+      }
+      int to = Math.min(hi, from + STOP_CHECK_INTERVAL - 1);
+      for (int i = from; i <= to; i++) {
+        if (array[i] < array[i - 1]) {
+          descents = 1;
+          descentFound.set(true);
+          return;
+        }
+      }
+    }
+  }
+  
+}
@@ -0,0 +1,271 @@
+/**
+ * SampleSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * <p>A <tt>RecursiveAction</tt> that runs a parallel sample sort, used by <tt>ParallelSampleSort</tt>.</p>
+ *
+ * <p>A random sample of {@link #OVERSAMPLING} values per bucket is sorted, and every {@link #OVERSAMPLING}th value of it
+ * is taken as a splitter, which gives <i>k</i> buckets of about equal size. The splitters are laid out as an implicit
+ * binary search tree, so that each value is classified with exactly log<sub>2</sub><i>k</i> comparisons whose results
+ * are used as array indexes rather than branched on. Each bucket is split further into the values strictly between two
+ * splitters, and the values equal to a splitter, which need no sorting at all; so inputs with many duplicates are sorted
+ * faster, rather than producing a few huge buckets.</p>
+ *
+ * <p>The range is divided into equal blocks, as in <tt>RadixSortAction</tt>: every block classifies its values in
+ * parallel, recording each value's bucket and counting the size of every bucket, the counts are turned into per-block
+ * offsets into each bucket with a (cheap, serial) prefix sum, and then every block scatters its values into a scratch
+ * array in parallel. Finally every bucket is copied back and sorted, in parallel, by a serial engine. The scatter is
+ * stable, so the sort is as stable as its serial engine.</p>
+ *
+ * <p>The number of buckets is the smallest power of two that is at least 4 times the pool's parallelism (up to
+ * 2<sup>{@value #MAX_LOG_BUCKETS}</sup>), so that there are several buckets per worker to even out differences in their
+ * sizes. Subclasses hold the values being sorted, and implement each step for their own element type. The scratch array
+ * is borrowed from slot 0 of a {@code SortWorkspace}.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+abstract class SampleSortAction extends RecursiveAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 3580276180950425162L;
+  
+  /**
+   * The number of sample values taken for each bucket.
+   */
+  static final int OVERSAMPLING = 16;
+  
+  /**
+   * The base 2 logarithm of the maximum number of buckets.
+   */
+  static final int MAX_LOG_BUCKETS = 8;
+  
+  /**
+   * Blocks are never made smaller than this, so that per-block counts stay cheap relative to the work they describe.
+   */
+  private static final int MIN_BLOCK_SIZE = 1 << 13;
+  
+  private enum Phase { CLASSIFY, SCATTER }
+  
+  protected final int lo;
+  protected final int length;
+  
+  /**
+   * The workspace that subclasses borrow their scratch array from.
+   */
+  protected final SortWorkspace workspace;
+  
+  /**
+   * The base 2 logarithm of the number of splitter buckets, <i>k</i>. There are <i>2k</i> buckets in all: bucket
+   * <tt>2b</tt> holds the values between splitters <tt>b-1</tt> and <tt>b</tt>, and bucket <tt>2b+1</tt> holds the values
+   * equal to splitter <tt>b</tt>.
+   */
+  protected int logBuckets;
+  
+  /**
+   * The bucket of every value in the range, indexed from 0, between the classify and scatter steps.
+   */
+  protected short[] oracle;
+  
+  private int blocks;
+  private int[][] counts;
+  private int[] bucketStart;
+  
+  /**
+   * @param lo
+   *          The first index of the range to sort.
+   * @param hi
+   *          The last index of the range to sort.
+   * @param workspace
+   *          The workspace to borrow the scratch array from. It must not be used by anything else until the sort is
+   *          done.
+   */
+  SampleSortAction(int lo, int hi, SortWorkspace workspace) {
+    this.lo = lo;
+    this.length = hi - lo + 1;
+    this.workspace = workspace;
+  }
+  
+  /**
+   * Sorts the sample at the given indexes, chooses <tt>2<sup>logBuckets</sup> - 1</tt> splitters from it, and builds
+   * the splitter tree (see {@link #treeOrder(int)}). Also borrows the scratch array from the workspace.
+   *
+   * @param sample
+   *          The indexes of the sampled values, <tt>OVERSAMPLING &lt;&lt; logBuckets</tt> of them.
+   */
+  protected abstract void selectSplitters(int[] sample);
+  
+  /**
+   * Sets <tt>oracle[i - lo]</tt> to the bucket of the value at every index <tt>i</tt> from <tt>from</tt> to
+   * <tt>to - 1</tt>, and counts the values in each bucket in <tt>count</tt>.
+   */
+  protected abstract void classify(int from, int to, int[] count);
+  
+  /**
+   * Moves the value at every index from <tt>from</tt> to <tt>to - 1</tt> to index <tt>offsets[b]++</tt> of the scratch
+   * array, where <tt>b</tt> is its bucket.
+   */
+  protected abstract void scatter(int from, int to, int[] offsets);
+  
+  /**
+   * Copies a bucket (indexes <tt>from</tt> to <tt>to - 1</tt> of the scratch array) back into place, and sorts it if it
+   * needs sorting.
+   */
+  protected abstract void finishBucket(int from, int to, boolean sort);
+  
+  /**
+   * Drops the scratch array and splitters, once the sort is complete or has failed.
+   *
+   * @param completed
+   *          false if the sort failed, in which case values may still be in the scratch array.
+   */
+  protected abstract void release(boolean completed);
+  
+  @Override
+  protected void compute() {
+    int parallelism = (getPool() != null) ? getPool().getParallelism() : 1;
+    int logParallelism = Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(parallelism, 1) - 1);
+    logBuckets = Math.max(1, Math.min(logParallelism + 2, MAX_LOG_BUCKETS));
+    int buckets = 2 << logBuckets;
+    
+    boolean completed = false;
+    try {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int[] sample = new int[OVERSAMPLING << logBuckets];
+      for (int i = 0; i < sample.length; i++) {
+        sample[i] = lo + random.nextInt(length);
+      }
+      selectSplitters(sample);
+      
+      oracle = new short[length];
+      blocks = Math.max(1, Math.min(length / MIN_BLOCK_SIZE, parallelism * 4));
+      counts = new int[blocks][buckets];
+      runBlocks(Phase.CLASSIFY);
+      
+      // Compute each block's starting offset in each bucket
+      bucketStart = new int[buckets + 1];
+      int sum = 0;
+      for (int c = 0; c < buckets; c++) {
+        bucketStart[c] = sum;
+        for (int b = 0; b < blocks; b++) {
+          int count = counts[b][c];
+          counts[b][c] = sum;
+          sum += count;
+        }
+      }
+      bucketStart[buckets] = sum;
+      
+      runBlocks(Phase.SCATTER);
+      oracle = null;
+      counts = null;
+      
+      int nonEmpty = 0;
+      BucketAction[] actions = new BucketAction[buckets];
+      for (int c = 0; c < buckets; c++) {
+        if (bucketStart[c + 1] > bucketStart[c]) {
+          actions[nonEmpty++] = new BucketAction(c);
+        }
+      }
+      invokeAll(Arrays.asList(actions).subList(0, nonEmpty));
+      
+      bucketStart = null;
+      completed = true;
+    }
+    finally {
+      release(completed);
+    }
+  }
+  
+  /**
+   * Returns the order in which sorted splitters are laid out as an implicit binary search tree: node <tt>j</tt> (from 1
+   * to <tt>2<sup>logBuckets</sup> - 1</tt>) holds splitter <tt>order[j]</tt>, and its children are nodes <tt>2j</tt> and
+   * <tt>2j+1</tt>. Descending the tree from node 1, and moving to child <tt>2j+1</tt> when the value is greater than the
+   * node's splitter, ends at <tt>2<sup>logBuckets</sup> + b</tt>, where <tt>b</tt> is the number of splitters less than
+   * the value.
+   */
+  static int[] treeOrder(int logBuckets) {
+    int[] order = new int[1 << logBuckets];
+    fillTree(order, 1, 0, (1 << logBuckets) - 2);
+    return order;
+  }
+  
+  private static void fillTree(int[] order, int node, int from, int to) {
+    if (from > to) {
+      return;
+    }
+    int mid = (from + to) >>> 1;
+    order[node] = mid;
+    fillTree(order, 2 * node, from, mid - 1);
+    fillTree(order, 2 * node + 1, mid + 1, to);
+  }
+  
+  private void runBlocks(Phase phase) {
+    BlockAction[] actions = new BlockAction[blocks];
+    for (int b = 0; b < blocks; b++) {
+      actions[b] = new BlockAction(phase, b);
+    }
+    invokeAll(actions);
+  }
+  
+  /**
+   * Runs one step of the sort over one block of the range.
+   */
+  private final class BlockAction extends RecursiveAction {
+    
+    /** serialVersionUID */
+    private static final long serialVersionUID = -1726331498562512860L;
+    
+    private final Phase phase;
+    private final int block;
+    
+    private BlockAction(Phase phase, int block) {
+      this.phase = phase;
+      this.block = block;
+    }
+    
+    @Override
+    protected void compute() {
+      int from = lo + (int) ((long) block * length / blocks);
+      int to = lo + (int) ((long) (block + 1) * length / blocks);
+      switch (phase) {
+        case CLASSIFY:
+          classify(from, to, counts[block]);
+          break;
+        case SCATTER:
+          scatter(from, to, counts[block]);
+          break;
+      }
+    }
+  }
+  
+  /**
+   * Copies one bucket back into place and sorts it.
+   */
+  private final class BucketAction extends RecursiveAction {
+    
+    /** serialVersionUID */
+    private static final long serialVersionUID = 8836950128127541457L;
+    
+    private final int bucket;
+    
+    private BucketAction(int bucket) {
+      this.bucket = bucket;
+    }
+    
+    @Override
+    protected void compute() {
+      // Odd buckets hold values equal to a splitter, so are already sorted
+      finishBucket(bucketStart[bucket], bucketStart[bucket + 1], (bucket & 1) == 0);
+    }
+  }
+  
+}
@@ -0,0 +1,108 @@
+/**
+ * SegmentedSort.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * <p>The <tt>SegmentedSort</tt> class sorts every segment of a flat <tt>int</tt> array independently, in parallel. This
+ * is the usual columnar layout for variable-length groups: the values of every group stored back to back in one array,
+ * plus an array of offsets where segment <tt>s</tt> is <tt>values[offsets[s]..offsets[s+1]-1]</tt> (so there is one more
+ * offset than there are segments).</p>
+ *
+ * <p>Work is divided between the pool's workers by element count rather than by segment count (see
+ * <tt>SegmentedSortAction</tt>), so a few huge segments among many tiny ones don't leave workers idle. Each segment is
+ * then sorted with the engine that suits its length:</p>
+ *
+ * <ul>
+ *   <li>{@code SmallSort}, if it has at most {@link #SMALL_SORT_CUTOFF} elements;</li>
+ *   <li>{@code QuicksortBentleyMcIlroy}, if it has fewer than {@link #RADIX_SORT_CUTOFF} elements;</li>
+ *   <li>{@code RadixSort}, with the worker's own {@code SortWorkspace}, if it has fewer than
+ *       {@link ParallelRadixSort#PARALLEL_CUTOFF} elements;</li>
+ *   <li>a parallel radix sort otherwise, as in {@link ParallelRadixSort}.</li>
+ * </ul>
+ *
+ * <p>Inputs of no more than {@link #TASK_ELEMENTS} elements in total are sorted on the calling thread.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class SegmentedSort {
+  
+  private static final ForkJoinPool sortPool = SortPool.POOL;
+  
+  /**
+   * Runs of segments with no more than this many elements in total are sorted sequentially by one task.
+   */
+  public static final int TASK_ELEMENTS = 1 << 15;
+  
+  /**
+   * Segments of this many elements or fewer are sorted with {@code SmallSort}.
+   */
+  public static final int SMALL_SORT_CUTOFF = 47;
+  
+  /**
+   * Segments of this many elements or more are radix sorted.
+   */
+  public static final int RADIX_SORT_CUTOFF = 1 << 12;
+  
+  /*
+   * Private constructor - prevent instantiation.
+   */
+  private SegmentedSort() {}
+  
+  /**
+   * Sorts every segment of <tt>values</tt> into ascending order. Values never move between segments.
+   *
+   * @param values
+   *          The flat array of values to sort.
+   * @param offsets
+   *          The segment boundaries: <tt>offsets.length - 1</tt> segments, where segment <tt>s</tt> is
+   *          <tt>values[offsets[s]..offsets[s+1]-1]</tt>. Values before <tt>offsets[0]</tt> or after
+   *          <tt>offsets[offsets.length-1]-1</tt> are not touched.
+   * @throws IllegalArgumentException if the offsets are not in ascending order.
+   * @throws ArrayIndexOutOfBoundsException if an offset is negative or greater than <tt>values.length</tt>.
+   */
+  public static void sort(int[] values, int[] offsets)
+      throws IllegalArgumentException, ArrayIndexOutOfBoundsException {
+    
+    checkOffsets(offsets, values.length);
+    int segments = offsets.length - 1;
+    if (segments < 1) {
+      return;
+    }
+    int elements = offsets[segments] - offsets[0];
+    if (elements <= TASK_ELEMENTS) {
+      SegmentedSortAction.sortSegments(values, offsets, 0, segments);
+      return;
+    }
+    sortPool.invoke(new SegmentedSortAction(values, offsets, 0, segments));
+    SortPool.sorted(elements);
+  }
+  
+  /**
+   * Checks that a list of segment offsets is in ascending order and lies within an array of <tt>length</tt> elements.
+   */
+  private static void checkOffsets(int[] offsets, int length)
+      throws IllegalArgumentException, ArrayIndexOutOfBoundsException {
+    
+    if (offsets.length == 0) {
+      return;
+    }
+    if (offsets[0] < 0) {
+      throw new ArrayIndexOutOfBoundsException(offsets[0]);
+    }
+    for (int s = 1; s < offsets.length; s++) {
+      if (offsets[s] < offsets[s - 1]) {
+        throw new IllegalArgumentException("offsets[" + s + "](" + offsets[s] + ") < offsets[" + (s - 1) + "]("
+            + offsets[s - 1] + ")");
+      }
+    }
+    if (offsets[offsets.length - 1] > length) {
+      throw new ArrayIndexOutOfBoundsException(offsets[offsets.length - 1]);
+    }
+  }
+  
+}
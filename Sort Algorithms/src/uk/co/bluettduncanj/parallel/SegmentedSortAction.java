@@ -0,0 +1,106 @@
+/**
+ * SegmentedSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.RecursiveAction;
+
+import uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy;
+import uk.co.bluettduncanj.serial.RadixSort;
+import uk.co.bluettduncanj.serial.SmallSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * <p>A <tt>RecursiveAction</tt> that sorts a run of segments of a flat <tt>int</tt> array, used by
+ * <tt>SegmentedSort</tt>.</p>
+ *
+ * <p>A run of segments holding more than {@link SegmentedSort#TASK_ELEMENTS} elements is split in two at the segment
+ * boundary nearest to its middle element, rather than its middle segment, so that the two halves hold about the same
+ * number of elements however unevenly the segment lengths are distributed.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+class SegmentedSortAction extends RecursiveAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = -6912741280517713903L;
+  
+  private final int[] values;
+  private final int[] offsets;
+  private final int first;
+  private final int last;
+  
+  /**
+   * @param values
+   *          The flat array of values.
+   * @param offsets
+   *          The segment boundaries: segment <tt>s</tt> is <tt>values[offsets[s]..offsets[s+1]-1]</tt>.
+   * @param first
+   *          The first segment to sort.
+   * @param last
+   *          One past the last segment to sort.
+   */
+  SegmentedSortAction(int[] values, int[] offsets, int first, int last) {
+    this.values = values;
+    this.offsets = offsets;
+    this.first = first;
+    this.last = last;
+  }
+  
+  @Override
+  protected void compute() {
+    int elements = offsets[last] - offsets[first];
+    if (last - first == 1 || elements <= SegmentedSort.TASK_ELEMENTS) {
+      sortSegments(values, offsets, first, last);
+      return;
+    }
+    
+    // Find the first boundary at or after the middle element, keeping both halves non-empty
+    int middle = offsets[first] + elements / 2;
+    int lo = first + 1, hi = last - 1;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (offsets[mid] < middle) {
+        lo = mid + 1;
+      }
+      else {
+        hi = mid;
+      }
+    }
+    invokeAll(new SegmentedSortAction(values, offsets, first, lo), new SegmentedSortAction(values, offsets, lo, last));
+  }
+  
+  /**
+   * Sorts segments <tt>first</tt> to <tt>last-1</tt> one after another, each with the engine that suits its length.
+   * Segments of at least {@link ParallelRadixSort#PARALLEL_CUTOFF} elements are radix sorted in parallel, so this must
+   * only be called from a task running in the sorting pool if any segment might be that large.
+   */
+  static void sortSegments(int[] values, int[] offsets, int first, int last) {
+    SortWorkspace workspace = null;
+    for (int s = first; s < last; s++) {
+      int lo = offsets[s], hi = offsets[s + 1] - 1, length = hi - lo + 1;
+      if (length < 2) {
+        continue;
+      }
+      if (length <= SegmentedSort.SMALL_SORT_CUTOFF) {
+        SmallSort.sort(values, lo, hi);
+      }
+      else if (length < SegmentedSort.RADIX_SORT_CUTOFF) {
+        QuicksortBentleyMcIlroy.quicksort(values, lo, hi);
+      }
+      else if (length < ParallelRadixSort.PARALLEL_CUTOFF) {
+        if (workspace == null) {
+          workspace = SortWorkspace.forCurrentThread();
+        }
+        RadixSort.sort(values, lo, hi, workspace);
+      }
+      else {
+        // Not the thread's workspace: this thread may run other segments' tasks while it waits for its blocks
+        new IntRadixSortAction(values, lo, hi, new SortWorkspace()).invoke();
+      }
+    }
+  }
+  
+}
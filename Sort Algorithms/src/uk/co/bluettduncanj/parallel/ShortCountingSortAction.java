@@ -0,0 +1,49 @@
+/**
+ * ShortCountingSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+
+/**
+ * A <tt>CountingSortAction</tt> for sorting <tt>short</tt> arrays, used by <tt>ParallelCountingSort</tt>.
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+class ShortCountingSortAction extends CountingSortAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = 8021863651716389390L;
+  
+  private final short[] array;
+  
+  /**
+   * @param array
+   *          The array of shorts to sort.
+   * @param lo
+   *          The index in <tt>array</tt> to sort from.
+   * @param hi
+   *          The index in <tt>array</tt> to sort to.
+   */
+  ShortCountingSortAction(short[] array, int lo, int hi) {
+    super(lo, hi, 1 << Short.SIZE);
+    this.array = array;
+  }
+  
+  @Override
+  protected void count(int from, int to, int[] histogram) {
+    short[] array = this.array;
+    for (int i = from; i <= to; i++) {
+      histogram[array[i] - Short.MIN_VALUE]++;
+    }
+  }
+  
+  @Override
+  protected void fill(int from, int to, int bucket) {
+    short value = (short) (bucket + Short.MIN_VALUE);
+    for (int i = from; i < to; i++) {
+      array[i] = value;
+    }
+  }
+  
+}
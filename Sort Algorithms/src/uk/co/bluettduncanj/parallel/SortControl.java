@@ -0,0 +1,115 @@
+/**
+ * SortControl.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * <p>Lets the tasks of an asynchronous sort find out whether they should stop, and report how much of the sort they have
+ * finished.</p>
+ * 
+ * <p>Tasks stop cooperatively: each task checks {@link #shouldStop()} before each partitioning step and before its
+ * sequential leaf, and returns if the sort has been asked to stop (e.g. cancelled by the caller), its deadline has
+ * passed, or its future has been completed from outside. A partitioning step or leaf that has already started is not
+ * interrupted, so the tasks only stop once those in progress have finished. Progress is measured
+ * in elements that are known to be in their final positions: the elements of a sub-array once it has been sorted
+ * sequentially, and the elements equal to a pivot once they have been partitioned.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+final class SortControl {
+  
+  /**
+   * The timeout that means "no deadline". (<tt>TimeUnit.toNanos</tt> saturates to this for timeouts of about 292 years or
+   * more, which may as well be none.)
+   */
+  static final long NO_TIMEOUT = Long.MAX_VALUE;
+  
+  private final CompletableFuture<Void> future;
+  private final boolean timed;
+  private final long deadline;
+  private final long length;
+  private final SortProgressListener listener;
+  private final AtomicReference<Throwable> stopCause = new AtomicReference<Throwable>();
+  private final AtomicLong finished = new AtomicLong();
+  private final AtomicInteger reportedPercent = new AtomicInteger();
+  
+  /**
+   * @param future
+   *          The future of the sort. Tasks stop if it is completed before they finish.
+   * @param timeoutNanos
+   *          How long from now the sort may run for, or {@link #NO_TIMEOUT}.
+   * @param length
+   *          The number of elements being sorted.
+   * @param listener
+   *          The listener to report progress to, or null.
+   */
+  SortControl(CompletableFuture<Void> future, long timeoutNanos, long length, SortProgressListener listener) {
+    this.future = future;
+    this.timed = timeoutNanos != NO_TIMEOUT;
+    // Deadlines are compared by subtraction, which is overflow-safe for anything under 2^63 nanoseconds away
+    this.deadline = System.nanoTime() + Math.min(timeoutNanos, Long.MAX_VALUE / 2);
+    this.length = length;
+    this.listener = listener;
+  }
+  
+  /**
+   * @return true if the sort has been asked to stop, its deadline has passed or its future has been completed.
+   */
+  boolean shouldStop() {
+    if (stopCause.get() != null || future.isDone()) {
+      return true;
+    }
+    if (timed && System.nanoTime() - deadline >= 0) {
+      stop(new TimeoutException("Sort deadline passed"));
+      return true;
+    }
+    return false;
+  }
+  
+  /**
+   * Asks the tasks to stop, unless they have already been asked to.
+   * 
+   * @param cause
+   *          The exception to complete the sort's future with once the tasks have stopped.
+   */
+  void stop(Throwable cause) {
+    stopCause.compareAndSet(null, cause);
+  }
+  
+  /**
+   * @return the cause given to the first call to {@link #stop(Throwable)}, or null if the tasks haven't been asked to
+   *         stop.
+   */
+  Throwable stopCause() {
+    return stopCause.get();
+  }
+  
+  /**
+   * Records that <tt>count</tt> more elements are in their final positions.
+   */
+  void finished(int count) {
+    if (listener == null || count == 0) {
+      return;
+    }
+    long done = finished.addAndGet(count);
+    int percent = (int) (done * 100 / length);
+    // Only the thread that moves the reported percentage on reports, so that the listener isn't flooded. Retry on a lost
+    // race, so that the thread that finishes the last element always reports 1.0
+    int reported;
+    while (percent > (reported = reportedPercent.get())) {
+      if (reportedPercent.compareAndSet(reported, percent)) {
+        listener.progress((double) done / length);
+        return;
+      }
+    }
+  }
+  
+}
@@ -0,0 +1,142 @@
+/**
+ * SortPool.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+/**
+ * Holds the <tt>ForkJoinPool</tt> shared by all of the parallel sorting classes in this package, along with the argument
+ * checks that they have in common.
+ * 
+ * <p>The pool is exposed over JMX as a {@link ParallelSortPoolMXBean} named {@value #MBEAN_NAME}.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+final class SortPool {
+  
+  /**
+   * The pool that all parallel sorts in this package run in. Sharing one pool keeps the number of worker threads equal to
+   * the number of cores, no matter how many different parallel sorting classes are in use.
+   */
+  static final ForkJoinPool POOL = new ForkJoinPool();
+  
+  /**
+   * The JMX object name that the pool's {@link ParallelSortPoolMXBean} is registered under.
+   */
+  static final String MBEAN_NAME = "uk.co.bluettduncanj.parallel:type=ParallelSortPool";
+  
+  // Cumulative totals over all sorts that have run in the pool
+  private static final LongAdder sortCount = new LongAdder();
+  private static final LongAdder sortedElementCount = new LongAdder();
+  
+  static {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(new Monitor(), new ObjectName(MBEAN_NAME));
+    }
+    catch (JMException | SecurityException e) {
+      // Monitoring is optional: e.g. another class loader has already registered the name, or JMX is not permitted
+    }
+  }
+  
+  /*
+   * Private constructor - prevent instantiation.
+   */
+  private SortPool() {}
+  
+  /**
+   * Checks that <tt>lo</tt> and <tt>hi</tt> are valid indices for a particular collection with 0-based indexing.
+   * 
+   * @param lo
+   *          Index to sort from.
+   * @param hi
+   *          Index to sort to.
+   * @param length
+   *          Size of collection to be sorted, which is assumed to have 0-based indexing.
+   * @throws IllegalArgumentException if lo > hi.
+   * @throws ArrayIndexOutOfBoundsException if lo < 0 or hi >= length.
+   */
+  static void checkRange(int lo, int hi, int length) 
+      throws IllegalArgumentException, ArrayIndexOutOfBoundsException {
+    
+    if (lo > hi) {
+      throw new IllegalArgumentException("lo(" + lo + ") > hi(" + hi + ")");
+    }
+    if (lo < 0) {
+      throw new ArrayIndexOutOfBoundsException(lo);
+    }
+    if (hi >= length) {
+      throw new ArrayIndexOutOfBoundsException(hi);
+    }
+  }
+  
+  /**
+   * Records that a sort of <tt>length</tt> elements has completed in the pool.
+   * 
+   * @param length
+   *          Number of elements sorted.
+   */
+  static void sorted(int length) {
+    sortCount.increment();
+    sortedElementCount.add(length);
+  }
+  
+  /**
+   * The {@link ParallelSortPoolMXBean} implementation, which reads the pool's statistics on demand.
+   */
+  private static final class Monitor implements ParallelSortPoolMXBean {
+    
+    @Override
+    public int getParallelism() {
+      return POOL.getParallelism();
+    }
+    
+    @Override
+    public int getPoolSize() {
+      return POOL.getPoolSize();
+    }
+    
+    @Override
+    public int getActiveThreadCount() {
+      return POOL.getActiveThreadCount();
+    }
+    
+    @Override
+    public int getRunningThreadCount() {
+      return POOL.getRunningThreadCount();
+    }
+    
+    @Override
+    public long getStealCount() {
+      return POOL.getStealCount();
+    }
+    
+    @Override
+    public int getQueuedSubmissionCount() {
+      return POOL.getQueuedSubmissionCount();
+    }
+    
+    @Override
+    public long getQueuedTaskCount() {
+      return POOL.getQueuedTaskCount();
+    }
+    
+    @Override
+    public long getSortCount() {
+      return sortCount.sum();
+    }
+    
+    @Override
+    public long getSortedElementCount() {
+      return sortedElementCount.sum();
+    }
+  }
+  
+}
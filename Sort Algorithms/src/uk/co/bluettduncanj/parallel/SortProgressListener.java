@@ -0,0 +1,27 @@
+/**
+ * SortProgressListener.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+
+/**
+ * Receives progress reports from an asynchronous parallel sort, such as {@code ParallelQuicksort.sortAsync}.
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public interface SortProgressListener {
+  
+  /**
+   * Reports that a sort has progressed. Progress is reported at most once per whole percentage point, and always reaches
+   * 1.0 when the sort completes normally.
+   * 
+   * <p>This is called from the sort's worker threads, possibly from several of them at once, so it must be thread-safe
+   * and quick. Reports from different threads may arrive slightly out of order.</p>
+   * 
+   * @param fraction
+   *          An estimate of the fraction of the sort that is complete, between 0.0 and 1.0.
+   */
+  void progress(double fraction);
+  
+}
@@ -0,0 +1,73 @@
+/**
+ * StringFlagSortAction.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import uk.co.bluettduncanj.serial.AmericanFlagSort;
+
+
+/**
+ * <p>A <tt>RecursiveAction</tt> that sorts a range of a <tt>String</tt> array with an American flag sort, used by
+ * <tt>ParallelAmericanFlagSort</tt>.</p>
+ *
+ * <p>The range is distributed into buckets in place with {@link AmericanFlagSort#distribute(String[], int, int, int,
+ * int[])}, and then every bucket that needs sorting is sorted by a task of its own. So the top-level buckets are sorted
+ * concurrently, and the larger ones are split again in parallel rather than by one worker.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+class StringFlagSortAction extends RecursiveAction {
+  
+  /** serialVersionUID */
+  private static final long serialVersionUID = -2969271526637707374L;
+  
+  private final String[] array;
+  private final int lo;
+  private final int hi;
+  private final int depth;
+  
+  /**
+   * @param array
+   *          The array to sort.
+   * @param lo
+   *          The first index of the range to sort.
+   * @param hi
+   *          The last index of the range to sort.
+   * @param depth
+   *          The number of leading digits that every string in the range has in common.
+   */
+  StringFlagSortAction(String[] array, int lo, int hi, int depth) {
+    this.array = array;
+    this.lo = lo;
+    this.hi = hi;
+    this.depth = depth;
+  }
+  
+  @Override
+  protected void compute() {
+    if (hi - lo + 1 < ParallelAmericanFlagSort.PARALLEL_CUTOFF) {
+      AmericanFlagSort.sort(array, lo, hi, depth);
+      return;
+    }
+    int[] bounds = new int[AmericanFlagSort.RADIX + 2];
+    int digit = AmericanFlagSort.distribute(array, lo, hi, depth, bounds);
+    if (digit < 0) {
+      return;                                                             // Every string is equal
+    }
+    
+    // Bucket 0 holds the strings that have ended, which are all equal
+    List<StringFlagSortAction> actions = new ArrayList<StringFlagSortAction>();
+    for (int c = 1; c <= AmericanFlagSort.RADIX; c++) {
+      if (bounds[c + 1] - bounds[c] > 1) {
+        actions.add(new StringFlagSortAction(array, bounds[c], bounds[c + 1] - 1, digit + 1));
+      }
+    }
+    invokeAll(actions);
+  }
+  
+}
@@ -0,0 +1,59 @@
+/**
+ * TaskTrace.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counts the shape of the task tree of a single parallel sort, for {@link ParallelSortEvent}. Every task of the sort
+ * shares one <tt>TaskTrace</tt>, so all of the counters are safe to update from any worker thread.
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+final class TaskTrace {
+  
+  private final LongAdder tasksForked = new LongAdder();
+  private final LongAdder sequentialLeaves = new LongAdder();
+  private final AtomicInteger maxDepth = new AtomicInteger();
+  
+  /**
+   * Records that a task at the given depth of the task tree has started.
+   */
+  void taskStarted(int depth) {
+    int max;
+    while (depth > (max = maxDepth.get()) && !maxDepth.compareAndSet(max, depth)) {
+      // Lost a race with another worker; re-read the maximum and try again
+    }
+  }
+  
+  /**
+   * Records that a task has been forked.
+   */
+  void taskForked() {
+    tasksForked.increment();
+  }
+  
+  /**
+   * Records that a sub-array has been sorted sequentially instead of being split into further tasks.
+   */
+  void sequentialLeaf() {
+    sequentialLeaves.increment();
+  }
+  
+  long tasksForked() {
+    return tasksForked.sum();
+  }
+  
+  long sequentialLeaves() {
+    return sequentialLeaves.sum();
+  }
+  
+  int maxDepth() {
+    return maxDepth.get();
+  }
+  
+}
@@ -0,0 +1,125 @@
+/**
+ * SortPlan.java
+ */
+
+package uk.co.bluettduncanj.planner;
+
+
+/**
+ * <p>The decision made by {@link SortPlanner} for one input: the engine that was chosen, the statistics that it was chosen
+ * from, and a one-line reason. <tt>SortPlan</tt>s are immutable, and their <tt>toString()</tt> is intended for logging.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class SortPlan {
+
+  /**
+   * The sorting engines that {@link SortPlanner} can dispatch to.
+   */
+  public enum Engine {
+    /** The input is already sorted, so nothing is done. */
+    NONE,
+    /** {@code SmallSort}, for tiny inputs. */
+    SMALL_SORT,
+    /** {@code NaturalMergeSort}, for inputs made of a few long runs. */
+    NATURAL_MERGE_SORT,
+    /** {@code CountingSort}, for inputs whose range of values is small relative to their length. */
+    COUNTING_SORT,
+    /** {@code ParallelCountingSort}, the parallel equivalent of {@link #COUNTING_SORT}. */
+    PARALLEL_COUNTING_SORT,
+    /** {@code Quicksort3Way}, for inputs with many duplicate values. */
+    QUICKSORT_3WAY,
+    /** {@code ParallelQuicksort}, a parallel Bentley-McIlroy 3-way quicksort, for large inputs with many duplicates. */
+    PARALLEL_QUICKSORT,
+    /** {@code QuicksortBentleyMcIlroy}, for small inputs with no exploitable structure. */
+    QUICKSORT,
+    /** {@code RadixSort}, for larger inputs with no exploitable structure. */
+    RADIX_SORT,
+    /** {@code ParallelRadixSort}, the parallel equivalent of {@link #RADIX_SORT}. */
+    PARALLEL_RADIX_SORT
+  }
+
+  private final Engine engine;
+  private final String reason;
+  private final int length;
+  private final int runs;
+  private final int min;
+  private final int max;
+  private final int sampleSize;
+  private final double duplicateRatio;
+
+  SortPlan(Engine engine, String reason, int length, int runs, int min, int max, int sampleSize, double duplicateRatio) {
+    this.engine = engine;
+    this.reason = reason;
+    this.length = length;
+    this.runs = runs;
+    this.min = min;
+    this.max = max;
+    this.sampleSize = sampleSize;
+    this.duplicateRatio = duplicateRatio;
+  }
+
+  /**
+   * @return the engine chosen for the input.
+   */
+  public Engine getEngine() {
+    return engine;
+  }
+
+  /**
+   * @return a short human-readable explanation of why the engine was chosen.
+   */
+  public String getReason() {
+    return reason;
+  }
+
+  /**
+   * @return the number of values in the input.
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * @return the number of non-descending runs in the input, or 0 if the input was too small to be examined.
+   */
+  public int getRuns() {
+    return runs;
+  }
+
+  /**
+   * @return the minimum value in the input. Only meaningful if {@link #getRuns()} is non-zero.
+   */
+  public int getMin() {
+    return min;
+  }
+
+  /**
+   * @return the maximum value in the input. Only meaningful if {@link #getRuns()} is non-zero.
+   */
+  public int getMax() {
+    return max;
+  }
+
+  /**
+   * @return the number of values that the duplicate ratio was estimated from, or 0 if it was not estimated.
+   */
+  public int getSampleSize() {
+    return sampleSize;
+  }
+
+  /**
+   * @return the estimated fraction of values that are duplicates of another value, between 0 and 1.
+   */
+  public double getDuplicateRatio() {
+    return duplicateRatio;
+  }
+
+  @Override
+  public String toString() {
+    return "SortPlan[engine=" + engine + ", length=" + length + ", runs=" + runs + ", min=" + min + ", max=" + max
+        + ", sampleSize=" + sampleSize + ", duplicateRatio=" + String.format("%.3f", duplicateRatio) + ", reason="
+        + reason + "]";
+  }
+
+}
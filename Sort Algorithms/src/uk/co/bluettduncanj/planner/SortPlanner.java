@@ -0,0 +1,244 @@
+/**
+ * SortPlanner.java
+ */
+
+package uk.co.bluettduncanj.planner;
+
+import java.util.Arrays;
+
+import uk.co.bluettduncanj.parallel.ParallelCountingSort;
+import uk.co.bluettduncanj.parallel.ParallelQuicksort;
+import uk.co.bluettduncanj.parallel.ParallelRadixSort;
+import uk.co.bluettduncanj.planner.SortPlan.Engine;
+import uk.co.bluettduncanj.serial.CountingSort;
+import uk.co.bluettduncanj.serial.NaturalMergeSort;
+import uk.co.bluettduncanj.serial.Quicksort3Way;
+import uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy;
+import uk.co.bluettduncanj.serial.RadixSort;
+import uk.co.bluettduncanj.serial.SmallSort;
+
+
+/**
+ * <p>An adaptive sorting front end for <tt>int</tt> arrays, which examines its input and dispatches to whichever sorting
+ * engine suits it best, so that call sites don't have to choose (and tune) an engine themselves.</p>
+ *
+ * <p>Planning costs one linear pass over the input, which finds its minimum and maximum values and counts its runs,
+ * plus (only when it matters) a sort of a small strided sample to estimate the ratio of duplicate values. The
+ * decisions, in order, are:</p>
+ *
+ * <ol>
+ *   <li>Inputs of up to {@link #SMALL_SORT_CUTOFF} values are sorted with {@code SmallSort}.</li>
+ *   <li>Inputs that are already sorted are left alone.</li>
+ *   <li>Inputs made of at most {@link #MAX_MERGE_RUNS} runs (averaging at least {@link #MIN_AVERAGE_RUN_LENGTH} values)
+ *       are sorted with a natural mergesort, which takes O(Nlog<sub>2</sub>R) time for R runs.</li>
+ *   <li>Inputs whose range of values is small relative to their length are counting sorted.</li>
+ *   <li>Inputs in which at least {@link #DUPLICATE_RATIO_CUTOFF} of the sampled values are duplicates are sorted with a
+ *       3-way quicksort, which does less work the fewer distinct values there are.</li>
+ *   <li>Everything else is radix sorted, unless it is smaller than {@link #RADIX_SORT_CUTOFF}, in which case the
+ *       histograms aren't worth building and a quicksort is used instead.</li>
+ * </ol>
+ *
+ * <p>Counting, 3-way quicksort and radix sort use their parallel engines for inputs of at least
+ * {@link #PARALLEL_CUTOFF} values, if more than one processor is available.</p>
+ *
+ * <p>Use {@link #explain(int[], int, int)} to see the plan for an input without sorting it; {@link #sort(int[], int, int)}
+ * also returns the plan that it carried out, so that decisions can be logged.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class SortPlanner {
+
+  /**
+   * Inputs of this many values or fewer are sorted with {@code SmallSort} without being examined.
+   */
+  public static final int SMALL_SORT_CUTOFF = 47;
+
+  /**
+   * The maximum number of runs for which a natural mergesort is chosen.
+   */
+  public static final int MAX_MERGE_RUNS = 64;
+
+  /**
+   * The minimum average run length for which a natural mergesort is chosen, so that short inputs made of a few tiny runs
+   * aren't merged.
+   */
+  public static final int MIN_AVERAGE_RUN_LENGTH = 16;
+
+  /**
+   * The number of values sampled to estimate the duplicate ratio.
+   */
+  public static final int SAMPLE_SIZE = 1024;
+
+  /**
+   * The sampled fraction of duplicate values at or above which a 3-way quicksort is chosen.
+   */
+  public static final double DUPLICATE_RATIO_CUTOFF = 0.25;
+
+  /**
+   * Inputs smaller than this that have no other exploitable structure are quicksorted rather than radix sorted.
+   */
+  public static final int RADIX_SORT_CUTOFF = 1 << 12;
+
+  /**
+   * Inputs of at least this many values are sorted by a parallel engine, if more than one processor is available.
+   */
+  public static final int PARALLEL_CUTOFF = 1 << 17;
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private SortPlanner() {}
+
+  /**
+   * A convenience method for explain(int[] array, int start, int end) that plans for an entire array.
+   *
+   * @param array
+   *          The array to plan for.
+   * @return the plan that {@link #sort(int[])} would carry out.
+   */
+  public static SortPlan explain(int[] array) {
+    return explain(array, 0, array.length - 1);
+  }
+
+  /**
+   * Examines a range of values between two inclusive indexes (start and end) within an array of ints, and decides how to
+   * sort it, without sorting it.
+   *
+   * @param array
+   *          The array to plan for.
+   * @param start
+   *          First index of range of values to plan for.
+   * @param end
+   *          Last index of range of values to plan for.
+   * @return the plan that {@link #sort(int[], int, int)} would carry out.
+   */
+  public static SortPlan explain(int[] array, int start, int end) {
+    int length = Math.max(0, end - start + 1);
+    if (length <= SMALL_SORT_CUTOFF) {
+      return new SortPlan(Engine.SMALL_SORT, "at most " + SMALL_SORT_CUTOFF + " values", length, 0, 0, 0, 0, 0);
+    }
+
+    // One pass for the minimum, maximum and run count
+    int min = array[start], max = min, runs = 1;
+    for (int i = start + 1; i <= end; i++) {
+      int value = array[i];
+      if (value < array[i - 1]) {
+        runs++;
+      }
+      if (value < min) {
+        min = value;
+      }
+      else if (value > max) {
+        max = value;
+      }
+    }
+
+    if (runs == 1) {
+      return new SortPlan(Engine.NONE, "already sorted", length, runs, min, max, 0, 0);
+    }
+    if (runs <= MAX_MERGE_RUNS && runs <= length / MIN_AVERAGE_RUN_LENGTH) {
+      return new SortPlan(Engine.NATURAL_MERGE_SORT, runs + " runs", length, runs, min, max, 0, 0);
+    }
+
+    boolean parallel = length >= PARALLEL_CUTOFF && Runtime.getRuntime().availableProcessors() > 1;
+    if (CountingSort.isCountable(length, min, max)) {
+      return new SortPlan(parallel ? Engine.PARALLEL_COUNTING_SORT : Engine.COUNTING_SORT,
+          "range of " + ((long) max - min + 1) + " values", length, runs, min, max, 0, 0);
+    }
+
+    int sampleSize = Math.min(SAMPLE_SIZE, length);
+    double duplicateRatio = sampleDuplicateRatio(array, start, length, sampleSize);
+    if (duplicateRatio >= DUPLICATE_RATIO_CUTOFF) {
+      return new SortPlan(parallel ? Engine.PARALLEL_QUICKSORT : Engine.QUICKSORT_3WAY, "many duplicates", length, runs,
+          min, max, sampleSize, duplicateRatio);
+    }
+
+    if (length < RADIX_SORT_CUTOFF) {
+      return new SortPlan(Engine.QUICKSORT, "no exploitable structure, too small to radix sort", length, runs, min, max,
+          sampleSize, duplicateRatio);
+    }
+    return new SortPlan(parallel ? Engine.PARALLEL_RADIX_SORT : Engine.RADIX_SORT, "no exploitable structure", length,
+        runs, min, max, sampleSize, duplicateRatio);
+  }
+
+  /**
+   * A convenience method for sort(int[] array, int start, int end) that sorts an entire array.
+   *
+   * @param array
+   *          The array to sort.
+   * @return the plan that was carried out.
+   */
+  public static SortPlan sort(int[] array) {
+    return sort(array, 0, array.length - 1);
+  }
+
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of ints, using the engine
+   * chosen by {@link #explain(int[], int, int)}.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @return the plan that was carried out.
+   */
+  @SuppressWarnings("deprecation")
+  public static SortPlan sort(int[] array, int start, int end) {
+    SortPlan plan = explain(array, start, end);
+    switch (plan.getEngine()) {
+      case NONE:
+        break;
+      case SMALL_SORT:
+        SmallSort.sort(array, start, end);
+        break;
+      case NATURAL_MERGE_SORT:
+        NaturalMergeSort.sort(array, start, end);
+        break;
+      case COUNTING_SORT:
+        CountingSort.sort(array, start, end, plan.getMin(), plan.getMax());
+        break;
+      case PARALLEL_COUNTING_SORT:
+        ParallelCountingSort.sort(array, start, end);
+        break;
+      case QUICKSORT_3WAY:
+        Quicksort3Way.quicksort(array, start, end);
+        break;
+      case PARALLEL_QUICKSORT:
+        ParallelQuicksort.sort(array, start, end);
+        break;
+      case QUICKSORT:
+        QuicksortBentleyMcIlroy.quicksort(array, start, end);
+        break;
+      case RADIX_SORT:
+        RadixSort.sort(array, start, end);
+        break;
+      case PARALLEL_RADIX_SORT:
+        ParallelRadixSort.sort(array, start, end);
+        break;
+      default:
+        throw new AssertionError(plan.getEngine());
+    }
+    return plan;
+  }
+
+  /*
+   * Estimates the fraction of duplicate values from sampleSize values taken at evenly spaced positions.
+   */
+  private static double sampleDuplicateRatio(int[] array, int start, int length, int sampleSize) {
+    int[] sample = new int[sampleSize];
+    for (int i = 0; i < sampleSize; i++) {
+      sample[i] = array[start + (int) ((long) i * length / sampleSize)];
+    }
+    Arrays.sort(sample);
+    int distinct = 1;
+    for (int i = 1; i < sampleSize; i++) {
+      if (sample[i] != sample[i - 1]) {
+        distinct++;
+      }
+    }
+    return 1.0 - (double) distinct / sampleSize;
+  }
+
+}
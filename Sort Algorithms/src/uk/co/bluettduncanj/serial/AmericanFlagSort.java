@@ -0,0 +1,507 @@
+/**
+ * AmericanFlagSort.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import java.util.Arrays;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+
+
+/**
+ * <p>An in-place most-significant-digit radix sort (McIlroy, Bostic and McIlroy's "American flag sort") for
+ * <tt>String</tt> and <tt>byte[]</tt> keys.</p>
+ *
+ * <p>Comparison sorts compare every pair of keys from their first character, so keys with long common prefixes (such
+ * as identifiers, URLs and file paths) have those prefixes re-read over and over. This sort reads each digit of each
+ * key at most a few times: a range is distributed into {@link #RADIX} + 1 buckets by one digit, in place, by
+ * counting the size of every bucket (caching every key's digit as it goes) and then cycling every key directly into
+ * its bucket; and then every bucket is sorted by the next digit. Bucket 0 holds the keys that have no more digits,
+ * which are all equal and so need no more sorting. Buckets smaller than {@link #QUICKSORT_CUTOFF} are sorted with a
+ * 3-way string quicksort instead ({@code MultikeyQuicksort} for strings), which doesn't have to clear and scan
+ * {@link #RADIX} counts to split a handful of keys.</p>
+ *
+ * <p>The digits of a <tt>byte[]</tt> are its bytes, taken as unsigned, so arrays are sorted into unsigned
+ * lexicographic order, with a proper prefix first. The digits of a <tt>String</tt> are the high and then the low
+ * byte of each of its chars, so strings are sorted into exactly the order of {@link String#compareTo(String)}. When
+ * every key in a range has the same digit (as in a shared prefix, or the high bytes of ASCII text), the range's
+ * whole common prefix is found and skipped in one pass.</p>
+ *
+ * <p>Ranges are sorted with an explicit stack of buckets rather than recursion, so keys with very long common
+ * prefixes can't overflow the call stack. The sort is not stable, and uses O(N) extra memory: the cached digit of
+ * every key being distributed (2 bytes each).</p>
+ *
+ * <p><b>References:</b></p>
+ *
+ * <p>P. M. McIlroy, K. Bostic and M. D. McIlroy, "Engineering radix sort", <i>Computing Systems</i>, vol 6, no 1,
+ * pp. 5-27, 1993.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class AmericanFlagSort {
+
+  /**
+   * The number of distinct digits, not counting the end of a key.
+   */
+  public static final int RADIX = 256;
+
+  /**
+   * Ranges smaller than this are sorted with a 3-way string quicksort rather than distributed into buckets.
+   */
+  public static final int QUICKSORT_CUTOFF = 32;
+
+  /**
+   * Ranges of byte arrays smaller than this are insertion sorted by the 3-way string quicksort.
+   */
+  private static final int INSERTION_SORT_CUTOFF = 8;
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private AmericanFlagSort() {}
+
+  /**
+   * A convenience method for sort(String[] array, int start, int end) that sorts an entire array.
+   *
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(String[] array) {
+    sort(array, 0, array.length - 1);
+  }
+
+  /**
+   * Sorts a range of strings between two inclusive indexes (start and end) into the order of
+   * {@link String#compareTo(String)}.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(String[] array, int start, int end) {
+    SortStats stats = SortMetrics.begin("AmericanFlagSort", end - start + 1);
+    try {
+      sort(array, start, end, 0);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * A convenience method for sort(byte[][] array, int start, int end) that sorts an entire array.
+   *
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(byte[][] array) {
+    sort(array, 0, array.length - 1);
+  }
+
+  /**
+   * Sorts a range of byte arrays between two inclusive indexes (start and end) into unsigned lexicographic order.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(byte[][] array, int start, int end) {
+    SortStats stats = SortMetrics.begin("AmericanFlagSort", end - start + 1);
+    try {
+      sort(array, start, end, 0);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * Sorts a range of strings whose first <tt>depth</tt> digits (see the class description) are known to be the same.
+   * Used by <tt>ParallelAmericanFlagSort</tt> to finish the buckets that it has split a range into.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param depth
+   *          The number of leading digits that every string in the range has in common.
+   */
+  public static void sort(String[] array, int start, int end, int depth) {
+    int[] stack = new int[3 * 16];
+    int top = 0;
+    int[] bounds = null;
+    while (true) {
+      int n = end - start + 1;
+      if (n < QUICKSORT_CUTOFF) {
+        // Every key shares its first depth / 2 whole chars
+        MultikeyQuicksort.sort(array, start, end, depth >>> 1);
+      }
+      else {
+        if (bounds == null) {
+          bounds = new int[RADIX + 2];
+        }
+        depth = distribute(array, start, end, depth, bounds);
+        if (depth >= 0) {
+          // Push every bucket that needs sorting, except for the keys that have ended (bucket 0)
+          for (int c = 1; c <= RADIX; c++) {
+            if (bounds[c + 1] - bounds[c] > 1) {
+              if (top == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+              }
+              stack[top++] = bounds[c];
+              stack[top++] = bounds[c + 1] - 1;
+              stack[top++] = depth + 1;
+            }
+          }
+        }
+      }
+      if (top == 0) {
+        return;
+      }
+      depth = stack[--top];
+      end = stack[--top];
+      start = stack[--top];
+    }
+  }
+
+  /**
+   * Sorts a range of byte arrays whose first <tt>depth</tt> bytes are known to be the same. Used by
+   * <tt>ParallelAmericanFlagSort</tt> to finish the buckets that it has split a range into.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param depth
+   *          The number of leading bytes that every array in the range has in common.
+   */
+  public static void sort(byte[][] array, int start, int end, int depth) {
+    int[] stack = new int[3 * 16];
+    int top = 0;
+    int[] bounds = null;
+    while (true) {
+      int n = end - start + 1;
+      if (n < QUICKSORT_CUTOFF) {
+        SortMetrics.leaf();
+        quicksort(array, start, end, depth);
+      }
+      else {
+        if (bounds == null) {
+          bounds = new int[RADIX + 2];
+        }
+        depth = distribute(array, start, end, depth, bounds);
+        if (depth >= 0) {
+          for (int c = 1; c <= RADIX; c++) {
+            if (bounds[c + 1] - bounds[c] > 1) {
+              if (top == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+              }
+              stack[top++] = bounds[c];
+              stack[top++] = bounds[c + 1] - 1;
+              stack[top++] = depth + 1;
+            }
+          }
+        }
+      }
+      if (top == 0) {
+        return;
+      }
+      depth = stack[--top];
+      end = stack[--top];
+      start = stack[--top];
+    }
+  }
+
+  /**
+   * <p>Distributes a range of strings, whose first <tt>depth</tt> digits are known to be the same, into buckets in
+   * place, by the first digit from <tt>depth</tt> on at which they don't all agree.</p>
+   *
+   * <p>Afterwards bucket <tt>c</tt> (from 0 to {@link #RADIX}) is <tt>array[bounds[c]..bounds[c+1]-1]</tt>. Bucket 0
+   * holds the strings that have no more digits, which are all equal, and bucket <tt>c</tt> the strings whose digit is
+   * <tt>c - 1</tt>. Used by <tt>ParallelAmericanFlagSort</tt>.</p>
+   *
+   * @param array
+   *          The array to distribute.
+   * @param start
+   *          First index of range of values to distribute.
+   * @param end
+   *          Last index of range of values to distribute.
+   * @param depth
+   *          The number of leading digits that every string in the range has in common.
+   * @param bounds
+   *          An array of at least {@link #RADIX} + 2 elements, in which the bounds of the buckets are stored.
+   *
+   * @return the digit by which the range was distributed, or -1 if every string in it is equal (in which case
+   *         <tt>bounds</tt> is undefined).
+   */
+  public static int distribute(String[] array, int start, int end, int depth, int[] bounds) {
+    int n = end - start + 1;
+    short[] digits = new short[n];
+    while (true) {
+      Arrays.fill(bounds, 0, RADIX + 2, 0);
+      for (int i = start; i <= end; i++) {
+        int key = digit(array[i], depth);
+        digits[i - start] = (short) key;
+        bounds[key + 1]++;
+      }
+      SortMetrics.comparisons(n);
+      if (bounds[1] == n) {
+        return -1;
+      }
+      if (toBounds(bounds, start, n)) {
+        break;
+      }
+      depth = commonPrefix(array, start, end, depth);                     // Every key has the same digit here
+    }
+
+    // Cycle every string into its bucket, carrying its digit along with it: next[c] is the next unfilled position in
+    // bucket c
+    int[] next = Arrays.copyOf(bounds, RADIX + 1);
+    for (int c = 0; c <= RADIX; c++) {
+      int bucketEnd = bounds[c + 1];
+      while (next[c] < bucketEnd) {
+        String value = array[next[c]];
+        int b = digits[next[c] - start];
+        while (b != c) {
+          int k = next[b]++;
+          String displaced = array[k];
+          int displacedDigit = digits[k - start];
+          array[k] = value;
+          digits[k - start] = (short) b;
+          value = displaced;
+          b = displacedDigit;
+        }
+        digits[next[c] - start] = (short) c;
+        array[next[c]++] = value;
+      }
+    }
+    SortMetrics.moves(n);
+    return depth;
+  }
+
+  /**
+   * <p>Distributes a range of byte arrays, whose first <tt>depth</tt> bytes are known to be the same, into buckets in
+   * place, by the first byte from <tt>depth</tt> on at which they don't all agree.</p>
+   *
+   * <p>Afterwards bucket <tt>c</tt> (from 0 to {@link #RADIX}) is <tt>array[bounds[c]..bounds[c+1]-1]</tt>. Bucket 0
+   * holds the arrays that have no more bytes, which are all equal, and bucket <tt>c</tt> the arrays whose byte is
+   * <tt>c - 1</tt> (unsigned). Used by <tt>ParallelAmericanFlagSort</tt>.</p>
+   *
+   * @param array
+   *          The array to distribute.
+   * @param start
+   *          First index of range of values to distribute.
+   * @param end
+   *          Last index of range of values to distribute.
+   * @param depth
+   *          The number of leading bytes that every array in the range has in common.
+   * @param bounds
+   *          An array of at least {@link #RADIX} + 2 elements, in which the bounds of the buckets are stored.
+   *
+   * @return the index of the byte by which the range was distributed, or -1 if every array in it is equal (in which
+   *         case <tt>bounds</tt> is undefined).
+   */
+  public static int distribute(byte[][] array, int start, int end, int depth, int[] bounds) {
+    int n = end - start + 1;
+    short[] digits = new short[n];
+    while (true) {
+      Arrays.fill(bounds, 0, RADIX + 2, 0);
+      for (int i = start; i <= end; i++) {
+        int key = digit(array[i], depth);
+        digits[i - start] = (short) key;
+        bounds[key + 1]++;
+      }
+      SortMetrics.comparisons(n);
+      if (bounds[1] == n) {
+        return -1;
+      }
+      if (toBounds(bounds, start, n)) {
+        break;
+      }
+      depth = commonPrefix(array, start, end, depth);
+    }
+
+    int[] next = Arrays.copyOf(bounds, RADIX + 1);
+    for (int c = 0; c <= RADIX; c++) {
+      int bucketEnd = bounds[c + 1];
+      while (next[c] < bucketEnd) {
+        byte[] value = array[next[c]];
+        int b = digits[next[c] - start];
+        while (b != c) {
+          int k = next[b]++;
+          byte[] displaced = array[k];
+          int displacedDigit = digits[k - start];
+          array[k] = value;
+          digits[k - start] = (short) b;
+          value = displaced;
+          b = displacedDigit;
+        }
+        digits[next[c] - start] = (short) c;
+        array[next[c]++] = value;
+      }
+    }
+    SortMetrics.moves(n);
+    return depth;
+  }
+
+  /**
+   * Finds how many leading digits a range of strings has in common, given that it has at least its first
+   * <tt>depth + 1</tt> in common, in one pass that reads each string's characters in order. Skipping a long common
+   * prefix this way, rather than with one counting pass per digit, reads each string once instead of once per digit.
+   *
+   * @return the number of leading digits that every string in the range has in common.
+   */
+  private static int commonPrefix(String[] array, int start, int end, int depth) {
+    String first = array[start];
+    int chars = first.length();
+    for (int i = start + 1; i <= end && chars > depth >>> 1; i++) {
+      String s = array[i];
+      int n = Math.min(chars, s.length());
+      int k = depth >>> 1;
+      while (k < n && s.charAt(k) == first.charAt(k)) {
+        k++;
+      }
+      chars = k;
+    }
+    SortMetrics.comparisons(end - start);
+    return Math.max(depth + 1, 2 * chars);
+  }
+
+  /**
+   * Finds how many leading bytes a range of byte arrays has in common, given that it has at least its first
+   * <tt>depth + 1</tt> in common, in one pass that reads each array in order.
+   *
+   * @return the number of leading bytes that every array in the range has in common.
+   */
+  private static int commonPrefix(byte[][] array, int start, int end, int depth) {
+    byte[] first = array[start];
+    int common = first.length;
+    for (int i = start + 1; i <= end && common > depth + 1; i++) {
+      byte[] b = array[i];
+      int n = Math.min(common, b.length);
+      int k = depth + 1;
+      while (k < n && b[k] == first[k]) {
+        k++;
+      }
+      common = k;
+    }
+    SortMetrics.comparisons(end - start);
+    return Math.max(depth + 1, common);
+  }
+
+  /**
+   * Turns the bucket sizes in <tt>bounds[1..RADIX+1]</tt> into the first index of every bucket (and one past the end of
+   * the last), unless every key is in the same bucket.
+   *
+   * @return false if every key is in the same bucket, in which case <tt>bounds</tt> is left as it was.
+   */
+  private static boolean toBounds(int[] bounds, int start, int n) {
+    for (int c = 1; c <= RADIX + 1; c++) {
+      if (bounds[c] == n) {
+        return false;
+      }
+    }
+    bounds[0] = start;
+    for (int c = 1; c <= RADIX + 1; c++) {
+      bounds[c] += bounds[c - 1];
+    }
+    return true;
+  }
+
+  /**
+   * @return digit <tt>d</tt> of a string (the high byte of char <tt>d/2</tt> if <tt>d</tt> is even, and its low byte if
+   *         <tt>d</tt> is odd) plus one, or 0 if the string has no such digit.
+   */
+  private static int digit(String s, int d) {
+    int i = d >>> 1;
+    if (i >= s.length()) {
+      return 0;
+    }
+    char c = s.charAt(i);
+    return (((d & 1) == 0) ? (c >>> 8) : (c & 0xFF)) + 1;
+  }
+
+  /**
+   * @return byte <tt>d</tt> of an array (unsigned) plus one, or 0 if the array has no such byte.
+   */
+  private static int digit(byte[] b, int d) {
+    return (d < b.length) ? (b[d] & 0xFF) + 1 : 0;
+  }
+
+  /**
+   * Sorts array[lo..hi], whose first <tt>d</tt> bytes are the same, with Bentley and Sedgewick's 3-way string
+   * quicksort: the range is 3-way partitioned on byte <tt>d</tt>, and then the keys less than and greater than the
+   * pivot are sorted from byte <tt>d</tt> and those equal to it from byte <tt>d + 1</tt>.
+   */
+  private static void quicksort(byte[][] array, int lo, int hi, int d) {
+    while (hi - lo + 1 >= INSERTION_SORT_CUTOFF) {
+      swap(array, lo, lo + (hi - lo) / 2);
+      int pivot = digit(array[lo], d);
+      int lt = lo, gt = hi, i = lo + 1;
+      while (i <= gt) {
+        int t = digit(array[i], d);
+        SortMetrics.comparison();
+        if (t < pivot) {
+          swap(array, lt++, i++);
+        }
+        else if (t > pivot) {
+          swap(array, i, gt--);
+        }
+        else {
+          i++;
+        }
+      }
+      quicksort(array, lo, lt - 1, d);
+      quicksort(array, gt + 1, hi, d);
+      if (pivot == 0) {
+        return;                                                           // The middle keys have ended, so are equal
+      }
+      lo = lt;
+      hi = gt;
+      d++;
+    }
+    for (int i = lo + 1; i <= hi; i++) {
+      for (int j = i; j > lo && less(array[j], array[j - 1], d); j--) {
+        swap(array, j, j - 1);
+      }
+    }
+  }
+
+  /**
+   * Compares two byte arrays whose first <tt>d</tt> bytes are the same, recording the comparison when instrumentation
+   * is enabled.
+   *
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(byte[] a, byte[] b, int d) {
+    SortMetrics.comparison();
+    int n = Math.min(a.length, b.length);
+    for (int i = d; i < n; i++) {
+      int x = a[i] & 0xFF, y = b[i] & 0xFF;
+      if (x != y) {
+        return x < y;
+      }
+    }
+    return a.length < b.length;
+  }
+
+  private static <T> void swap(T[] array, int i, int j) {
+    SortMetrics.swap();
+    T tmp = array[i];
+    array[i] = array[j];
+    array[j] = tmp;
+  }
+
+}
@@ -0,0 +1,382 @@
+/**
+ * BranchlessQuicksort.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+import uk.co.bluettduncanj.tuning.Cutoff;
+
+
+/**
+ * <p>A quicksort for <tt>int</tt> and <tt>long</tt> arrays whose partitioning loop has no data-dependent branches.</p>
+ *
+ * <p>The loops in {@code Quicksort} and {@code QuicksortBentleyMcIlroy} branch on every comparison with the pivot, and
+ * on random keys the processor mispredicts about half of those branches. Here each partition is a single Lomuto-style
+ * pass that unconditionally stores every value at the end of the "less than the pivot" prefix, and then advances the end
+ * of the prefix by the result of the comparison (0 or 1), computed with arithmetic rather than a branch. That is a one
+ * lane compress-store: the only branch in the loop is the loop's own, which is always predicted.</p>
+ *
+ * <p>A Lomuto partition puts every value equal to the pivot on one side, so inputs with many duplicates are handled as in
+ * pattern-defeating quicksort: whenever the pivot equals the value just before the range (which no value in the range is
+ * less than), the range is instead partitioned into the values equal to the pivot, which are then in place, and those
+ * greater than it. Sub-arrays smaller than {@link #SMALL_SORT_THRESHOLD} are sorted with {@code SmallSort}. The pivots
+ * are chosen deterministically (median of 3, or Tukey's ninther), so an adversarial or degenerate input can still make
+ * them bad at every level; as a guard against that, a range that is still unsorted after 2log<sub>2</sub>N levels of
+ * partitioning is radix sorted, so the sort takes O(Nlog<sub>2</sub>N) time in the worst case.</p>
+ *
+ * <p>This sort is not stable, and uses O(log<sub>2</sub>N) stack space.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class BranchlessQuicksort {
+
+  /**
+   * Sub-arrays smaller than this are sorted with {@code SmallSort} (machine-tuned, see {@code Cutoff}).
+   */
+  public static final int SMALL_SORT_THRESHOLD = Cutoff.BRANCHLESS_QUICKSORT_SMALL_SORT.value();
+
+  /**
+   * Sub-arrays smaller than this use the median of 3 elements as the pivot, and larger ones use Tukey's ninther.
+   */
+  private static final int MEDIAN3_THRESHOLD = 128;
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private BranchlessQuicksort() {}
+
+  /**
+   * A convenience method for sort(int[] array, int start, int end) that sorts an entire array.
+   *
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(int[] array) {
+    sort(array, 0, array.length - 1);
+  }
+
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of primitive integers.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(int[] array, int start, int end) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("BranchlessQuicksort", n);
+    try {
+      sort(array, start, end, depthLimit(n), true);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * A convenience method for sort(long[] array, int start, int end) that sorts an entire array.
+   *
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(long[] array) {
+    sort(array, 0, array.length - 1);
+  }
+
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of primitive longs.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(long[] array, int start, int end) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("BranchlessQuicksort", n);
+    try {
+      sort(array, start, end, depthLimit(n), true);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * @return the number of levels of partitioning after which a range is radix sorted instead.
+   */
+  private static int depthLimit(int n) {
+    return 2 * (31 - Integer.numberOfLeadingZeros(n));
+  }
+
+  /**
+   * Sorts array[start..end], recursing into the smaller partition and looping on the larger one.
+   *
+   * @param leftmost
+   *          False if array[start - 1] is no greater than any value in the range.
+   */
+  private static void sort(int[] array, int start, int end, int depthLimit, boolean leftmost) {
+    int levels = 0;
+    while (end - start + 1 >= SMALL_SORT_THRESHOLD) {
+      if (depthLimit-- == 0) {
+        SortMetrics.leaf();
+        RadixSort.sort(array, start, end);
+        break;
+      }
+      swap(array, start, pivotIndex(array, start, end));
+      int pivot = array[start];
+
+      // Every value equal to the pivot is in place once they are moved to the front
+      if (!leftmost && array[start - 1] == pivot) {
+        SortMetrics.comparison();
+        start = partitionLessOrEqual(array, start, end, pivot) + 1;
+        continue;
+      }
+
+      int p = partitionLess(array, start, end, pivot);
+      SortMetrics.enter();
+      levels++;
+      if (p - start < end - p) {
+        sort(array, start, p - 1, depthLimit, leftmost);
+        start = p + 1;
+        leftmost = false;
+      }
+      else {
+        sort(array, p + 1, end, depthLimit, false);
+        end = p - 1;
+      }
+    }
+    if (end - start + 1 < SMALL_SORT_THRESHOLD) {
+      SortMetrics.leaf();
+      SmallSort.sort(array, start, end);
+    }
+    while (levels-- > 0) {
+      SortMetrics.exit();
+    }
+  }
+
+  /**
+   * Sorts array[start..end], recursing into the smaller partition and looping on the larger one.
+   *
+   * @param leftmost
+   *          False if array[start - 1] is no greater than any value in the range.
+   */
+  private static void sort(long[] array, int start, int end, int depthLimit, boolean leftmost) {
+    int levels = 0;
+    while (end - start + 1 >= SMALL_SORT_THRESHOLD) {
+      if (depthLimit-- == 0) {
+        SortMetrics.leaf();
+        RadixSort.sort(array, start, end);
+        break;
+      }
+      swap(array, start, pivotIndex(array, start, end));
+      long pivot = array[start];
+
+      // Every value equal to the pivot is in place once they are moved to the front
+      if (!leftmost && array[start - 1] == pivot) {
+        SortMetrics.comparison();
+        start = partitionLessOrEqual(array, start, end, pivot) + 1;
+        continue;
+      }
+
+      int p = partitionLess(array, start, end, pivot);
+      SortMetrics.enter();
+      levels++;
+      if (p - start < end - p) {
+        sort(array, start, p - 1, depthLimit, leftmost);
+        start = p + 1;
+        leftmost = false;
+      }
+      else {
+        sort(array, p + 1, end, depthLimit, false);
+        end = p - 1;
+      }
+    }
+    if (end - start + 1 < SMALL_SORT_THRESHOLD) {
+      SortMetrics.leaf();
+      SmallSort.sort(array, start, end);
+    }
+    while (levels-- > 0) {
+      SortMetrics.exit();
+    }
+  }
+
+  /**
+   * Partitions array[start+1..end] around the pivot at array[start] into the values less than it and the rest, and then
+   * swaps the pivot between the two.
+   *
+   * @return the final index of the pivot.
+   */
+  private static int partitionLess(int[] array, int start, int end, int pivot) {
+    int first = start + 1;
+    for (int i = start + 1; i <= end; i++) {
+      int value = array[i];
+      array[i] = array[first];
+      array[first] = value;
+      first += (int) (((long) value - pivot) >>> 63);                     // 1 if value < pivot, without branching
+    }
+    SortMetrics.comparisons(end - start);
+    SortMetrics.moves(2L * (end - start));
+    swap(array, start, first - 1);
+    return first - 1;
+  }
+
+  /**
+   * Partitions array[start+1..end] around the pivot at array[start] into the values no greater than it and the rest,
+   * and then swaps the pivot to the end of the first group.
+   *
+   * @return the final index of the pivot.
+   */
+  private static int partitionLessOrEqual(int[] array, int start, int end, int pivot) {
+    int first = start + 1;
+    for (int i = start + 1; i <= end; i++) {
+      int value = array[i];
+      array[i] = array[first];
+      array[first] = value;
+      first += 1 - (int) (((long) pivot - value) >>> 63);                 // 1 if value <= pivot, without branching
+    }
+    SortMetrics.comparisons(end - start);
+    SortMetrics.moves(2L * (end - start));
+    swap(array, start, first - 1);
+    return first - 1;
+  }
+
+  /**
+   * Partitions array[start+1..end] around the pivot at array[start] into the values less than it and the rest, and then
+   * swaps the pivot between the two.
+   *
+   * @return the final index of the pivot.
+   */
+  private static int partitionLess(long[] array, int start, int end, long pivot) {
+    int first = start + 1;
+    for (int i = start + 1; i <= end; i++) {
+      long value = array[i];
+      array[i] = array[first];
+      array[first] = value;
+      first += lessThan(value, pivot);
+    }
+    SortMetrics.comparisons(end - start);
+    SortMetrics.moves(2L * (end - start));
+    swap(array, start, first - 1);
+    return first - 1;
+  }
+
+  /**
+   * Partitions array[start+1..end] around the pivot at array[start] into the values no greater than it and the rest,
+   * and then swaps the pivot to the end of the first group.
+   *
+   * @return the final index of the pivot.
+   */
+  private static int partitionLessOrEqual(long[] array, int start, int end, long pivot) {
+    int first = start + 1;
+    for (int i = start + 1; i <= end; i++) {
+      long value = array[i];
+      array[i] = array[first];
+      array[first] = value;
+      first += 1 - lessThan(pivot, value);
+    }
+    SortMetrics.comparisons(end - start);
+    SortMetrics.moves(2L * (end - start));
+    swap(array, start, first - 1);
+    return first - 1;
+  }
+
+  /**
+   * @return 1 if <tt>a</tt> is less than <tt>b</tt>, and 0 otherwise, computed without branching (and without the
+   *         overflow that the sign of <tt>a - b</tt> alone would suffer).
+   */
+  private static int lessThan(long a, long b) {
+    long difference = a - b;
+    return (int) ((difference ^ ((a ^ b) & (difference ^ a))) >>> 63);
+  }
+
+  /**
+   * Chooses a pivot for a range: the median of the first, middle and last elements for small-ish ranges, and "Tukey's
+   * ninther" for large ones.
+   *
+   * @return the index of the pivot.
+   */
+  private static int pivotIndex(int[] array, int start, int end) {
+    int length = end - start + 1;
+    int mid = start + (length / 2);
+    if (length < MEDIAN3_THRESHOLD) {
+      return median3(array, start, mid, end);
+    }
+    int eps = length / 8;
+    int med1 = median3(array, start, start + eps, start + eps + eps);
+    int med2 = median3(array, mid - eps, mid, mid + eps);
+    int med3 = median3(array, end - eps - eps, end - eps, end);
+    return median3(array, med1, med2, med3);
+  }
+
+  /**
+   * Chooses a pivot for a range: the median of the first, middle and last elements for small-ish ranges, and "Tukey's
+   * ninther" for large ones.
+   *
+   * @return the index of the pivot.
+   */
+  private static int pivotIndex(long[] array, int start, int end) {
+    int length = end - start + 1;
+    int mid = start + (length / 2);
+    if (length < MEDIAN3_THRESHOLD) {
+      return median3(array, start, mid, end);
+    }
+    int eps = length / 8;
+    int med1 = median3(array, start, start + eps, start + eps + eps);
+    int med2 = median3(array, mid - eps, mid, mid + eps);
+    int med3 = median3(array, end - eps - eps, end - eps, end);
+    return median3(array, med1, med2, med3);
+  }
+
+  /**
+   * @return the index of the median of the values at indexes <tt>a</tt>, <tt>b</tt> and <tt>c</tt>.
+   */
+  private static int median3(int[] array, int a, int b, int c) {
+    SortMetrics.comparisons(3);
+    int va = array[a], vb = array[b], vc = array[c];
+    if (va < vb) {
+      return (vb < vc) ? b : (va < vc) ? c : a;
+    }
+    return (va < vc) ? a : (vb < vc) ? c : b;
+  }
+
+  /**
+   * @return the index of the median of the values at indexes <tt>a</tt>, <tt>b</tt> and <tt>c</tt>.
+   */
+  private static int median3(long[] array, int a, int b, int c) {
+    SortMetrics.comparisons(3);
+    long va = array[a], vb = array[b], vc = array[c];
+    if (va < vb) {
+      return (vb < vc) ? b : (va < vc) ? c : a;
+    }
+    return (va < vc) ? a : (vb < vc) ? c : b;
+  }
+
+  private static void swap(int[] array, int i, int j) {
+    SortMetrics.swap();
+    int tmp = array[i];
+    array[i] = array[j];
+    array[j] = tmp;
+  }
+
+  private static void swap(long[] array, int i, int j) {
+    SortMetrics.swap();
+    long tmp = array[i];
+    array[i] = array[j];
+    array[j] = tmp;
+  }
+
+}
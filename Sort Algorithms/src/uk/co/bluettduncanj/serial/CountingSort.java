@@ -0,0 +1,428 @@
+/**
+ * CountingSort.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import java.util.Arrays;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+
+
+/**
+ * <p>A sorting class based on the counting sort algorithm, for types with a small domain of values.</p>
+ * 
+ * <p>Counting sort builds a histogram of how often each value occurs, and then writes each value back out as many times as
+ * it was counted. It never compares elements, so it takes O(N + R) time, where R is the number of possible values. For
+ * <tt>byte</tt>s (R = 256), and for <tt>short</tt>s and <tt>char</tt>s (R = 65536) this makes it strictly faster than any
+ * comparison sort on all but the smallest arrays.</p>
+ * 
+ * <p><tt>int</tt> arrays are first scanned for their minimum and maximum values. If the range between them is small relative
+ * to the number of elements, the histogram only needs to cover that range and counting sort is used; otherwise the array is
+ * sorted with {@code QuicksortBentleyMcIlroy}.</p>
+ * 
+ * <p>The <tt>short</tt>, <tt>char</tt> and <tt>int</tt> histograms can be borrowed from a {@code SortWorkspace} instead of
+ * being allocated by every call.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public final class CountingSort {
+  
+  /**
+   * Sub-arrays of this size or smaller are insertion sorted instead, since clearing and scanning a 65536-bucket histogram
+   * costs more than sorting them.
+   */
+  private static final int INSERTION_SORT_THRESHOLD = 47;
+  
+  /**
+   * An <tt>int</tt> array is only counting sorted if its range of values is at most this many times its length...
+   */
+  public static final int MAX_RANGE_TO_LENGTH_RATIO = 2;
+  
+  /**
+   * ...and at most this many values in total, which bounds the size of the histogram.
+   */
+  public static final int MAX_INT_RANGE = 1 << 24;
+  
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private CountingSort() {}
+  
+  /**
+   * A convenience method for sort(byte[] array, int start, int end) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(byte[] array) {
+    sort(array, 0, array.length - 1);
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of bytes, using a fixed
+   * 256-bucket histogram.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(byte[] array, int start, int end) {
+    if (end - start < 1) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("CountingSort", end - start + 1);
+    try {
+      int[] count = new int[1 << Byte.SIZE];
+      SortMetrics.scratch(4L * count.length);
+      for (int i = start; i <= end; i++) {
+        count[array[i] - Byte.MIN_VALUE]++;
+      }
+      for (int bucket = 0, k = start; k <= end; bucket++) {
+        byte value = (byte) (bucket + Byte.MIN_VALUE);
+        for (int c = count[bucket]; c > 0; c--) {
+          array[k++] = value;
+        }
+      }
+      SortMetrics.moves(end - start + 1);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * A convenience method for sort(short[] array, int start, int end) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(short[] array) {
+    sort(array, 0, array.length - 1, new SortWorkspace());
+  }
+  
+  /**
+   * A convenience method for sort(short[] array, int start, int end, SortWorkspace workspace) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param workspace
+   *          The workspace to borrow the histogram from.
+   */
+  public static void sort(short[] array, SortWorkspace workspace) {
+    sort(array, 0, array.length - 1, workspace);
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of shorts, using a fixed
+   * 65536-bucket histogram.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(short[] array, int start, int end) {
+    sort(array, start, end, new SortWorkspace());
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of shorts, using a fixed
+   * 65536-bucket histogram.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param workspace
+   *          The workspace to borrow the histogram from.
+   */
+  public static void sort(short[] array, int start, int end, SortWorkspace workspace) {
+    if (end - start < INSERTION_SORT_THRESHOLD) {
+      for (int i = start + 1; i <= end; i++) {
+        short value = array[i];
+        int j = i;
+        while (j > start && value < array[j - 1]) {
+          array[j] = array[j - 1];
+          j--;
+        }
+        array[j] = value;
+      }
+      return;
+    }
+    SortStats stats = SortMetrics.begin("CountingSort", end - start + 1);
+    try {
+      int[] count = workspace.ints(0, 1 << Short.SIZE);
+      Arrays.fill(count, 0, 1 << Short.SIZE, 0);
+      for (int i = start; i <= end; i++) {
+        count[array[i] - Short.MIN_VALUE]++;
+      }
+      // Stop as soon as every element has been written, rather than scanning every remaining bucket
+      for (int bucket = 0, k = start; k <= end; bucket++) {
+        short value = (short) (bucket + Short.MIN_VALUE);
+        for (int c = count[bucket]; c > 0; c--) {
+          array[k++] = value;
+        }
+      }
+      SortMetrics.moves(end - start + 1);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * A convenience method for sort(char[] array, int start, int end) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(char[] array) {
+    sort(array, 0, array.length - 1, new SortWorkspace());
+  }
+  
+  /**
+   * A convenience method for sort(char[] array, int start, int end, SortWorkspace workspace) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param workspace
+   *          The workspace to borrow the histogram from.
+   */
+  public static void sort(char[] array, SortWorkspace workspace) {
+    sort(array, 0, array.length - 1, workspace);
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of chars, using a fixed
+   * 65536-bucket histogram.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(char[] array, int start, int end) {
+    sort(array, start, end, new SortWorkspace());
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of chars, using a fixed
+   * 65536-bucket histogram.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param workspace
+   *          The workspace to borrow the histogram from.
+   */
+  public static void sort(char[] array, int start, int end, SortWorkspace workspace) {
+    if (end - start < INSERTION_SORT_THRESHOLD) {
+      for (int i = start + 1; i <= end; i++) {
+        char value = array[i];
+        int j = i;
+        while (j > start && value < array[j - 1]) {
+          array[j] = array[j - 1];
+          j--;
+        }
+        array[j] = value;
+      }
+      return;
+    }
+    SortStats stats = SortMetrics.begin("CountingSort", end - start + 1);
+    try {
+      int[] count = workspace.ints(0, 1 << Character.SIZE);
+      Arrays.fill(count, 0, 1 << Character.SIZE, 0);
+      for (int i = start; i <= end; i++) {
+        count[array[i]]++;
+      }
+      for (int bucket = 0, k = start; k <= end; bucket++) {
+        char value = (char) bucket;
+        for (int c = count[bucket]; c > 0; c--) {
+          array[k++] = value;
+        }
+      }
+      SortMetrics.moves(end - start + 1);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * A convenience method for sort(int[] array, int start, int end) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(int[] array) {
+    sort(array, 0, array.length - 1, new SortWorkspace());
+  }
+  
+  /**
+   * A convenience method for sort(int[] array, int start, int end, SortWorkspace workspace) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param workspace
+   *          The workspace to borrow the histogram from.
+   */
+  public static void sort(int[] array, SortWorkspace workspace) {
+    sort(array, 0, array.length - 1, workspace);
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of ints.
+   * 
+   * The range is counting sorted if {@link #isCountable(int, int, int)} holds for its minimum and maximum values, and
+   * sorted with {@code QuicksortBentleyMcIlroy} otherwise.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(int[] array, int start, int end) {
+    sort(array, start, end, new SortWorkspace());
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of ints.
+   * 
+   * The range is counting sorted if {@link #isCountable(int, int, int)} holds for its minimum and maximum values, and
+   * sorted with {@code QuicksortBentleyMcIlroy} otherwise.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param workspace
+   *          The workspace to borrow the histogram from.
+   */
+  public static void sort(int[] array, int start, int end, SortWorkspace workspace) {
+    if (end - start < INSERTION_SORT_THRESHOLD) {
+      QuicksortBentleyMcIlroy.quicksort(array, start, end);
+      return;
+    }
+    int min = array[start], max = min;
+    for (int i = start + 1; i <= end; i++) {
+      int value = array[i];
+      if (value < min) {
+        min = value;
+      }
+      else if (value > max) {
+        max = value;
+      }
+    }
+    if (isCountable(end - start + 1, min, max)) {
+      sort(array, start, end, min, max, workspace);
+    }
+    else {
+      QuicksortBentleyMcIlroy.quicksort(array, start, end);
+    }
+  }
+  
+  /**
+   * Counting sorts a range of values between two inclusive indexes (start and end) within an array of ints, whose values
+   * are already known to lie between <tt>min</tt> and <tt>max</tt> (inclusive). The histogram has one bucket for every
+   * value in that range.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param min
+   *          A lower bound on the values in the range.
+   * @param max
+   *          An upper bound on the values in the range.
+   * @throws IllegalArgumentException
+   *           If <tt>min</tt> is greater than <tt>max</tt>, or they span more than {@link #MAX_INT_RANGE} values.
+   */
+  public static void sort(int[] array, int start, int end, int min, int max) {
+    sort(array, start, end, min, max, new SortWorkspace());
+  }
+  
+  /**
+   * As {@link #sort(int[], int, int, int, int)}, but borrows the histogram from a workspace rather than allocating it.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param min
+   *          A lower bound on the values in the range.
+   * @param max
+   *          An upper bound on the values in the range.
+   * @param workspace
+   *          The workspace to borrow the histogram from.
+   * @throws IllegalArgumentException
+   *           If <tt>min</tt> is greater than <tt>max</tt>, or they span more than {@link #MAX_INT_RANGE} values.
+   */
+  public static void sort(int[] array, int start, int end, int min, int max, SortWorkspace workspace) {
+    if (min > max) {
+      throw new IllegalArgumentException("min(" + min + ") > max(" + max + ")");
+    }
+    if ((long) max - min + 1 > MAX_INT_RANGE) {
+      throw new IllegalArgumentException("Range of min(" + min + ") to max(" + max + ") exceeds " + MAX_INT_RANGE
+          + " values");
+    }
+    SortStats stats = SortMetrics.begin("CountingSort", end - start + 1);
+    try {
+      int buckets = (int) ((long) max - min + 1);
+      int[] count = workspace.ints(0, buckets);
+      Arrays.fill(count, 0, buckets, 0);
+      for (int i = start; i <= end; i++) {
+        count[array[i] - min]++;
+      }
+      for (int bucket = 0, k = start; k <= end; bucket++) {
+        int value = bucket + min;
+        for (int c = count[bucket]; c > 0; c--) {
+          array[k++] = value;
+        }
+      }
+      SortMetrics.moves(end - start + 1);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * Decides whether <tt>length</tt> ints with values between <tt>min</tt> and <tt>max</tt> (inclusive) are worth counting
+   * sorting, i.e. whether their range is small relative to their number.
+   * 
+   * @param length
+   *          The number of values to sort.
+   * @param min
+   *          The minimum value.
+   * @param max
+   *          The maximum value.
+   * @return true if the values should be counting sorted.
+   */
+  public static boolean isCountable(int length, int min, int max) {
+    long range = (long) max - min + 1;
+    return range <= MAX_INT_RANGE && range <= (long) length * MAX_RANGE_TO_LENGTH_RATIO;
+  }
+  
+}
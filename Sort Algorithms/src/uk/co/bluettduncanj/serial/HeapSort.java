@@ -5,10 +5,19 @@
 package uk.co.bluettduncanj.serial;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
 
 
 /**
+ * <p>A sorting class based on the heapsort algorithm.</p>
+ * 
+ * <p>The static <tt>sort</tt> methods heapify arrays and <tt>RandomAccess</tt> lists within their existing storage, so they
+ * have a guaranteed O(Nlog<sub>2</sub>N) efficiency in all cases and allocate no extra memory. The older 
+ * {@link #sortAsc(List)} method builds a separate heap instead.</p>
+ * 
  * @author Jonathan Bluett-Duncan
  */
 public final class HeapSort<T extends Comparable<T>> {
@@ -77,9 +86,15 @@ public final class HeapSort<T extends Comparable<T>> {
    * This method does not return a separate copy of the list. Therefore, if you need separate copies, e.g.
    * one ordered and one unordered, do that before calling this method on one of the copies.
    * 
+   * RandomAccess lists are sorted in place by {@link #sort(List)}; other lists are drained into a separate heap.
+   * 
    * @param list the list of Comparables to sort
    */
   public void sortAsc(List<T> list) {
+    if (list instanceof RandomAccess) {
+      sort(list);
+      return;
+    }
     HeapSort.Heap<T> heap = new HeapSort.Heap<T>();
     while (!list.isEmpty()) {
       heap.add(list.remove(0));
@@ -88,5 +103,142 @@ public final class HeapSort<T extends Comparable<T>> {
       list.add(heap.remove());
     }
   }
+
+  /**
+   * Sorts an array of Comparables into ascending order, according to their natural ordering.
+   * 
+   * The array is heapified in place, so no extra memory is allocated.
+   * 
+   * @param array the array to sort
+   */
+  public static <E extends Comparable<? super E>> void sort(E[] array) {
+    sort(array, 0, array.length - 1, Comparator.<E>naturalOrder());
+  }
+  
+  /**
+   * Sorts an array into ascending order, according to the order induced by the given comparator.
+   * 
+   * The array is heapified in place, so no extra memory is allocated.
+   * 
+   * @param array the array to sort
+   * @param c the comparator that determines the order of the array
+   */
+  public static <E> void sort(E[] array, Comparator<? super E> c) {
+    sort(array, 0, array.length - 1, c);
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array, according to the order induced
+   * by the given comparator.
+   * 
+   * The range is heapified in place, so no extra memory is allocated.
+   * 
+   * @param array the array to sort
+   * @param start the first index of the range of values to sort
+   * @param end the last index of the range of values to sort
+   * @param c the comparator that determines the order of the array
+   */
+  public static <E> void sort(E[] array, int start, int end, Comparator<? super E> c) {
+    int n = end - start + 1;
+    
+    // Heapify: build a max-heap in array[start..end], rooted at array[start]
+    for (int i = n / 2 - 1; i >= 0; i--) {
+      sink(array, start, i, n, c);
+    }
+    
+    // Repeatedly move the maximum to the end of the shrinking heap
+    while (n > 1) {
+      n--;
+      E max = array[start];
+      array[start] = array[start + n];
+      array[start + n] = max;
+      sink(array, start, 0, n, c);
+    }
+  }
+  
+  /**
+   * Sorts a list of Comparables into ascending order, according to their natural ordering.
+   * 
+   * RandomAccess lists (e.g. ArrayList) are heapified in place, so no extra memory is allocated. Other lists are copied
+   * into an array, which is sorted and then written back in a single pass.
+   * 
+   * @param list the list to sort
+   */
+  public static <E extends Comparable<? super E>> void sort(List<E> list) {
+    sort(list, Comparator.<E>naturalOrder());
+  }
+  
+  /**
+   * Sorts a list into ascending order, according to the order induced by the given comparator.
+   * 
+   * RandomAccess lists (e.g. ArrayList) are heapified in place, so no extra memory is allocated. Other lists are copied
+   * into an array, which is sorted and then written back in a single pass.
+   * 
+   * @param list the list to sort
+   * @param c the comparator that determines the order of the list
+   */
+  @SuppressWarnings("unchecked")
+  public static <E> void sort(List<E> list, Comparator<? super E> c) {
+    int n = list.size();
+    if (!(list instanceof RandomAccess)) {
+      Object[] array = list.toArray();
+      sort((E[]) array, 0, n - 1, c);
+      ListIterator<E> it = list.listIterator();
+      for (Object element : array) {
+        it.next();
+        it.set((E) element);
+      }
+      return;
+    }
+    
+    for (int i = n / 2 - 1; i >= 0; i--) {
+      sink(list, i, n, c);
+    }
+    while (n > 1) {
+      n--;
+      list.set(0, list.set(n, list.get(0)));
+      sink(list, 0, n, c);
+    }
+  }
+  
+  /*
+   * Sinks the element at heap position i of the max-heap array[offset..offset+n-1] to its proper place. The sinking element
+   * is held aside and larger children are shifted up into the hole, which halves the number of writes over swapping.
+   */
+  private static <E> void sink(E[] array, int offset, int i, int n, Comparator<? super E> c) {
+    E sift = array[offset + i];
+    int child;
+    while ((child = 2 * i + 1) < n) {
+      if (child + 1 < n && c.compare(array[offset + child], array[offset + child + 1]) < 0) {
+        child++;
+      }
+      if (c.compare(sift, array[offset + child]) >= 0) {
+        break;
+      }
+      array[offset + i] = array[offset + child];
+      i = child;
+    }
+    array[offset + i] = sift;
+  }
+  
+  /*
+   * List equivalent of sink(E[], int, int, int, Comparator), for RandomAccess lists.
+   */
+  private static <E> void sink(List<E> list, int i, int n, Comparator<? super E> c) {
+    E sift = list.get(i);
+    int child;
+    while ((child = 2 * i + 1) < n) {
+      if (child + 1 < n && c.compare(list.get(child), list.get(child + 1)) < 0) {
+        child++;
+      }
+      E larger = list.get(child);
+      if (c.compare(sift, larger) >= 0) {
+        break;
+      }
+      list.set(i, larger);
+      i = child;
+    }
+    list.set(i, sift);
+  }
   
 }
@@ -4,6 +4,9 @@
 
 package uk.co.bluettduncanj.serial;
 
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+
 
 /**
  * <p>A sorting class based on the insertion sort algorithm.</p>
@@ -39,15 +42,32 @@ public final class InsertionSort {
    * @param end The finishing index of the range of values to sort.
    */
   public static void insertionSort(int[] array, int start, int end) {
-    // Single-array implementation
-    for (int i = start + 1; i <= end; i++) {
-      for (int j = i; j > start && array[j] < array[j-1]; j--) {
-        // Swap
-        int temp = array[j];
-        array[j] = array[j - 1];
-        array[j - 1] = temp;
-      }
-    } 
+    SortStats stats = SortMetrics.begin("InsertionSort", end - start + 1);
+    try {
+      // Single-array implementation
+      for (int i = start + 1; i <= end; i++) {
+        for (int j = i; j > start && less(array[j], array[j-1]); j--) {
+          // Swap
+          SortMetrics.swap();
+          int temp = array[j];
+          array[j] = array[j - 1];
+          array[j - 1] = temp;
+        }
+      } 
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * Compares two values, recording the comparison when instrumentation is enabled.
+   * 
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(int a, int b) {
+    SortMetrics.comparison();
+    return a < b;
   }
   
 }
@@ -13,8 +13,6 @@ public final class InsertionSort2 {
   private InsertionSort2() {} // Prevent instantiation
 
   public static void sort(int[] array, int start, int end) {
-    int len = end - start + 1;
-
     // Put smallest element in position to serve as sentinel
     for (int i = end; i > start; i--) {
       if (array[i] < array[i - 1]) {
@@ -23,7 +21,7 @@ public final class InsertionSort2 {
     }
 
     // Insertion sort with half-exchanges
-    for (int i = start + 2; i < len; i++) {
+    for (int i = start + 2; i <= end; i++) {
       int value = array[i];
       int j = i;
       while (value < array[j - 1]) {
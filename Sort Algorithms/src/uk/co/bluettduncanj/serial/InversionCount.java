@@ -0,0 +1,244 @@
+/**
+ * InversionCount.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import java.util.Arrays;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+
+
+/**
+ * <p>Counts the inversions of an array of ints (the pairs of indexes <i>i</i> &lt; <i>j</i> whose values are out of
+ * order, a[<i>i</i>] &gt; a[<i>j</i>]) with a mergesort, in O(Nlog<sub>2</sub>N) time.</p>
+ *
+ * <p>The mergesort is that of {@code MergeSort1}, whose merge loop already visits every inversion between its two
+ * halves: whenever a value is taken from the left half, the values already taken from the right half are exactly the
+ * ones less than it. So each merge adds up how far the right half has got at every value taken from the left, and
+ * small sub-arrays are insertion sorted, counting how far each value is shifted, which is its number of inversions with
+ * the values before it. The count of the whole array is the sum of the counts of the halves and of their merge.</p>
+ *
+ * <p>The count is between 0, for a sorted array, and N(N-1)/2, for a strictly descending one, and so is returned as a
+ * <tt>long</tt>. {@link #sort(int[], int, int)} sorts the array as it counts; {@link #count(int[], int, int)} sorts a
+ * copy, leaving the array as it was.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class InversionCount {
+
+  /**
+   * Maximum size of a sub-array to be sorted using insertion sort instead of mergesort.
+   */
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private InversionCount() {}
+
+  /**
+   * A convenience method for count(int[] array, int start, int end) that acts on an entire array.
+   *
+   * @param array
+   *          The array to examine.
+   * @return the number of inversions in the array.
+   */
+  public static long count(int[] array) {
+    return count(array, 0, array.length - 1);
+  }
+
+  /**
+   * Counts the inversions in a range of values between two inclusive indexes (start and end), without modifying it.
+   *
+   * @param array
+   *          The array to examine.
+   * @param start
+   *          First index of range of values to examine.
+   * @param end
+   *          Last index of range of values to examine.
+   * @return the number of inversions in the range.
+   */
+  public static long count(int[] array, int start, int end) {
+    if (end <= start) {
+      return 0;
+    }
+    return sort(Arrays.copyOfRange(array, start, end + 1));
+  }
+
+  /**
+   * As {@link #count(int[], int, int)}, but borrows the copy and the auxiliary array from a workspace rather than
+   * allocating them.
+   *
+   * @param array
+   *          The array to examine.
+   * @param start
+   *          First index of range of values to examine.
+   * @param end
+   *          Last index of range of values to examine.
+   * @param workspace
+   *          The workspace to borrow the copy (its second <tt>int</tt> buffer) and the auxiliary array (its first) from.
+   * @return the number of inversions in the range.
+   */
+  public static long count(int[] array, int start, int end, SortWorkspace workspace) {
+    if (end <= start) {
+      return 0;
+    }
+    int[] copy = workspace.ints(1, end - start + 1);
+    System.arraycopy(array, start, copy, 0, end - start + 1);
+    return sort(copy, 0, end - start, workspace);
+  }
+
+  /**
+   * A convenience method for sort(int[] array, int start, int end) that sorts an entire array.
+   *
+   * @param array
+   *          The array to sort.
+   * @return the number of inversions the array had.
+   */
+  public static long sort(int[] array) {
+    return sort(array, 0, array.length - 1, new SortWorkspace());
+  }
+
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end), and counts the inversions it had.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @return the number of inversions the range had.
+   */
+  public static long sort(int[] array, int start, int end) {
+    return sort(array, start, end, new SortWorkspace());
+  }
+
+  /**
+   * As {@link #sort(int[], int, int)}, but borrows the auxiliary array from a workspace rather than allocating it.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param workspace
+   *          The workspace to borrow the auxiliary array from.
+   * @return the number of inversions the range had.
+   */
+  public static long sort(int[] array, int start, int end, SortWorkspace workspace) {
+    if (end <= start) {
+      return 0;
+    }
+    SortStats stats = SortMetrics.begin("InversionCount", end - start + 1);
+    try {
+      int[] aux = workspace.ints(0, end - start + 1);
+      return sort(array, aux, start, start, end);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * Merges two sorted ranges, from[leftStart..leftEnd] and from[rightStart..rightEnd], into <tt>to</tt> from index
+   * <tt>toStart</tt>, taking values from the left range first on ties, and counts the inversions between them. The
+   * ranges may be pieces of two larger sorted halves, the right one of which begins at <tt>rightFirst</tt>; every value
+   * of that half before <tt>rightStart</tt> must be less than every value of the left range, and so is counted as an
+   * inversion with each of them.
+   *
+   * @param from
+   *          The array to merge from.
+   * @param leftStart
+   *          First index of the left range.
+   * @param leftEnd
+   *          Last index of the left range.
+   * @param rightStart
+   *          First index of the right range.
+   * @param rightEnd
+   *          Last index of the right range.
+   * @param rightFirst
+   *          First index of the right half that the right range is part of, at most <tt>rightStart</tt>.
+   * @param to
+   *          The array to merge into.
+   * @param toStart
+   *          The index of <tt>to</tt> to merge into from.
+   * @return the number of pairs of a value from the left range and a value from the right half that are inverted.
+   */
+  public static long merge(int[] from, int leftStart, int leftEnd, int rightStart, int rightEnd, int rightFirst,
+      int[] to, int toStart) {
+    long inversions = 0;
+    int i = leftStart, j = rightStart, k = toStart;
+    SortMetrics.moves((leftEnd - leftStart + 1) + (rightEnd - rightStart + 1));
+    while (i <= leftEnd && j <= rightEnd) {
+      if (less(from[j], from[i])) {
+        to[k++] = from[j++];
+      }
+      else {
+        inversions += j - rightFirst;
+        to[k++] = from[i++];
+      }
+    }
+    // Any values left in the left range are greater than every value of the right range
+    inversions += (long) (leftEnd - i + 1) * (j - rightFirst);
+    System.arraycopy(from, i, to, k, leftEnd - i + 1);
+    k += leftEnd - i + 1;
+    System.arraycopy(from, j, to, k, rightEnd - j + 1);
+    return inversions;
+  }
+
+  // Mergesort array[start..end] using auxiliary array aux[start-offset..end-offset], counting inversions
+  private static long sort(int[] array, int[] aux, int offset, int start, int end) {
+    if (end <= start + INSERTION_SORT_THRESHOLD) {
+      SortMetrics.leaf();
+      return insertionSort(array, start, end);
+    }
+
+    int mid = start + ((end - start) / 2);
+    SortMetrics.enter();
+    long inversions = sort(array, aux, offset, start, mid) + sort(array, aux, offset, mid + 1, end);
+    SortMetrics.exit();
+
+    // Skip the merge if the two halves are already in order, in which case there are no inversions between them
+    if (less(array[mid + 1], array[mid])) {
+      System.arraycopy(array, start, aux, start - offset, end - start + 1);
+      SortMetrics.moves(end - start + 1);
+      inversions += merge(aux, start - offset, mid - offset, mid + 1 - offset, end - offset, mid + 1 - offset, array,
+          start);
+    }
+    return inversions;
+  }
+
+  /*
+   * Insertion sorts array[start..end], counting how far every value moves.
+   */
+  private static long insertionSort(int[] array, int start, int end) {
+    long inversions = 0;
+    for (int i = start + 1; i <= end; i++) {
+      int value = array[i];
+      int j = i - 1;
+      while (j >= start && less(value, array[j])) {
+        array[j + 1] = array[j];
+        j--;
+      }
+      SortMetrics.moves(i - j);
+      inversions += i - 1 - j;
+      array[j + 1] = value;
+    }
+    return inversions;
+  }
+
+  /**
+   * Compares two values, recording the comparison when instrumentation is enabled.
+   *
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(int a, int b) {
+    SortMetrics.comparison();
+    return a < b;
+  }
+
+}
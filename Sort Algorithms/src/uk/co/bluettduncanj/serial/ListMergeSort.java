@@ -0,0 +1,361 @@
+/**
+ * ListMergeSort.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+
+
+/**
+ * <p>A stable, O(Nlog<sub>2</sub>N) mergesort for <tt>List</tt>s and object arrays.</p>
+ *
+ * <p>Unlike {@code SimpleMergeSort}, which allocates new sublists at every level of recursion and merges them with
+ * <tt>remove(0)</tt> (making every merge O(N<sup>2</sup>) on an <tt>ArrayList</tt>), this class sorts a list in place:</p>
+ *
+ * <ul>
+ *   <li><tt>RandomAccess</tt> lists (e.g. <tt>ArrayList</tt>) are copied into a single array snapshot, sorted using one
+ *       scratch array that is reused by every merge, and then written back to the list in a single pass.</li>
+ *   <li>Sequential lists (e.g. <tt>LinkedList</tt>) are sorted with a natural mergesort, which detects existing ascending
+ *       runs and merges them by relinking nodes rather than by copying elements. The sorted elements are then written back
+ *       to the list in a single pass.</li>
+ * </ul>
+ *
+ * <p>The array snapshot and scratch array can be borrowed from a {@code SortWorkspace}, so that sorting many lists doesn't
+ * allocate a pair of arrays for each one.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class ListMergeSort {
+
+  /**
+   * Maximum size of a sub-array to be sorted using insertion sort instead of mergesort.
+   */
+  private static final int INSERTION_SORT_THRESHOLD = 7;
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private ListMergeSort() {}
+
+  /**
+   * Sorts a list of Comparables into ascending order, according to their natural ordering.
+   *
+   * @param list
+   *          The list to sort.
+   */
+  public static <T extends Comparable<? super T>> void sort(List<T> list) {
+    sort(list, Comparator.<T>naturalOrder());
+  }
+
+  /**
+   * Sorts a list into ascending order, according to the order induced by the given comparator.
+   *
+   * @param list
+   *          The list to sort.
+   * @param c
+   *          The comparator that determines the order of the list.
+   */
+  public static <T> void sort(List<T> list, Comparator<? super T> c) {
+    sort(list, c, new SortWorkspace());
+  }
+
+  /**
+   * Sorts a list into ascending order, according to the order induced by the given comparator. <tt>RandomAccess</tt> lists
+   * borrow their array snapshot and scratch array from a workspace rather than allocating them.
+   *
+   * @param list
+   *          The list to sort.
+   * @param c
+   *          The comparator that determines the order of the list.
+   * @param workspace
+   *          The workspace to borrow scratch space from.
+   */
+  public static <T> void sort(List<T> list, Comparator<? super T> c, SortWorkspace workspace) {
+    if (list.size() < 2) {
+      return;
+    }
+    if (list instanceof RandomAccess) {
+      sortRandomAccess(list, c, workspace);
+    }
+    else {
+      sortSequential(list, c);
+    }
+  }
+
+  /**
+   * Sorts an array of Comparables into ascending order, according to their natural ordering.
+   *
+   * @param array
+   *          The array to sort.
+   */
+  public static <T extends Comparable<? super T>> void sort(T[] array) {
+    sort(array, 0, array.length - 1, Comparator.<T>naturalOrder());
+  }
+
+  /**
+   * Sorts an array into ascending order, according to the order induced by the given comparator.
+   *
+   * @param array
+   *          The array to sort.
+   * @param c
+   *          The comparator that determines the order of the array.
+   */
+  public static <T> void sort(T[] array, Comparator<? super T> c) {
+    sort(array, 0, array.length - 1, c);
+  }
+
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array, according to the order
+   * induced by the given comparator.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param c
+   *          The comparator that determines the order of the array.
+   */
+  public static <T> void sort(T[] array, int start, int end, Comparator<? super T> c) {
+    sort(array, start, end, c, new SortWorkspace());
+  }
+
+  /**
+   * As {@link #sort(Object[], int, int, Comparator)}, but borrows the scratch array from a workspace rather than
+   * allocating it.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param c
+   *          The comparator that determines the order of the array.
+   * @param workspace
+   *          The workspace to borrow scratch space from.
+   */
+  public static <T> void sort(T[] array, int start, int end, Comparator<? super T> c, SortWorkspace workspace) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    // The borrowed buffers are indexed from 0, so sort a copy of the range and copy it back
+    Object[] sorted = workspace.objects(0, n);
+    Object[] aux = workspace.objects(1, n);
+    try {
+      System.arraycopy(array, start, sorted, 0, n);
+      System.arraycopy(array, start, aux, 0, n);
+      sort(aux, sorted, 0, n - 1, c);
+      System.arraycopy(sorted, 0, array, start, n);
+    }
+    finally {
+      // Even if the comparator throws, so that a long-lived workspace doesn't keep the elements reachable
+      Arrays.fill(sorted, 0, n, null);
+      Arrays.fill(aux, 0, n, null);
+    }
+  }
+
+  /*
+   * Sorts a RandomAccess list through a single array snapshot. A copy of the snapshot is the only scratch space, and it is
+   * shared by every level of recursion. Both are borrowed from the workspace, and cleared afterwards, even if the
+   * comparator throws.
+   */
+  private static <T> void sortRandomAccess(List<T> list, Comparator<? super T> c, SortWorkspace workspace) {
+    int n = list.size();
+    Object[] snapshot = workspace.objects(0, n);
+    Object[] aux = workspace.objects(1, n);
+    try {
+      for (int i = 0; i < n; i++) {
+        snapshot[i] = aux[i] = list.get(i);
+      }
+      sort(aux, snapshot, 0, n - 1, c);
+      writeBack(list, snapshot, n);
+    }
+    finally {
+      Arrays.fill(snapshot, 0, n, null);
+      Arrays.fill(aux, 0, n, null);
+    }
+  }
+
+  /*
+   * Top-down mergesort of mergeFrom[start..end] into mergeTo[start..end], alternating the roles of the two arrays at each
+   * level of recursion so that elements are never copied back (see MergeSort2.java).
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> void sort(Object[] mergeFrom, Object[] mergeTo, int start, int end, Comparator<? super T> c) {
+    if (end <= start + INSERTION_SORT_THRESHOLD) {
+      insertionSort(mergeTo, start, end, c);
+      return;
+    }
+
+    int mid = start + ((end - start) / 2);
+    sort(mergeTo, mergeFrom, start, mid, c);
+    sort(mergeTo, mergeFrom, mid + 1, end, c);
+
+    // Skip the merge if the two halves are already in order
+    if (c.compare((T) mergeFrom[mid], (T) mergeFrom[mid + 1]) <= 0) {
+      System.arraycopy(mergeFrom, start, mergeTo, start, end - start + 1);
+      return;
+    }
+
+    int i = start, j = mid + 1;
+    for (int k = start; k <= end; k++) {
+      if (i > mid) {
+        mergeTo[k] = mergeFrom[j++];
+      }
+      else if (j > end) {
+        mergeTo[k] = mergeFrom[i++];
+      }
+      else if (c.compare((T) mergeFrom[j], (T) mergeFrom[i]) < 0) {
+        mergeTo[k] = mergeFrom[j++];
+      }
+      else {
+        mergeTo[k] = mergeFrom[i++];
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void insertionSort(Object[] array, int start, int end, Comparator<? super T> c) {
+    for (int i = start + 1; i <= end; i++) {
+      Object value = array[i];
+      int j = i;
+      while (j > start && c.compare((T) value, (T) array[j - 1]) < 0) {
+        array[j] = array[j - 1];
+        j--;
+      }
+      array[j] = value;
+    }
+  }
+
+  /*
+   * Natural mergesort for sequential lists.
+   *
+   * java.util.LinkedList does not expose its nodes, so the elements are first threaded onto a lightweight singly-linked
+   * chain. The chain is split into its existing ascending runs, and runs are merged by relinking nodes (never by copying
+   * elements), using a binary counter of pending runs so that merges stay balanced. Finally the sorted chain is written
+   * back to the list through a single ListIterator pass.
+   */
+  private static <T> void sortSequential(List<T> list, Comparator<? super T> c) {
+    Node<T> head = null, tail = null;
+    for (T element : list) {
+      Node<T> node = new Node<T>(element);
+      if (head == null) {
+        head = node;
+      }
+      else {
+        tail.next = node;
+      }
+      tail = node;
+    }
+
+    // pending[i] holds a merged run made from 2^i natural runs (or null)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Node<T>[] pending = new Node[Integer.SIZE];
+    int pendingCount = 0;
+
+    Node<T> rest = head;
+    while (rest != null) {
+      // Cut off the next run
+      Node<T> run = rest;
+      Node<T> last = run;
+      boolean descending = last.next != null && c.compare(last.next.item, last.item) < 0;
+      if (descending) {
+        // Strictly descending runs are reversed in place (strictness keeps the sort stable)
+        Node<T> reversed = null;
+        Node<T> node = run;
+        Node<T> next;
+        do {
+          next = node.next;
+          node.next = reversed;
+          reversed = node;
+          node = next;
+        } while (node != null && c.compare(node.item, reversed.item) < 0);
+        run.next = null;
+        rest = node;
+        run = reversed;
+      }
+      else {
+        while (last.next != null && c.compare(last.next.item, last.item) >= 0) {
+          last = last.next;
+        }
+        rest = last.next;
+        last.next = null;
+      }
+
+      // Carry the run up through the pending slots, like incrementing a binary counter
+      int i = 0;
+      while (i < pendingCount && pending[i] != null) {
+        run = merge(pending[i], run, c);
+        pending[i] = null;
+        i++;
+      }
+      pending[i] = run;
+      if (i == pendingCount) {
+        pendingCount++;
+      }
+    }
+
+    // Merge whatever is left in the pending slots, newer (rightmost) runs first; each older run is the left operand, so
+    // that it still wins ties
+    Node<T> sorted = null;
+    for (int i = 0; i < pendingCount; i++) {
+      if (pending[i] != null) {
+        sorted = (sorted == null) ? pending[i] : merge(pending[i], sorted, c);
+      }
+    }
+
+    ListIterator<T> it = list.listIterator();
+    for (Node<T> node = sorted; node != null; node = node.next) {
+      it.next();
+      it.set(node.item);
+    }
+  }
+
+  /*
+   * Merges two sorted chains by relinking their nodes. Elements of the left chain win ties, which keeps the sort stable.
+   */
+  private static <T> Node<T> merge(Node<T> left, Node<T> right, Comparator<? super T> c) {
+    Node<T> head = new Node<T>(null);
+    Node<T> tail = head;
+    while (left != null && right != null) {
+      if (c.compare(right.item, left.item) < 0) {
+        tail.next = right;
+        right = right.next;
+      }
+      else {
+        tail.next = left;
+        left = left.next;
+      }
+      tail = tail.next;
+    }
+    tail.next = (left != null) ? left : right;
+    return head.next;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void writeBack(List<T> list, Object[] array, int n) {
+    ListIterator<T> it = list.listIterator();
+    for (int i = 0; i < n; i++) {
+      it.next();
+      it.set((T) array[i]);
+    }
+  }
+
+  private static final class Node<T> {
+    private final T item;
+    private Node<T> next;
+
+    private Node(T item) {
+      this.item = item;
+    }
+  }
+
+}
@@ -4,26 +4,47 @@
 
 package uk.co.bluettduncanj.serial;
 
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+import uk.co.bluettduncanj.tuning.Cutoff;
+
 
 /**
  * @author Jonathan
  */
 public class MergeSort1 {
   
-  private static int INSERTION_SORT_THRESHOLD = 7; // Max. size of a sub-array to be sorted using Insertion Sort instead of Mergesort
+  private static final int INSERTION_SORT_THRESHOLD = Cutoff.MERGESORT1_INSERTION_SORT.value(); // Max. size of a sub-array to be sorted using SmallSort instead of Mergesort
 
   public static void sort(int[] array) {
-    int[] aux = new int[array.length];
-    sort(array, aux, 0, array.length-1);
+    sort(array, 0, array.length-1, new SortWorkspace());
+  }
+  
+  public static void sort(int[] array, SortWorkspace workspace) {
+    sort(array, 0, array.length-1, workspace);
   }
   
   public static void sort(int[] array, int start, int end) {
-    int[] aux = new int[end - start + 1];
-    sort(array, aux, start, end);
+    sort(array, start, end, new SortWorkspace());
   }
   
-  // Mergesort array[start..end] using auxiliary array aux[start..end]
-  private static void sort(int[] array, int[] aux, int start, int end) {
+  // Borrows the auxiliary array from workspace instead of allocating one
+  public static void sort(int[] array, int start, int end, SortWorkspace workspace) {
+    if (end <= start) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("MergeSort1", end - start + 1);
+    try {
+      int[] aux = workspace.ints(0, end - start + 1);
+      sort(array, aux, start, start, end);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  // Mergesort array[start..end] using auxiliary array aux[start-offset..end-offset]
+  private static void sort(int[] array, int[] aux, int offset, int start, int end) {
     // Top-down (recursive) mergesort method
     
     //if (end <= start) {
@@ -31,40 +52,43 @@ public class MergeSort1 {
     //}
     
     if (end <= start + INSERTION_SORT_THRESHOLD) {
-      insertionSort(array, start, end);
+      SortMetrics.leaf();
+      SmallSort.sort(array, start, end);
       return;
     }
     
     int mid = start + ((end - start) / 2);
-    sort(array, aux, start, mid);
-    sort(array, aux, mid + 1, end);
-    merge(array, aux, start, mid, end);
+    SortMetrics.enter();
+    sort(array, aux, offset, start, mid);
+    sort(array, aux, offset, mid + 1, end);
+    SortMetrics.exit();
+    merge(array, aux, offset, start, mid, end);
   }
   
-  private static void merge(int[] array, int[] aux, int start, int mid, int end) {
+  private static void merge(int[] array, int[] aux, int offset, int start, int mid, int end) {
     
-    // Copy to aux[]
+    // Copy to aux[] (aux is indexed from the start of the whole range being sorted, so subtract offset)
     
-    for (int k = start; k <= end; k++) {
-      aux[k] = array[k];
-    }
+    System.arraycopy(array, start, aux, start - offset, end - start + 1);
+    SortMetrics.moves(end - start + 1);
     
     // Merge and store back into array[]
-    int i = start, j = mid + 1;
+    SortMetrics.moves(end - start + 1);
+    int i = start - offset, middle = mid - offset, j = middle + 1, last = end - offset;
     for (int k = start; k <= end; k++) {
-      if (i > mid) {
+      if (i > middle) {
         // Indicates all elements in aux[start..mid] (equivalent to 'left sublist' in SimpleMergesort.java) 
         // have been merged back into array[].
         // Therefore we can only continue adding elements from aux[mid+1..end].
         array[k] = aux[j++];
       }
-      else if (j > end) {
+      else if (j > last) {
         // Indicates all elements in aux[mid+1..end] (equivalent to 'right sublist' in SimpleMergesort.java) 
         // have been merged back into array[].
         // Therefore we can only continue adding elements from aux[start..mid].
         array[k] = aux[i++];
       }
-      else if (aux[j] < aux[i]) {
+      else if (less(aux[j], aux[i])) {
         // Equivalent operation to checking that the 'first' (head) element of 'right sublist' is less than the
         // 'first' element in 'left sublist' in SimpleMergesort.java...
         array[k] = aux[j++];
@@ -77,16 +101,14 @@ public class MergeSort1 {
     }
   }
   
-  private static void insertionSort(int[] array, int start, int end) {
-    // Simple single-array implementation
-    for (int i = start + 1; i <= end; i++) {
-      for (int j = i; j > start && array[j] < array[j-1]; j--) {
-        // Swap
-        int temp = array[j];
-        array[j] = array[j-1];
-        array[j-1] = temp;
-      }
-    }
+  /**
+   * Compares two values, recording the comparison when instrumentation is enabled.
+   * 
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(int a, int b) {
+    SortMetrics.comparison();
+    return a < b;
   }
 
 }
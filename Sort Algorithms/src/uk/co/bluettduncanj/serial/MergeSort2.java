@@ -4,39 +4,58 @@
 
 package uk.co.bluettduncanj.serial;
 
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+import uk.co.bluettduncanj.tuning.Cutoff;
+
 
 /**
  * @author Jonathan
  */
 public class MergeSort2 {
   
-  // Maximum size of a sub-array to be sorted using Insertion Sort instead of Mergesort
-  private static int INSERTION_SORT_THRESHOLD = 7;
+  // Maximum size of a sub-array to be sorted using SmallSort instead of Mergesort (machine-tuned, see Cutoff)
+  private static final int INSERTION_SORT_THRESHOLD = Cutoff.MERGESORT2_INSERTION_SORT.value();
   
   public static void sort(int[] array) {
+    sort(array, new SortWorkspace());
+  }
+  
+  public static void sort(int[] array, SortWorkspace workspace) {
     //int[] aux = new int[array.length];
     //for (int i = 0; i < array.length; i++) {
     //  aux[i] = array[i];
     //}
     
-    // Cloning is a bit faster than the above loop
-    int[] aux = array.clone();
-    sort(aux, array, 0, array.length-1);
+    // Borrow the auxiliary array from workspace rather than cloning, so that repeated sorts don't allocate
+    SortStats stats = SortMetrics.begin("MergeSort2", array.length);
+    try {
+      int[] aux = workspace.ints(0, array.length);
+      System.arraycopy(array, 0, aux, 0, array.length);
+      sort(aux, array, 0, array.length-1);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
   }
   
   private static void sort(int[] mergeFrom, int[] mergeTo, int start, int end) {
     // Top-down (recursive) mergesort method
     
     if (end <= start + INSERTION_SORT_THRESHOLD) { 
-      insertionSort(mergeTo, start, end);
+      SortMetrics.leaf();
+      SmallSort.sort(mergeTo, start, end);
       return;
     }
     
     int mid = start + ((end - start) / 2);
+    SortMetrics.enter();
     sort(mergeTo, mergeFrom, start, mid);
     sort(mergeTo, mergeFrom, mid + 1, end);
+    SortMetrics.exit();
     
-    if (!(mergeFrom[mid] > mergeFrom[mid + 1])) {
+    SortMetrics.moves(end - start + 1);
+    if (!less(mergeFrom[mid + 1], mergeFrom[mid])) {
       //for (int i = start; i <= end; i++) {
         //mergeTo[i] = mergeFrom[i];
       //}
@@ -57,7 +76,7 @@ public class MergeSort2 {
       else if (j > end) {
         mergeTo[k] = mergeFrom[i++];
       }
-      else if (mergeFrom[j] < mergeFrom[i]) {
+      else if (less(mergeFrom[j], mergeFrom[i])) {
         mergeTo[k] = mergeFrom[j++];
       }
       else {
@@ -67,16 +86,14 @@ public class MergeSort2 {
     
   }
   
-  private static void insertionSort(int[] array, int start, int end) {
-    // Simple single-array implementation
-    for (int i = start + 1; i <= end; i++) {
-      for (int j = i; j > start && array[j] < array[j-1]; j--) {
-        // Swap
-        int temp = array[j];
-        array[j] = array[j-1];
-        array[j-1] = temp;
-      }
-    }
+  /**
+   * Compares two values, recording the comparison when instrumentation is enabled.
+   * 
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(int a, int b) {
+    SortMetrics.comparison();
+    return a < b;
   }
   
 }
@@ -0,0 +1,317 @@
+/**
+ * MultikeyQuicksort.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+
+
+/**
+ * <p>Bentley and Sedgewick's multikey quicksort (3-way radix quicksort) for strings, and for any other
+ * <tt>CharSequence</tt>.</p>
+ *
+ * <p>This is the 3-way partition of {@code Quicksort3Way} applied one character at a time. A range whose keys share
+ * their first <i>d</i> characters is partitioned on character <i>d</i> into the keys whose character is less than,
+ * equal to and greater than the pivot's; the lesser and greater keys are then sorted from character <i>d</i> again,
+ * and the equal keys from character <i>d</i> + 1. So unlike a sort built on {@link String#compareTo(String)}, which
+ * re-reads the common prefix of two keys every time it compares them, each character of a long common prefix (as in
+ * URLs and file paths) is only read about log<sub>2</sub>N times in all. A key that has no character <i>d</i> is
+ * ordered before every key that has one, so keys are sorted into exactly the order of
+ * {@link String#compareTo(String)}: lexicographic order of their chars, with a proper prefix first.</p>
+ *
+ * <p>{@link #sortCached(CharSequence[], int, int)} also keeps each key's character at the current depth in an
+ * <tt>int</tt> array that is permuted along with the keys, as in Rantala's "caching multikey quicksort". Each key's
+ * character is then fetched through <tt>charAt</tt> (with its bounds check, and its virtual call for anything but a
+ * <tt>String</tt>) once per depth rather than once per partitioning pass, and partitioning only reads a sequential
+ * array. This costs 4 bytes of extra memory per key, and pays off most for keys whose <tt>charAt</tt> is slow, such as
+ * a <tt>StringBuilder</tt> or a view of a larger buffer.</p>
+ *
+ * <p>The sort is not stable. Of the three partitions, the largest is sorted by iteration and the two smaller ones by
+ * recursion, so the call stack is O(log<sub>2</sub>N) deep however long the keys' common prefixes are.</p>
+ *
+ * <p><b>References:</b></p>
+ *
+ * <p>J. L. Bentley and R. Sedgewick, "Fast algorithms for sorting and searching strings", in <i>Proceedings of the 8th
+ * Annual ACM-SIAM Symposium on Discrete Algorithms</i>, pp. 360-369, 1997.</p>
+ *
+ * <p>T. Rantala, "Engineering radix sort for strings", in <i>Proceedings of the 15th International Symposium on String
+ * Processing and Information Retrieval</i>, pp. 3-14, 2008.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class MultikeyQuicksort {
+
+  /**
+   * Ranges smaller than this are insertion sorted, comparing keys from the depth that they are known to share.
+   */
+  private static final int INSERTION_SORT_THRESHOLD = 10;
+
+  /**
+   * The character of a key that has no more characters. Less than every <tt>char</tt>.
+   */
+  private static final int END = -1;
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private MultikeyQuicksort() {}
+
+  /**
+   * A convenience method for sort(CharSequence[] array, int start, int end) that sorts an entire array.
+   *
+   * @param array
+   *          The array to sort; a <tt>String[]</tt> may be passed.
+   */
+  public static void sort(CharSequence[] array) {
+    sort(array, 0, array.length - 1);
+  }
+
+  /**
+   * Sorts a range of character sequences between two inclusive indexes (start and end) into the order of
+   * {@link String#compareTo(String)}.
+   *
+   * @param array
+   *          The array to sort; a <tt>String[]</tt> may be passed.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(CharSequence[] array, int start, int end) {
+    SortStats stats = SortMetrics.begin("MultikeyQuicksort", end - start + 1);
+    try {
+      sort(array, start, end, 0);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * Sorts a range of character sequences whose first <tt>depth</tt> characters are known to be the same. Used by
+   * {@code AmericanFlagSort} to finish the buckets that are too small to distribute.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param depth
+   *          The number of leading characters that every key in the range has in common.
+   */
+  public static void sort(CharSequence[] array, int start, int end, int depth) {
+    while (end - start + 1 >= INSERTION_SORT_THRESHOLD) {
+      int pivot = medianOf3(charAt(array[start], depth), charAt(array[start + (end - start) / 2], depth),
+          charAt(array[end], depth));
+
+      // Partition on character 'depth', meeting invariant
+      // array[start..lt-1] < pivot = array[lt..gt] < array[gt+1..end].
+      int lt = start, gt = end;
+      int i = start;
+      while (i <= gt) {
+        int c = charAt(array[i], depth);
+        SortMetrics.comparison();
+        if (c < pivot)       swap(array, lt++, i++);
+        else if (c > pivot)  swap(array, i, gt--);
+        else                 i++;
+      }
+
+      // Recurse into the two smallest partitions, and carry on with the largest
+      int less = lt - start, equal = (pivot == END) ? 0 : gt - lt + 1, greater = end - gt;
+      SortMetrics.enter();
+      if (equal > 0 && equal >= less && equal >= greater) {
+        sort(array, start, lt - 1, depth);
+        sort(array, gt + 1, end, depth);
+        SortMetrics.exit();
+        start = lt;
+        end = gt;
+        depth++;
+      }
+      else {
+        if (equal > 1) {
+          sort(array, lt, gt, depth + 1);
+        }
+        if (less >= greater) {
+          sort(array, gt + 1, end, depth);
+          end = lt - 1;
+        }
+        else {
+          sort(array, start, lt - 1, depth);
+          start = gt + 1;
+        }
+        SortMetrics.exit();
+      }
+    }
+    if (end > start) {
+      SortMetrics.leaf();
+      insertionSort(array, start, end, depth);
+    }
+  }
+
+  /**
+   * A convenience method for sortCached(CharSequence[] array, int start, int end) that sorts an entire array.
+   *
+   * @param array
+   *          The array to sort; a <tt>String[]</tt> may be passed.
+   */
+  public static void sortCached(CharSequence[] array) {
+    sortCached(array, 0, array.length - 1);
+  }
+
+  /**
+   * Sorts a range of character sequences between two inclusive indexes (start and end) into the order of
+   * {@link String#compareTo(String)}, caching every key's character at the current depth (see the class
+   * description).
+   *
+   * @param array
+   *          The array to sort; a <tt>String[]</tt> may be passed.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sortCached(CharSequence[] array, int start, int end) {
+    SortStats stats = SortMetrics.begin("MultikeyQuicksort", end - start + 1);
+    try {
+      if (end > start) {
+        int[] cache = new int[end - start + 1];
+        load(array, cache, start, start, end, 0);
+        sortCached(array, cache, start, start, end, 0);
+      }
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * Sorts array[start..end], whose first <tt>depth</tt> characters are the same, and whose characters at
+   * <tt>depth</tt> are held in cache[start-offset..end-offset].
+   */
+  private static void sortCached(CharSequence[] array, int[] cache, int offset, int start, int end, int depth) {
+    while (end - start + 1 >= INSERTION_SORT_THRESHOLD) {
+      int lo = start - offset, hi = end - offset;
+      int pivot = medianOf3(cache[lo], cache[lo + (hi - lo) / 2], cache[hi]);
+
+      int lt = lo, gt = hi;
+      int i = lo;
+      while (i <= gt) {
+        int c = cache[i];
+        SortMetrics.comparison();
+        if (c < pivot)       swap(array, cache, offset, lt++, i++);
+        else if (c > pivot)  swap(array, cache, offset, i, gt--);
+        else                 i++;
+      }
+      lt += offset;
+      gt += offset;
+
+      // The lesser and greater partitions are still cached at this depth; the equal one must be loaded at the next
+      int less = lt - start, equal = (pivot == END) ? 0 : gt - lt + 1, greater = end - gt;
+      SortMetrics.enter();
+      if (equal > 0 && equal >= less && equal >= greater) {
+        sortCached(array, cache, offset, start, lt - 1, depth);
+        sortCached(array, cache, offset, gt + 1, end, depth);
+        SortMetrics.exit();
+        start = lt;
+        end = gt;
+        depth++;
+        load(array, cache, offset, start, end, depth);
+      }
+      else {
+        if (equal > 1) {
+          load(array, cache, offset, lt, gt, depth + 1);
+          sortCached(array, cache, offset, lt, gt, depth + 1);
+        }
+        if (less >= greater) {
+          sortCached(array, cache, offset, gt + 1, end, depth);
+          end = lt - 1;
+        }
+        else {
+          sortCached(array, cache, offset, start, lt - 1, depth);
+          start = gt + 1;
+        }
+        SortMetrics.exit();
+      }
+    }
+    if (end > start) {
+      SortMetrics.leaf();
+      insertionSort(array, start, end, depth);
+    }
+  }
+
+  /**
+   * Caches character <tt>depth</tt> of every key in array[start..end] in cache[start-offset..end-offset].
+   */
+  private static void load(CharSequence[] array, int[] cache, int offset, int start, int end, int depth) {
+    for (int i = start; i <= end; i++) {
+      cache[i - offset] = charAt(array[i], depth);
+    }
+  }
+
+  /**
+   * Insertion sorts array[start..end], whose first <tt>depth</tt> characters are the same.
+   */
+  private static void insertionSort(CharSequence[] array, int start, int end, int depth) {
+    for (int i = start + 1; i <= end; i++) {
+      for (int j = i; j > start && less(array[j], array[j - 1], depth); j--) {
+        swap(array, j, j - 1);
+      }
+    }
+  }
+
+  /**
+   * @return character <tt>d</tt> of a key, or {@link #END} if the key has no such character.
+   */
+  private static int charAt(CharSequence s, int d) {
+    return (d < s.length()) ? s.charAt(d) : END;
+  }
+
+  /**
+   * @return the median of three characters.
+   */
+  private static int medianOf3(int a, int b, int c) {
+    return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+  }
+
+  /**
+   * Compares two keys whose first <tt>d</tt> characters are the same, recording the comparison when instrumentation
+   * is enabled.
+   *
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(CharSequence a, CharSequence b, int d) {
+    SortMetrics.comparison();
+    int n = Math.min(a.length(), b.length());
+    for (int i = d; i < n; i++) {
+      char x = a.charAt(i), y = b.charAt(i);
+      if (x != y) {
+        return x < y;
+      }
+    }
+    return a.length() < b.length();
+  }
+
+  /**
+   * Swap elements at two indexes in a given array.
+   */
+  private static void swap(CharSequence[] array, int i, int j) {
+    SortMetrics.swap();
+    CharSequence tmp = array[i];
+    array[i] = array[j];
+    array[j] = tmp;
+  }
+
+  /**
+   * Swap cache entries <tt>i</tt> and <tt>j</tt>, and the keys that they belong to.
+   */
+  private static void swap(CharSequence[] array, int[] cache, int offset, int i, int j) {
+    swap(array, i + offset, j + offset);
+    int tmp = cache[i];
+    cache[i] = cache[j];
+    cache[j] = tmp;
+  }
+
+}
@@ -0,0 +1,477 @@
+/**
+ * MultiwayMerge.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+
+
+/**
+ * <p>Merges any number of sorted <tt>int</tt> or <tt>long</tt> arrays ("runs") into one sorted array, in O(N log k)
+ * time for <i>k</i> runs of N values in all, without re-sorting them.</p>
+ *
+ * <p>Two runs are merged with a plain 2-way merge. More runs are merged through a binary min-heap of the runs, keyed on
+ * their next values: the least next value is output, and its run's new next value is sifted down the heap in its place.
+ * Ties are taken from the earliest run first.</p>
+ *
+ * <p>The merge can also be split into independent pieces with {@link #split(int[][], int, int[])}, a multi-sequence
+ * selection that finds, for any rank <i>r</i>, how many of each run's values are among the <i>r</i> least of all.
+ * The values between two ranks can then be merged by {@link #merge(int[][], int[], int[], int[], int)} without
+ * looking at any other values, which is how <tt>ParallelMultiwayMerge</tt> merges pieces of the output in parallel.
+ * The split is found with a binary search over the range of values, each step of which counts the values at most some
+ * value in every run by binary search, so it takes O(k log<sup>2</sup>N) time for <tt>int</tt>s (and twice that for
+ * <tt>long</tt>s).</p>
+ *
+ * <p>If a run is not in ascending order, the result is undefined.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class MultiwayMerge {
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private MultiwayMerge() {}
+
+  /**
+   * Merges sorted runs into a new sorted array.
+   *
+   * @param runs
+   *          The sorted arrays to merge.
+   * @return a sorted array of every value in <tt>runs</tt>.
+   * @throws IllegalArgumentException
+   *           If the runs hold more values in all than an array can.
+   */
+  public static int[] merge(int[]... runs) {
+    int n = totalLength(runs);
+    SortStats stats = SortMetrics.begin("MultiwayMerge", n);
+    try {
+      int[] out = new int[n];
+      int[] to = new int[runs.length];
+      for (int j = 0; j < runs.length; j++) {
+        to[j] = runs[j].length;
+      }
+      merge(runs, new int[runs.length], to, out, 0);
+      return out;
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * Merges sorted runs into a new sorted array.
+   *
+   * @param runs
+   *          The sorted arrays to merge.
+   * @return a sorted array of every value in <tt>runs</tt>.
+   * @throws IllegalArgumentException
+   *           If the runs hold more values in all than an array can.
+   */
+  public static long[] merge(long[]... runs) {
+    int n = totalLength(runs);
+    SortStats stats = SortMetrics.begin("MultiwayMerge", n);
+    try {
+      long[] out = new long[n];
+      int[] to = new int[runs.length];
+      for (int j = 0; j < runs.length; j++) {
+        to[j] = runs[j].length;
+      }
+      merge(runs, new int[runs.length], to, out, 0);
+      return out;
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * Merges runs[j][from[j]..to[j]-1], for every run <tt>j</tt>, into <tt>out</tt> from index <tt>outStart</tt>.
+   * <tt>from</tt> is left as it was.
+   *
+   * @param runs
+   *          The sorted arrays to merge from.
+   * @param from
+   *          The index of each run to merge from.
+   * @param to
+   *          The index of each run to merge to (exclusive).
+   * @param out
+   *          The array to merge into.
+   * @param outStart
+   *          The index of <tt>out</tt> to merge into from.
+   */
+  public static void merge(int[][] runs, int[] from, int[] to, int[] out, int outStart) {
+    int k = 0;
+    int[] heap = new int[runs.length];
+    int[] next = from.clone();
+    for (int j = 0; j < runs.length; j++) {
+      if (next[j] < to[j]) {
+        heap[k++] = j;
+      }
+    }
+    if (k == 0) {
+      return;
+    }
+    if (k == 1) {
+      int j = heap[0];
+      System.arraycopy(runs[j], next[j], out, outStart, to[j] - next[j]);
+      SortMetrics.moves(to[j] - next[j]);
+      return;
+    }
+    if (k == 2) {
+      int a = heap[0], b = heap[1];
+      merge(runs[a], next[a], to[a], runs[b], next[b], to[b], out, outStart);
+      return;
+    }
+
+    for (int i = k / 2 - 1; i >= 0; i--) {
+      siftDown(runs, next, heap, i, k);
+    }
+    int o = outStart;
+    while (k > 2) {
+      int j = heap[0];
+      out[o++] = runs[j][next[j]++];
+      if (next[j] == to[j]) {
+        heap[0] = heap[--k];
+      }
+      siftDown(runs, next, heap, 0, k);
+    }
+    SortMetrics.moves(o - outStart);
+
+    // Finish the last two runs with a plain merge, keeping the earlier run first on ties
+    int a = Math.min(heap[0], heap[1]), b = Math.max(heap[0], heap[1]);
+    merge(runs[a], next[a], to[a], runs[b], next[b], to[b], out, o);
+  }
+
+  /**
+   * long equivalent of {@link #merge(int[][], int[], int[], int[], int)}.
+   *
+   * @param runs
+   *          The sorted arrays to merge from.
+   * @param from
+   *          The index of each run to merge from.
+   * @param to
+   *          The index of each run to merge to (exclusive).
+   * @param out
+   *          The array to merge into.
+   * @param outStart
+   *          The index of <tt>out</tt> to merge into from.
+   */
+  public static void merge(long[][] runs, int[] from, int[] to, long[] out, int outStart) {
+    int k = 0;
+    int[] heap = new int[runs.length];
+    int[] next = from.clone();
+    for (int j = 0; j < runs.length; j++) {
+      if (next[j] < to[j]) {
+        heap[k++] = j;
+      }
+    }
+    if (k == 0) {
+      return;
+    }
+    if (k == 1) {
+      int j = heap[0];
+      System.arraycopy(runs[j], next[j], out, outStart, to[j] - next[j]);
+      SortMetrics.moves(to[j] - next[j]);
+      return;
+    }
+    if (k == 2) {
+      int a = heap[0], b = heap[1];
+      merge(runs[a], next[a], to[a], runs[b], next[b], to[b], out, outStart);
+      return;
+    }
+
+    for (int i = k / 2 - 1; i >= 0; i--) {
+      siftDown(runs, next, heap, i, k);
+    }
+    int o = outStart;
+    while (k > 2) {
+      int j = heap[0];
+      out[o++] = runs[j][next[j]++];
+      if (next[j] == to[j]) {
+        heap[0] = heap[--k];
+      }
+      siftDown(runs, next, heap, 0, k);
+    }
+    SortMetrics.moves(o - outStart);
+
+    int a = Math.min(heap[0], heap[1]), b = Math.max(heap[0], heap[1]);
+    merge(runs[a], next[a], to[a], runs[b], next[b], to[b], out, o);
+  }
+
+  /**
+   * Finds how many values of each run are among the <tt>rank</tt> least values of all the runs, taking equal values
+   * from the earliest runs first. Merging the runs from one rank's positions to a greater rank's gives exactly the
+   * values of the merged output between those ranks.
+   *
+   * @param runs
+   *          The sorted arrays to select from.
+   * @param rank
+   *          The number of values to select, from 0 to the total length of the runs.
+   * @param positions
+   *          An array of length at least <tt>runs.length</tt>, which receives the number of values selected from each
+   *          run.
+   */
+  public static void split(int[][] runs, int rank, int[] positions) {
+    // The least value v with at least 'rank' values at most v
+    long lo = Integer.MAX_VALUE, hi = Integer.MIN_VALUE;
+    for (int[] run : runs) {
+      if (run.length > 0) {
+        lo = Math.min(lo, run[0]);
+        hi = Math.max(hi, run[run.length - 1]);
+      }
+    }
+    while (lo < hi) {
+      int mid = (int) ((lo + hi) >> 1);
+      long count = 0;
+      for (int[] run : runs) {
+        count += upperBound(run, mid);
+      }
+      if (count >= rank) {
+        hi = mid;
+      }
+      else {
+        lo = mid + 1;
+      }
+    }
+
+    // Take every value less than v, and then as many values equal to v as are needed, from the earliest runs first
+    int v = (int) lo;
+    int remaining = rank;
+    for (int j = 0; j < runs.length; j++) {
+      positions[j] = lowerBound(runs[j], v);
+      remaining -= positions[j];
+    }
+    for (int j = 0; j < runs.length && remaining > 0; j++) {
+      int take = Math.min(upperBound(runs[j], v) - positions[j], remaining);
+      positions[j] += take;
+      remaining -= take;
+    }
+  }
+
+  /**
+   * long equivalent of {@link #split(int[][], int, int[])}.
+   *
+   * @param runs
+   *          The sorted arrays to select from.
+   * @param rank
+   *          The number of values to select, from 0 to the total length of the runs.
+   * @param positions
+   *          An array of length at least <tt>runs.length</tt>, which receives the number of values selected from each
+   *          run.
+   */
+  public static void split(long[][] runs, int rank, int[] positions) {
+    long lo = Long.MAX_VALUE, hi = Long.MIN_VALUE;
+    for (long[] run : runs) {
+      if (run.length > 0) {
+        lo = Math.min(lo, run[0]);
+        hi = Math.max(hi, run[run.length - 1]);
+      }
+    }
+    while (lo < hi) {
+      long mid = (lo & hi) + ((lo ^ hi) >> 1);                              // floor((lo + hi) / 2), without overflow
+      long count = 0;
+      for (long[] run : runs) {
+        count += upperBound(run, mid);
+      }
+      if (count >= rank) {
+        hi = mid;
+      }
+      else {
+        lo = mid + 1;
+      }
+    }
+
+    long v = lo;
+    int remaining = rank;
+    for (int j = 0; j < runs.length; j++) {
+      positions[j] = lowerBound(runs[j], v);
+      remaining -= positions[j];
+    }
+    for (int j = 0; j < runs.length && remaining > 0; j++) {
+      int take = Math.min(upperBound(runs[j], v) - positions[j], remaining);
+      positions[j] += take;
+      remaining -= take;
+    }
+  }
+
+  /**
+   * @return the total length of the runs.
+   * @throws IllegalArgumentException
+   *           If the runs hold more values in all than an array can.
+   */
+  public static int totalLength(int[][] runs) {
+    long n = 0;
+    for (int[] run : runs) {
+      n += run.length;
+    }
+    return checkLength(n);
+  }
+
+  /**
+   * @return the total length of the runs.
+   * @throws IllegalArgumentException
+   *           If the runs hold more values in all than an array can.
+   */
+  public static int totalLength(long[][] runs) {
+    long n = 0;
+    for (long[] run : runs) {
+      n += run.length;
+    }
+    return checkLength(n);
+  }
+
+  private static int checkLength(long n) {
+    if (n > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Runs too long to merge into one array: " + n + " values");
+    }
+    return (int) n;
+  }
+
+  /**
+   * Merges a[i..m-1] and b[j..n-1] into out from index o, taking values from <tt>a</tt> first on ties.
+   */
+  private static void merge(int[] a, int i, int m, int[] b, int j, int n, int[] out, int o) {
+    SortMetrics.moves((m - i) + (n - j));
+    while (i < m && j < n) {
+      SortMetrics.comparison();
+      out[o++] = (b[j] < a[i]) ? b[j++] : a[i++];
+    }
+    System.arraycopy(a, i, out, o, m - i);
+    System.arraycopy(b, j, out, o + (m - i), n - j);
+  }
+
+  /**
+   * long equivalent of merge(int[], int, int, int[], int, int, int[], int).
+   */
+  private static void merge(long[] a, int i, int m, long[] b, int j, int n, long[] out, int o) {
+    SortMetrics.moves((m - i) + (n - j));
+    while (i < m && j < n) {
+      SortMetrics.comparison();
+      out[o++] = (b[j] < a[i]) ? b[j++] : a[i++];
+    }
+    System.arraycopy(a, i, out, o, m - i);
+    System.arraycopy(b, j, out, o + (m - i), n - j);
+  }
+
+  /**
+   * Sifts heap[i] down a heap of <tt>k</tt> runs, ordered on their next values and then on their indexes.
+   */
+  private static void siftDown(int[][] runs, int[] next, int[] heap, int i, int k) {
+    int j = heap[i];
+    int value = runs[j][next[j]];
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= k) {
+        break;
+      }
+      int c = heap[child];
+      int childValue = runs[c][next[c]];
+      if (child + 1 < k) {
+        int d = heap[child + 1];
+        int dValue = runs[d][next[d]];
+        SortMetrics.comparison();
+        if (dValue < childValue || (dValue == childValue && d < c)) {
+          child++;
+          c = d;
+          childValue = dValue;
+        }
+      }
+      SortMetrics.comparison();
+      if (value < childValue || (value == childValue && j < c)) {
+        break;
+      }
+      heap[i] = c;
+      i = child;
+    }
+    heap[i] = j;
+  }
+
+  /**
+   * long equivalent of siftDown(int[][], int[], int[], int, int).
+   */
+  private static void siftDown(long[][] runs, int[] next, int[] heap, int i, int k) {
+    int j = heap[i];
+    long value = runs[j][next[j]];
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= k) {
+        break;
+      }
+      int c = heap[child];
+      long childValue = runs[c][next[c]];
+      if (child + 1 < k) {
+        int d = heap[child + 1];
+        long dValue = runs[d][next[d]];
+        SortMetrics.comparison();
+        if (dValue < childValue || (dValue == childValue && d < c)) {
+          child++;
+          c = d;
+          childValue = dValue;
+        }
+      }
+      SortMetrics.comparison();
+      if (value < childValue || (value == childValue && j < c)) {
+        break;
+      }
+      heap[i] = c;
+      i = child;
+    }
+    heap[i] = j;
+  }
+
+  /**
+   * @return the number of values in a sorted run that are less than <tt>v</tt>.
+   */
+  private static int lowerBound(int[] run, int v) {
+    int lo = 0, hi = run.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (run[mid] < v) lo = mid + 1;
+      else              hi = mid;
+    }
+    return lo;
+  }
+
+  /**
+   * @return the number of values in a sorted run that are at most <tt>v</tt>.
+   */
+  private static int upperBound(int[] run, int v) {
+    int lo = 0, hi = run.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (run[mid] <= v) lo = mid + 1;
+      else               hi = mid;
+    }
+    return lo;
+  }
+
+  /**
+   * long equivalent of lowerBound(int[], int).
+   */
+  private static int lowerBound(long[] run, long v) {
+    int lo = 0, hi = run.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (run[mid] < v) lo = mid + 1;
+      else              hi = mid;
+    }
+    return lo;
+  }
+
+  /**
+   * long equivalent of upperBound(int[], int).
+   */
+  private static int upperBound(long[] run, long v) {
+    int lo = 0, hi = run.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (run[mid] <= v) lo = mid + 1;
+      else               hi = mid;
+    }
+    return lo;
+  }
+
+}
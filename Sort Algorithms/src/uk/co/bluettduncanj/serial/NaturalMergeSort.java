@@ -0,0 +1,259 @@
+/**
+ * NaturalMergeSort.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+
+
+/**
+ * <p>A natural mergesort for <tt>int</tt> arrays, which takes advantage of order that is already present in the input.</p>
+ *
+ * <p>The array is first split into its existing runs: ascending runs are kept as they are, and strictly descending runs
+ * are reversed in place. Runs shorter than {@link #MIN_RUN} are extended to that length with binary insertion sort (see
+ * {@code SmallSort}). The runs are
+ * then merged pairwise, bottom-up, alternating between the array and a single scratch array (as in {@code MergeSort2}),
+ * and merges of runs that are already in order are reduced to a copy.</p>
+ *
+ * <p>An array made of R runs is sorted in O(Nlog<sub>2</sub>R) time, so an array that is already sorted (or reverse
+ * sorted) takes O(N) time, and a random array takes the usual O(Nlog<sub>2</sub>N) time.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class NaturalMergeSort {
+
+  /**
+   * Runs shorter than this are extended to this length with binary insertion sort before merging starts.
+   */
+  public static final int MIN_RUN = 32;
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private NaturalMergeSort() {}
+
+  /**
+   * A convenience method for sort(int[] array, int start, int end) that sorts an entire array.
+   *
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(int[] array) {
+    sort(array, 0, array.length - 1, new SortWorkspace());
+  }
+
+  /**
+   * A convenience method for sort(int[] array, int start, int end, SortWorkspace workspace) that sorts an entire array.
+   *
+   * @param array
+   *          The array to sort.
+   * @param workspace
+   *          The workspace to borrow scratch space from.
+   */
+  public static void sort(int[] array, SortWorkspace workspace) {
+    sort(array, 0, array.length - 1, workspace);
+  }
+
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of ints.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(int[] array, int start, int end) {
+    sort(array, start, end, new SortWorkspace());
+  }
+
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of ints, borrowing scratch
+   * space from a workspace rather than allocating it.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param workspace
+   *          The workspace to borrow scratch space from.
+   */
+  public static void sort(int[] array, int start, int end, SortWorkspace workspace) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("NaturalMergeSort", n);
+    try {
+      // runEnds[0..runCount-1] holds the (exclusive) end index of each run. Every run but the last has at least MIN_RUN
+      // values, which bounds the number of runs
+      int[] runEnds = workspace.ints(1, (n + MIN_RUN - 1) / MIN_RUN + 1);
+      int runCount = 0;
+      for (int lo = start; lo <= end; ) {
+        int hi = nextRun(array, lo, end);
+        if (hi - lo + 1 < MIN_RUN && hi < end) {
+          int extendedHi = Math.min(lo + MIN_RUN - 1, end);
+          SortMetrics.leaf();
+          SmallSort.insert(array, lo, hi + 1, extendedHi);
+          hi = extendedHi;
+        }
+        runEnds[runCount++] = hi + 1;
+        lo = hi + 1;
+      }
+
+      if (runCount > 1) {
+        int[] aux = workspace.ints(0, n);
+        mergeRuns(array, aux, start, runEnds, runCount);
+      }
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * Counts the runs in a range of an array, i.e. one more than the number of places where a value is greater than the
+   * value after it. This is the natural measure of how much work a natural mergesort has to do.
+   *
+   * @param array
+   *          The array to examine.
+   * @param start
+   *          First index of range of values to examine.
+   * @param end
+   *          Last index of range of values to examine.
+   * @return the number of non-descending runs in the range, or 0 if it is empty.
+   */
+  public static int countRuns(int[] array, int start, int end) {
+    if (end < start) {
+      return 0;
+    }
+    int runs = 1;
+    for (int i = start; i < end; i++) {
+      if (array[i + 1] < array[i]) {
+        runs++;
+      }
+    }
+    return runs;
+  }
+
+  /*
+   * Finds the run that starts at lo, reversing it in place if it is strictly descending, and returns its last index.
+   * Only strictly descending runs are reversed, so that equal values never change order.
+   */
+  private static int nextRun(int[] array, int lo, int end) {
+    int hi = lo;
+    if (hi == end) {
+      return hi;
+    }
+    if (less(array[hi + 1], array[hi])) {
+      while (hi < end && less(array[hi + 1], array[hi])) {
+        hi++;
+      }
+      for (int i = lo, j = hi; i < j; i++, j--) {
+        swap(array, i, j);
+      }
+    }
+    else {
+      while (hi < end && !less(array[hi + 1], array[hi])) {
+        hi++;
+      }
+    }
+    return hi;
+  }
+
+  /*
+   * Bottom-up merges adjacent pairs of runs until one run is left. Each pass merges from one array into the other, so the
+   * result is copied back at the end if it finished in the scratch array.
+   */
+  private static void mergeRuns(int[] array, int[] aux, int start, int[] runEnds, int runCount) {
+    // The scratch array is indexed from 0 rather than from start, so each array has a base to subtract from indexes
+    int[] from = array, to = aux;
+    int fromBase = 0, toBase = start;
+
+    while (runCount > 1) {
+      int merged = 0;
+      int lo = start;
+      for (int r = 0; r < runCount; r += 2) {
+        if (r + 1 < runCount) {
+          merge(from, fromBase, to, toBase, lo, runEnds[r], runEnds[r + 1]);
+          lo = runEnds[r + 1];
+          runEnds[merged++] = runEnds[r + 1];
+        }
+        else {
+          int length = runEnds[r] - lo;
+          SortMetrics.moves(length);
+          System.arraycopy(from, lo - fromBase, to, lo - toBase, length);
+          runEnds[merged++] = runEnds[r];
+        }
+      }
+      runCount = merged;
+
+      int[] tmp = from;
+      from = to;
+      to = tmp;
+      int tmpBase = fromBase;
+      fromBase = toBase;
+      toBase = tmpBase;
+    }
+
+    if (from != array) {
+      int length = runEnds[0] - start;
+      SortMetrics.moves(length);
+      System.arraycopy(from, 0, array, start, length);
+    }
+  }
+
+  /*
+   * Merges the runs [lo, mid) and [mid, hi) of from into to. Indexes are those of the array being sorted, and are
+   * converted to each array's own indexing by subtracting its base.
+   */
+  private static void merge(int[] from, int fromBase, int[] to, int toBase, int lo, int mid, int hi) {
+    SortMetrics.moves(hi - lo);
+
+    // Skip the merge if the two runs are already in order
+    if (!less(from[mid - fromBase], from[mid - 1 - fromBase])) {
+      System.arraycopy(from, lo - fromBase, to, lo - toBase, hi - lo);
+      return;
+    }
+
+    int i = lo - fromBase, iEnd = mid - fromBase;
+    int j = mid - fromBase, jEnd = hi - fromBase;
+    for (int k = lo - toBase, kEnd = hi - toBase; k < kEnd; k++) {
+      if (i == iEnd) {
+        to[k] = from[j++];
+      }
+      else if (j == jEnd) {
+        to[k] = from[i++];
+      }
+      else if (less(from[j], from[i])) {
+        to[k] = from[j++];
+      }
+      else {
+        to[k] = from[i++];
+      }
+    }
+  }
+
+  /**
+   * Compares two values, recording the comparison when instrumentation is enabled.
+   *
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(int a, int b) {
+    SortMetrics.comparison();
+    return a < b;
+  }
+
+  private static void swap(int[] array, int i, int j) {
+    SortMetrics.swap();
+    int tmp = array[i];
+    array[i] = array[j];
+    array[j] = tmp;
+  }
+
+}
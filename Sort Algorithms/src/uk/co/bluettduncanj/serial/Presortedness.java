@@ -0,0 +1,155 @@
+/**
+ * Presortedness.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+
+/**
+ * <p>Measures of how disordered an array of ints is, for choosing a sorting engine or for reporting on the quality of
+ * a data set. None of them modify the array.</p>
+ *
+ * <ul>
+ *   <li>{@link #isSorted(int[], int, int)} and {@link #runs(int[], int, int)} (the number of maximal non-descending
+ *       runs, which natural mergesorts take O(Nlog<sub>2</sub>R) time for) are a single pass, and
+ *       {@link #longestRun(int[], int, int)} likewise.</li>
+ *   <li>{@link #inversions(int[], int, int)}, the number of pairs of values that are out of order, takes
+ *       O(Nlog<sub>2</sub>N) time with {@code InversionCount}. Insertion sort takes O(N + I) time for I
+ *       inversions.</li>
+ *   <li>{@link #maxDisplacement(int[], int, int)}, the furthest that any value is from its place in the stably sorted
+ *       array, takes a radix sort of the values paired with their indexes, and so O(N) time and memory. Shell sort and
+ *       blocked insertion sorts benefit from a small maximum displacement.</li>
+ * </ul>
+ *
+ * <p><tt>ParallelPresortedness</tt> computes the same measures with fork/join tasks.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class Presortedness {
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private Presortedness() {}
+
+  /**
+   * @param array
+   *          The array to examine.
+   * @param start
+   *          First index of range of values to examine.
+   * @param end
+   *          Last index of range of values to examine.
+   * @return true if the range is in non-descending order.
+   */
+  public static boolean isSorted(int[] array, int start, int end) {
+    for (int i = start + 1; i <= end; i++) {
+      if (array[i] < array[i - 1]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param array
+   *          The array to examine.
+   * @param start
+   *          First index of range of values to examine.
+   * @param end
+   *          Last index of range of values to examine.
+   * @return the number of maximal non-descending runs in the range: 1 if it is sorted, and 0 if it is empty.
+   */
+  public static int runs(int[] array, int start, int end) {
+    if (end < start) {
+      return 0;
+    }
+    int runs = 1;
+    for (int i = start + 1; i <= end; i++) {
+      if (array[i] < array[i - 1]) {
+        runs++;
+      }
+    }
+    return runs;
+  }
+
+  /**
+   * @param array
+   *          The array to examine.
+   * @param start
+   *          First index of range of values to examine.
+   * @param end
+   *          Last index of range of values to examine.
+   * @return the length of the longest non-descending run in the range, or 0 if it is empty.
+   */
+  public static int longestRun(int[] array, int start, int end) {
+    if (end < start) {
+      return 0;
+    }
+    int longest = 1, run = 1;
+    for (int i = start + 1; i <= end; i++) {
+      run = (array[i] < array[i - 1]) ? 1 : run + 1;
+      longest = Math.max(longest, run);
+    }
+    return longest;
+  }
+
+  /**
+   * @param array
+   *          The array to examine.
+   * @param start
+   *          First index of range of values to examine.
+   * @param end
+   *          Last index of range of values to examine.
+   * @return the number of inversions in the range (see {@code InversionCount}).
+   */
+  public static long inversions(int[] array, int start, int end) {
+    return InversionCount.count(array, start, end);
+  }
+
+  /**
+   * @param array
+   *          The array to examine.
+   * @param start
+   *          First index of range of values to examine.
+   * @param end
+   *          Last index of range of values to examine.
+   * @return the greatest distance between the index of a value and its index once the range is stably sorted, or 0 if
+   *         the range is sorted.
+   */
+  public static int maxDisplacement(int[] array, int start, int end) {
+    if (end <= start) {
+      return 0;
+    }
+    long[] keys = indexedKeys(array, start, end);
+    RadixSort.sort(keys);
+    return maxDisplacement(keys);
+  }
+
+  /**
+   * Pairs every value of a range with its index, relative to the start of the range, so that sorting the pairs as
+   * <tt>long</tt>s sorts them by value and then by index, i.e. stably.
+   *
+   * @return the pairs, each with the value in its high 32 bits and the index in its low 32 bits.
+   */
+  public static long[] indexedKeys(int[] array, int start, int end) {
+    long[] keys = new long[end - start + 1];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = ((long) array[start + i] << 32) | i;
+    }
+    return keys;
+  }
+
+  /**
+   * @param keys
+   *          Pairs made by {@link #indexedKeys(int[], int, int)}, sorted.
+   * @return the greatest distance between the index held in a pair and the index of the pair.
+   */
+  public static int maxDisplacement(long[] keys) {
+    int max = 0;
+    for (int i = 0; i < keys.length; i++) {
+      max = Math.max(max, Math.abs((int) keys[i] - i));
+    }
+    return max;
+  }
+
+}
@@ -4,6 +4,10 @@
 
 package uk.co.bluettduncanj.serial;
 
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+import uk.co.bluettduncanj.tuning.Cutoff;
+
 
 /**
  * <p>A sorting class based on the quicksort algorithm.</p>
@@ -18,13 +22,13 @@ package uk.co.bluettduncanj.serial;
 public class Quicksort {
   
   /**
-   * <p>An experimentally-produced value that determines the minimum size of a sub-array before 
-   * insertion sort is performed on it instead of quicksort.</p>
+   * <p>A machine-tuned value (see {@code Cutoff}) that determines the minimum size of a sub-array before 
+   * it is sorted with {@code SmallSort} instead of quicksort.</p>
    * 
-   * <p>Insertion sort is performed on those sub-arrays with sizes less than INSERTION_SORT_THRESHOLD,
-   * because insertion sort is practically faster than quicksort on 'sufficiently small' inputs.</p>
+   * <p>Sub-arrays with sizes less than INSERTION_SORT_THRESHOLD are sorted with {@code SmallSort},
+   * because its sorting networks are practically faster than quicksort on 'sufficiently small' inputs.</p>
    */
-  private static int INSERTION_SORT_THRESHOLD = 45;
+  private static final int INSERTION_SORT_THRESHOLD = Cutoff.QUICKSORT_INSERTION_SORT.value();
   
   /**
    * Private constructor. Prevents instantiation of Quicksort class.
@@ -48,10 +52,21 @@ public class Quicksort {
    * @param end The finishing index of the range of values to sort.
    */
   public static void quicksort(int[] array, int start, int end) {
-    // Use Insertion Sort if sub-array is 'sufficiently small'
+    SortStats stats = SortMetrics.begin("Quicksort", end - start + 1);
+    try {
+      sort(array, start, end);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  private static void sort(int[] array, int start, int end) {
+    // Use SmallSort if sub-array is 'sufficiently small'
     int range = end - start;
     if (range < INSERTION_SORT_THRESHOLD) {
-      InsertionSort.insertionSort(array, start, end);
+      SortMetrics.leaf();
+      SmallSort.sort(array, start, end);
     }
     else {
       // Quicksort
@@ -67,14 +82,14 @@ public class Quicksort {
       while (true) {
         
         // Find item on 'low partition' to swap
-        while (array[++i] < v) {
+        while (less(array[++i], v)) {
           if (i == end) {
             break;
           }
         }
         
         // Find item on 'high partition' to swap
-        while (v < array[--j]) {
+        while (less(v, array[--j])) {
           if (j == start) {
             break;
           }
@@ -94,11 +109,23 @@ public class Quicksort {
       // End partitioning
       
       // Quicksort the partitions recursively
-      quicksort(array, start, j - 1);
-      quicksort(array, j + 1, end);
+      SortMetrics.enter();
+      sort(array, start, j - 1);
+      sort(array, j + 1, end);
+      SortMetrics.exit();
     } 
   }
   
+  /**
+   * Compares two values, recording the comparison when instrumentation is enabled.
+   * 
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(int a, int b) {
+    SortMetrics.comparison();
+    return a < b;
+  }
+  
   /**
    * Swap elements at two indexes in a given int-type array.
    * 
@@ -107,6 +134,7 @@ public class Quicksort {
    * @param j The index of the second element to swap.
    */
   private static void swap(int[] array, int i, int j) {
+    SortMetrics.swap();
     int tmp = array[i];
     array[i] = array[j];
     array[j] = tmp;
@@ -123,20 +151,20 @@ public class Quicksort {
    * @return the index of the median.
    */
   private static int median3(int[] x, int a, int b, int c) {
-    if (x[a] > x[b]) {
-      if (x[b] > x[c]) {
+    if (less(x[b], x[a])) {
+      if (less(x[c], x[b])) {
         return b;
       }
-      if (x[a] > x[c]) {
+      if (less(x[c], x[a])) {
         return c;
       }
       return a;
     }
     else {
-      if (x[a] > x[c]) {
+      if (less(x[c], x[a])) {
         return a;
       }
-      if (x[b] > x[c]) {
+      if (less(x[c], x[b])) {
         return c;
       }
       return b;
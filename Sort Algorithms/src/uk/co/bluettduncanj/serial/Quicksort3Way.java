@@ -4,6 +4,10 @@
 
 package uk.co.bluettduncanj.serial;
 
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+import uk.co.bluettduncanj.tuning.Cutoff;
+
 
 /**
  * <p>A sorting class based on a 3-way partition implementation of the quicksort algorithm.</p>
@@ -18,13 +22,13 @@ package uk.co.bluettduncanj.serial;
 public class Quicksort3Way {
   
   /**
-   * <p>An experimentally-produced value that determines the minimum size of a sub-array before 
-   * insertion sort is performed on it instead of quicksort.</p>
+   * <p>A machine-tuned value (see {@code Cutoff}) that determines the minimum size of a sub-array before 
+   * it is sorted with {@code SmallSort} instead of quicksort.</p>
    * 
-   * <p>Insertion sort is performed on those sub-arrays with sizes less than INSERTION_SORT_THRESHOLD,
-   * because insertion sort is practically faster than quicksort on 'sufficiently small' inputs.</p>
+   * <p>Sub-arrays with sizes less than INSERTION_SORT_THRESHOLD are sorted with {@code SmallSort},
+   * because its sorting networks are practically faster than quicksort on 'sufficiently small' inputs.</p>
    */
-  private static int INSERTION_SORT_THRESHOLD = 10;
+  private static final int INSERTION_SORT_THRESHOLD = Cutoff.QUICKSORT_3WAY_INSERTION_SORT.value();
   
   /**
    * Private constructor. Prevents instantiation of Quicksort class.
@@ -48,10 +52,21 @@ public class Quicksort3Way {
    * @param end The finishing index of the range of values to sort.
    */
   public static void quicksort(int[] array, int start, int end) {
-    // Use Insertion Sort if sub-array is 'sufficiently small'
+    SortStats stats = SortMetrics.begin("Quicksort3Way", end - start + 1);
+    try {
+      sort(array, start, end);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  private static void sort(int[] array, int start, int end) {
+    // Use SmallSort if sub-array is 'sufficiently small'
     int range = end - start;
     if (range < INSERTION_SORT_THRESHOLD) {
-      InsertionSort.insertionSort(array, start, end);
+      SortMetrics.leaf();
+      SmallSort.sort(array, start, end);
     }
     else {
       // Quicksort (3-way partition method)
@@ -59,18 +74,265 @@ public class Quicksort3Way {
       int pivot = array[start];
       int i = start;
       while (i <= gt) {
-        if (array[i] < pivot)       swap(array, lt++, i++);
-        else if (pivot < array[i])  swap(array, i, gt--);
+        if (less(array[i], pivot))       swap(array, lt++, i++);
+        else if (less(pivot, array[i]))  swap(array, i, gt--);
         else                        i++;
       }
       
       // Quicksort the partitions recursively, whilst meeting invariant
       // array[start..lt-1] < pivot = array[lt..gt] < array[gt+1..end].
-      quicksort(array, start, lt - 1);
-      quicksort(array, gt + 1, end);
+      SortMetrics.enter();
+      sort(array, start, lt - 1);
+      sort(array, gt + 1, end);
+      SortMetrics.exit();
     } 
   }
   
+  /**
+   * A convenience method for sortDistinct(int[] array, int start, int end) that acts on an entire array.
+   * 
+   * @param array An int-type array to sort and deduplicate.
+   * @return the number of distinct values, which are now at the front of the array.
+   */
+  public static int sortDistinct(int[] array) {
+    return sortDistinct(array, 0, array.length-1);
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of primitive integers, and
+   * removes duplicates from it. The distinct values are left in ascending order at the front of the range; what is
+   * left in the rest of the range is undefined.
+   * 
+   * <p>The values equal to each pivot are already gathered together by the 3-way partition, so they are collapsed into
+   * a single value there and then, rather than being sorted and then removed by a second pass. The more duplicates
+   * there are, the less work is left to do: a range of N values with D distinct values is sorted and deduplicated in
+   * about Nlog<sub>2</sub>D comparisons.</p>
+   * 
+   * @param array An int-type array to act upon.
+   * @param start The beginning index of the range of values to sort.
+   * @param end The finishing index of the range of values to sort.
+   * @return the number of distinct values, which are now at array[start..start+count-1].
+   */
+  public static int sortDistinct(int[] array, int start, int end) {
+    SortStats stats = SortMetrics.begin("Quicksort3Way", end - start + 1);
+    try {
+      return distinct(array, start, end, start, null);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * A convenience method for sortCounted(int[] array, int start, int end, int[] counts) that acts on an entire array.
+   * 
+   * @param array An int-type array to sort and deduplicate.
+   * @param counts An array at least as long as <tt>array</tt>, to receive the frequency of each distinct value.
+   * @return the number of distinct values, which are now at the front of the array.
+   */
+  public static int sortCounted(int[] array, int[] counts) {
+    return sortCounted(array, 0, array.length-1, counts);
+  }
+  
+  /**
+   * As {@link #sortDistinct(int[], int, int)}, but also counts how many times each distinct value occurred: after the
+   * sort, array[i] occurred counts[i] times, for each i in start..start+count-1.
+   * 
+   * @param array An int-type array to act upon.
+   * @param start The beginning index of the range of values to sort.
+   * @param end The finishing index of the range of values to sort.
+   * @param counts An array of length at least end+1, to receive the frequency of each distinct value.
+   * @return the number of distinct values, which are now at array[start..start+count-1].
+   */
+  public static int sortCounted(int[] array, int start, int end, int[] counts) {
+    SortStats stats = SortMetrics.begin("Quicksort3Way", end - start + 1);
+    try {
+      return distinct(array, start, end, start, counts);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * A convenience method for sortDistinct(long[] array, int start, int end) that acts on an entire array.
+   * 
+   * @param array A long-type array to sort and deduplicate.
+   * @return the number of distinct values, which are now at the front of the array.
+   */
+  public static int sortDistinct(long[] array) {
+    return sortDistinct(array, 0, array.length-1);
+  }
+  
+  /**
+   * long equivalent of {@link #sortDistinct(int[], int, int)}.
+   * 
+   * @param array A long-type array to act upon.
+   * @param start The beginning index of the range of values to sort.
+   * @param end The finishing index of the range of values to sort.
+   * @return the number of distinct values, which are now at array[start..start+count-1].
+   */
+  public static int sortDistinct(long[] array, int start, int end) {
+    SortStats stats = SortMetrics.begin("Quicksort3Way", end - start + 1);
+    try {
+      return distinct(array, start, end, start, null);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * A convenience method for sortCounted(long[] array, int start, int end, int[] counts) that acts on an entire array.
+   * 
+   * @param array A long-type array to sort and deduplicate.
+   * @param counts An array at least as long as <tt>array</tt>, to receive the frequency of each distinct value.
+   * @return the number of distinct values, which are now at the front of the array.
+   */
+  public static int sortCounted(long[] array, int[] counts) {
+    return sortCounted(array, 0, array.length-1, counts);
+  }
+  
+  /**
+   * long equivalent of {@link #sortCounted(int[], int, int, int[])}.
+   * 
+   * @param array A long-type array to act upon.
+   * @param start The beginning index of the range of values to sort.
+   * @param end The finishing index of the range of values to sort.
+   * @param counts An array of length at least end+1, to receive the frequency of each distinct value.
+   * @return the number of distinct values, which are now at array[start..start+count-1].
+   */
+  public static int sortCounted(long[] array, int start, int end, int[] counts) {
+    SortStats stats = SortMetrics.begin("Quicksort3Way", end - start + 1);
+    try {
+      return distinct(array, start, end, start, counts);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /*
+   * Sorts array[start..end] and writes its distinct values, in order, to array[dest..], where dest <= start; the
+   * frequency of each goes to the same index of counts, unless counts is null. The space between dest and start has
+   * already been sorted and written out by the caller, so it's free to be overwritten.
+   */
+  private static int distinct(int[] array, int start, int end, int dest, int[] counts) {
+    int range = end - start;
+    if (range < INSERTION_SORT_THRESHOLD) {
+      if (range < 0) {
+        return 0;
+      }
+      SortMetrics.leaf();
+      SmallSort.sort(array, start, end);
+      int count = 0;
+      for (int i = start; i <= end; i++) {
+        if (i == start || array[i] != array[dest + count - 1]) {
+          array[dest + count] = array[i];
+          if (counts != null) counts[dest + count] = 0;
+          count++;
+        }
+        if (counts != null) counts[dest + count - 1]++;
+      }
+      SortMetrics.moves(count);
+      return count;
+    }
+    
+    // Quicksort (3-way partition method), around the median of the first, middle and last values
+    medianToStart(array, start, start + range / 2, end);
+    int lt = start, gt = end;
+    int pivot = array[start];
+    int i = start;
+    while (i <= gt) {
+      if (less(array[i], pivot))       swap(array, lt++, i++);
+      else if (less(pivot, array[i]))  swap(array, i, gt--);
+      else                        i++;
+    }
+    
+    // array[lt..gt] are all the pivot, so they collapse to one value between the distinct values of either side
+    SortMetrics.enter();
+    int left = distinct(array, start, lt - 1, dest, counts);
+    array[dest + left] = pivot;
+    if (counts != null) counts[dest + left] = gt - lt + 1;
+    int right = distinct(array, gt + 1, end, dest + left + 1, counts);
+    SortMetrics.exit();
+    return left + 1 + right;
+  }
+  
+  /*
+   * long equivalent of distinct(int[], int, int, int, int[]).
+   */
+  private static int distinct(long[] array, int start, int end, int dest, int[] counts) {
+    int range = end - start;
+    if (range < INSERTION_SORT_THRESHOLD) {
+      if (range < 0) {
+        return 0;
+      }
+      SortMetrics.leaf();
+      SmallSort.sort(array, start, end);
+      int count = 0;
+      for (int i = start; i <= end; i++) {
+        if (i == start || array[i] != array[dest + count - 1]) {
+          array[dest + count] = array[i];
+          if (counts != null) counts[dest + count] = 0;
+          count++;
+        }
+        if (counts != null) counts[dest + count - 1]++;
+      }
+      SortMetrics.moves(count);
+      return count;
+    }
+    
+    medianToStart(array, start, start + range / 2, end);
+    int lt = start, gt = end;
+    long pivot = array[start];
+    int i = start;
+    while (i <= gt) {
+      if (less(array[i], pivot))       swap(array, lt++, i++);
+      else if (less(pivot, array[i]))  swap(array, i, gt--);
+      else                        i++;
+    }
+    
+    SortMetrics.enter();
+    int left = distinct(array, start, lt - 1, dest, counts);
+    array[dest + left] = pivot;
+    if (counts != null) counts[dest + left] = gt - lt + 1;
+    int right = distinct(array, gt + 1, end, dest + left + 1, counts);
+    SortMetrics.exit();
+    return left + 1 + right;
+  }
+  
+  /*
+   * Swaps the median of array[a], array[b] and array[c] into array[a], so that sorted and reverse sorted ranges don't
+   * make for the worst case.
+   */
+  private static void medianToStart(int[] array, int a, int b, int c) {
+    int m = less(array[a], array[b])
+        ? (less(array[b], array[c]) ? b : less(array[a], array[c]) ? c : a)
+        : (less(array[c], array[b]) ? b : less(array[c], array[a]) ? c : a);
+    swap(array, a, m);
+  }
+  
+  /*
+   * long equivalent of medianToStart(int[], int, int, int).
+   */
+  private static void medianToStart(long[] array, int a, int b, int c) {
+    int m = less(array[a], array[b])
+        ? (less(array[b], array[c]) ? b : less(array[a], array[c]) ? c : a)
+        : (less(array[c], array[b]) ? b : less(array[c], array[a]) ? c : a);
+    swap(array, a, m);
+  }
+  
+  /**
+   * Compares two values, recording the comparison when instrumentation is enabled.
+   * 
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(int a, int b) {
+    SortMetrics.comparison();
+    return a < b;
+  }
+  
   /**
    * Swap elements at two indexes in a given int-type array.
    * 
@@ -79,9 +341,28 @@ public class Quicksort3Way {
    * @param j The index of the second element to swap.
    */
   private static void swap(int[] array, int i, int j) {
+    SortMetrics.swap();
     int tmp = array[i];
     array[i] = array[j];
     array[j] = tmp;
   }
   
+  /**
+   * long equivalent of less(int, int).
+   */
+  private static boolean less(long a, long b) {
+    SortMetrics.comparison();
+    return a < b;
+  }
+  
+  /**
+   * long equivalent of swap(int[], int, int).
+   */
+  private static void swap(long[] array, int i, int j) {
+    SortMetrics.swap();
+    long tmp = array[i];
+    array[i] = array[j];
+    array[j] = tmp;
+  }
+  
 }
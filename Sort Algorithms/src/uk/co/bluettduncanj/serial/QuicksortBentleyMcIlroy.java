@@ -4,6 +4,12 @@
 
 package uk.co.bluettduncanj.serial;
 
+import java.util.Comparator;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+import uk.co.bluettduncanj.tuning.Cutoff;
+
 
 /**
  * <p>
@@ -28,44 +34,23 @@ package uk.co.bluettduncanj.serial;
 public class QuicksortBentleyMcIlroy {
   
   /**
-   * <p>An experimentally-produced value that determines the minimum size of a sub-array before 
-   * insertion sort is performed on it instead of quicksort.</p>
+   * <p>A machine-tuned value (see {@code Cutoff}) that determines the minimum size of a sub-array before 
+   * it is sorted with {@code SmallSort} instead of quicksort.</p>
    * 
-   * <p>Insertion sort is performed on those sub-arrays with sizes less than INSERTION_SORT_THRESHOLD,
-   * because insertion sort is practically faster than quicksort on 'sufficiently small' inputs.</p>
+   * <p>Sub-arrays with sizes less than INSERTION_SORT_THRESHOLD are sorted with {@code SmallSort},
+   * because its sorting networks are practically faster than quicksort on 'sufficiently small' inputs.</p>
    */
-  private static int INSERTION_SORT_THRESHOLD = 10;
-  
-  private static int MEDIAN3_THRESHOLD = 41;
+  private static final int INSERTION_SORT_THRESHOLD = Cutoff.BENTLEY_MCILROY_INSERTION_SORT.value();
   
   /**
-   * Private constructor. Prevents instantiation.
+   * Sub-arrays smaller than this use the median of 3 elements as the pivot, and larger ones use Tukey's ninther.
    */
-  private QuicksortBentleyMcIlroy() {}
+  private static final int MEDIAN3_THRESHOLD = Cutoff.BENTLEY_MCILROY_MEDIAN3.value();
   
   /**
-   * Insertion sort - Used on 'sufficiently small' arrays.
-   * 
-   * Sorts a range of values between two inclusive indexes (start and end) within an array of primitive integers.
-   * 
-   * @param array 
-   *          The array to sort.
-   * @param start
-   *          First index of range of values to sort.
-   * @param end
-   *          Last index of range of values to sort.
+   * Private constructor. Prevents instantiation.
    */
-  private static void insertionSort(int[] array, int start, int end) {
-    // Simple single-array implementation
-    for (int i = start + 1; i <= end; i++) {
-      for (int j = i; j > start && array[j] < array[j-1]; j--) {
-        // Swap
-        int temp = array[j];
-        array[j] = array[j-1];
-        array[j-1] = temp;
-      }
-    } 
-  }
+  private QuicksortBentleyMcIlroy() {}
   
   /**
    * A convenience method for quicksort(int[] array, int start, int end) that sorts an entire array of primitive integers.
@@ -88,16 +73,180 @@ public class QuicksortBentleyMcIlroy {
    *          Last index of range of values to sort.
    */
   public static void quicksort(int[] array, int start, int end) {
+    SortStats stats = SortMetrics.begin("QuicksortBentleyMcIlroy", end - start + 1);
+    try {
+      sort(array, start, end, new int[2]);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * A convenience method for sortRankRange(int[] array, int start, int end, int fromRank, int toRank) that acts on an
+   * entire array.
+   * 
+   * @param array
+   *          The array to partially sort.
+   * @param fromRank
+   *          Index of the first value of the window to sort.
+   * @param toRank
+   *          Index of the last value of the window to sort.
+   */
+  public static void sortRankRange(int[] array, int fromRank, int toRank) {
+    sortRankRange(array, 0, array.length - 1, fromRank, toRank);
+  }
+  
+  /**
+   * <p>Partially sorts a range of values between two inclusive indexes (start and end), so that array[fromRank..toRank]
+   * holds the values that would be there if the whole range were sorted, in sorted order. The values before the window
+   * are left unsorted but no greater than any of them, and the values after it unsorted but no less, as for a page of
+   * results from a much larger set.</p>
+   * 
+   * <p>The range is partitioned as for {@link #quicksort(int[], int, int)}, but only the partitions that overlap the
+   * window are partitioned further, and partitions that lie wholly inside it are sorted. For a window of M values, this
+   * takes O(N + Mlog<sub>2</sub>M) time on average, rather than O(Nlog<sub>2</sub>N).</p>
+   * 
+   * @param array
+   *          The array to partially sort.
+   * @param start
+   *          First index of range of values to partially sort.
+   * @param end
+   *          Last index of range of values to partially sort.
+   * @param fromRank
+   *          Index of the first value of the window to sort.
+   * @param toRank
+   *          Index of the last value of the window to sort.
+   * @throws IllegalArgumentException
+   *           If the window is empty or not within the range.
+   */
+  public static void sortRankRange(int[] array, int start, int end, int fromRank, int toRank) {
+    checkWindow(start, end, fromRank, toRank);
+    SortStats stats = SortMetrics.begin("QuicksortBentleyMcIlroy", end - start + 1);
+    try {
+      sortRankRange(array, start, end, fromRank, toRank, new int[2]);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * As {@link #sortRankRange(int[], int, int)}, but for an array of objects in their natural order.
+   * 
+   * @param array
+   *          The array to partially sort.
+   * @param fromRank
+   *          Index of the first value of the window to sort.
+   * @param toRank
+   *          Index of the last value of the window to sort.
+   */
+  public static <T extends Comparable<? super T>> void sortRankRange(T[] array, int fromRank, int toRank) {
+    sortRankRange(array, fromRank, toRank, Comparator.<T>naturalOrder());
+  }
+  
+  /**
+   * As {@link #sortRankRange(int[], int, int)}, but for an array of objects in the order of a comparator. Values that
+   * the comparator finds equal are not kept in their original order.
+   * 
+   * @param array
+   *          The array to partially sort.
+   * @param fromRank
+   *          Index of the first value of the window to sort.
+   * @param toRank
+   *          Index of the last value of the window to sort.
+   * @param comparator
+   *          The order to sort the values into.
+   * @throws IllegalArgumentException
+   *           If the window is empty or not within the array.
+   */
+  public static <T> void sortRankRange(T[] array, int fromRank, int toRank, Comparator<? super T> comparator) {
+    int end = array.length - 1;
+    checkWindow(0, end, fromRank, toRank);
+    SortStats stats = SortMetrics.begin("QuicksortBentleyMcIlroy", array.length);
+    try {
+      sortRankRange(array, 0, end, fromRank, toRank, comparator, new int[2]);
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  private static void checkWindow(int start, int end, int fromRank, int toRank) {
+    if (fromRank < start || toRank > end || fromRank > toRank) {
+      throw new IllegalArgumentException("window [" + fromRank + ", " + toRank + "] is not within range [" + start
+          + ", " + end + "]");
+    }
+  }
+  
+  private static void sort(int[] array, int start, int end, int[] bounds) {
     int length = end - start + 1;
     
-    // Use insertion sort if sub-array is small
+    // Use SmallSort if sub-array is small
     if (length < INSERTION_SORT_THRESHOLD) {
-      insertionSort(array, start, end);
+      SortMetrics.leaf();
+      SmallSort.sort(array, start, end);
       return;
     }
     
+    partition(array, start, end, bounds);
+    int j = bounds[0], i = bounds[1];
+    
+    // Recursively quicksort the two partitions not equal to the pivot
+    SortMetrics.enter();
+    if (j - start < end - i) {
+      sort(array, start, j, bounds);
+      sort(array, i, end, bounds);
+    }
+    else {
+      sort(array, i, end, bounds);
+      sort(array, start, j, bounds);
+    }
+    SortMetrics.exit();
+  }
+  
+  /*
+   * Partitions array[start..end] until every partition that overlaps array[fromRank..toRank] is sorted. Partitions
+   * that straddle both ends of the window are partitioned again; the one below the pivot is recursed on and the one
+   * above it is iterated on, so only straddling partitions cost stack space.
+   */
+  private static void sortRankRange(int[] array, int start, int end, int fromRank, int toRank, int[] bounds) {
+    while (start < end && start <= toRank && end >= fromRank) {
+      if (fromRank <= start && end <= toRank) {
+        sort(array, start, end, bounds);
+        return;
+      }
+      if (end - start + 1 < INSERTION_SORT_THRESHOLD) {
+        SortMetrics.leaf();
+        SmallSort.sort(array, start, end);
+        return;
+      }
+      partition(array, start, end, bounds);
+      int j = bounds[0], i = bounds[1];
+      if (j >= fromRank && i <= toRank) {
+        SortMetrics.enter();
+        sortRankRange(array, start, j, fromRank, toRank, bounds);
+        SortMetrics.exit();
+        start = i;
+      }
+      else if (j >= fromRank) {
+        end = j;
+      }
+      else {
+        start = i;
+      }
+    }
+  }
+  
+  /**
+   * Chooses a pivot for array[start..end] (of at least 2 values) and 3-way partitions the range around it, meeting
+   * invariant array[start..bounds[0]] < pivot = array[bounds[0]+1..bounds[1]-1] < array[bounds[1]..end].
+   */
+  private static void partition(int[] array, int start, int end, int[] bounds) {
+    int length = end - start + 1;
+    
     // Use the median of the start, middle and end elements as the pivot
-    else if (length < MEDIAN3_THRESHOLD) {
+    if (length < MEDIAN3_THRESHOLD) {
       int pivotIndex = median3(array, start, start + (length / 2), end);
       // Swap pivot to start of sub-array
       swap(array, start, pivotIndex);
@@ -118,12 +267,12 @@ public class QuicksortBentleyMcIlroy {
     int i = start, j = end + 1, p = start, q = j;
     while (true) {
       int pivot = array[start];
-      while (array[++i] < pivot) {
+      while (less(array[++i], pivot)) {
         if (i == end) {
           break;
         }
       }
-      while (pivot < array[--j]) {
+      while (less(pivot, array[--j])) {
         if (j == start) {
           break;
         }
@@ -132,10 +281,10 @@ public class QuicksortBentleyMcIlroy {
         break;
       }
       swap(array, i, j);
-      if (array[i] == pivot) {
+      if (equal(array[i], pivot)) {
         swap(array, ++p, i);
       }
-      if (array[j] == pivot) {
+      if (equal(array[j], pivot)) {
         swap(array, --q, j);
       }
     }
@@ -149,16 +298,28 @@ public class QuicksortBentleyMcIlroy {
     for (int k = end; k >= q; k--) {
       swap(array, k, i++);
     }
-    
-    // Recursively quicksort the two partitions not equal to the pivot
-    if (j - start < end - i) {
-      quicksort(array, start, j);
-      quicksort(array, i, end);
-    }
-    else {
-      quicksort(array, i, end);
-      quicksort(array, start, j);
-    }
+    bounds[0] = j;
+    bounds[1] = i;
+  }
+  
+  /**
+   * Compares two values, recording the comparison when instrumentation is enabled.
+   * 
+   * @return true if <tt>a</tt> is less than <tt>b</tt>.
+   */
+  private static boolean less(int a, int b) {
+    SortMetrics.comparison();
+    return a < b;
+  }
+  
+  /**
+   * Tests two values for equality, recording the comparison when instrumentation is enabled.
+   * 
+   * @return true if <tt>a</tt> equals <tt>b</tt>.
+   */
+  private static boolean equal(int a, int b) {
+    SortMetrics.comparison();
+    return a == b;
   }
   
   /**
@@ -172,6 +333,7 @@ public class QuicksortBentleyMcIlroy {
    *          The index of the second element to swap.
    */
   private static void swap(int[] array, int i, int j) {
+    SortMetrics.swap();
     int tmp = array[i];
     array[i] = array[j];
     array[j] = tmp;
@@ -192,24 +354,183 @@ public class QuicksortBentleyMcIlroy {
    * @return the index of the median.
    */
   private static int median3(int[] x, int a, int b, int c) {
-    if (x[a] > x[b]) {
-      if (x[b] > x[c]) {
+    if (less(x[b], x[a])) {
+      if (less(x[c], x[b])) {
         return b;
       }
-      if (x[a] > x[c]) {
+      if (less(x[c], x[a])) {
         return c;
       }
       return a;
     }
     else {
-      if (x[a] > x[c]) {
+      if (less(x[c], x[a])) {
         return a;
       }
-      if (x[b] > x[c]) {
+      if (less(x[c], x[b])) {
         return c;
       }
       return b;
     }
   }
   
+  
+  /*
+   * As sortRankRange(int[], int, int, int, int, int[]), for objects.
+   */
+  private static <T> void sortRankRange(T[] array, int start, int end, int fromRank, int toRank,
+      Comparator<? super T> c, int[] bounds) {
+    while (start < end && start <= toRank && end >= fromRank) {
+      if (fromRank <= start && end <= toRank) {
+        sort(array, start, end, c, bounds);
+        return;
+      }
+      if (end - start + 1 < INSERTION_SORT_THRESHOLD) {
+        SortMetrics.leaf();
+        insertionSort(array, start, end, c);
+        return;
+      }
+      partition(array, start, end, c, bounds);
+      int j = bounds[0], i = bounds[1];
+      if (j >= fromRank && i <= toRank) {
+        SortMetrics.enter();
+        sortRankRange(array, start, j, fromRank, toRank, c, bounds);
+        SortMetrics.exit();
+        start = i;
+      }
+      else if (j >= fromRank) {
+        end = j;
+      }
+      else {
+        start = i;
+      }
+    }
+  }
+  
+  /*
+   * As sort(int[], int, int, int[]), for objects.
+   */
+  private static <T> void sort(T[] array, int start, int end, Comparator<? super T> c, int[] bounds) {
+    if (end - start + 1 < INSERTION_SORT_THRESHOLD) {
+      SortMetrics.leaf();
+      insertionSort(array, start, end, c);
+      return;
+    }
+    partition(array, start, end, c, bounds);
+    int j = bounds[0], i = bounds[1];
+    SortMetrics.enter();
+    if (j - start < end - i) {
+      sort(array, start, j, c, bounds);
+      sort(array, i, end, c, bounds);
+    }
+    else {
+      sort(array, i, end, c, bounds);
+      sort(array, start, j, c, bounds);
+    }
+    SortMetrics.exit();
+  }
+  
+  /*
+   * As partition(int[], int, int, int[]), for objects.
+   */
+  private static <T> void partition(T[] array, int start, int end, Comparator<? super T> c, int[] bounds) {
+    int length = end - start + 1;
+    if (length < MEDIAN3_THRESHOLD) {
+      swap(array, start, median3(array, start, start + (length / 2), end, c));
+    }
+    else {
+      int eps = length / 8;
+      int middleIndex = start + (length / 2);
+      int medianIndex1 = median3(array, start, start + eps, start + eps + eps, c);
+      int medianIndex2 = median3(array, middleIndex - 1, middleIndex, middleIndex + 1, c);
+      int medianIndex3 = median3(array, end - eps - eps, end - eps, end, c);
+      swap(array, start, median3(array, medianIndex1, medianIndex2, medianIndex3, c));
+    }
+    
+    int i = start, j = end + 1, p = start, q = j;
+    T pivot = array[start];
+    while (true) {
+      while (compare(array[++i], pivot, c) < 0) {
+        if (i == end) {
+          break;
+        }
+      }
+      while (compare(pivot, array[--j], c) < 0) {
+        if (j == start) {
+          break;
+        }
+      }
+      if (i >= j) {
+        break;
+      }
+      swap(array, i, j);
+      if (compare(array[i], pivot, c) == 0) {
+        swap(array, ++p, i);
+      }
+      if (compare(array[j], pivot, c) == 0) {
+        swap(array, --q, j);
+      }
+    }
+    swap(array, start, j);
+    
+    i = j + 1;
+    j--;
+    for (int k = start + 1; k <= p; k++) {
+      swap(array, k, j--);
+    }
+    for (int k = end; k >= q; k--) {
+      swap(array, k, i++);
+    }
+    bounds[0] = j;
+    bounds[1] = i;
+  }
+  
+  private static <T> void insertionSort(T[] array, int start, int end, Comparator<? super T> c) {
+    for (int i = start + 1; i <= end; i++) {
+      T value = array[i];
+      int j = i - 1;
+      while (j >= start && compare(value, array[j], c) < 0) {
+        array[j + 1] = array[j];
+        j--;
+      }
+      SortMetrics.moves(i - j);
+      array[j + 1] = value;
+    }
+  }
+  
+  /**
+   * Compares two objects, recording the comparison when instrumentation is enabled.
+   */
+  private static <T> int compare(T a, T b, Comparator<? super T> c) {
+    SortMetrics.comparison();
+    return c.compare(a, b);
+  }
+  
+  private static void swap(Object[] array, int i, int j) {
+    SortMetrics.swap();
+    Object tmp = array[i];
+    array[i] = array[j];
+    array[j] = tmp;
+  }
+  
+  private static <T> int median3(T[] x, int a, int b, int c, Comparator<? super T> comparator) {
+    if (compare(x[b], x[a], comparator) < 0) {
+      if (compare(x[c], x[b], comparator) < 0) {
+        return b;
+      }
+      if (compare(x[c], x[a], comparator) < 0) {
+        return c;
+      }
+      return a;
+    }
+    else {
+      if (compare(x[c], x[a], comparator) < 0) {
+        return a;
+      }
+      if (compare(x[c], x[b], comparator) < 0) {
+        return c;
+      }
+      return b;
+    }
+  }
 }
@@ -0,0 +1,501 @@
+/**
+ * RadixSort.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+
+
+/**
+ * <p>A sorting class based on the least-significant-digit (LSD) radix sort algorithm, for floating-point, <tt>int</tt>
+ * and <tt>long</tt> arrays.</p>
+ * 
+ * <p>Each value's IEEE 754 bits are mapped to an unsigned integer key whose order matches {@code Double.compare} (or
+ * {@code Float.compare}) exactly: negative values come before positive ones, <tt>-0.0</tt> comes before <tt>0.0</tt>, and
+ * NaNs come last. The keys are then sorted with 8-bit LSD passes and mapped back. Passes in which every key has the same
+ * digit are skipped, so data sets with a narrow range of exponents need fewer than the full 8 (or 4) passes.</p>
+ * 
+ * <p><tt>int</tt> and <tt>long</tt> values are mapped to keys by flipping their sign bit, so that negative values come
+ * first.</p>
+ * 
+ * <p>The sort takes O(N) time, and uses O(N) extra memory for the keys and one scratch buffer, which can be borrowed from
+ * a {@code SortWorkspace}. As with 
+ * {@code Arrays.sort(double[])}, all NaN values are treated as equal; they are written back as the canonical NaN.</p>
+ * 
+ * @author Jonathan Bluett-Duncan
+ */
+public final class RadixSort {
+  
+  /**
+   * Number of bits per digit, and hence the number of buckets (2<sup>RADIX_BITS</sup>) used by each pass.
+   */
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX      = 1 << RADIX_BITS;
+  private static final int DIGIT_MASK = RADIX - 1;
+  
+  /**
+   * Sub-arrays of this size or smaller are sorted with {@code SmallSort} (or insertion sorted, for <tt>float</tt>s)
+   * instead, since the histograms aren't worth building.
+   */
+  private static final int INSERTION_SORT_THRESHOLD = 64;
+  
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private RadixSort() {}
+  
+  /**
+   * Maps a <tt>double</tt> to a <tt>long</tt> key, such that comparing two keys as unsigned integers gives the same result
+   * as {@code Double.compare} on the original values.
+   * 
+   * @param value
+   *          The value to map.
+   * @return the order-preserving key for <tt>value</tt>.
+   */
+  public static long toSortableBits(double value) {
+    long bits = Double.doubleToLongBits(value);
+    return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+  }
+  
+  /**
+   * The inverse of {@link #toSortableBits(double)}.
+   * 
+   * @param key
+   *          A key produced by {@link #toSortableBits(double)}.
+   * @return the original <tt>double</tt> value.
+   */
+  public static double fromSortableBits(long key) {
+    return Double.longBitsToDouble(key ^ ((~key >> 63) | Long.MIN_VALUE));
+  }
+  
+  /**
+   * Maps a <tt>float</tt> to an <tt>int</tt> key, such that comparing two keys as unsigned integers gives the same result
+   * as {@code Float.compare} on the original values.
+   * 
+   * @param value
+   *          The value to map.
+   * @return the order-preserving key for <tt>value</tt>.
+   */
+  public static int toSortableBits(float value) {
+    int bits = Float.floatToIntBits(value);
+    return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+  }
+  
+  /**
+   * The inverse of {@link #toSortableBits(float)}.
+   * 
+   * @param key
+   *          A key produced by {@link #toSortableBits(float)}.
+   * @return the original <tt>float</tt> value.
+   */
+  public static float fromSortableBits(int key) {
+    return Float.intBitsToFloat(key ^ ((~key >> 31) | Integer.MIN_VALUE));
+  }
+  
+  /**
+   * A convenience method for sort(double[] array, int start, int end) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(double[] array) {
+    sort(array, 0, array.length - 1, new SortWorkspace());
+  }
+  
+  /**
+   * A convenience method for sort(double[] array, int start, int end, SortWorkspace workspace) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  public static void sort(double[] array, SortWorkspace workspace) {
+    sort(array, 0, array.length - 1, workspace);
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of doubles, into the order
+   * defined by {@code Double.compare}.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(double[] array, int start, int end) {
+    sort(array, start, end, new SortWorkspace());
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of doubles, into the order
+   * defined by {@code Double.compare}.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  public static void sort(double[] array, int start, int end, SortWorkspace workspace) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("RadixSort", n);
+    try {
+      if (n <= INSERTION_SORT_THRESHOLD) {
+        SortMetrics.leaf();
+        SmallSort.sort(array, start, end);
+        // SmallSort keeps NaN payloads, but the key path writes back the canonical NaN, so do the same here
+        for (int i = end; i >= start && array[i] != array[i]; i--) {
+          array[i] = Double.NaN;
+        }
+        return;
+      }
+      
+      long[] keys = workspace.longs(0, n);
+      for (int i = 0; i < n; i++) {
+        keys[i] = toSortableBits(array[start + i]);
+      }
+      keys = sortUnsigned(keys, workspace.longs(1, n), n);
+      for (int i = 0; i < n; i++) {
+        array[start + i] = fromSortableBits(keys[i]);
+      }
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * A convenience method for sort(float[] array, int start, int end) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(float[] array) {
+    sort(array, 0, array.length - 1, new SortWorkspace());
+  }
+  
+  /**
+   * A convenience method for sort(float[] array, int start, int end, SortWorkspace workspace) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  public static void sort(float[] array, SortWorkspace workspace) {
+    sort(array, 0, array.length - 1, workspace);
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of floats, into the order
+   * defined by {@code Float.compare}.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(float[] array, int start, int end) {
+    sort(array, start, end, new SortWorkspace());
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of floats, into the order
+   * defined by {@code Float.compare}.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  public static void sort(float[] array, int start, int end, SortWorkspace workspace) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("RadixSort", n);
+    try {
+      int[] keys = workspace.ints(0, n);
+      for (int i = 0; i < n; i++) {
+        keys[i] = toSortableBits(array[start + i]);
+      }
+      
+      if (n <= INSERTION_SORT_THRESHOLD) {
+        SortMetrics.leaf();
+        insertionSortUnsigned(keys, n);
+      }
+      else {
+        keys = sortUnsigned(keys, workspace.ints(1, n), n);
+      }
+      
+      for (int i = 0; i < n; i++) {
+        array[start + i] = fromSortableBits(keys[i]);
+      }
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * A convenience method for sort(int[] array, int start, int end) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(int[] array) {
+    sort(array, 0, array.length - 1, new SortWorkspace());
+  }
+  
+  /**
+   * A convenience method for sort(int[] array, int start, int end, SortWorkspace workspace) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  public static void sort(int[] array, SortWorkspace workspace) {
+    sort(array, 0, array.length - 1, workspace);
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of ints, into ascending
+   * order.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(int[] array, int start, int end) {
+    sort(array, start, end, new SortWorkspace());
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of ints, into ascending
+   * order.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  public static void sort(int[] array, int start, int end, SortWorkspace workspace) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("RadixSort", n);
+    try {
+      if (n <= INSERTION_SORT_THRESHOLD) {
+        SortMetrics.leaf();
+        SmallSort.sort(array, start, end);
+        return;
+      }
+      
+      int[] keys = workspace.ints(0, n);
+      for (int i = 0; i < n; i++) {
+        keys[i] = array[start + i] ^ Integer.MIN_VALUE;
+      }
+      keys = sortUnsigned(keys, workspace.ints(1, n), n);
+      for (int i = 0; i < n; i++) {
+        array[start + i] = keys[i] ^ Integer.MIN_VALUE;
+      }
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /**
+   * A convenience method for sort(long[] array, int start, int end) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   */
+  public static void sort(long[] array) {
+    sort(array, 0, array.length - 1, new SortWorkspace());
+  }
+  
+  /**
+   * A convenience method for sort(long[] array, int start, int end, SortWorkspace workspace) that sorts an entire array.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  public static void sort(long[] array, SortWorkspace workspace) {
+    sort(array, 0, array.length - 1, workspace);
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of longs, into ascending
+   * order.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(long[] array, int start, int end) {
+    sort(array, start, end, new SortWorkspace());
+  }
+  
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of longs, into ascending
+   * order.
+   * 
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   * @param workspace
+   *          The workspace to borrow the key buffers from.
+   */
+  public static void sort(long[] array, int start, int end, SortWorkspace workspace) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("RadixSort", n);
+    try {
+      if (n <= INSERTION_SORT_THRESHOLD) {
+        SortMetrics.leaf();
+        SmallSort.sort(array, start, end);
+        return;
+      }
+      
+      long[] keys = workspace.longs(0, n);
+      for (int i = 0; i < n; i++) {
+        keys[i] = array[start + i] ^ Long.MIN_VALUE;
+      }
+      keys = sortUnsigned(keys, workspace.longs(1, n), n);
+      for (int i = 0; i < n; i++) {
+        array[start + i] = keys[i] ^ Long.MIN_VALUE;
+      }
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+  
+  /*
+   * LSD radix sorts keys[0..n-1] as unsigned integers, using aux as scratch space. The histograms of every pass are built up front
+   * in a single read of the keys. Returns whichever of the two arrays holds the sorted keys.
+   */
+  private static long[] sortUnsigned(long[] keys, long[] aux, int n) {
+    int[][] counts = new int[Long.SIZE / RADIX_BITS][RADIX];
+    for (int i = 0; i < n; i++) {
+      long key = keys[i];
+      for (int pass = 0; pass < counts.length; pass++) {
+        counts[pass][(int) (key >>> (pass * RADIX_BITS)) & DIGIT_MASK]++;
+      }
+    }
+    
+    int[] offsets = new int[RADIX];
+    for (int pass = 0; pass < counts.length; pass++) {
+      int shift = pass * RADIX_BITS;
+      int[] count = counts[pass];
+      
+      // Every key has the same digit in this pass, so it would not move anything
+      if (count[(int) (keys[0] >>> shift) & DIGIT_MASK] == n) {
+        continue;
+      }
+      
+      for (int d = 0, sum = 0; d < RADIX; d++) {
+        offsets[d] = sum;
+        sum += count[d];
+      }
+      for (int i = 0; i < n; i++) {
+        long key = keys[i];
+        aux[offsets[(int) (key >>> shift) & DIGIT_MASK]++] = key;
+      }
+      
+      SortMetrics.moves(n);
+      long[] tmp = keys;
+      keys = aux;
+      aux = tmp;
+    }
+    return keys;
+  }
+  
+  /*
+   * int equivalent of sortUnsigned(long[], long[], int).
+   */
+  private static int[] sortUnsigned(int[] keys, int[] aux, int n) {
+    int[][] counts = new int[Integer.SIZE / RADIX_BITS][RADIX];
+    for (int i = 0; i < n; i++) {
+      int key = keys[i];
+      for (int pass = 0; pass < counts.length; pass++) {
+        counts[pass][(key >>> (pass * RADIX_BITS)) & DIGIT_MASK]++;
+      }
+    }
+    
+    int[] offsets = new int[RADIX];
+    for (int pass = 0; pass < counts.length; pass++) {
+      int shift = pass * RADIX_BITS;
+      int[] count = counts[pass];
+      
+      if (count[(keys[0] >>> shift) & DIGIT_MASK] == n) {
+        continue;
+      }
+      
+      for (int d = 0, sum = 0; d < RADIX; d++) {
+        offsets[d] = sum;
+        sum += count[d];
+      }
+      for (int i = 0; i < n; i++) {
+        int key = keys[i];
+        aux[offsets[(key >>> shift) & DIGIT_MASK]++] = key;
+      }
+      
+      SortMetrics.moves(n);
+      int[] tmp = keys;
+      keys = aux;
+      aux = tmp;
+    }
+    return keys;
+  }
+  
+  private static void insertionSortUnsigned(int[] keys, int n) {
+    for (int i = 1; i < n; i++) {
+      int value = keys[i];
+      int j = i;
+      while (j > 0 && Integer.compareUnsigned(value, keys[j - 1]) < 0) {
+        keys[j] = keys[j - 1];
+        j--;
+      }
+      keys[j] = value;
+    }
+  }
+  
+}
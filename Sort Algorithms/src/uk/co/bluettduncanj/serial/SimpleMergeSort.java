@@ -9,6 +9,11 @@ import java.util.LinkedList;
 
 
 /**
+ * <p>A very simple mergesort for <tt>ArrayList</tt>s and <tt>LinkedList</tt>s, designed for learning purposes.</p>
+ * 
+ * <p>Each merge repeatedly removes the head of a sublist, which is O(N<sup>2</sup>) on an <tt>ArrayList</tt>, and every
+ * level of recursion allocates new sublists. Use {@code ListMergeSort} for an efficient O(Nlog<sub>2</sub>N) list sort.</p>
+ * 
  * @author Jonathan
  */
 public class SimpleMergeSort {
@@ -0,0 +1,366 @@
+/**
+ * SmallSort.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortStats;
+
+
+/**
+ * <p>The small-sort kernel that every engine sorts its leaves with: sub-arrays that are too small to be worth
+ * partitioning, merging or radix sorting any further.</p>
+ *
+ * <p>Ranges of up to {@link #NETWORK_MAX} elements are sorted with a sorting network of the smallest known size for
+ * their length (proven optimal up to 12 elements), whose compare-exchanges are made with <tt>Math.min</tt> and
+ * <tt>Math.max</tt> rather than branches, so they compile to conditional moves and never mispredict. Larger ranges have
+ * their first {@link #NETWORK_MAX} elements sorted by a network, and the rest inserted one at a time, each finding its
+ * place with a binary search (again without branching on its comparisons) and moved in with
+ * <tt>System.arraycopy</tt>.</p>
+ *
+ * <p><tt>double</tt>s are sorted into the same order as <tt>Arrays.sort</tt> uses: -0.0 before 0.0, and NaNs last.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class SmallSort {
+
+  /**
+   * The largest range that is sorted with a sorting network alone.
+   */
+  public static final int NETWORK_MAX = 16;
+
+  /**
+   * The sorting networks, indexed by the number of elements: each is a flat list of the pairs of indexes to
+   * compare-exchange, in order, with the parallel layers of the network separated by wider gaps.
+   */
+  private static final byte[][] NETWORKS = {
+    {},
+    {},
+    { 0, 1 },
+    { 0, 2,   0, 1,   1, 2 },
+    { 0, 2, 1, 3,   0, 1, 2, 3,   1, 2 },
+    { 0, 3, 1, 4,   0, 2, 1, 3,   0, 1, 2, 4,   1, 2, 3, 4,   2, 3 },
+    { 0, 5, 1, 3, 2, 4,   1, 2, 3, 4,   0, 3, 2, 5,   0, 1, 2, 3, 4, 5,   1, 2, 3, 4 },
+    {
+      0, 6, 2, 3, 4, 5,   0, 2, 1, 4, 3, 6,   0, 1, 2, 5, 3, 4,   1, 2, 4, 6,   2, 3, 4, 5,
+      1, 2, 3, 4, 5, 6
+    },
+    {
+      0, 2, 1, 3, 4, 6, 5, 7,   0, 4, 1, 5, 2, 6, 3, 7,   0, 1, 2, 3, 4, 5, 6, 7,   2, 4, 3, 5,
+      1, 4, 3, 6,   1, 2, 3, 4, 5, 6
+    },
+    {
+      0, 3, 1, 7, 2, 5, 4, 8,   0, 7, 2, 4, 3, 8, 5, 6,   0, 2, 1, 3, 4, 5, 7, 8,   1, 4, 3, 6, 5, 7,
+      0, 1, 2, 4, 3, 5, 6, 8,   2, 3, 4, 5, 6, 7,   1, 2, 3, 4, 5, 6
+    },
+    {
+      0, 8, 1, 9, 2, 7, 3, 5, 4, 6,   0, 2, 1, 4, 5, 8, 7, 9,   0, 3, 2, 4, 5, 7, 6, 9,   0, 1, 3, 6, 8, 9,
+      1, 5, 2, 3, 4, 8, 6, 7,   1, 2, 3, 5, 4, 6, 7, 8,   2, 3, 4, 5, 6, 7,   3, 4, 5, 6
+    },
+    {
+      0, 9, 1, 6, 2, 4, 3, 7, 5, 8,   0, 1, 3, 5, 4, 10, 6, 9, 7, 8,   1, 3, 2, 5, 4, 7, 8, 10,
+      0, 4, 1, 2, 3, 7, 5, 9, 6, 8,   0, 1, 2, 6, 4, 5, 7, 8, 9, 10,   2, 4, 3, 6, 5, 7, 8, 9,
+      1, 2, 3, 4, 5, 6, 7, 8,   2, 3, 4, 5, 6, 7
+    },
+    {
+      0, 8, 1, 7, 2, 6, 3, 11, 4, 10, 5, 9,   0, 1, 2, 5, 3, 4, 6, 9, 7, 8, 10, 11,
+      0, 2, 1, 6, 5, 10, 9, 11,   0, 3, 1, 2, 4, 6, 5, 7, 8, 11, 9, 10,   1, 4, 3, 5, 6, 8, 7, 10,
+      1, 3, 2, 5, 6, 9, 8, 10,   2, 3, 4, 5, 6, 7, 8, 9,   4, 6, 5, 7,   3, 4, 5, 6, 7, 8
+    },
+    {
+      0, 12, 1, 10, 2, 9, 3, 7, 5, 11, 6, 8,   1, 6, 2, 3, 4, 11, 7, 9, 8, 10,
+      0, 4, 1, 2, 3, 6, 7, 8, 9, 10, 11, 12,   4, 6, 5, 9, 8, 11, 10, 12,   0, 5, 3, 8, 4, 7, 6, 11, 9, 10,
+      0, 1, 2, 5, 6, 9, 7, 8, 10, 11,   1, 3, 2, 4, 5, 6, 9, 10,   1, 2, 3, 4, 5, 7, 6, 8,
+      2, 3, 4, 5, 6, 7, 8, 9,   3, 4, 5, 6
+    },
+    {
+      0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13,   0, 2, 1, 3, 4, 8, 5, 9, 10, 12, 11, 13,
+      0, 4, 1, 2, 3, 7, 5, 8, 6, 10, 9, 13, 11, 12,   0, 6, 1, 5, 3, 9, 4, 10, 7, 13, 8, 12,
+      2, 10, 3, 11, 4, 6, 7, 9,   1, 3, 2, 8, 5, 11, 6, 7, 10, 12,   1, 4, 2, 6, 3, 5, 7, 11, 8, 10, 9, 12,
+      2, 4, 3, 6, 5, 8, 7, 10, 9, 11,   3, 4, 5, 6, 7, 8, 9, 10,   6, 7
+    },
+    {
+      0, 13, 1, 12, 3, 14, 4, 8, 5, 6, 7, 11, 9, 10,   0, 5, 1, 7, 2, 9, 3, 4, 6, 13, 8, 14, 11, 12,
+      0, 1, 2, 3, 4, 5, 6, 8, 7, 9, 10, 11, 12, 13,   0, 2, 1, 3, 4, 10, 5, 11, 6, 7, 8, 9, 12, 14,
+      1, 2, 3, 12, 4, 6, 5, 7, 8, 10, 9, 11, 13, 14,   1, 4, 2, 6, 5, 8, 7, 10, 9, 13, 11, 14,
+      2, 4, 3, 6, 9, 12, 11, 13,   3, 5, 6, 8, 7, 9, 10, 12,   3, 4, 5, 6, 7, 8, 9, 10, 11, 12,
+      6, 7, 8, 9
+    },
+    {
+      0, 13, 1, 12, 2, 15, 3, 14, 4, 8, 5, 6, 7, 11, 9, 10,
+      0, 5, 1, 7, 2, 9, 3, 4, 6, 13, 8, 14, 10, 15, 11, 12,
+      0, 1, 2, 3, 4, 5, 6, 8, 7, 9, 10, 11, 12, 13, 14, 15,
+      0, 2, 1, 3, 4, 10, 5, 11, 6, 7, 8, 9, 12, 14, 13, 15,
+      1, 2, 3, 12, 4, 6, 5, 7, 8, 10, 9, 11, 13, 14,   1, 4, 2, 6, 5, 8, 7, 10, 9, 13, 11, 14,
+      2, 4, 3, 6, 9, 12, 11, 13,   3, 5, 6, 8, 7, 9, 10, 12,   3, 4, 5, 6, 7, 8, 9, 10, 11, 12,
+      6, 7, 8, 9
+    }
+  };
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private SmallSort() {}
+
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of primitive integers.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(int[] array, int start, int end) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("SmallSort", n);
+    try {
+      network(array, start, Math.min(n, NETWORK_MAX));
+      if (n > NETWORK_MAX) {
+        insert(array, start, start + NETWORK_MAX, end);
+      }
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of primitive longs.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(long[] array, int start, int end) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("SmallSort", n);
+    try {
+      network(array, start, Math.min(n, NETWORK_MAX));
+      if (n > NETWORK_MAX) {
+        insert(array, start, start + NETWORK_MAX, end);
+      }
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * Sorts a range of values between two inclusive indexes (start and end) within an array of primitive doubles.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void sort(double[] array, int start, int end) {
+    int n = end - start + 1;
+    if (n < 2) {
+      return;
+    }
+    SortStats stats = SortMetrics.begin("SmallSort", n);
+    try {
+      // Move the NaNs to the end, after which min and max order the rest exactly as Double.compare does
+      for (int i = end; i >= start; i--) {
+        double value = array[i];
+        if (value != value) {
+          SortMetrics.swap();
+          array[i] = array[end];
+          array[end--] = value;
+        }
+      }
+      n = end - start + 1;
+
+      if (n > 1) {
+        network(array, start, Math.min(n, NETWORK_MAX));
+      }
+      if (n > NETWORK_MAX) {
+        insert(array, start, start + NETWORK_MAX, end);
+      }
+    }
+    finally {
+      SortMetrics.end(stats);
+    }
+  }
+
+  /**
+   * Binary insertion sorts a range of values between two inclusive indexes (start and end) within an array of primitive
+   * integers, given that the values from <tt>start</tt> to <tt>sorted - 1</tt> are already sorted.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param sorted
+   *          The index of the first value that may be out of order.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void insert(int[] array, int start, int sorted, int end) {
+    long comparisons = 0, moves = 0;
+    for (int i = Math.max(sorted, start + 1); i <= end; i++) {
+      int value = array[i];
+      comparisons++;
+      if (value >= array[i - 1]) {
+        continue;                                                         // Already in place, as in presorted runs
+      }
+
+      // Find the first value greater than this one in array[start..i-2]
+      int base = start, n = i - start - 1;
+      while (n > 1) {
+        int half = n >>> 1;
+        base = (array[base + half] <= value) ? base + half : base;
+        n -= half;
+        comparisons++;
+      }
+      int index = (n == 1 && array[base] <= value) ? base + 1 : base;
+      comparisons += n;
+
+      System.arraycopy(array, index, array, index + 1, i - index);
+      array[index] = value;
+      moves += i - index + 1;
+    }
+    SortMetrics.comparisons(comparisons);
+    SortMetrics.moves(moves);
+  }
+
+  /**
+   * Binary insertion sorts a range of values between two inclusive indexes (start and end) within an array of primitive
+   * longs, given that the values from <tt>start</tt> to <tt>sorted - 1</tt> are already sorted.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param sorted
+   *          The index of the first value that may be out of order.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void insert(long[] array, int start, int sorted, int end) {
+    long comparisons = 0, moves = 0;
+    for (int i = Math.max(sorted, start + 1); i <= end; i++) {
+      long value = array[i];
+      comparisons++;
+      if (value >= array[i - 1]) {
+        continue;
+      }
+      int base = start, n = i - start - 1;
+      while (n > 1) {
+        int half = n >>> 1;
+        base = (array[base + half] <= value) ? base + half : base;
+        n -= half;
+        comparisons++;
+      }
+      int index = (n == 1 && array[base] <= value) ? base + 1 : base;
+      comparisons += n;
+
+      System.arraycopy(array, index, array, index + 1, i - index);
+      array[index] = value;
+      moves += i - index + 1;
+    }
+    SortMetrics.comparisons(comparisons);
+    SortMetrics.moves(moves);
+  }
+
+  /**
+   * Binary insertion sorts a range of values between two inclusive indexes (start and end) within an array of primitive
+   * doubles, given that the values from <tt>start</tt> to <tt>sorted - 1</tt> are already sorted. The range must not
+   * contain NaNs.
+   *
+   * @param array
+   *          The array to sort.
+   * @param start
+   *          First index of range of values to sort.
+   * @param sorted
+   *          The index of the first value that may be out of order.
+   * @param end
+   *          Last index of range of values to sort.
+   */
+  public static void insert(double[] array, int start, int sorted, int end) {
+    long comparisons = 0, moves = 0;
+    for (int i = Math.max(sorted, start + 1); i <= end; i++) {
+      double value = array[i];
+      comparisons++;
+      if (Double.compare(value, array[i - 1]) >= 0) {
+        continue;
+      }
+      int base = start, n = i - start - 1;
+      while (n > 1) {
+        int half = n >>> 1;
+        base = (Double.compare(array[base + half], value) <= 0) ? base + half : base;
+        n -= half;
+        comparisons++;
+      }
+      int index = (n == 1 && Double.compare(array[base], value) <= 0) ? base + 1 : base;
+      comparisons += n;
+
+      System.arraycopy(array, index, array, index + 1, i - index);
+      array[index] = value;
+      moves += i - index + 1;
+    }
+    SortMetrics.comparisons(comparisons);
+    SortMetrics.moves(moves);
+  }
+
+  /**
+   * Sorts the <tt>n</tt> values from index <tt>start</tt> with the sorting network for <tt>n</tt> elements.
+   */
+  private static void network(int[] array, int start, int n) {
+    byte[] network = NETWORKS[n];
+    for (int k = 0; k < network.length; k += 2) {
+      int i = start + network[k], j = start + network[k + 1];
+      int a = array[i], b = array[j];
+      array[i] = Math.min(a, b);
+      array[j] = Math.max(a, b);
+    }
+    SortMetrics.comparisons(network.length / 2);
+    SortMetrics.moves(network.length);
+  }
+
+  /**
+   * Sorts the <tt>n</tt> values from index <tt>start</tt> with the sorting network for <tt>n</tt> elements.
+   */
+  private static void network(long[] array, int start, int n) {
+    byte[] network = NETWORKS[n];
+    for (int k = 0; k < network.length; k += 2) {
+      int i = start + network[k], j = start + network[k + 1];
+      long a = array[i], b = array[j];
+      array[i] = Math.min(a, b);
+      array[j] = Math.max(a, b);
+    }
+    SortMetrics.comparisons(network.length / 2);
+    SortMetrics.moves(network.length);
+  }
+
+  /**
+   * Sorts the <tt>n</tt> values from index <tt>start</tt> with the sorting network for <tt>n</tt> elements. The values
+   * must not include NaNs, which <tt>Math.min</tt> and <tt>Math.max</tt> would spread.
+   */
+  private static void network(double[] array, int start, int n) {
+    byte[] network = NETWORKS[n];
+    for (int k = 0; k < network.length; k += 2) {
+      int i = start + network[k], j = start + network[k + 1];
+      double a = array[i], b = array[j];
+      array[i] = Math.min(a, b);
+      array[j] = Math.max(a, b);
+    }
+    SortMetrics.comparisons(network.length / 2);
+    SortMetrics.moves(network.length);
+  }
+
+}
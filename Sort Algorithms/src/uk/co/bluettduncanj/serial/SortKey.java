@@ -0,0 +1,243 @@
+/**
+ * SortKey.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+
+/**
+ * <p>A multi-column sort order for objects, which {@code NormalizedKeySort} can encode into a fixed-size,
+ * order-preserving byte key for each object.</p>
+ *
+ * <p>Fields are added in order of precedence, each ascending or descending:</p>
+ *
+ * <pre>
+ * SortKey&lt;Order&gt; key = new SortKey&lt;Order&gt;()
+ *     .thenString(Order::getCountry, 4, false)
+ *     .thenLong(Order::getPlacedAt, true);
+ * </pre>
+ *
+ * <p>Each field is encoded big-endian, so that comparing two keys byte by byte, as unsigned bytes, orders them as the
+ * fields would be ordered: <tt>int</tt> and <tt>long</tt> fields with their sign bit flipped, so that negative values
+ * come first, and strings as their first <tt>prefixLength</tt> chars (2 bytes each), padded with zeros. A descending
+ * field has all of its bytes inverted. Numeric fields are encoded exactly, but a string field is only a prefix, so two
+ * keys that are equal up to the end of a string field can't be ordered by the bytes that follow it; the key therefore
+ * ends with the first string field, and later fields are only used by {@link #compare(Object, Object)} to break
+ * ties.</p>
+ *
+ * <p>A <tt>SortKey</tt> is also the <tt>Comparator</tt> for the order that it describes. Adding fields modifies the
+ * key, so it should be built before it is shared between threads.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ *
+ * @param <T>
+ *          The type of object whose fields are compared.
+ */
+public final class SortKey<T> implements Comparator<T> {
+
+  private final List<Field<T>> fields = new ArrayList<Field<T>>();
+
+  /**
+   * The number of bytes of each encoded key, and the number of fields that they encode.
+   */
+  private int width;
+  private int encodedFields;
+
+  /**
+   * Whether every field that is compared is encoded exactly, so that objects with equal keys are equal.
+   */
+  private boolean exact = true;
+
+  /**
+   * Creates a key with no fields, which orders every object as equal.
+   */
+  public SortKey() {}
+
+  /**
+   * Adds an <tt>int</tt> field, encoded as 4 bytes.
+   *
+   * @param field
+   *          Gets the field from an object.
+   * @param descending
+   *          Whether the field is sorted into descending order.
+   * @return this key.
+   */
+  public SortKey<T> thenInt(final ToIntFunction<? super T> field, boolean descending) {
+    return add(new Field<T>(4, descending) {
+      @Override
+      void encode(T item, long[] records, int base, int offset) {
+        put(records, base, offset, field.applyAsInt(item) ^ Integer.MIN_VALUE ^ mask, 4);
+      }
+
+      @Override
+      int compareAscending(T a, T b) {
+        return Integer.compare(field.applyAsInt(a), field.applyAsInt(b));
+      }
+    });
+  }
+
+  /**
+   * Adds a <tt>long</tt> field, encoded as 8 bytes.
+   *
+   * @param field
+   *          Gets the field from an object.
+   * @param descending
+   *          Whether the field is sorted into descending order.
+   * @return this key.
+   */
+  public SortKey<T> thenLong(final ToLongFunction<? super T> field, boolean descending) {
+    return add(new Field<T>(8, descending) {
+      @Override
+      void encode(T item, long[] records, int base, int offset) {
+        put(records, base, offset, field.applyAsLong(item) ^ Long.MIN_VALUE ^ mask, 8);
+      }
+
+      @Override
+      int compareAscending(T a, T b) {
+        return Long.compare(field.applyAsLong(a), field.applyAsLong(b));
+      }
+    });
+  }
+
+  /**
+   * Adds a string field, ordered as by {@link String#compareTo(String)} and encoded as its first
+   * <tt>prefixLength</tt> chars. Longer prefixes settle more comparisons without calling {@link #compare(Object,
+   * Object)}, but make every key bigger.
+   *
+   * @param field
+   *          Gets the field from an object.
+   * @param prefixLength
+   *          The number of chars of the field to encode.
+   * @param descending
+   *          Whether the field is sorted into descending order.
+   * @return this key.
+   * @throws IllegalArgumentException
+   *           If <tt>prefixLength</tt> is not positive.
+   */
+  public SortKey<T> thenString(final Function<? super T, ? extends CharSequence> field, final int prefixLength,
+      boolean descending) {
+    if (prefixLength <= 0) {
+      throw new IllegalArgumentException("prefixLength must be positive: " + prefixLength);
+    }
+    add(new Field<T>(2 * prefixLength, descending) {
+      @Override
+      void encode(T item, long[] records, int base, int offset) {
+        CharSequence s = field.apply(item);
+        int n = Math.min(s.length(), prefixLength);
+        for (int i = 0; i < prefixLength; i++) {
+          put(records, base, offset + 2 * i, ((i < n) ? s.charAt(i) : 0) ^ mask, 2);
+        }
+      }
+
+      @Override
+      int compareAscending(T a, T b) {
+        CharSequence x = field.apply(a), y = field.apply(b);
+        int n = Math.min(x.length(), y.length());
+        for (int i = 0; i < n; i++) {
+          char c = x.charAt(i), d = y.charAt(i);
+          if (c != d) {
+            return c - d;
+          }
+        }
+        return x.length() - y.length();
+      }
+    });
+    exact = false;
+    return this;
+  }
+
+  /**
+   * Compares two objects field by field, including the fields that aren't encoded.
+   */
+  @Override
+  public int compare(T a, T b) {
+    for (int i = 0; i < fields.size(); i++) {
+      Field<T> field = fields.get(i);
+      int c = field.compareAscending(a, b);
+      if (c != 0) {
+        return field.descending ? -c : c;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return the number of bytes in each encoded key.
+   */
+  public int width() {
+    return width;
+  }
+
+  /**
+   * @return true if the encoded keys of two objects are equal only when {@link #compare(Object, Object)} finds them
+   *         equal, i.e. there are no string fields.
+   */
+  public boolean isExact() {
+    return exact;
+  }
+
+  /**
+   * Encodes the key of an object into <tt>width()</tt> bytes of a record array, starting at byte <tt>offset</tt> of
+   * the big-endian record at <tt>records[base]</tt>. The bytes must be zero beforehand.
+   */
+  void encode(T item, long[] records, int base, int offset) {
+    for (int i = 0; i < encodedFields; i++) {
+      Field<T> field = fields.get(i);
+      field.encode(item, records, base, offset);
+      offset += field.width;
+    }
+  }
+
+  private SortKey<T> add(Field<T> field) {
+    fields.add(field);
+    if (encodedFields == fields.size() - 1 && exact) {
+      width += field.width;
+      encodedFields++;
+    }
+    return this;
+  }
+
+  /**
+   * ORs the low <tt>bytes</tt> bytes of a value, big-endian, into the record at <tt>records[base]</tt>, starting at
+   * byte <tt>offset</tt> of the record.
+   */
+  static void put(long[] records, int base, int offset, long value, int bytes) {
+    for (int i = 0; i < bytes; i++) {
+      int position = offset + i;
+      long b = (value >>> (8 * (bytes - 1 - i))) & 0xFF;
+      records[base + (position >>> 3)] |= b << (56 - 8 * (position & 7));
+    }
+  }
+
+  /**
+   * One field of a key, and how to encode and compare it.
+   */
+  private abstract static class Field<T> {
+
+    final int width;
+    final boolean descending;
+
+    /**
+     * XORed into the encoded field, to invert the bytes of a descending field.
+     */
+    final long mask;
+
+    Field(int width, boolean descending) {
+      this.width = width;
+      this.descending = descending;
+      this.mask = descending ? -1L : 0L;
+    }
+
+    abstract void encode(T item, long[] records, int base, int offset);
+
+    abstract int compareAscending(T a, T b);
+  }
+
+}
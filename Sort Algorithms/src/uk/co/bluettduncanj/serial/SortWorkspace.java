@@ -0,0 +1,157 @@
+/**
+ * SortWorkspace.java
+ */
+
+package uk.co.bluettduncanj.serial;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+
+
+/**
+ * <p>Reusable scratch space for the sorting classes that need auxiliary arrays, such as {@code MergeSort1},
+ * {@code MergeSort2}, {@code NaturalMergeSort}, {@code RadixSort}, {@code CountingSort} and {@code ListMergeSort}.</p>
+ *
+ * <p>Each of those classes has overloads that take a <tt>SortWorkspace</tt>, and borrows its buffers instead of
+ * allocating new ones. Buffers only ever grow, and they grow geometrically (to at least double their previous length), so
+ * a caller that keeps one workspace and sorts arrays of similar sizes stops allocating after the first few sorts. This
+ * keeps large, short-lived scratch arrays away from the garbage collector, which might otherwise have to allocate them
+ * directly in the old generation.</p>
+ *
+ * <p>A workspace holds {@value #SLOTS} independent buffers of each element type, because some algorithms need two
+ * buffers of the same type at once (e.g. radix sort's keys and their scatter target). The contents of a buffer are
+ * undefined when it is borrowed; sorts that borrow <tt>Object</tt> buffers clear the part they used before returning, so
+ * that the workspace doesn't keep sorted elements reachable.</p>
+ *
+ * <p>A <tt>SortWorkspace</tt> is not thread-safe, and must not be used by two sorts at once. Either hold one per thread
+ * (see {@link #forCurrentThread()}) or keep them in a pool.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class SortWorkspace {
+
+  /**
+   * The number of separate buffers of each element type.
+   */
+  public static final int SLOTS = 2;
+
+  /**
+   * The largest array length that the VM can reliably allocate.
+   */
+  private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+  private static final ThreadLocal<SortWorkspace> perThread = new ThreadLocal<SortWorkspace>() {
+    @Override
+    protected SortWorkspace initialValue() {
+      return new SortWorkspace();
+    }
+  };
+
+  private final int[][] ints = new int[SLOTS][];
+  private final long[][] longs = new long[SLOTS][];
+  private final Object[][] objects = new Object[SLOTS][];
+
+  /**
+   * Creates an empty workspace. Buffers are allocated when they are first borrowed.
+   */
+  public SortWorkspace() {}
+
+  /**
+   * @return the current thread's own workspace, which is created on first use and kept for the lifetime of the thread.
+   */
+  public static SortWorkspace forCurrentThread() {
+    return perThread.get();
+  }
+
+  /**
+   * Borrows an <tt>int</tt> buffer.
+   *
+   * @param slot
+   *          Which of the {@value #SLOTS} <tt>int</tt> buffers to borrow.
+   * @param minLength
+   *          The minimum length needed.
+   * @return a buffer of at least <tt>minLength</tt> elements, with undefined contents.
+   */
+  public int[] ints(int slot, int minLength) {
+    int[] buffer = ints[slot];
+    if (buffer == null || buffer.length < minLength) {
+      int length = grow(buffer == null ? 0 : buffer.length, minLength);
+      SortMetrics.scratch(4L * length);
+      buffer = ints[slot] = new int[length];
+    }
+    return buffer;
+  }
+
+  /**
+   * Borrows a <tt>long</tt> buffer.
+   *
+   * @param slot
+   *          Which of the {@value #SLOTS} <tt>long</tt> buffers to borrow.
+   * @param minLength
+   *          The minimum length needed.
+   * @return a buffer of at least <tt>minLength</tt> elements, with undefined contents.
+   */
+  public long[] longs(int slot, int minLength) {
+    long[] buffer = longs[slot];
+    if (buffer == null || buffer.length < minLength) {
+      int length = grow(buffer == null ? 0 : buffer.length, minLength);
+      SortMetrics.scratch(8L * length);
+      buffer = longs[slot] = new long[length];
+    }
+    return buffer;
+  }
+
+  /**
+   * Borrows an <tt>Object</tt> buffer. The borrower should set the elements it used back to null when it is done.
+   *
+   * @param slot
+   *          Which of the {@value #SLOTS} <tt>Object</tt> buffers to borrow.
+   * @param minLength
+   *          The minimum length needed.
+   * @return a buffer of at least <tt>minLength</tt> elements, with undefined contents.
+   */
+  public Object[] objects(int slot, int minLength) {
+    Object[] buffer = objects[slot];
+    if (buffer == null || buffer.length < minLength) {
+      int length = grow(buffer == null ? 0 : buffer.length, minLength);
+      SortMetrics.scratch(4L * length);
+      buffer = objects[slot] = new Object[length];
+    }
+    return buffer;
+  }
+
+  /**
+   * @return the number of bytes of buffer space currently held, ignoring array headers and assuming 4-byte references.
+   */
+  public long retainedBytes() {
+    long bytes = 0;
+    for (int slot = 0; slot < SLOTS; slot++) {
+      bytes += (ints[slot] == null) ? 0 : 4L * ints[slot].length;
+      bytes += (longs[slot] == null) ? 0 : 8L * longs[slot].length;
+      bytes += (objects[slot] == null) ? 0 : 4L * objects[slot].length;
+    }
+    return bytes;
+  }
+
+  /**
+   * Drops every buffer, e.g. after an unusually large sort, so that the memory can be reclaimed.
+   */
+  public void release() {
+    for (int slot = 0; slot < SLOTS; slot++) {
+      ints[slot] = null;
+      longs[slot] = null;
+      objects[slot] = null;
+    }
+  }
+
+  /*
+   * The first allocation is exactly the size asked for; after that, buffers at least double.
+   */
+  private static int grow(int currentLength, int minLength) {
+    if (minLength < 0) {
+      throw new NegativeArraySizeException(Integer.toString(minLength));
+    }
+    long doubled = 2L * currentLength;
+    return (int) Math.max(minLength, Math.min(doubled, MAX_ARRAY_LENGTH));
+  }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Cutoff.java
+ */
+
+package uk.co.bluettduncanj.tuning;
+
+
+/**
+ * <p>The machine-dependent thresholds of the sorting classes, e.g. the sub-array size below which a quicksort switches
+ * to insertion sort.</p>
+ *
+ * <p>Each cutoff's value is fixed when this class is loaded. It is taken from, in order of preference: a system property
+ * named <tt>uk.co.bluettduncanj.tuning.</tt><i>key</i>, the tuning profile named by {@link SortTuning#PROFILE_PROPERTY}
+ * (which {@link SortCalibrator} writes), or the cutoff's default. The sorting classes copy the values into
+ * <tt>static final</tt> fields, so a tuned cutoff costs exactly as much as a hard-coded one.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public enum Cutoff {
+
+  /** Sub-arrays smaller than this are insertion sorted by {@code Quicksort}. */
+  QUICKSORT_INSERTION_SORT("quicksort.insertionSort", 45, 2, 8, 16, 24, 32, 45, 64),
+
+  /** Sub-arrays smaller than this are insertion sorted by {@code Quicksort3Way}. */
+  QUICKSORT_3WAY_INSERTION_SORT("quicksort3Way.insertionSort", 10, 2, 6, 10, 16, 24, 32, 48),
+
+  /** Sub-arrays smaller than this are insertion sorted by {@code QuicksortBentleyMcIlroy}. */
+  BENTLEY_MCILROY_INSERTION_SORT("quicksortBentleyMcIlroy.insertionSort", 10, 2, 6, 10, 16, 24, 32, 48),
+
+  /** Sub-arrays smaller than this (and not insertion sorted) use a median of 3 pivot in {@code QuicksortBentleyMcIlroy},
+   *  rather than Tukey's ninther. */
+  BENTLEY_MCILROY_MEDIAN3("quicksortBentleyMcIlroy.median3", 41, 3, 24, 41, 64, 96, 128),
+
+  /** Sub-arrays smaller than this are sorted with {@code SmallSort} by {@code BranchlessQuicksort}. */
+  BRANCHLESS_QUICKSORT_SMALL_SORT("branchlessQuicksort.smallSort", 32, 2, 12, 16, 24, 32, 48, 64),
+
+  /** Sub-arrays of at most this size plus one are insertion sorted by {@code MergeSort1}. */
+  MERGESORT1_INSERTION_SORT("mergeSort1.insertionSort", 7, 0, 3, 7, 11, 15, 23, 31),
+
+  /** Sub-arrays of at most this size plus one are insertion sorted by {@code MergeSort2}. */
+  MERGESORT2_INSERTION_SORT("mergeSort2.insertionSort", 7, 0, 3, 7, 11, 15, 23, 31),
+
+  /** Sub-arrays of at most this size use a median of 3 pivot in {@code ParallelQuicksort}, rather than Tukey's
+   *  ninther. */
+  PARALLEL_QUICKSORT_MEDIAN3("parallelQuicksort.median3", 40, 2, 24, 40, 64, 96, 128),
+
+  /** Sub-arrays of at most this size are sorted sequentially, rather than by forking tasks, in
+   *  {@code ParallelQuicksort}. */
+  PARALLEL_QUICKSORT_SEQUENTIAL("parallelQuicksort.sequential", 2048, 64, 512, 1024, 2048, 4096, 8192, 16384, 32768),
+
+  /** Sub-arrays of at least this size are partitioned in parallel, rather than by one task, in
+   *  {@code ParallelQuicksort}. */
+  PARALLEL_QUICKSORT_PARALLEL_PARTITION("parallelQuicksort.parallelPartition", 1 << 18, 2, 1 << 16, 1 << 17, 1 << 18,
+      1 << 19, 1 << 20, Integer.MAX_VALUE);
+
+  private final String key;
+  private final int defaultValue;
+  private final int minValue;
+  private final int[] candidates;
+  private final int value;
+
+  private Cutoff(String key, int defaultValue, int minValue, int... candidates) {
+    this.key = key;
+    this.defaultValue = defaultValue;
+    this.minValue = minValue;
+    this.candidates = candidates;
+    this.value = SortTuning.resolve(key, defaultValue, minValue);
+  }
+
+  /**
+   * @return the value of this cutoff in effect for the lifetime of the JVM.
+   */
+  public int value() {
+    return value;
+  }
+
+  /**
+   * @return the name of this cutoff in a tuning profile.
+   */
+  public String key() {
+    return key;
+  }
+
+  /**
+   * @return the value used when neither a system property nor a tuning profile supplies one.
+   */
+  public int defaultValue() {
+    return defaultValue;
+  }
+
+  /**
+   * @return the smallest value that this cutoff accepts.
+   */
+  public int minValue() {
+    return minValue;
+  }
+
+  /**
+   * @return the values that {@link SortCalibrator} tries for this cutoff.
+   */
+  public int[] candidates() {
+    return candidates.clone();
+  }
+
+}
@@ -0,0 +1,215 @@
+/**
+ * SortCalibrator.java
+ */
+
+package uk.co.bluettduncanj.tuning;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import uk.co.bluettduncanj.parallel.ParallelQuicksort;
+import uk.co.bluettduncanj.serial.BranchlessQuicksort;
+import uk.co.bluettduncanj.serial.MergeSort1;
+import uk.co.bluettduncanj.serial.MergeSort2;
+import uk.co.bluettduncanj.serial.Quicksort;
+import uk.co.bluettduncanj.serial.Quicksort3Way;
+import uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy;
+
+
+/**
+ * <p>Calibration mode: micro-benchmarks every {@link Cutoff} on the current machine and writes the fastest values to a
+ * tuning profile, which can then be loaded at startup with <tt>-D{@value SortTuning#PROFILE_PROPERTY}=</tt><i>file</i>.</p>
+ *
+ * <p>Usage: <tt>java -cp</tt> <i>classpath</i> <tt>uk.co.bluettduncanj.tuning.SortCalibrator</tt> [<i>profile</i>]
+ * [<tt>--length</tt> <i>N</i>] [<tt>--runs</tt> <i>R</i>]</p>
+ *
+ * <p>The cutoffs are fixed once per JVM, so every candidate value is timed in a fresh child JVM (which also stops one
+ * candidate's JIT profile from skewing the next one's timings). Each trial sorts random arrays of <i>N</i> ints (2<sup>20
+ * </sup> by default), and reports the median of <i>R</i> timed runs (9 by default) after a warm-up. Cutoffs are tuned
+ * one at a time, in declaration order, with the cutoffs already tuned fixed at their best values; this lets e.g. the
+ * median of 3 cutoff adapt to the insertion sort cutoff before it.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class SortCalibrator {
+
+  /**
+   * The profile written when no file is given.
+   */
+  public static final String DEFAULT_PROFILE = "sort-tuning.properties";
+
+  private static final int DEFAULT_LENGTH = 1 << 20;
+  private static final int DEFAULT_RUNS = 9;
+  private static final int WARMUP_RUNS = 5;
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private SortCalibrator() {}
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length > 0 && args[0].equals("--trial")) {
+      long nanos = trial(Cutoff.valueOf(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+      System.out.println(nanos);
+      return;
+    }
+
+    Path profile = Paths.get(DEFAULT_PROFILE);
+    int length = DEFAULT_LENGTH;
+    int runs = DEFAULT_RUNS;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--length")) {
+        length = Integer.parseInt(args[++i]);
+      }
+      else if (args[i].equals("--runs")) {
+        runs = Integer.parseInt(args[++i]);
+      }
+      else {
+        profile = Paths.get(args[i]);
+      }
+    }
+
+    Map<Cutoff, Integer> tuned = calibrate(length, runs);
+    String machine = System.getProperty("os.arch") + ", " + Runtime.getRuntime().availableProcessors()
+        + " processors, Java " + System.getProperty("java.version");
+    SortTuning.store(tuned, profile, "Sort cutoffs calibrated on " + machine);
+    System.out.println("Wrote " + profile.toAbsolutePath());
+  }
+
+  /**
+   * Finds the fastest value of every cutoff on this machine.
+   *
+   * @param length
+   *          The length of the arrays to sort in each trial.
+   * @param runs
+   *          The number of timed sorts in each trial.
+   * @return the fastest value of every cutoff.
+   * @throws IOException
+   *           if a trial JVM could not be run, or failed.
+   * @throws InterruptedException
+   *           if interrupted while waiting for a trial JVM.
+   */
+  public static Map<Cutoff, Integer> calibrate(int length, int runs) throws IOException, InterruptedException {
+    Map<Cutoff, Integer> tuned = new EnumMap<Cutoff, Integer>(Cutoff.class);
+    for (Cutoff cutoff : Cutoff.values()) {
+      tuned.put(cutoff, cutoff.defaultValue());
+    }
+
+    for (Cutoff cutoff : Cutoff.values()) {
+      int best = cutoff.defaultValue();
+      long bestNanos = Long.MAX_VALUE;
+      for (int candidate : cutoff.candidates()) {
+        tuned.put(cutoff, candidate);
+        long nanos = runTrial(cutoff, tuned, length, runs);
+        System.out.printf("%-40s %6d  %8.3f ms%n", cutoff.key(), candidate, nanos / 1e6);
+        if (nanos < bestNanos) {
+          bestNanos = nanos;
+          best = candidate;
+        }
+      }
+      tuned.put(cutoff, best);
+      System.out.println(cutoff.key() + " = " + best);
+    }
+    return tuned;
+  }
+
+  /*
+   * Times one candidate in a child JVM that has every cutoff in values set as a system property.
+   */
+  private static long runTrial(Cutoff cutoff, Map<Cutoff, Integer> values, int length, int runs)
+      throws IOException, InterruptedException {
+    List<String> command = new ArrayList<String>();
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    for (Map.Entry<Cutoff, Integer> entry : values.entrySet()) {
+      command.add("-D" + SortTuning.OVERRIDE_PREFIX + entry.getKey().key() + "=" + entry.getValue());
+    }
+    command.add(SortCalibrator.class.getName());
+    command.add("--trial");
+    command.add(cutoff.name());
+    command.add(Integer.toString(length));
+    command.add(Integer.toString(runs));
+
+    Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    String result = null;
+    try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"))) {
+      for (String line = out.readLine(); line != null; line = out.readLine()) {
+        result = line;
+      }
+    }
+    int status = process.waitFor();
+    if (status != 0 || result == null) {
+      throw new IOException("Trial of " + cutoff + " failed with exit status " + status);
+    }
+    return Long.parseLong(result.trim());
+  }
+
+  /*
+   * Returns the median time, in nanoseconds, of sorting a copy of the same random array with the engine that uses the
+   * cutoff.
+   */
+  private static long trial(Cutoff cutoff, int length, int runs) {
+    Random r = new Random(length);
+    int[] data = new int[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = r.nextInt();
+    }
+    int[] array = new int[length];
+    long[] nanos = new long[runs];
+    for (int run = -WARMUP_RUNS; run < runs; run++) {
+      System.arraycopy(data, 0, array, 0, length);
+      long start = System.nanoTime();
+      sort(cutoff, array);
+      long end = System.nanoTime();
+      if (run >= 0) {
+        nanos[run] = end - start;
+      }
+    }
+    Arrays.sort(nanos);
+    return nanos[runs / 2];
+  }
+
+  @SuppressWarnings("deprecation")
+  private static void sort(Cutoff cutoff, int[] array) {
+    switch (cutoff) {
+      case QUICKSORT_INSERTION_SORT:
+        Quicksort.quicksort(array);
+        break;
+      case QUICKSORT_3WAY_INSERTION_SORT:
+        Quicksort3Way.quicksort(array);
+        break;
+      case BENTLEY_MCILROY_INSERTION_SORT:
+      case BENTLEY_MCILROY_MEDIAN3:
+        QuicksortBentleyMcIlroy.quicksort(array);
+        break;
+      case BRANCHLESS_QUICKSORT_SMALL_SORT:
+        BranchlessQuicksort.sort(array);
+        break;
+      case MERGESORT1_INSERTION_SORT:
+        MergeSort1.sort(array);
+        break;
+      case MERGESORT2_INSERTION_SORT:
+        MergeSort2.sort(array);
+        break;
+      case PARALLEL_QUICKSORT_MEDIAN3:
+      case PARALLEL_QUICKSORT_SEQUENTIAL:
+      case PARALLEL_QUICKSORT_PARALLEL_PARTITION:
+        ParallelQuicksort.sort(array);
+        break;
+      default:
+        throw new AssertionError(cutoff);
+    }
+  }
+
+}
@@ -0,0 +1,162 @@
+/**
+ * SortTuning.java
+ */
+
+package uk.co.bluettduncanj.tuning;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * <p>Reads and writes tuning profiles: <tt>java.util.Properties</tt> files that map {@link Cutoff} keys to values, as
+ * written by {@link SortCalibrator}.</p>
+ *
+ * <p>The profile that is in effect is named by the system property {@value #PROFILE_PROPERTY}, and is read once, when
+ * {@link Cutoff} is first used. A missing or unreadable profile, or an invalid value within one, is logged as a warning
+ * to the <tt>java.util.logging</tt> logger named after this class, and the affected cutoffs keep their defaults, so a
+ * bad profile can slow sorting down but never break it.</p>
+ *
+ * @author Jonathan Bluett-Duncan
+ */
+public final class SortTuning {
+
+  /**
+   * The system property naming the tuning profile to load at startup.
+   */
+  public static final String PROFILE_PROPERTY = "uk.co.bluettduncanj.tuning.profile";
+
+  /**
+   * The prefix of system properties that override a single cutoff, e.g.
+   * <tt>-Duk.co.bluettduncanj.tuning.quicksort.insertionSort=32</tt>. These take precedence over the profile.
+   */
+  public static final String OVERRIDE_PREFIX = "uk.co.bluettduncanj.tuning.";
+
+  // Initialised before the profile is loaded, which may log
+  private static final Logger logger = Logger.getLogger(SortTuning.class.getName());
+
+  private static final Properties profile = loadProfile();
+
+  /**
+   * Private constructor. Prevents instantiation.
+   */
+  private SortTuning() {}
+
+  /**
+   * Reads the cutoffs in a tuning profile. Keys that aren't cutoffs are ignored.
+   *
+   * @param file
+   *          The profile to read.
+   * @return the valid cutoff values in the profile.
+   * @throws IOException
+   *           if the profile can't be read.
+   */
+  public static Map<Cutoff, Integer> load(Path file) throws IOException {
+    Properties properties = read(file);
+    Map<Cutoff, Integer> values = new EnumMap<Cutoff, Integer>(Cutoff.class);
+    for (Cutoff cutoff : Cutoff.values()) {
+      Integer value = parse(cutoff.key(), properties.getProperty(cutoff.key()), cutoff.minValue(), file.toString());
+      if (value != null) {
+        values.put(cutoff, value);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Writes cutoff values to a tuning profile, replacing the file if it exists.
+   *
+   * @param values
+   *          The cutoff values to write.
+   * @param file
+   *          The profile to write.
+   * @param comments
+   *          A description written at the top of the profile, or null.
+   * @throws IOException
+   *           if the profile can't be written.
+   */
+  public static void store(Map<Cutoff, Integer> values, Path file, String comments) throws IOException {
+    Properties properties = new Properties();
+    for (Map.Entry<Cutoff, Integer> entry : values.entrySet()) {
+      properties.setProperty(entry.getKey().key(), entry.getValue().toString());
+    }
+    try (OutputStream out = Files.newOutputStream(file)) {
+      properties.store(out, comments);
+    }
+  }
+
+  /**
+   * @return the value of every cutoff in effect for the lifetime of the JVM.
+   */
+  public static Map<Cutoff, Integer> current() {
+    Map<Cutoff, Integer> values = new EnumMap<Cutoff, Integer>(Cutoff.class);
+    for (Cutoff cutoff : Cutoff.values()) {
+      values.put(cutoff, cutoff.value());
+    }
+    return values;
+  }
+
+  /**
+   * Decides the value of a cutoff at startup. Called by the {@link Cutoff} constructor, so it must not use
+   * <tt>Cutoff</tt> itself.
+   */
+  static int resolve(String key, int defaultValue, int minValue) {
+    Integer value = parse(key, System.getProperty(OVERRIDE_PREFIX + key), minValue, "-D" + OVERRIDE_PREFIX + key);
+    if (value == null) {
+      value = parse(key, profile.getProperty(key), minValue, System.getProperty(PROFILE_PROPERTY));
+    }
+    return (value != null) ? value : defaultValue;
+  }
+
+  private static Properties loadProfile() {
+    String file = System.getProperty(PROFILE_PROPERTY);
+    if (file != null) {
+      try {
+        return read(Paths.get(file));
+      }
+      catch (IOException | RuntimeException e) {
+        logger.log(Level.WARNING, "Sort tuning profile " + file + " not loaded, using default cutoffs", e);
+      }
+    }
+    return new Properties();
+  }
+
+  private static Properties read(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      properties.load(in);
+    }
+    return properties;
+  }
+
+  /*
+   * Returns the value of text if it is a valid value for the cutoff, and null (after reporting why, unless text is
+   * null) otherwise.
+   */
+  private static Integer parse(String key, String text, int minValue, String source) {
+    if (text == null) {
+      return null;
+    }
+    try {
+      int value = Integer.parseInt(text.trim());
+      if (value >= minValue) {
+        return value;
+      }
+    }
+    catch (NumberFormatException e) {
+      // Fall through to the report below
+    }
+    logger.warning("Ignoring " + key + "=" + text + " from " + source + ": expected an integer >= " + minValue);
+    return null;
+  }
+
+}
@@ -4,7 +4,15 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({InsertionSort2Test.class, Mergesort1Test.class, Mergesort2Test.class,
-ParallelQuicksortTest.class, Quicksort3WayTest.class, QuicksortBentleyMcIlroyTest.class,
-QuicksortTest.class, SimpleMergesortTest.class})
+@Suite.SuiteClasses({AmericanFlagSortTest.class, BatchSorterTest.class, BranchlessQuicksortTest.class,
+ConcurrentTopKTest.class, CountingSortTest.class, HeapSortTest.class, InsertionSort2Test.class,
+InversionCountTest.class, ListMergeSortTest.class, Mergesort1Test.class, Mergesort2Test.class,
+MultikeyQuicksortTest.class, MultiwayMergeTest.class, NaturalMergeSortTest.class, NormalizedKeySortTest.class,
+ParallelAmericanFlagSortTest.class, ParallelCountingSortTest.class, ParallelMultiwayMergeTest.class,
+ParallelPresortednessTest.class, ParallelQuicksortAsyncTest.class, ParallelQuicksortTest.class,
+ParallelRadixSortTest.class, ParallelSampleSortTest.class, ParallelSortMonitoringTest.class,
+Quicksort3WayTest.class, QuicksortBentleyMcIlroyTest.class, QuicksortTest.class, RadixSortTest.class,
+SegmentedSortTest.class, SimpleMergesortTest.class, SmallSortTest.class, SortMetricsTest.class,
+SortPlannerTest.class, SortTuningTest.class, SortWorkspaceTest.class,
+uk.co.bluettduncanj.parallel.IntPartitionActionTest.class, uk.co.bluettduncanj.parallel.SampleSortActionTest.class})
 public final class AllTestsSuite {}
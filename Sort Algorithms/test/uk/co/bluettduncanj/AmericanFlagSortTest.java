@@ -0,0 +1,120 @@
+/**
+ * AmericanFlagSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.AmericanFlagSort;
+
+
+/**
+ * @author Jonathan
+ */
+public class AmericanFlagSortTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 300000 /* 30 */;
+
+  /**
+   * Orders byte arrays as unsigned lexicographic keys.
+   */
+  static final Comparator<byte[]> UNSIGNED = new Comparator<byte[]>() {
+    @Override
+    public int compare(byte[] a, byte[] b) {
+      for (int i = 0; i < Math.min(a.length, b.length); i++) {
+        int x = a[i] & 0xFF, y = b[i] & 0xFF;
+        if (x != y) {
+          return x - y;
+        }
+      }
+      return a.length - b.length;
+    }
+  };
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.AmericanFlagSort#sort(java.lang.String[])}.
+   */
+  @Test
+  public void testSortStringArray() {
+    String[] array = strings(r, arrSize);
+    String[] expected = array.clone();
+    Arrays.sort(expected);
+
+    long startTime = System.nanoTime();
+    AmericanFlagSort.sort(array);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    assertArrayEquals(expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.AmericanFlagSort#sort(byte[][])}.
+   */
+  @Test
+  public void testSortByteArrayArray() {
+    byte[][] array = byteArrays(r, arrSize);
+    byte[][] expected = array.clone();
+    Arrays.sort(expected, UNSIGNED);
+
+    long startTime = System.nanoTime();
+    AmericanFlagSort.sort(array);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    for (int i = 0; i < arrSize; i++) {
+      assertArrayEquals(expected[i], array[i]);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.AmericanFlagSort#sort(java.lang.String[], int, int)}.
+   */
+  @Test
+  public void testSortRange() {
+    String[] array = { "z", "banana", "", "band", "ban", "", "bandana", "\u0100", "a", "z" };
+    AmericanFlagSort.sort(array, 1, 8);
+    assertArrayEquals(new String[] { "z", "", "", "a", "ban", "banana", "band", "bandana", "\u0100", "z" }, array);
+  }
+
+  /**
+   * Identifiers with long shared prefixes, duplicates, empty strings, and characters beyond Latin-1.
+   */
+  static String[] strings(Random r, int n) {
+    String[] prefixes = { "", "user-", "org.example.service.", "https://www.example.com/items/", "\u00E9t\u00E9-" };
+    String[] array = new String[n];
+    for (int i = 0; i < n; i++) {
+      StringBuilder builder = new StringBuilder(prefixes[r.nextInt(prefixes.length)]);
+      int length = r.nextInt(12);
+      for (int j = 0; j < length; j++) {
+        int kind = r.nextInt(20);
+        builder.append((kind == 0) ? (char) r.nextInt(0x10000) : (kind == 1) ? '\u0100' : (char) ('0' + r.nextInt(10)));
+      }
+      array[i] = builder.toString();
+    }
+    return array;
+  }
+
+  /**
+   * Keys of random lengths, with shared prefixes and bytes of either sign.
+   */
+  static byte[][] byteArrays(Random r, int n) {
+    byte[][] array = new byte[n][];
+    for (int i = 0; i < n; i++) {
+      array[i] = new byte[r.nextInt(16)];
+      for (int j = 0; j < array[i].length; j++) {
+        array[i][j] = (j < 4) ? (byte) (j * 17) : (byte) r.nextInt(3 + j * 20);
+      }
+    }
+    return array;
+  }
+
+}
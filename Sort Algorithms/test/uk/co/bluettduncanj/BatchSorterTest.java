@@ -0,0 +1,101 @@
+/**
+ * BatchSorterTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.parallel.BatchSorter;
+
+
+/**
+ * @author Jonathan
+ */
+public class BatchSorterTest {
+
+  private Random r = new Random();
+  public static final int batchSize = 5000;
+  public static final int maxArrSize = 10000;
+
+  private List<int[]> arrays;
+  private List<int[]> expected;
+
+  @Before
+  public void setUp() {
+    arrays = new ArrayList<int[]>(batchSize);
+    expected = new ArrayList<int[]>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      // Mostly small arrays, with the occasional one large enough to be radix sorted
+      int length = (i % 100 == 0) ? r.nextInt(maxArrSize) : r.nextInt(maxArrSize / 100);
+      int[] array = new int[length];
+      for (int j = 0; j < length; j++) {
+        array[j] = r.nextInt();
+      }
+      arrays.add(array);
+      int[] copy = array.clone();
+      Arrays.sort(copy);
+      expected.add(copy);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    for (int i = 0; i < arrays.size(); i++) {
+      assertArrayEquals(expected.get(i), arrays.get(i));
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.BatchSorter#sort(java.util.Collection)}.
+   */
+  @Test
+  public void testSort() throws Exception {
+    long startTime = System.nanoTime();
+    new BatchSorter().sort(arrays).get();
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.BatchSorter#BatchSorter(java.util.concurrent.Executor)}.
+   */
+  @Test
+  public void testSortOnExecutor() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      BatchSorter sorter = new BatchSorter(executor);
+      // Two batches at once, sharing the sorter's workspaces
+      int half = batchSize / 2;
+      sorter.sort(arrays.subList(0, half)).thenCombine(sorter.sort(arrays.subList(half, batchSize)),
+          (a, b) -> null).get();
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.BatchSorter#sort(int[][])}.
+   */
+  @Test
+  public void testSortEmptyBatch() throws Exception {
+    assertTrue(new BatchSorter().sort(Collections.<int[]>emptyList()).isDone());
+    assertTrue(new BatchSorter().sort(new int[0], new int[] { 1 }).isDone());
+    arrays.clear();
+    expected.clear();
+  }
+
+}
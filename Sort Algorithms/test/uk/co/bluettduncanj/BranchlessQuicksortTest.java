@@ -0,0 +1,98 @@
+/**
+ * BranchlessQuicksortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.BranchlessQuicksort;
+
+
+/**
+ * @author Jonathan
+ */
+public class BranchlessQuicksortTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 3000000 /* 30 */;
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.BranchlessQuicksort#sort(int[])}.
+   */
+  @Test
+  public void testSortIntArray() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (r.nextInt(100) == 0) ? Integer.MIN_VALUE + r.nextInt(3) : r.nextInt();
+    }
+    int[] expected = array.clone();
+    Arrays.sort(expected);
+
+    long startTime = System.nanoTime();
+    BranchlessQuicksort.sort(array);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    assertArrayEquals(expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.BranchlessQuicksort#sort(long[])}.
+   */
+  @Test
+  public void testSortLongArray() {
+    long[] array = new long[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (r.nextInt(100) == 0) ? Long.MAX_VALUE - r.nextInt(3) : r.nextLong();
+    }
+    long[] expected = array.clone();
+    Arrays.sort(expected);
+
+    long startTime = System.nanoTime();
+    BranchlessQuicksort.sort(array);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    assertArrayEquals(expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.BranchlessQuicksort#sort(int[], int, int)}, on inputs with few
+   * distinct values and on already ordered inputs.
+   */
+  @Test
+  public void testSortPatterns() {
+    int n = 100000;
+    for (int pattern = 0; pattern < 5; pattern++) {
+      int[] array = new int[n + 2];
+      for (int i = 0; i < array.length; i++) {
+        if (pattern == 0) {
+          array[i] = r.nextInt(3);                                        // Few distinct values
+        }
+        else if (pattern == 1) {
+          array[i] = 42;                                                  // All equal
+        }
+        else if (pattern == 2) {
+          array[i] = i;                                                   // Sorted
+        }
+        else if (pattern == 3) {
+          array[i] = -i;                                                  // Reverse sorted
+        }
+        else {
+          array[i] = (i < n / 2) ? i : n - i;                             // Organ pipe
+        }
+      }
+      int[] expected = array.clone();
+      Arrays.sort(expected, 1, n + 1);
+      BranchlessQuicksort.sort(array, 1, n);
+      assertArrayEquals("pattern " + pattern, expected, array);
+    }
+  }
+
+}
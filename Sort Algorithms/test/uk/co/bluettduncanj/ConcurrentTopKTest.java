@@ -0,0 +1,148 @@
+/**
+ * ConcurrentTopKTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.parallel.ConcurrentTopK;
+
+
+/**
+ * @author Jonathan
+ */
+public class ConcurrentTopKTest {
+
+  private Random r = new Random();
+  public static final int threads = 16;
+  public static final int offersPerThread = 200000 /* 30 */;
+  public static final int k = 1000;
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ConcurrentTopK#offer(long, Object)} from many threads at once,
+   * with {@link uk.co.bluettduncanj.parallel.ConcurrentTopK#merge()} called while they run.
+   */
+  @Test
+  public void testOfferFromManyThreads() throws Exception {
+    final long[][] scores = new long[threads][offersPerThread];
+    long[] all = new long[threads * offersPerThread];
+    for (int t = 0; t < threads; t++) {
+      for (int i = 0; i < offersPerThread; i++) {
+        // Distinct scores, so that the top K is unambiguous
+        scores[t][i] = ((long) r.nextInt(1 << 20) << 32) | (t * offersPerThread + i);
+        all[t * offersPerThread + i] = scores[t][i];
+      }
+    }
+    Arrays.sort(all);
+
+    final ConcurrentTopK<String> topK = new ConcurrentTopK<String>(k);
+    final CountDownLatch startSignal = new CountDownLatch(1);
+    final AtomicInteger accepted = new AtomicInteger();
+    Thread[] producers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      final long[] mine = scores[t];
+      producers[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            startSignal.await();
+          }
+          catch (InterruptedException e) {
+            return;
+          }
+          for (long score : mine) {
+            if (topK.offer(score, Long.toString(score))) {
+              accepted.incrementAndGet();
+            }
+          }
+        }
+      };
+      producers[t].start();
+    }
+
+    long startTime = System.nanoTime();
+    startSignal.countDown();
+    for (Thread producer : producers) {
+      while (producer.isAlive()) {
+        topK.merge();
+        producer.join(1);
+      }
+    }
+    long endTime = System.nanoTime();
+
+    List<ConcurrentTopK.Entry<String>> snapshot = topK.snapshot();
+    assertEquals(k, snapshot.size());
+    for (int i = 0; i < k; i++) {
+      long expected = all[all.length - 1 - i];
+      assertEquals(expected, snapshot.get(i).getScore());
+      assertEquals(Long.toString(expected), snapshot.get(i).getItem());
+    }
+    assertEquals(all[all.length - k], topK.getThreshold());
+
+    System.out.println("ConcurrentTopK (ConcurrentTopK.java)");
+    System.out.println("Run time: " + (endTime - startTime) / 1000000 + " milliseconds.");
+    System.out.println("Offers kept past the threshold: " + accepted.get() + " of " + all.length + ".");
+    System.out.println();
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ConcurrentTopK#offer(double, Object)}.
+   */
+  @Test
+  public void testOfferDouble() {
+    ConcurrentTopK<Integer> topK = new ConcurrentTopK<Integer>(3, 1);
+    double[] scores = { 0.5, -2.0, Double.NEGATIVE_INFINITY, 3.25, -0.0, 1e300, -1e-300, 3.25 };
+    for (int i = 0; i < scores.length; i++) {
+      topK.offer(scores[i], i);
+    }
+    List<ConcurrentTopK.Entry<Integer>> snapshot = topK.snapshot();
+    assertEquals(3, snapshot.size());
+    assertEquals(1e300, snapshot.get(0).getDoubleScore(), 0.0);
+    assertEquals(5, (int) snapshot.get(0).getItem());
+    assertEquals(3.25, snapshot.get(1).getDoubleScore(), 0.0);
+    assertEquals(3.25, snapshot.get(2).getDoubleScore(), 0.0);
+
+    assertFalse(topK.offer(-1.0, 100));
+    assertFalse(topK.offer(3.0, 101));
+    assertTrue(topK.offer(4.0, 102));
+    snapshot = topK.snapshot();
+    assertEquals(4.0, snapshot.get(1).getDoubleScore(), 0.0);
+    assertEquals(102, (int) snapshot.get(1).getItem());
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ConcurrentTopK#snapshot()} with fewer than K items.
+   */
+  @Test
+  public void testSnapshotNotFull() {
+    ConcurrentTopK<String> topK = new ConcurrentTopK<String>(10);
+    assertTrue(topK.snapshot().isEmpty());
+    topK.offer(Long.MIN_VALUE, "min");
+    topK.offer(7L, "seven");
+    topK.offer(-7L, "minus seven");
+    List<ConcurrentTopK.Entry<String>> snapshot = topK.snapshot();
+    assertEquals(3, snapshot.size());
+    assertEquals("seven", snapshot.get(0).getItem());
+    assertEquals("minus seven", snapshot.get(1).getItem());
+    assertEquals("min", snapshot.get(2).getItem());
+    assertEquals(Long.MIN_VALUE, topK.getThreshold());
+
+    try {
+      new ConcurrentTopK<String>(0);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+}
@@ -0,0 +1,174 @@
+/**
+ * CountingSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.CountingSort;
+
+
+/**
+ * @author Jonathan
+ */
+public class CountingSortTest {
+  
+  private Random r = new Random();
+  public static final int arrSize  = 3000000 /* 30 */;
+  public static final int intRange =    20000 /* 10 */;
+  private long start, end;
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    start = 0; end = 0;
+  }
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    start = 0; end = 0;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.CountingSort#sort(byte[])}.
+   */
+  @Test
+  public void testSortByteArray() {
+    byte[] array = new byte[arrSize];
+    r.nextBytes(array);
+    byte[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("\nStart byte (CountingSort.java)...");
+    start = System.currentTimeMillis();
+    CountingSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    assertArrayEquals("byte not sorted!", expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.CountingSort#sort(short[])}.
+   */
+  @Test
+  public void testSortShortArray() {
+    short[] array = new short[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (short) r.nextInt();
+    }
+    short[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("\nStart short (CountingSort.java)...");
+    start = System.currentTimeMillis();
+    CountingSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    assertArrayEquals("short not sorted!", expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.CountingSort#sort(char[])}.
+   */
+  @Test
+  public void testSortCharArray() {
+    char[] array = new char[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (char) r.nextInt();
+    }
+    char[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("\nStart char (CountingSort.java)...");
+    start = System.currentTimeMillis();
+    CountingSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    assertArrayEquals("char not sorted!", expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.CountingSort#sort(int[])}, for both a narrow range of values (which is
+   * counting sorted) and a wide one (which is not).
+   */
+  @Test
+  public void testSortIntArray() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = r.nextInt(intRange) - intRange / 2;
+    }
+    int[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("\nStart int (CountingSort.java)...");
+    start = System.currentTimeMillis();
+    CountingSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    assertArrayEquals("int not sorted!", expected, array);
+    
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = r.nextInt();
+    }
+    array[0] = Integer.MIN_VALUE;
+    array[1] = Integer.MAX_VALUE;
+    expected = array.clone();
+    Arrays.sort(expected);
+    CountingSort.sort(array);
+    assertArrayEquals("wide int not sorted!", expected, array);
+  }
+  
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.CountingSort#sort(int[], int, int, int, int)}, which must reject
+   * bounds that are reversed, or too far apart for a histogram, instead of letting the number of buckets overflow.
+   */
+  @Test
+  public void testSortIntRangeRejectsBadBounds() {
+    int[] array = {3, 1, 2};
+    int[][] bounds = {
+      {3, 1}, {0, CountingSort.MAX_INT_RANGE}, {Integer.MIN_VALUE, Integer.MAX_VALUE}, {-1, Integer.MAX_VALUE}
+    };
+    for (int[] bound : bounds) {
+      try {
+        CountingSort.sort(array, 0, 2, bound[0], bound[1]);
+        fail("Expected IllegalArgumentException for min = " + bound[0] + ", max = " + bound[1]);
+      }
+      catch (IllegalArgumentException e) {
+        // Expected
+      }
+    }
+    assertArrayEquals("Array modified by a rejected sort!", new int[] {3, 1, 2}, array);
+    
+    CountingSort.sort(array, 0, 2, 1, CountingSort.MAX_INT_RANGE);
+    assertArrayEquals(new int[] {1, 2, 3}, array);
+  }
+  
+  /**
+   * Small ranges within larger arrays must leave the rest of the array untouched.
+   */
+  @Test
+  public void testSortRange() {
+    short[] array = new short[500];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = (short) r.nextInt();
+    }
+    short[] expected = array.clone();
+    Arrays.sort(expected, 5, 495);
+    CountingSort.sort(array, 5, 494);
+    assertArrayEquals(expected, array);
+  }
+
+}
@@ -13,6 +13,9 @@ import java.util.Comparator;
  */
 public class DummyComparator implements Comparator<DummyObject>, Serializable {
 
+  /** serialVersionUID */
+  private static final long serialVersionUID = -2186347091835462511L;
+
   /**
    * @param o1
    * @param o2
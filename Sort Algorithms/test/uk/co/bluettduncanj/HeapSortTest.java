@@ -0,0 +1,123 @@
+/**
+ * HeapSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.HeapSort;
+
+
+/**
+ * @author Jonathan
+ */
+public class HeapSortTest {
+  
+  private Random r = new Random();
+  private Integer[] array;
+  public static final int arrSize = 1000000 /* 30 */;
+  public static final int range   =   10000 /* 10 */;
+  private long start, end;
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    start = 0; end = 0;
+    array = new Integer[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = r.nextInt(range + 1);
+    }
+  }
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    start = 0; end = 0;
+    array = null;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.HeapSort#sort(Comparable[])}.
+   */
+  @Test
+  public void testSortArray() {
+    System.out.println("Heapsort [Integer[]] (HeapSort.java)");
+    start = System.currentTimeMillis();
+    HeapSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = isSorted(array);
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("Integer[] not sorted!", isSorted);
+    
+    System.out.println();
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.HeapSort#sort(Object[], java.util.Comparator)}.
+   */
+  @Test
+  public void testSortArrayComparator() {
+    HeapSort.sort(array, Collections.<Integer>reverseOrder());
+    for (int i = 1; i < array.length; i++) {
+      assertTrue("Integer[] not reverse sorted!", array[i-1] >= array[i]);
+    }
+    
+    HeapSort.sort(array, 10, 20, Collections.<Integer>reverseOrder());
+    HeapSort.sort(array, 1, array.length - 2, Comparator.<Integer>naturalOrder());
+    for (int i = 2; i < array.length - 1; i++) {
+      assertTrue("Integer[1..n-2] not sorted!", array[i-1] <= array[i]);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.HeapSort#sort(java.util.List)}.
+   */
+  @Test
+  public void testSortList() {
+    List<Integer> arrayList = new ArrayList<Integer>(arrSize);
+    Collections.addAll(arrayList, array);
+    System.out.println("Heapsort [ArrayList] (HeapSort.java)");
+    start = System.currentTimeMillis();
+    HeapSort.sort(arrayList);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = isSorted(arrayList.toArray(new Integer[0]));
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("ArrayList not sorted!", isSorted);
+    
+    List<Integer> linkedList = new LinkedList<Integer>();
+    Collections.addAll(linkedList, 5, 3, 9, 1, 1, 0, 7);
+    HeapSort.sort(linkedList);
+    assertEquals(Arrays.asList(0, 1, 1, 3, 5, 7, 9), linkedList);
+    
+    System.out.println();
+  }
+  
+  private static boolean isSorted(Integer[] array) {
+    for (int i = 1; i < array.length; i++) {
+      if (array[i-1] > array[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -65,6 +65,17 @@ public class InsertionSort2Test {
     assertTrue("Not sorted!", isSorted);
   }
   
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.InsertionSort2#sort(int[], int, int)}, on a range that doesn't
+   * start at 0.
+   */
+  @Test
+  public void testSortRange() {
+    int[] array = { 5, 9, 8, 7, 6, 5, 4, 3, 2, 1, 0 };
+    InsertionSort2.sort(array, 3, 9);
+    assertArrayEquals(new int[] { 5, 9, 8, 1, 2, 3, 4, 5, 6, 7, 0 }, array);
+  }
+  
   private void arraySetUp() {
     System.out.println("\nSetting up sort data...");
     for (int i = 0; i < arrSize; i++) {
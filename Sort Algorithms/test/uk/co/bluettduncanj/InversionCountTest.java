@@ -0,0 +1,101 @@
+/**
+ * InversionCountTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.InversionCount;
+import uk.co.bluettduncanj.serial.Presortedness;
+
+
+/**
+ * @author Jonathan
+ */
+public class InversionCountTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 3000000 /* 30 */;
+
+  /**
+   * Counts inversions by comparing every pair of values.
+   */
+  static long bruteForceInversions(int[] array) {
+    long inversions = 0;
+    for (int i = 0; i < array.length; i++) {
+      for (int j = i + 1; j < array.length; j++) {
+        if (array[i] > array[j]) {
+          inversions++;
+        }
+      }
+    }
+    return inversions;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.InversionCount#count(int[])}, against a brute force count.
+   */
+  @Test
+  public void testCount() {
+    for (int length = 0; length <= 300; length += 7) {
+      int[] array = new int[length];
+      for (int i = 0; i < length; i++) {
+        array[i] = r.nextInt(length / 4 + 1);
+      }
+      int[] copy = array.clone();
+      assertEquals("length " + length, bruteForceInversions(array), InversionCount.count(array));
+      assertArrayEquals(copy, array);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.InversionCount#sort(int[])}, on a reversed array, which has the
+   * most inversions possible.
+   */
+  @Test
+  public void testSortIntArray() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = arrSize - i;
+    }
+
+    long startTime = System.nanoTime();
+    long inversions = InversionCount.sort(array);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    assertEquals((long) arrSize * (arrSize - 1) / 2, inversions);
+    for (int i = 0; i < arrSize; i++) {
+      assertEquals(i + 1, array[i]);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.Presortedness}.
+   */
+  @Test
+  public void testPresortedness() {
+    int[] array = { 9, 1, 2, 3, 3, 0, 5, 7, 4, 8 };
+    assertFalse(Presortedness.isSorted(array, 0, 9));
+    assertTrue(Presortedness.isSorted(array, 1, 4));
+    assertEquals(4, Presortedness.runs(array, 0, 9));
+    assertEquals(0, Presortedness.runs(array, 5, 4));
+    assertEquals(4, Presortedness.longestRun(array, 0, 9));
+    assertEquals(bruteForceInversions(array), Presortedness.inversions(array, 0, 9));
+    // Sorted: 0 1 2 3 3 4 5 7 8 9, so 9 moves from index 0 to index 9
+    assertEquals(9, Presortedness.maxDisplacement(array, 0, 9));
+    assertEquals(0, Presortedness.maxDisplacement(array, 1, 4));
+    assertEquals(2, Presortedness.maxDisplacement(array, 5, 9));
+
+    int[] sorted = array.clone();
+    Arrays.sort(sorted);
+    assertEquals(0, Presortedness.inversions(sorted, 0, 9));
+  }
+
+}
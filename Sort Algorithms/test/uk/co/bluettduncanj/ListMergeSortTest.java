@@ -0,0 +1,184 @@
+/**
+ * ListMergeSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.ListMergeSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * @author Jonathan
+ */
+public class ListMergeSortTest {
+  
+  private Random r = new Random();
+  private ArrayList<Integer> arrayList;
+  private LinkedList<Integer> linkedList;
+  public static final int arrSize = 1000000 /* 30 */;
+  public static final int range   =   10000 /* 10 */;
+  private long start, end;
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    start = 0; end = 0;
+    arrayList = new ArrayList<Integer>(arrSize);
+    linkedList = new LinkedList<Integer>();
+    for (int i = 0; i < arrSize; i++) {
+      int value = r.nextInt(range + 1);
+      arrayList.add(value);
+      linkedList.add(value);
+    }
+  }
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    start = 0; end = 0;
+    arrayList = null;
+    linkedList = null;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.ListMergeSort#sort(java.util.List)}.
+   */
+  @Test
+  public void testSortArrayList() {
+    System.out.println("Mergesort [ArrayList] (ListMergeSort.java)");
+    start = System.currentTimeMillis();
+    ListMergeSort.sort(arrayList);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = isSorted(arrayList);
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("ArrayList not sorted!", isSorted);
+    assertEquals(arrSize, arrayList.size());
+    
+    System.out.println();
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.ListMergeSort#sort(java.util.List)}.
+   */
+  @Test
+  public void testSortLinkedList() {
+    System.out.println("Mergesort [LinkedList] (ListMergeSort.java)");
+    start = System.currentTimeMillis();
+    ListMergeSort.sort(linkedList);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = isSorted(linkedList);
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("LinkedList not sorted!", isSorted);
+    assertEquals(arrSize, linkedList.size());
+    
+    System.out.println();
+  }
+  
+  /**
+   * Sorting by a comparator that only looks at part of each element must keep equal elements in their original order.
+   */
+  @Test
+  public void testSortIsStable() {
+    List<int[]> expected = new ArrayList<int[]>();
+    for (int i = 0; i < 10000; i++) {
+      expected.add(new int[] { r.nextInt(10), i });
+    }
+    List<int[]> arrayInput = new ArrayList<int[]>(expected);
+    List<int[]> linkedInput = new LinkedList<int[]>(expected);
+    
+    Collections.sort(expected, (a, b) -> Integer.compare(a[0], b[0]));
+    ListMergeSort.sort(arrayInput, (a, b) -> Integer.compare(a[0], b[0]));
+    ListMergeSort.sort(linkedInput, (a, b) -> Integer.compare(a[0], b[0]));
+    assertEquals(expected, arrayInput);
+    assertEquals(expected, linkedInput);
+  }
+  
+  /**
+   * Presorted and reverse-sorted lists are single natural runs.
+   */
+  @Test
+  public void testSortRuns() {
+    Collections.sort(linkedList);
+    ListMergeSort.sort(linkedList);
+    assertTrue("Sorted LinkedList not sorted!", isSorted(linkedList));
+    
+    Collections.reverse(linkedList);
+    ListMergeSort.sort(linkedList);
+    assertTrue("Reversed LinkedList not sorted!", isSorted(linkedList));
+  }
+
+  /**
+   * A comparator that throws part way through a sort must not leave any elements in the workspace's buffers.
+   */
+  @Test
+  public void testFailedSortClearsWorkspace() {
+    SortWorkspace workspace = new SortWorkspace();
+    Comparator<Integer> failing = (a, b) -> {
+      if (a == range / 2 || b == range / 2) {
+        throw new IllegalStateException("Comparator failed");
+      }
+      return Integer.compare(a, b);
+    };
+    arrayList.set(arrSize - 1, range / 2);
+    Integer[] array = arrayList.toArray(new Integer[arrSize]);
+    Integer[] unsorted = array.clone();
+    
+    try {
+      ListMergeSort.sort(arrayList, failing, workspace);
+      fail("Expected IllegalStateException");
+    }
+    catch (IllegalStateException e) {
+      // Expected
+    }
+    assertCleared(workspace);
+    try {
+      ListMergeSort.sort(array, 0, arrSize - 1, failing, workspace);
+      fail("Expected IllegalStateException");
+    }
+    catch (IllegalStateException e) {
+      // Expected
+    }
+    assertCleared(workspace);
+    assertArrayEquals("Array changed by a failed sort!", unsorted, array);
+  }
+
+  private static void assertCleared(SortWorkspace workspace) {
+    for (int slot = 0; slot < SortWorkspace.SLOTS; slot++) {
+      for (Object element : workspace.objects(slot, 0)) {
+        assertNull("Element left in workspace slot " + slot + "!", element);
+      }
+    }
+  }
+
+  private static <T extends Comparable<T>> boolean isSorted(List<T> list) {
+    T previous = null;
+    for (T element : list) {
+      if (previous != null && element.compareTo(previous) < 0) {
+        return false;
+      }
+      previous = element;
+    }
+    return true;
+  }
+
+}
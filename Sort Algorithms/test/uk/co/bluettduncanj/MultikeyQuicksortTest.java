@@ -0,0 +1,99 @@
+/**
+ * MultikeyQuicksortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.MultikeyQuicksort;
+
+
+/**
+ * @author Jonathan
+ */
+public class MultikeyQuicksortTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 300000 /* 30 */;
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.MultikeyQuicksort#sort(java.lang.CharSequence[])}.
+   */
+  @Test
+  public void testSortStringArray() {
+    String[] array = AmericanFlagSortTest.strings(r, arrSize);
+    String[] expected = array.clone();
+    Arrays.sort(expected);
+
+    long startTime = System.nanoTime();
+    MultikeyQuicksort.sort(array);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    assertArrayEquals(expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.MultikeyQuicksort#sortCached(java.lang.CharSequence[])}, on
+   * keys that aren't strings.
+   */
+  @Test
+  public void testSortCachedCharSequenceArray() {
+    String[] strings = AmericanFlagSortTest.strings(r, arrSize);
+    CharSequence[] array = new CharSequence[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = new StringBuilder(strings[i]);
+    }
+    Arrays.sort(strings);
+
+    long startTime = System.nanoTime();
+    MultikeyQuicksort.sortCached(array);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    for (int i = 0; i < arrSize; i++) {
+      assertEquals(strings[i], array[i].toString());
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.MultikeyQuicksort#sort(java.lang.CharSequence[], int, int)} and
+   * {@link uk.co.bluettduncanj.serial.MultikeyQuicksort#sortCached(java.lang.CharSequence[], int, int)}.
+   */
+  @Test
+  public void testSortRange() {
+    String[] array = { "z", "banana", "", "band", "ban", "", "bandana", "\u0100", "a", "bandanas", "band", "bandana",
+        "ba", "", "z" };
+    String[] expected = array.clone();
+    Arrays.sort(expected, 1, 14);
+    String[] cached = array.clone();
+    MultikeyQuicksort.sort(array, 1, 13);
+    MultikeyQuicksort.sortCached(cached, 1, 13);
+    assertArrayEquals(expected, array);
+    assertArrayEquals(expected, cached);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.MultikeyQuicksort#sort(java.lang.CharSequence[])}, on many
+   * copies of a few long keys.
+   */
+  @Test
+  public void testSortDuplicates() {
+    String prefix = "/usr/local/share/doc/";
+    String[] array = new String[arrSize / 10];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = prefix + prefix + r.nextInt(4);
+    }
+    String[] expected = array.clone();
+    Arrays.sort(expected);
+    MultikeyQuicksort.sort(array);
+    assertArrayEquals(expected, array);
+  }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * MultiwayMergeTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.MultiwayMerge;
+
+
+/**
+ * @author Jonathan
+ */
+public class MultiwayMergeTest {
+
+  private Random r = new Random();
+
+  /**
+   * Sorted runs of random lengths (some empty), with values from a range small enough to repeat across runs.
+   */
+  static int[][] intRuns(Random r, int k, int maxLength, int range) {
+    int[][] runs = new int[k][];
+    for (int j = 0; j < k; j++) {
+      runs[j] = new int[r.nextInt(maxLength + 1)];
+      for (int i = 0; i < runs[j].length; i++) {
+        runs[j][i] = (range == 0) ? r.nextInt() : r.nextInt(range) - range / 2;
+      }
+      Arrays.sort(runs[j]);
+    }
+    return runs;
+  }
+
+  static int[] concatenateAndSort(int[][] runs) {
+    int[] expected = new int[0];
+    for (int[] run : runs) {
+      int n = expected.length;
+      expected = Arrays.copyOf(expected, n + run.length);
+      System.arraycopy(run, 0, expected, n, run.length);
+    }
+    Arrays.sort(expected);
+    return expected;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.MultiwayMerge#merge(int[][])}, for every number of runs up to 20.
+   */
+  @Test
+  public void testMergeIntArrays() {
+    for (int k = 0; k <= 20; k++) {
+      int[][] runs = intRuns(r, k, 200, (k % 2 == 0) ? 0 : 50);
+      assertArrayEquals("k = " + k, concatenateAndSort(runs), MultiwayMerge.merge(runs));
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.MultiwayMerge#merge(long[][])}.
+   */
+  @Test
+  public void testMergeLongArrays() {
+    for (int k = 0; k <= 20; k++) {
+      long[][] runs = new long[k][];
+      long[] expected = new long[0];
+      for (int j = 0; j < k; j++) {
+        runs[j] = new long[r.nextInt(201)];
+        for (int i = 0; i < runs[j].length; i++) {
+          runs[j][i] = (k % 2 == 0) ? r.nextLong() : (r.nextInt(5) - 2) * Long.MAX_VALUE;
+        }
+        Arrays.sort(runs[j]);
+        int n = expected.length;
+        expected = Arrays.copyOf(expected, n + runs[j].length);
+        System.arraycopy(runs[j], 0, expected, n, runs[j].length);
+      }
+      Arrays.sort(expected);
+      assertArrayEquals("k = " + k, expected, MultiwayMerge.merge(runs));
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.MultiwayMerge#split(int[][], int, int[])}: merging between the
+   * split positions of every pair of consecutive ranks gives exactly that slice of the merged output.
+   */
+  @Test
+  public void testSplit() {
+    int[][] runs = intRuns(r, 7, 30, 10);
+    int[] expected = concatenateAndSort(runs);
+    int[] from = new int[runs.length], to = new int[runs.length];
+    for (int rank = 0; rank < expected.length; rank++) {
+      MultiwayMerge.split(runs, rank, from);
+      MultiwayMerge.split(runs, rank + 1, to);
+      int[] out = new int[1];
+      MultiwayMerge.merge(runs, from, to, out, 0);
+      assertEquals("rank " + rank, expected[rank], out[0]);
+    }
+    MultiwayMerge.split(runs, expected.length, to);
+    for (int j = 0; j < runs.length; j++) {
+      assertEquals(runs[j].length, to[j]);
+    }
+  }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * NaturalMergeSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.NaturalMergeSort;
+
+
+/**
+ * @author Jonathan
+ */
+public class NaturalMergeSortTest {
+  
+  private Random r = new Random();
+  public static final int arrSize = 3000000 /* 30 */;
+  private long start, end;
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    start = 0; end = 0;
+  }
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    start = 0; end = 0;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.NaturalMergeSort#sort(int[])}.
+   */
+  @Test
+  public void testSortRandomIntArray() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = r.nextInt();
+    }
+    check("random", array);
+  }
+
+  /**
+   * Ascending and descending runs of random lengths, with some equal values.
+   */
+  @Test
+  public void testSortRunsIntArray() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; ) {
+      int runLength = Math.min(arrSize - i, 1 + r.nextInt(100000));
+      int value = r.nextInt(1000);
+      boolean descending = r.nextBoolean();
+      for (int k = 0; k < runLength; k++) {
+        array[i++] = value;
+        value += descending ? -r.nextInt(3) : r.nextInt(3);
+      }
+    }
+    check("runs", array);
+  }
+
+  /**
+   * Already sorted and reverse sorted arrays, which are a single run.
+   */
+  @Test
+  public void testSortSortedIntArrays() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = i;
+    }
+    check("sorted", array);
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = arrSize - i;
+    }
+    check("reversed", array);
+  }
+
+  /**
+   * Ranges within larger arrays must leave the rest of the array untouched, for every small length.
+   */
+  @Test
+  public void testSortRange() {
+    for (int length = 0; length < 300; length++) {
+      int[] array = new int[length + 20];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = r.nextInt(50);
+      }
+      int[] expected = array.clone();
+      Arrays.sort(expected, 10, 10 + length);
+      NaturalMergeSort.sort(array, 10, 10 + length - 1);
+      assertArrayEquals("range of " + length + " not sorted!", expected, array);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.NaturalMergeSort#countRuns(int[], int, int)}.
+   */
+  @Test
+  public void testCountRuns() {
+    assertEquals(0, NaturalMergeSort.countRuns(new int[0], 0, -1));
+    assertEquals(1, NaturalMergeSort.countRuns(new int[] { 1, 1, 2, 3 }, 0, 3));
+    assertEquals(3, NaturalMergeSort.countRuns(new int[] { 3, 2, 1 }, 0, 2));
+    assertEquals(2, NaturalMergeSort.countRuns(new int[] { 1, 5, 2, 9 }, 0, 3));
+  }
+
+  private void check(String kind, int[] array) {
+    int[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("\nStart int " + kind + " (NaturalMergeSort.java)...");
+    start = System.currentTimeMillis();
+    NaturalMergeSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    assertArrayEquals("int " + kind + " not sorted!", expected, array);
+  }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * NormalizedKeySortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.NormalizedKeySort;
+import uk.co.bluettduncanj.serial.SortKey;
+
+
+/**
+ * @author Jonathan
+ */
+public class NormalizedKeySortTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 1000000 /* 30 */;
+
+  /**
+   * A record with a few fields to sort by. Records are only equal to themselves, so comparing sorted arrays checks
+   * that equal records keep their order.
+   */
+  private static final class Row {
+    final int group;
+    final long time;
+    final String name;
+
+    Row(int group, long time, String name) {
+      this.group = group;
+      this.time = time;
+      this.name = name;
+    }
+  }
+
+  private Row[] rows(int n) {
+    String[] names = AmericanFlagSortTest.strings(r, 64);
+    Row[] array = new Row[n];
+    for (int i = 0; i < n; i++) {
+      int group = (r.nextInt(10) == 0) ? Integer.MIN_VALUE + r.nextInt(2) : r.nextInt(200) - 100;
+      long time = (r.nextInt(10) == 0) ? Long.MAX_VALUE - r.nextInt(2) : r.nextInt(1000) * 1000000007L;
+      array[i] = new Row(group, time, names[r.nextInt(names.length)]);
+    }
+    return array;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.NormalizedKeySort#sort(java.lang.Object[],
+   * uk.co.bluettduncanj.serial.SortKey)}, with numeric fields only.
+   */
+  @Test
+  public void testSortNumericKey() {
+    Row[] array = rows(arrSize);
+    SortKey<Row> key = new SortKey<Row>()
+        .thenInt(row -> row.group, false)
+        .thenLong(row -> row.time, true);
+    Row[] expected = array.clone();
+    Arrays.sort(expected, Comparator.<Row>comparingInt(row -> row.group)
+        .thenComparing(Comparator.<Row>comparingLong(row -> row.time).reversed()));
+
+    long startTime = System.nanoTime();
+    NormalizedKeySort.sort(array, key);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    assertTrue(key.isExact());
+    assertEquals(12, key.width());
+    assertArrayEquals(expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.NormalizedKeySort#sort(java.lang.Object[],
+   * uk.co.bluettduncanj.serial.SortKey)}, with string fields that are longer than their encoded prefixes, and a field
+   * after them that is only used to break ties.
+   */
+  @Test
+  public void testSortStringKey() {
+    Row[] array = rows(arrSize);
+    for (boolean descending : new boolean[] { false, true }) {
+      SortKey<Row> key = new SortKey<Row>()
+          .thenString(row -> row.name, 3, descending)
+          .thenInt(row -> row.group, false);
+      Comparator<Row> names = Comparator.comparing(row -> row.name);
+      Row[] expected = array.clone();
+      Arrays.sort(expected, (descending ? names.reversed() : names).thenComparingInt(row -> row.group));
+      Row[] actual = array.clone();
+      NormalizedKeySort.sort(actual, key);
+
+      assertFalse(key.isExact());
+      assertEquals(6, key.width());
+      assertArrayEquals(expected, actual);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.NormalizedKeySort#sort(java.lang.Object[], int, int,
+   * uk.co.bluettduncanj.serial.SortKey)}.
+   */
+  @Test
+  public void testSortRange() {
+    Row[] array = rows(100);
+    SortKey<Row> key = new SortKey<Row>().thenInt(row -> row.group, true);
+    Row[] expected = array.clone();
+    Arrays.sort(expected, 10, 90, key);
+    NormalizedKeySort.sort(array, 10, 89, key);
+    assertArrayEquals(expected, array);
+  }
+
+}
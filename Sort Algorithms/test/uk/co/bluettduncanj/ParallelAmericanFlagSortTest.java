@@ -0,0 +1,58 @@
+/**
+ * ParallelAmericanFlagSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.parallel.ParallelAmericanFlagSort;
+
+
+/**
+ * @author Jonathan
+ */
+public class ParallelAmericanFlagSortTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 2000000 /* 30 */;
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelAmericanFlagSort#sort(java.lang.String[])}.
+   */
+  @Test
+  public void testSortStringArray() {
+    String[] array = AmericanFlagSortTest.strings(r, arrSize);
+    String[] expected = array.clone();
+    Arrays.sort(expected);
+
+    long startTime = System.nanoTime();
+    ParallelAmericanFlagSort.sort(array);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    assertArrayEquals(expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelAmericanFlagSort#sort(byte[][], int, int)}.
+   */
+  @Test
+  public void testSortByteArrayArray() {
+    byte[][] array = AmericanFlagSortTest.byteArrays(r, arrSize);
+    byte[][] expected = array.clone();
+    Arrays.sort(expected, 1, arrSize - 1, AmericanFlagSortTest.UNSIGNED);
+
+    ParallelAmericanFlagSort.sort(array, 1, arrSize - 2);
+
+    for (int i = 0; i < arrSize; i++) {
+      assertArrayEquals(expected[i], array[i]);
+    }
+  }
+
+}
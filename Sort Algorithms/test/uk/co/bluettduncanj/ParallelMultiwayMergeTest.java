@@ -0,0 +1,64 @@
+/**
+ * ParallelMultiwayMergeTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.parallel.ParallelMultiwayMerge;
+
+
+/**
+ * @author Jonathan
+ */
+public class ParallelMultiwayMergeTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 3000000 /* 30 */;
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelMultiwayMerge#mergeSorted(int[][])}.
+   */
+  @Test
+  public void testMergeSortedIntArrays() {
+    for (int k : new int[] { 1, 2, 16 }) {
+      int[][] runs = MultiwayMergeTest.intRuns(r, k, 2 * arrSize / k, (k == 2) ? 1000 : 0);
+      int[] expected = MultiwayMergeTest.concatenateAndSort(runs);
+
+      long startTime = System.nanoTime();
+      int[] merged = ParallelMultiwayMerge.mergeSorted(runs);
+      long endTime = System.nanoTime();
+      System.out.println("\nTime taken (" + k + " runs): " + ((endTime - startTime) / 1000000.0) + "ms");
+
+      assertArrayEquals(expected, merged);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelMultiwayMerge#mergeSorted(long[][])}, with every run
+   * covering a different range of values, and with runs that repeat each other.
+   */
+  @Test
+  public void testMergeSortedLongArrays() {
+    int k = 8;
+    long[][] runs = new long[k][];
+    long[] expected = new long[arrSize];
+    for (int j = 0; j < k; j++) {
+      runs[j] = new long[arrSize / k];
+      for (int i = 0; i < runs[j].length; i++) {
+        runs[j][i] = (j < k / 2) ? ((long) j << 40) + r.nextInt() : r.nextInt(10);
+      }
+      Arrays.sort(runs[j]);
+      System.arraycopy(runs[j], 0, expected, j * (arrSize / k), arrSize / k);
+    }
+    Arrays.sort(expected);
+    assertArrayEquals(expected, ParallelMultiwayMerge.mergeSorted(runs));
+  }
+
+}
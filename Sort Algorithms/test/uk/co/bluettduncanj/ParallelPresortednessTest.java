@@ -0,0 +1,136 @@
+/**
+ * ParallelPresortednessTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.parallel.ParallelPresortedness;
+import uk.co.bluettduncanj.serial.InversionCount;
+import uk.co.bluettduncanj.serial.Presortedness;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * @author Jonathan
+ */
+public class ParallelPresortednessTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 3000000 /* 30 */;
+
+  /**
+   * A nearly sorted array: ascending, with a few values swapped a short distance and a few runs of duplicates.
+   */
+  private int[] nearlySorted(int n) {
+    int[] array = new int[n];
+    for (int i = 0; i < n; i++) {
+      array[i] = i - (i % 1000 < 10 ? i % 1000 : 0);
+    }
+    for (int s = 0; s < 1000; s++) {
+      int i = r.nextInt(n - 100), j = i + r.nextInt(100);
+      int tmp = array[i];
+      array[i] = array[j];
+      array[j] = tmp;
+    }
+    return array;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelPresortedness#sort(int[])} and
+   * {@link uk.co.bluettduncanj.parallel.ParallelPresortedness#inversions(int[])}.
+   */
+  @Test
+  public void testInversions() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = r.nextInt(arrSize / 8);
+    }
+    long expected = InversionCount.count(array);
+    int[] copy = array.clone();
+    assertEquals(expected, ParallelPresortedness.inversions(array));
+    assertArrayEquals(copy, array);
+
+    long startTime = System.nanoTime();
+    long inversions = ParallelPresortedness.sort(array);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    Arrays.sort(copy);
+    assertEquals(expected, inversions);
+    assertArrayEquals(copy, array);
+    assertEquals(0, ParallelPresortedness.inversions(array));
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelPresortedness#inversions(int[], int, int, SortWorkspace)}
+   * and {@link uk.co.bluettduncanj.parallel.ParallelPresortedness#sort(int[], int, int, SortWorkspace)}, on ranges either
+   * side of the parallel cutoff, checking that the buffers are borrowed from the workspace and reused.
+   */
+  @Test
+  public void testInversionsWithWorkspace() {
+    SortWorkspace workspace = new SortWorkspace();
+    for (int n : new int[] {ParallelPresortedness.PARALLEL_CUTOFF - 1, 4 * ParallelPresortedness.PARALLEL_CUTOFF}) {
+      for (int repeat = 0; repeat < 2; repeat++) {
+        int[] array = new int[n + 10];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = r.nextInt(n);
+        }
+        long expected = InversionCount.count(array, 5, n + 4);
+        int[] copy = array.clone();
+        assertEquals(expected, ParallelPresortedness.inversions(array, 5, n + 4, workspace));
+        assertArrayEquals(copy, array);
+
+        Arrays.sort(copy, 5, n + 5);
+        assertEquals(expected, ParallelPresortedness.sort(array, 5, n + 4, workspace));
+        assertArrayEquals(copy, array);
+      }
+      assertEquals("Buffers not borrowed from the workspace!", 2 * 4L * n, workspace.retainedBytes());
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelPresortedness#runs(int[], int, int)},
+   * {@link uk.co.bluettduncanj.parallel.ParallelPresortedness#longestRun(int[], int, int)} and
+   * {@link uk.co.bluettduncanj.parallel.ParallelPresortedness#maxDisplacement(int[], int, int)}, against
+   * {@code Presortedness}.
+   */
+  @Test
+  public void testScans() {
+    int[] array = nearlySorted(arrSize);
+    int lo = 3, hi = arrSize - 5;
+    assertEquals(Presortedness.runs(array, lo, hi), ParallelPresortedness.runs(array, lo, hi));
+    assertEquals(Presortedness.longestRun(array, lo, hi), ParallelPresortedness.longestRun(array, lo, hi));
+    assertEquals(Presortedness.maxDisplacement(array, lo, hi), ParallelPresortedness.maxDisplacement(array, lo, hi));
+
+    // One long run across every task boundary
+    Arrays.sort(array, 0, arrSize / 2);
+    assertEquals(Presortedness.longestRun(array, 0, arrSize - 1), ParallelPresortedness.longestRun(array));
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelPresortedness#isSorted(int[])}.
+   */
+  @Test
+  public void testIsSorted() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = i / 3;
+    }
+    assertTrue(ParallelPresortedness.isSorted(array));
+    assertEquals(1, ParallelPresortedness.runs(array));
+    assertEquals(arrSize, ParallelPresortedness.longestRun(array));
+    assertEquals(0, ParallelPresortedness.maxDisplacement(array));
+    array[arrSize - 1] = -1;
+    assertFalse(ParallelPresortedness.isSorted(array));
+    assertTrue(ParallelPresortedness.isSorted(array, 0, arrSize - 2));
+    assertTrue(ParallelPresortedness.isSorted(new int[0]));
+  }
+
+}
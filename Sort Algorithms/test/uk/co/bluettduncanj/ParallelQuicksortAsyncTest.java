@@ -0,0 +1,184 @@
+/**
+ * ParallelQuicksortAsyncTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.parallel.ParallelSortPoolMXBean;
+import uk.co.bluettduncanj.parallel.SortProgressListener;
+
+
+/**
+ * @author Jonathan
+ */
+@SuppressWarnings("deprecation")
+public class ParallelQuicksortAsyncTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 1000000 /* 30 */;
+
+  private int[] array;
+
+  @Before
+  public void setUp() {
+    array = new int[arrSize];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = r.nextInt();
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link uk.co.bluettduncanj.parallel.ParallelQuicksort#sortAsync(int[], int, int, SortProgressListener)}.
+   */
+  @Test
+  public void testSortAsync() throws Exception {
+    int[] expected = array.clone();
+    Arrays.sort(expected);
+
+    final AtomicInteger reports = new AtomicInteger();
+    final double[] max = new double[1];
+    SortProgressListener listener = new SortProgressListener() {
+      @Override
+      public synchronized void progress(double fraction) {
+        assertTrue("Progress out of range: " + fraction, fraction >= 0 && fraction <= 1);
+        reports.incrementAndGet();
+        max[0] = Math.max(max[0], fraction);
+      }
+    };
+
+    long startTime = System.nanoTime();
+    uk.co.bluettduncanj.parallel.ParallelQuicksort.sortAsync(array, 0, array.length - 1, listener).get();
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    assertArrayEquals(expected, array);
+    assertTrue("Too many progress reports: " + reports.get(), reports.get() <= 100);
+    synchronized (listener) {
+      assertEquals(1.0, max[0], 0.0);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelQuicksort#sortAsync(int[], int, int,
+   * SortProgressListener)}, cancelled part of the way through.
+   */
+  @Test
+  public void testCancel() throws Exception {
+    int[] large = largeArray();
+    int[] expected = large.clone();
+    Arrays.sort(expected);
+
+    // Cancel once some of the sort has been done, so that its tasks are running
+    final CountDownLatch started = new CountDownLatch(1);
+    CompletableFuture<Void> future = uk.co.bluettduncanj.parallel.ParallelQuicksort.sortAsync(large, 0,
+        large.length - 1, new SortProgressListener() {
+          @Override
+          public void progress(double fraction) {
+            started.countDown();
+          }
+        });
+    assertTrue("Sort made no progress!", started.await(30, TimeUnit.SECONDS));
+    assertTrue("Sort finished before it could be cancelled!", future.cancel(true));
+    assertTrue(future.isCancelled());
+    try {
+      future.get();
+      fail("Cancelled sort completed!");
+    }
+    catch (CancellationException e) {
+      // Expected
+    }
+
+    checkStopped(large, expected);
+  }
+
+  /**
+   * Test method for
+   * {@link uk.co.bluettduncanj.parallel.ParallelQuicksort#sortAsync(int[], int, int, long, TimeUnit, SortProgressListener)}
+   * with a deadline that passes while the sort is running.
+   */
+  @Test
+  public void testTimeoutStopsTasks() throws Exception {
+    int[] large = largeArray();
+    int[] expected = large.clone();
+    Arrays.sort(expected);
+
+    CompletableFuture<Void> future = uk.co.bluettduncanj.parallel.ParallelQuicksort.sortAsync(large, 0,
+        large.length - 1, 20, TimeUnit.MILLISECONDS, null);
+    try {
+      future.get();
+      fail("Sort did not time out!");
+    }
+    catch (ExecutionException e) {
+      assertTrue("Wrong cause: " + e.getCause(), e.getCause() instanceof TimeoutException);
+    }
+
+    checkStopped(large, expected);
+  }
+
+  /**
+   * Test method for
+   * {@link uk.co.bluettduncanj.parallel.ParallelQuicksort#sortAsync(int[], int, int, long, TimeUnit, SortProgressListener)}.
+   */
+  @Test
+  public void testTimeout() throws Exception {
+    CompletableFuture<Void> future = uk.co.bluettduncanj.parallel.ParallelQuicksort.sortAsync(array, 0,
+        array.length - 1, 1, TimeUnit.NANOSECONDS, null);
+    try {
+      future.get();
+      fail("Sort did not time out!");
+    }
+    catch (ExecutionException e) {
+      assertTrue("Wrong cause: " + e.getCause(), e.getCause() instanceof TimeoutException);
+    }
+  }
+
+  private int[] largeArray() {
+    int[] large = new int[1 << 24];
+    for (int i = 0; i < large.length; i++) {
+      large[i] = r.nextInt();
+    }
+    return large;
+  }
+
+  /**
+   * Checks that a stopped sort's tasks are no longer running (the array stays as it is, and the pool goes quiet), and
+   * that the array still holds the values it started with.
+   */
+  private static void checkStopped(int[] array, int[] expected) throws Exception {
+    int[] stopped = array.clone();
+    Thread.sleep(100);
+    assertArrayEquals("Array modified after the sort stopped!", stopped, array);
+
+    ParallelSortPoolMXBean pool = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+        new ObjectName("uk.co.bluettduncanj.parallel:type=ParallelSortPool"), ParallelSortPoolMXBean.class);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (pool.getActiveThreadCount() > 0 || pool.getQueuedTaskCount() > 0) {
+      assertTrue("Pool still busy after the sort stopped!", System.nanoTime() < deadline);
+      Thread.sleep(1);
+    }
+
+    Arrays.sort(stopped);
+    assertArrayEquals("Values lost or duplicated by the stopped sort!", expected, stopped);
+  }
+
+}
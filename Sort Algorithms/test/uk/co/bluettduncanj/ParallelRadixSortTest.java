@@ -0,0 +1,182 @@
+/**
+ * ParallelRadixSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.parallel.ParallelRadixSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * @author Jonathan
+ */
+public class ParallelRadixSortTest {
+  
+  private Random r = new Random();
+  public static final int arrSize = 10000000 /* 30 */;
+  private long start, end;
+  
+  /**
+   * Values that comparison sorts need special handling for.
+   */
+  private static final double[] doubleSpecials = {
+    Double.NaN, -0.0, 0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE,
+    Double.MAX_VALUE, -Double.MAX_VALUE, Double.longBitsToDouble(0xfff8000000000001L)
+  };
+  private static final float[] floatSpecials = {
+    Float.NaN, -0.0f, 0.0f, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.MIN_VALUE, -Float.MIN_VALUE,
+    Float.MAX_VALUE, -Float.MAX_VALUE, Float.intBitsToFloat(0xffc00001)
+  };
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    start = 0; end = 0;
+  }
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    start = 0; end = 0;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelRadixSort#sort(double[])}.
+   */
+  @Test
+  public void testSortDoubleArray() {
+    System.out.println("\nSetting up double sort data...");
+    double[] array = new double[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (r.nextInt(100) == 0) ? doubleSpecials[r.nextInt(doubleSpecials.length)] : r.nextGaussian() * 1000;
+    }
+    double[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("Start double (ParallelRadixSort.java)...");
+    start = System.currentTimeMillis();
+    ParallelRadixSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = Arrays.equals(expected, array);
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("double not sorted!", isSorted);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelRadixSort#sort(float[])}.
+   */
+  @Test
+  public void testSortFloatArray() {
+    System.out.println("\nSetting up float sort data...");
+    float[] array = new float[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (r.nextInt(100) == 0) ? floatSpecials[r.nextInt(floatSpecials.length)] : (float) r.nextGaussian() * 1000;
+    }
+    float[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("Start float (ParallelRadixSort.java)...");
+    start = System.currentTimeMillis();
+    ParallelRadixSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = Arrays.equals(expected, array);
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("float not sorted!", isSorted);
+  }
+  
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelRadixSort#sort(int[])}.
+   */
+  @Test
+  public void testSortIntArray() {
+    System.out.println("\nSetting up int sort data...");
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (r.nextInt(100) == 0) ? Integer.MIN_VALUE + r.nextInt(3) : r.nextInt();
+    }
+    int[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("Start int (ParallelRadixSort.java)...");
+    start = System.currentTimeMillis();
+    ParallelRadixSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = Arrays.equals(expected, array);
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("int not sorted!", isSorted);
+  }
+  
+  /**
+   * Small ranges within larger arrays must leave the rest of the array untouched.
+   */
+  @Test
+  public void testSortRange() {
+    double[] array = new double[200];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = doubleSpecials[r.nextInt(doubleSpecials.length)];
+    }
+    double[] expected = array.clone();
+    Arrays.sort(expected, 5, 195);
+    ParallelRadixSort.sort(array, 5, 194);
+    assertArrayEquals(expected, array, 0.0);
+  }
+  
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelRadixSort#sort(int[], int, int, SortWorkspace)} and the
+   * other workspace overloads: one workspace reused by parallel sorts of varying sizes and types must sort correctly,
+   * and must stop growing once it holds the largest sort's buffers.
+   */
+  @Test
+  public void testSortWithWorkspace() {
+    SortWorkspace workspace = new SortWorkspace();
+    long retained = 0;
+    for (int round = 0; round < 6; round++) {
+      int length = arrSize / 4 - round * 1000;
+      int lo = r.nextInt(1000), hi = lo + length - 1;
+      int[] ints = new int[hi + 1000];
+      double[] doubles = new double[hi + 1000];
+      float[] floats = new float[hi + 1000];
+      for (int i = 0; i < ints.length; i++) {
+        ints[i] = r.nextInt();
+        doubles[i] = r.nextGaussian();
+        floats[i] = (float) r.nextGaussian();
+      }
+      int[] expectedInts = ints.clone();
+      double[] expectedDoubles = doubles.clone();
+      float[] expectedFloats = floats.clone();
+      Arrays.sort(expectedInts, lo, hi + 1);
+      Arrays.sort(expectedDoubles, lo, hi + 1);
+      Arrays.sort(expectedFloats, lo, hi + 1);
+      
+      ParallelRadixSort.sort(ints, lo, hi, workspace);
+      ParallelRadixSort.sort(doubles, lo, hi, workspace);
+      ParallelRadixSort.sort(floats, lo, hi, workspace);
+      assertArrayEquals("int not sorted!", expectedInts, ints);
+      assertArrayEquals("double not sorted!", expectedDoubles, doubles, 0.0);
+      assertArrayEquals("float not sorted!", expectedFloats, floats, 0.0f);
+      if (round == 0) {
+        retained = workspace.retainedBytes();
+        assertTrue("Workspace not used!", retained >= 16L * length);
+      }
+      assertEquals("Workspace grew after the largest sort!", retained, workspace.retainedBytes());
+    }
+  }
+
+}
@@ -0,0 +1,177 @@
+/**
+ * ParallelSampleSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.parallel.ParallelSampleSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * @author Jonathan
+ */
+public class ParallelSampleSortTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 1000000 /* 30 */;
+  private long start, end;
+
+  @Before
+  public void setUp() throws Exception {
+    start = 0; end = 0;
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    start = 0; end = 0;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelSampleSort#sort(int[])}.
+   */
+  @Test
+  public void testSortIntArray() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = r.nextInt();
+    }
+    int[] expected = array.clone();
+    Arrays.sort(expected);
+
+    System.out.println("\nStart int (ParallelSampleSort.java)...");
+    start = System.currentTimeMillis();
+    ParallelSampleSort.sort(array);
+    end = System.currentTimeMillis();
+    assertArrayEquals("int not sorted!", expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelSampleSort#sort(int[])}, with so few distinct values
+   * that most of them are splitters.
+   */
+  @Test
+  public void testSortIntArrayDuplicates() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = r.nextInt(10);
+    }
+    int[] expected = array.clone();
+    Arrays.sort(expected);
+
+    System.out.println("\nStart int with duplicates (ParallelSampleSort.java)...");
+    start = System.currentTimeMillis();
+    ParallelSampleSort.sort(array);
+    end = System.currentTimeMillis();
+    assertArrayEquals("int not sorted!", expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelSampleSort#sort(long[], int, int)}.
+   */
+  @Test
+  public void testSortLongRange() {
+    long[] array = new long[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = r.nextLong();
+    }
+    long[] expected = array.clone();
+    Arrays.sort(expected, 5, arrSize - 5);
+
+    System.out.println("\nStart long (ParallelSampleSort.java)...");
+    start = System.currentTimeMillis();
+    ParallelSampleSort.sort(array, 5, arrSize - 6);
+    end = System.currentTimeMillis();
+    assertArrayEquals("long not sorted!", expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelSampleSort#sort(Comparable[])}, which should be stable.
+   */
+  @Test
+  public void testSortComparableArray() {
+    Item[] array = new Item[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = new Item(r.nextInt(arrSize / 4));
+    }
+    Item[] expected = array.clone();
+    Arrays.sort(expected);                                                // Arrays.sort(Object[]) is stable
+
+    System.out.println("\nStart Comparable (ParallelSampleSort.java)...");
+    start = System.currentTimeMillis();
+    ParallelSampleSort.sort(array);
+    end = System.currentTimeMillis();
+    for (int i = 0; i < arrSize; i++) {
+      assertSame("Comparable not stably sorted at " + i + "!", expected[i], array[i]);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelSampleSort#sort(int[])}, below the parallel cutoff.
+   */
+  @Test
+  public void testSortSmallArrays() {
+    for (int length = 0; length < 5000; length += 499) {
+      int[] array = new int[length];
+      for (int i = 0; i < length; i++) {
+        array[i] = r.nextInt();
+      }
+      int[] expected = array.clone();
+      Arrays.sort(expected);
+      ParallelSampleSort.sort(array);
+      assertArrayEquals("int not sorted!", expected, array);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelSampleSort#sort(long[], int, int, SortWorkspace)}: one
+   * workspace reused by sorts of decreasing size must sort correctly and not grow after the first.
+   */
+  @Test
+  public void testSortWithWorkspace() {
+    SortWorkspace workspace = new SortWorkspace();
+    long retained = 0;
+    for (int round = 0; round < 4; round++) {
+      int lo = r.nextInt(1000), hi = arrSize - 1 - round * 1000;
+      long[] array = new long[arrSize];
+      for (int i = 0; i < arrSize; i++) {
+        array[i] = r.nextLong();
+      }
+      long[] expected = array.clone();
+      Arrays.sort(expected, lo, hi + 1);
+      ParallelSampleSort.sort(array, lo, hi, workspace);
+      assertArrayEquals("long not sorted!", expected, array);
+      if (round == 0) {
+        retained = workspace.retainedBytes();
+      }
+      assertEquals("Workspace grew after the largest sort!", retained, workspace.retainedBytes());
+    }
+  }
+
+  /**
+   * A value with a key to sort on, whose identity shows whether equal keys kept their order.
+   */
+  private static final class Item implements Comparable<Item> {
+    final int key;
+
+    Item(int key) {
+      this.key = key;
+    }
+
+    @Override
+    public int compareTo(Item other) {
+      return Integer.compare(key, other.key);
+    }
+  }
+
+}
@@ -0,0 +1,120 @@
+/**
+ * ParallelSortMonitoringTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.parallel.ParallelSortPoolMXBean;
+
+
+/**
+ * Checks the JFR event and JMX MBean that are published by the parallel sorting classes.
+ *
+ * <p>JFR is used through reflection, as <tt>ParallelSortEvent</tt> does, so that the tests compile against the Java 8
+ * class library; the JFR test is skipped on a runtime without it.</p>
+ *
+ * @author Jonathan
+ */
+@SuppressWarnings("deprecation")
+public class ParallelSortMonitoringTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 1000000 /* 30 */;
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelQuicksort#sort(int[])}.
+   */
+  @Test
+  public void testParallelSortEvent() throws Exception {
+    Class<?> recordingClass;
+    try {
+      recordingClass = Class.forName("jdk.jfr.Recording");
+    }
+    catch (ClassNotFoundException e) {
+      Assume.assumeNoException("JFR is not available", e);
+      return;
+    }
+    Class<?> recordedEventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+    Method getEventType = recordedEventClass.getMethod("getEventType");
+    Method getName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+    Method getInt = recordedEventClass.getMethod("getInt", String.class);
+    Method getLong = recordedEventClass.getMethod("getLong", String.class);
+
+    int[] array = randomArray();
+    File dump = File.createTempFile("parallel-sort", ".jfr");
+    Object recording = recordingClass.getConstructor().newInstance();
+    try {
+      recordingClass.getMethod("enable", String.class).invoke(recording, "uk.co.bluettduncanj.ParallelSort");
+      recordingClass.getMethod("start").invoke(recording);
+      uk.co.bluettduncanj.parallel.ParallelQuicksort.sort(array);
+      recordingClass.getMethod("stop").invoke(recording);
+      recordingClass.getMethod("dump", Path.class).invoke(recording, dump.toPath());
+    }
+    finally {
+      recordingClass.getMethod("close").invoke(recording);
+    }
+
+    List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class)
+        .invoke(null, dump.toPath());
+    dump.delete();
+    Object sortEvent = null;
+    for (Object event : events) {
+      if (getName.invoke(getEventType.invoke(event)).equals("uk.co.bluettduncanj.ParallelSort")) {
+        assertNull("More than one sort event recorded!", sortEvent);
+        sortEvent = event;
+      }
+    }
+    assertNotNull("No sort event recorded!", sortEvent);
+    System.out.println("\n" + sortEvent);
+    long tasksForked = (Long) getLong.invoke(sortEvent, "tasksForked");
+    assertEquals(arrSize, getInt.invoke(sortEvent, "length"));
+    assertTrue("No tasks forked!", tasksForked > 0);
+    assertTrue("No task tree depth!", (Integer) getInt.invoke(sortEvent, "maxDepth") > 0);
+    assertTrue("No sequential leaves!", (Long) getLong.invoke(sortEvent, "sequentialLeaves") > tasksForked);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelSortPoolMXBean}.
+   */
+  @Test
+  public void testParallelSortPoolMXBean() throws Exception {
+    int[] array = randomArray();
+    uk.co.bluettduncanj.parallel.ParallelQuicksort.sort(array);
+
+    ParallelSortPoolMXBean pool = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+        new ObjectName("uk.co.bluettduncanj.parallel:type=ParallelSortPool"), ParallelSortPoolMXBean.class);
+    long sorts = pool.getSortCount();
+    long elements = pool.getSortedElementCount();
+    assertTrue("Sort not counted!", sorts > 0);
+    assertTrue("Sorted elements not counted!", elements >= arrSize);
+    assertTrue("No parallelism!", pool.getParallelism() > 0);
+
+    uk.co.bluettduncanj.parallel.ParallelQuicksort.sort(array);
+    assertEquals(sorts + 1, pool.getSortCount());
+    assertEquals(elements + arrSize, pool.getSortedElementCount());
+  }
+
+  private int[] randomArray() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = r.nextInt();
+    }
+    return array;
+  }
+
+}
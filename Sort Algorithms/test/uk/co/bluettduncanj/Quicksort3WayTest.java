@@ -6,6 +6,7 @@ package uk.co.bluettduncanj;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.After;
@@ -66,6 +67,93 @@ public class Quicksort3WayTest {
     System.out.println();
   }
   
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.Quicksort3Way#sortDistinct(int[])}.
+   */
+  @Test
+  public void testSortDistinctIntArray() {
+    int[] expected = distinct(array);
+    start = System.currentTimeMillis();
+    int count = Quicksort3Way.sortDistinct(array);
+    end = System.currentTimeMillis();
+    System.out.println("sortDistinct run time: " + (end - start) + " milliseconds.");
+    
+    assertArrayEquals(expected, Arrays.copyOf(array, count));
+  }
+  
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.Quicksort3Way#sortCounted(int[], int, int, int[])}.
+   */
+  @Test
+  public void testSortCountedIntArray() {
+    int[] frequencies = new int[range + 1];
+    for (int i = 1; i < arrSize - 1; i++) {
+      frequencies[array[i]]++;
+    }
+    int first = array[0], last = array[arrSize - 1];
+    int[] counts = new int[arrSize];
+    int count = Quicksort3Way.sortCounted(array, 1, arrSize - 2, counts);
+    
+    assertEquals(first, array[0]);
+    assertEquals(last, array[arrSize - 1]);
+    for (int i = 1, value = 0; value <= range; value++) {
+      if (frequencies[value] > 0) {
+        assertEquals(value, array[i]);
+        assertEquals(frequencies[value], counts[i]);
+        i++;
+      }
+    }
+    assertEquals(distinct(Arrays.copyOfRange(array, 1, arrSize - 1)).length, count);
+  }
+  
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.Quicksort3Way#sortDistinct(long[])} and
+   * {@link uk.co.bluettduncanj.serial.Quicksort3Way#sortCounted(long[], int[])}, on values that are all distinct, all
+   * equal, and already sorted.
+   */
+  @Test
+  public void testSortDistinctLongArray() {
+    long[][] inputs = { new long[1000], new long[1000], new long[1000], {}, { 7 } };
+    for (int i = 0; i < 1000; i++) {
+      inputs[0][i] = r.nextLong();
+      inputs[1][i] = Long.MIN_VALUE;
+      inputs[2][i] = i / 3;
+    }
+    for (long[] input : inputs) {
+      long[] expected = input.clone();
+      Arrays.sort(expected);
+      int n = 0;
+      for (int i = 0; i < expected.length; i++) {
+        if (i == 0 || expected[i] != expected[n - 1]) {
+          expected[n++] = expected[i];
+        }
+      }
+      long[] copy = input.clone();
+      int[] counts = new int[input.length];
+      assertEquals(n, Quicksort3Way.sortDistinct(input));
+      assertArrayEquals(Arrays.copyOf(expected, n), Arrays.copyOf(input, n));
+      assertEquals(n, Quicksort3Way.sortCounted(copy, counts));
+      assertArrayEquals(Arrays.copyOf(expected, n), Arrays.copyOf(copy, n));
+      int total = 0;
+      for (int i = 0; i < n; i++) {
+        total += counts[i];
+      }
+      assertEquals(input.length, total);
+    }
+  }
+  
+  private static int[] distinct(int[] array) {
+    int[] sorted = array.clone();
+    Arrays.sort(sorted);
+    int n = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[n - 1]) {
+        sorted[n++] = sorted[i];
+      }
+    }
+    return Arrays.copyOf(sorted, n);
+  }
+  
   private static String print(int[] array) {
     StringBuilder printBuilder = new StringBuilder(array.length);
     for (int element : array) {
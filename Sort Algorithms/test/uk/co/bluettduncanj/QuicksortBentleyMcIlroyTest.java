@@ -6,6 +6,8 @@ package uk.co.bluettduncanj;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Random;
 
 import org.junit.After;
@@ -70,6 +72,72 @@ public class QuicksortBentleyMcIlroyTest {
     System.out.println();
   }
   
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy#sortRankRange(int[], int, int)}.
+   */
+  @Test
+  public void testSortRankRangeIntArray() {
+    int[][] windows = { {0, 0}, {0, 99}, {5000, 5100}, {99899, 99999}, {0, 99999}, {31, 4000} };
+    for (int[] window : windows) {
+      int[] a = new int[100000];
+      for (int i = 0; i < a.length; i++) {
+        a[i] = r.nextInt((window[0] % 2 == 0) ? 1000 : Integer.MAX_VALUE);
+      }
+      int[] sorted = a.clone();
+      Arrays.sort(sorted);
+      
+      QuicksortBentleyMcIlroy.sortRankRange(a, window[0], window[1]);
+      assertArrayEquals(Arrays.copyOfRange(sorted, window[0], window[1] + 1),
+          Arrays.copyOfRange(a, window[0], window[1] + 1));
+      for (int i = 0; i < window[0]; i++) {
+        assertTrue(a[i] <= a[window[0]]);
+      }
+      for (int i = window[1] + 1; i < a.length; i++) {
+        assertTrue(a[i] >= a[window[1]]);
+      }
+      Arrays.sort(a);
+      assertArrayEquals(sorted, a);
+    }
+    
+    int[] a = {3, 1, 2};
+    QuicksortBentleyMcIlroy.sortRankRange(a, 1, 1);
+    assertEquals(2, a[1]);
+    try {
+      QuicksortBentleyMcIlroy.sortRankRange(a, 2, 3);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+  
+  /**
+   * Test method for
+   * {@link uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy#sortRankRange(Object[], int, int, java.util.Comparator)}.
+   */
+  @Test
+  public void testSortRankRangeObjectArray() {
+    String[] a = new String[20000];
+    for (int i = 0; i < a.length; i++) {
+      a[i] = Integer.toString(r.nextInt(5000));
+    }
+    String[] sorted = a.clone();
+    Arrays.sort(sorted, Collections.reverseOrder());
+    
+    QuicksortBentleyMcIlroy.sortRankRange(a, 100, 149, Collections.reverseOrder());
+    assertArrayEquals(Arrays.copyOfRange(sorted, 100, 150), Arrays.copyOfRange(a, 100, 150));
+    for (int i = 0; i < 100; i++) {
+      assertTrue(a[i].compareTo(a[100]) >= 0);
+    }
+    for (int i = 150; i < a.length; i++) {
+      assertTrue(a[i].compareTo(a[149]) <= 0);
+    }
+    
+    QuicksortBentleyMcIlroy.sortRankRange(a, 0, a.length - 1);
+    Arrays.sort(sorted);
+    assertArrayEquals(sorted, a);
+  }
+  
   private static String print(int[] array) {
     StringBuilder printBuilder = new StringBuilder(array.length);
     for (int element : array) {
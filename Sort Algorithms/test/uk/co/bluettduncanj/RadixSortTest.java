@@ -0,0 +1,195 @@
+/**
+ * RadixSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.RadixSort;
+
+
+/**
+ * @author Jonathan
+ */
+public class RadixSortTest {
+  
+  private Random r = new Random();
+  public static final int arrSize = 3000000 /* 30 */;
+  private long start, end;
+  
+  /**
+   * Values that comparison sorts need special handling for.
+   */
+  private static final double[] doubleSpecials = {
+    Double.NaN, -0.0, 0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE,
+    Double.MAX_VALUE, -Double.MAX_VALUE, Double.longBitsToDouble(0xfff8000000000001L)
+  };
+  private static final float[] floatSpecials = {
+    Float.NaN, -0.0f, 0.0f, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.MIN_VALUE, -Float.MIN_VALUE,
+    Float.MAX_VALUE, -Float.MAX_VALUE, Float.intBitsToFloat(0xffc00001)
+  };
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    start = 0; end = 0;
+  }
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    start = 0; end = 0;
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.RadixSort#sort(double[])}.
+   */
+  @Test
+  public void testSortDoubleArray() {
+    System.out.println("\nSetting up double sort data...");
+    double[] array = new double[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (r.nextInt(100) == 0) ? doubleSpecials[r.nextInt(doubleSpecials.length)] : r.nextGaussian() * 1000;
+    }
+    double[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("Start double (RadixSort.java)...");
+    start = System.currentTimeMillis();
+    RadixSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = Arrays.equals(expected, array);
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("double not sorted!", isSorted);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.RadixSort#sort(float[])}.
+   */
+  @Test
+  public void testSortFloatArray() {
+    System.out.println("\nSetting up float sort data...");
+    float[] array = new float[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (r.nextInt(100) == 0) ? floatSpecials[r.nextInt(floatSpecials.length)] : (float) r.nextGaussian() * 1000;
+    }
+    float[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("Start float (RadixSort.java)...");
+    start = System.currentTimeMillis();
+    RadixSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = Arrays.equals(expected, array);
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("float not sorted!", isSorted);
+  }
+  
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.RadixSort#sort(int[])}.
+   */
+  @Test
+  public void testSortIntArray() {
+    System.out.println("\nSetting up int sort data...");
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (r.nextInt(100) == 0) ? Integer.MIN_VALUE + r.nextInt(3) : r.nextInt();
+    }
+    int[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("Start int (RadixSort.java)...");
+    start = System.currentTimeMillis();
+    RadixSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = Arrays.equals(expected, array);
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("int not sorted!", isSorted);
+  }
+  
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.RadixSort#sort(long[])}.
+   */
+  @Test
+  public void testSortLongArray() {
+    System.out.println("\nSetting up long sort data...");
+    long[] array = new long[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (r.nextInt(100) == 0) ? Long.MIN_VALUE + r.nextInt(3) : r.nextLong() >> r.nextInt(64);
+    }
+    long[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("Start long (RadixSort.java)...");
+    start = System.currentTimeMillis();
+    RadixSort.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    boolean isSorted = Arrays.equals(expected, array);
+    System.out.println("Sorted: " + isSorted + ".");
+    assertTrue("long not sorted!", isSorted);
+  }
+  
+  /**
+   * Small ranges within larger arrays must leave the rest of the array untouched.
+   */
+  @Test
+  public void testSortRange() {
+    double[] array = new double[200];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = doubleSpecials[r.nextInt(doubleSpecials.length)];
+    }
+    double[] expected = array.clone();
+    Arrays.sort(expected, 5, 195);
+    RadixSort.sort(array, 5, 194);
+    assertArrayEquals(expected, array, 0.0);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.RadixSort#sort(double[])} and
+   * {@link uk.co.bluettduncanj.serial.RadixSort#sort(float[])}, checking that NaNs with a payload are written back as
+   * the canonical NaN, whether or not the array is small enough to skip the radix passes.
+   */
+  @Test
+  public void testNaNsAreCanonical() {
+    double payloadNaN = Double.longBitsToDouble(0x7ff8000000000123L);
+    float payloadNaNf = Float.intBitsToFloat(0x7fc00123);
+    for (int n : new int[] {10, 64, 65, 100}) {
+      double[] doubles = new double[n];
+      float[] floats = new float[n];
+      for (int i = 0; i < n; i++) {
+        doubles[i] = (i % 3 == 0) ? payloadNaN : r.nextGaussian();
+        floats[i] = (i % 3 == 0) ? payloadNaNf : (float) r.nextGaussian();
+      }
+      RadixSort.sort(doubles);
+      RadixSort.sort(floats);
+      for (int i = 0; i < n; i++) {
+        if (Double.isNaN(doubles[i])) {
+          assertEquals("double NaN not canonical with n = " + n + "!", Double.doubleToRawLongBits(Double.NaN),
+              Double.doubleToRawLongBits(doubles[i]));
+        }
+        if (Float.isNaN(floats[i])) {
+          assertEquals("float NaN not canonical with n = " + n + "!", Float.floatToRawIntBits(Float.NaN),
+              Float.floatToRawIntBits(floats[i]));
+        }
+      }
+      assertTrue(Double.isNaN(doubles[n - 1]) && Float.isNaN(floats[n - 1]));
+    }
+  }
+
+}
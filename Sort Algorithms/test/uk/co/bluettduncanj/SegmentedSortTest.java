@@ -0,0 +1,92 @@
+/**
+ * SegmentedSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.parallel.SegmentedSort;
+
+
+/**
+ * @author Jonathan
+ */
+public class SegmentedSortTest {
+
+  private Random r = new Random();
+  public static final int segmentCount = 20000;
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.SegmentedSort#sort(int[], int[])}.
+   */
+  @Test
+  public void testSort() {
+    // Mostly tiny segments, some medium ones, and one large enough to be sorted in parallel
+    int[] offsets = new int[segmentCount + 1];
+    offsets[0] = 3;                                                       // Leave a few values outside every segment
+    for (int s = 0; s < segmentCount; s++) {
+      int length;
+      if (s == segmentCount / 2) {
+        length = 200000;
+      }
+      else if (s % 500 == 0) {
+        length = r.nextInt(10000);
+      }
+      else {
+        length = r.nextInt(50);
+      }
+      offsets[s + 1] = offsets[s] + length;
+    }
+    int[] values = new int[offsets[segmentCount] + 3];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = r.nextInt();
+    }
+
+    int[] expected = values.clone();
+    for (int s = 0; s < segmentCount; s++) {
+      Arrays.sort(expected, offsets[s], offsets[s + 1]);
+    }
+
+    long startTime = System.nanoTime();
+    SegmentedSort.sort(values, offsets);
+    long endTime = System.nanoTime();
+    System.out.println("\nTime taken: " + ((endTime - startTime) / 1000000.0) + "ms");
+
+    assertArrayEquals(expected, values);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.SegmentedSort#sort(int[], int[])}.
+   */
+  @Test
+  public void testSortSmall() {
+    int[] values = { 3, 1, 2, 9, 8, 5, 4 };
+    SegmentedSort.sort(values, new int[] { 0, 3, 3, 5, 7 });
+    assertArrayEquals(new int[] { 1, 2, 3, 8, 9, 4, 5 }, values);
+    SegmentedSort.sort(values, new int[0]);
+    SegmentedSort.sort(values, new int[] { 7 });
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.SegmentedSort#sort(int[], int[])}.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testDescendingOffsets() {
+    SegmentedSort.sort(new int[10], new int[] { 0, 5, 4, 10 });
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.SegmentedSort#sort(int[], int[])}.
+   */
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void testOffsetOutOfBounds() {
+    SegmentedSort.sort(new int[10], new int[] { 0, 5, 11 });
+  }
+
+}
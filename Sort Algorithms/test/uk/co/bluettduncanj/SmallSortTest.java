@@ -0,0 +1,103 @@
+/**
+ * SmallSortTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.SmallSort;
+
+
+/**
+ * @author Jonathan
+ */
+public class SmallSortTest {
+
+  private Random r = new Random();
+  public static final int maxLength = 40;
+  public static final int trials = 2000;
+
+  /**
+   * Values that comparison sorts need special handling for.
+   */
+  private static final double[] doubleSpecials = {
+    Double.NaN, -0.0, 0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE,
+    Double.MAX_VALUE, -Double.MAX_VALUE, Double.longBitsToDouble(0xfff8000000000001L)
+  };
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.SmallSort#sort(int[], int, int)}.
+   */
+  @Test
+  public void testSortIntArray() {
+    // Every length, on either side of the network cutoff, with a few untouched values around the range
+    for (int length = 0; length <= maxLength; length++) {
+      for (int t = 0; t < trials; t++) {
+        int range = (t % 2 == 0) ? Integer.MAX_VALUE : length / 2 + 1;     // Half the trials are full of duplicates
+        int[] array = new int[length + 4];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = (t % 4 == 1) ? i : r.nextInt(range) - range / 2;
+        }
+        int[] expected = array.clone();
+        Arrays.sort(expected, 2, length + 2);
+        SmallSort.sort(array, 2, length + 1);
+        assertArrayEquals("length " + length, expected, array);
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.SmallSort#sort(long[], int, int)}.
+   */
+  @Test
+  public void testSortLongArray() {
+    for (int length = 0; length <= maxLength; length++) {
+      for (int t = 0; t < trials; t++) {
+        long[] array = new long[length + 4];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = (t % 2 == 0) ? r.nextLong() : r.nextInt(length / 2 + 1) * (1L << 40);
+        }
+        long[] expected = array.clone();
+        Arrays.sort(expected, 2, length + 2);
+        SmallSort.sort(array, 2, length + 1);
+        assertArrayEquals("length " + length, expected, array);
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.SmallSort#sort(double[], int, int)}.
+   */
+  @Test
+  public void testSortDoubleArray() {
+    for (int length = 0; length <= maxLength; length++) {
+      for (int t = 0; t < trials; t++) {
+        double[] array = new double[length + 4];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = (r.nextInt(4) == 0) ? doubleSpecials[r.nextInt(doubleSpecials.length)] : r.nextGaussian();
+        }
+        double[] expected = array.clone();
+        Arrays.sort(expected, 2, length + 2);
+        SmallSort.sort(array, 2, length + 1);
+        assertTrue("length " + length, Arrays.equals(expected, array));
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.SmallSort#insert(int[], int, int, int)}.
+   */
+  @Test
+  public void testInsert() {
+    int[] array = { 9, 1, 4, 7, 8, 2, 8, 0, 5, 9 };
+    SmallSort.insert(array, 1, 5, 8);
+    assertArrayEquals(new int[] { 9, 0, 1, 2, 4, 5, 7, 8, 8, 9 }, array);
+  }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * SortMetricsTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.metrics.SortMetrics;
+import uk.co.bluettduncanj.metrics.SortMetricsListener;
+import uk.co.bluettduncanj.metrics.SortStats;
+import uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy;
+
+
+/**
+ * Checks that instrumented sorts report to the listener only when <tt>-Duk.co.bluettduncanj.metrics=true</tt> is set.
+ *
+ * @author Jonathan
+ */
+public class SortMetricsTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 1000000 /* 30 */;
+  private final List<SortStats> reported = new ArrayList<SortStats>();
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    reported.clear();
+    SortMetrics.setListener(new SortMetricsListener() {
+      @Override
+      public void sortCompleted(SortStats stats) {
+        synchronized (reported) {
+          reported.add(stats);
+        }
+      }
+    });
+  }
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    SortMetrics.setListener(null);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.serial.QuicksortBentleyMcIlroy#quicksort(int[], int, int)}.
+   */
+  @Test
+  public void testSerialSortReportsOnce() {
+    int[] array = randomArray();
+    QuicksortBentleyMcIlroy.quicksort(array, 0, array.length - 1);
+    checkReport("QuicksortBentleyMcIlroy", array.length);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ParallelQuicksort#sort(int[])}.
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testParallelSortReportsOnce() {
+    int[] array = randomArray();
+    uk.co.bluettduncanj.parallel.ParallelQuicksort.sort(array);
+    checkReport("ParallelQuicksort", array.length);
+  }
+
+  /**
+   * Checks that a sort that throws stops recording, so that later sorts on the same thread are still recorded.
+   */
+  @Test
+  public void testFailedSortStopsRecording() {
+    Integer[] boxed = new Integer[1000];
+    for (int i = 0; i < boxed.length; i++) {
+      boxed[i] = r.nextInt();
+    }
+    try {
+      QuicksortBentleyMcIlroy.sortRankRange(boxed, 10, 20, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer a, Integer b) {
+          throw new IllegalStateException("comparator failed");
+        }
+      });
+      fail("Expected IllegalStateException");
+    }
+    catch (IllegalStateException e) {
+      // Expected
+    }
+    assertNull("Recorder left attached to thread!", SortMetrics.current());
+
+    reported.clear();
+    int[] array = randomArray();
+    QuicksortBentleyMcIlroy.quicksort(array, 0, array.length - 1);
+    checkReport("QuicksortBentleyMcIlroy", array.length);
+  }
+
+  private int[] randomArray() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = r.nextInt();
+    }
+    return array;
+  }
+
+  private void checkReport(String engine, int length) {
+    if (!SortMetrics.ENABLED) {
+      assertTrue("Sort reported while metrics are disabled!", reported.isEmpty());
+      return;
+    }
+    assertEquals("Sort not reported exactly once!", 1, reported.size());
+    SortStats stats = reported.get(0);
+    System.out.println("\n" + stats);
+    assertEquals(engine, stats.getEngine());
+    assertEquals(length, stats.getLength());
+    assertTrue("No comparisons recorded!", stats.getComparisons() >= length - 1);
+    assertTrue("No leaf sorts recorded!", stats.getLeaves() > 0);
+    assertTrue("No recursion recorded!", stats.getMaxDepth() > 0);
+  }
+
+}
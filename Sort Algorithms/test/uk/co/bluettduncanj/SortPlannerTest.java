@@ -0,0 +1,117 @@
+/**
+ * SortPlannerTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.planner.SortPlan;
+import uk.co.bluettduncanj.planner.SortPlan.Engine;
+import uk.co.bluettduncanj.planner.SortPlanner;
+
+
+/**
+ * @author Jonathan
+ */
+public class SortPlannerTest {
+  
+  private Random r = new Random();
+  public static final int arrSize = 1000000 /* 30 */;
+  private long start, end;
+  private final boolean parallel = Runtime.getRuntime().availableProcessors() > 1;
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    start = 0; end = 0;
+  }
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    start = 0; end = 0;
+  }
+
+  @Test
+  public void testTinyArray() {
+    int[] array = randomArray(30, Integer.MAX_VALUE);
+    check(Engine.SMALL_SORT, array);
+  }
+
+  @Test
+  public void testSortedArray() {
+    int[] array = randomArray(arrSize, Integer.MAX_VALUE);
+    Arrays.sort(array);
+    check(Engine.NONE, array);
+  }
+
+  @Test
+  public void testNearlySortedArray() {
+    int[] array = randomArray(arrSize, Integer.MAX_VALUE);
+    Arrays.sort(array, 0, arrSize / 2);
+    Arrays.sort(array, arrSize / 2, arrSize);
+    check(Engine.NATURAL_MERGE_SORT, array);
+  }
+
+  @Test
+  public void testSmallRangeArray() {
+    int[] array = randomArray(arrSize, 1000);
+    check(parallel ? Engine.PARALLEL_COUNTING_SORT : Engine.COUNTING_SORT, array);
+    array = randomArray(1000, 1000);
+    check(Engine.COUNTING_SORT, array);
+  }
+
+  @Test
+  public void testDuplicateHeavyArray() {
+    // Few distinct values, but spread over the whole int range so that counting sort can't be used
+    int[] values = randomArray(100, Integer.MAX_VALUE);
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = values[r.nextInt(values.length)] - r.nextInt(2) * Integer.MAX_VALUE;
+    }
+    check(parallel ? Engine.PARALLEL_QUICKSORT : Engine.QUICKSORT_3WAY, array);
+  }
+
+  @Test
+  public void testRandomArray() {
+    int[] array = randomArray(arrSize, Integer.MAX_VALUE);
+    check(parallel ? Engine.PARALLEL_RADIX_SORT : Engine.RADIX_SORT, array);
+    array = randomArray(1000, Integer.MAX_VALUE);
+    check(Engine.QUICKSORT, array);
+  }
+
+  private int[] randomArray(int length, int range) {
+    int[] array = new int[length];
+    for (int i = 0; i < length; i++) {
+      array[i] = r.nextInt(range);
+    }
+    return array;
+  }
+
+  private void check(Engine expectedEngine, int[] array) {
+    int[] expected = array.clone();
+    Arrays.sort(expected);
+    
+    System.out.println("\nStart int (SortPlanner.java)...");
+    start = System.currentTimeMillis();
+    SortPlan plan = SortPlanner.sort(array);
+    end = System.currentTimeMillis();
+    System.out.println(plan);
+    System.out.println("Run time: " + (end - start) + " milliseconds.");
+    assertEquals(expectedEngine, plan.getEngine());
+    assertArrayEquals(expectedEngine + " not sorted!", expected, array);
+  }
+
+}
@@ -0,0 +1,134 @@
+/**
+ * SortTuningTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.tuning.Cutoff;
+import uk.co.bluettduncanj.tuning.SortTuning;
+
+
+/**
+ * @author Jonathan
+ */
+public class SortTuningTest {
+  
+  private File profile;
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    profile = File.createTempFile("sort-tuning", ".properties");
+  }
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    profile.delete();
+  }
+
+  /**
+   * Without a profile or overrides, every cutoff takes its default value.
+   */
+  @Test
+  public void testDefaults() {
+    if (System.getProperty(SortTuning.PROFILE_PROPERTY) != null) {
+      return;
+    }
+    for (Map.Entry<Cutoff, Integer> entry : SortTuning.current().entrySet()) {
+      assertEquals(entry.getKey().key(), entry.getKey().defaultValue(), entry.getValue().intValue());
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.tuning.SortTuning#store(Map, java.nio.file.Path, String)}.
+   */
+  @Test
+  public void testStoreAndLoad() throws Exception {
+    Map<Cutoff, Integer> values = new EnumMap<Cutoff, Integer>(Cutoff.class);
+    for (Cutoff cutoff : Cutoff.values()) {
+      int[] candidates = cutoff.candidates();
+      values.put(cutoff, candidates[candidates.length - 1]);
+    }
+    SortTuning.store(values, profile.toPath(), "test");
+    assertEquals(values, SortTuning.load(profile.toPath()));
+  }
+
+  /**
+   * Invalid values are left out, rather than failing the whole profile, and each one is logged as a warning.
+   */
+  @Test
+  public void testLoadIgnoresInvalidValues() throws Exception {
+    try (FileWriter out = new FileWriter(profile)) {
+      out.write(Cutoff.QUICKSORT_INSERTION_SORT.key() + "=32\n");
+      out.write(Cutoff.MERGESORT1_INSERTION_SORT.key() + "=seven\n");
+      out.write(Cutoff.BENTLEY_MCILROY_MEDIAN3.key() + "=1\n");
+      out.write("not.a.cutoff=3\n");
+    }
+    final List<LogRecord> records = new ArrayList<LogRecord>();
+    Handler handler = new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        records.add(record);
+      }
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    };
+    Logger logger = Logger.getLogger(SortTuning.class.getName());
+    logger.addHandler(handler);
+    Map<Cutoff, Integer> values;
+    try {
+      values = SortTuning.load(profile.toPath());
+    }
+    finally {
+      logger.removeHandler(handler);
+    }
+    assertEquals(1, values.size());
+    assertEquals(Integer.valueOf(32), values.get(Cutoff.QUICKSORT_INSERTION_SORT));
+
+    assertEquals(2, records.size());
+    for (LogRecord record : records) {
+      assertEquals(Level.WARNING, record.getLevel());
+      assertTrue(record.getMessage(), record.getMessage().startsWith("Ignoring "));
+    }
+  }
+
+  /**
+   * Every candidate the calibrator tries must be a valid value.
+   */
+  @Test
+  public void testCandidatesAreValid() {
+    for (Cutoff cutoff : Cutoff.values()) {
+      assertTrue(cutoff.defaultValue() >= cutoff.minValue());
+      for (int candidate : cutoff.candidates()) {
+        assertTrue(cutoff.key() + "=" + candidate, candidate >= cutoff.minValue());
+      }
+    }
+  }
+
+}
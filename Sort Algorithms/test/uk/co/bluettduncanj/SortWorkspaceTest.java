@@ -0,0 +1,138 @@
+/**
+ * SortWorkspaceTest.java
+ */
+
+package uk.co.bluettduncanj;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.CountingSort;
+import uk.co.bluettduncanj.serial.ListMergeSort;
+import uk.co.bluettduncanj.serial.MergeSort1;
+import uk.co.bluettduncanj.serial.MergeSort2;
+import uk.co.bluettduncanj.serial.NaturalMergeSort;
+import uk.co.bluettduncanj.serial.RadixSort;
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * @author Jonathan
+ */
+public class SortWorkspaceTest {
+  
+  private Random r = new Random();
+  public static final int arrSize = 100000 /* 30 */;
+  private SortWorkspace workspace;
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    workspace = new SortWorkspace();
+  }
+
+  /**
+   * Buffers are reused while they are big enough, and at least double when they aren't.
+   */
+  @Test
+  public void testGrowth() {
+    int[] first = workspace.ints(0, 100);
+    assertEquals(100, first.length);
+    assertSame(first, workspace.ints(0, 50));
+    assertSame(first, workspace.ints(0, 100));
+    assertEquals(200, workspace.ints(0, 101).length);
+    assertEquals(1000, workspace.ints(0, 1000).length);
+    assertNotSame(workspace.ints(0, 10), workspace.ints(1, 10));
+    assertEquals(4L * 1000 + 4L * 10, workspace.retainedBytes());
+    workspace.release();
+    assertEquals(0, workspace.retainedBytes());
+  }
+
+  @Test
+  public void testForCurrentThread() throws Exception {
+    final SortWorkspace[] other = new SortWorkspace[1];
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        other[0] = SortWorkspace.forCurrentThread();
+      }
+    });
+    thread.start();
+    thread.join();
+    assertSame(SortWorkspace.forCurrentThread(), SortWorkspace.forCurrentThread());
+    assertNotSame(SortWorkspace.forCurrentThread(), other[0]);
+  }
+
+  /**
+   * One workspace shared by every engine, over ranges of varying sizes and offsets, must sort correctly and stop growing.
+   */
+  @Test
+  public void testSharedWorkspace() {
+    long retained = 0;
+    for (int round = 0; round < 40; round++) {
+      // The first two rounds are the two smallest, which forces every buffer to grow once, past arrSize
+      int length = (round < 2) ? arrSize / 2 + 10 + 10 * round : arrSize - r.nextInt(arrSize / 2);
+      int start = r.nextInt(1000), end = start + length - 1;
+      
+      int[] ints = new int[end + 1000];
+      for (int i = 0; i < ints.length; i++) {
+        ints[i] = r.nextInt(1 << 16);
+      }
+      int[] expected = ints.clone();
+      Arrays.sort(expected, start, end + 1);
+      
+      int[] array = ints.clone();
+      MergeSort1.sort(array, start, end, workspace);
+      assertArrayEquals("MergeSort1 not sorted!", expected, array);
+      array = ints.clone();
+      NaturalMergeSort.sort(array, start, end, workspace);
+      assertArrayEquals("NaturalMergeSort not sorted!", expected, array);
+      array = ints.clone();
+      RadixSort.sort(array, start, end, workspace);
+      assertArrayEquals("RadixSort not sorted!", expected, array);
+      array = ints.clone();
+      CountingSort.sort(array, start, end, workspace);
+      assertArrayEquals("CountingSort not sorted!", expected, array);
+      array = Arrays.copyOf(ints, length);
+      MergeSort2.sort(array, workspace);
+      int[] expected2 = Arrays.copyOf(ints, length);
+      Arrays.sort(expected2);
+      assertArrayEquals("MergeSort2 not sorted!", expected2, array);
+      
+      double[] doubles = new double[end + 1];
+      for (int i = 0; i < doubles.length; i++) {
+        doubles[i] = r.nextGaussian();
+      }
+      double[] expectedDoubles = doubles.clone();
+      Arrays.sort(expectedDoubles, start, end + 1);
+      RadixSort.sort(doubles, start, end, workspace);
+      assertTrue("RadixSort double not sorted!", Arrays.equals(expectedDoubles, doubles));
+      
+      List<Integer> list = new ArrayList<Integer>();
+      for (int i = 0; i < length / 10; i++) {
+        list.add(r.nextInt());
+      }
+      List<Integer> expectedList = new ArrayList<Integer>(list);
+      expectedList.sort(null);
+      ListMergeSort.sort(list, Comparator.<Integer>naturalOrder(), workspace);
+      assertEquals("ListMergeSort not sorted!", expectedList, list);
+      
+      if (round == 1) {
+        retained = workspace.retainedBytes();
+      }
+    }
+    // Buffers at least double when they grow, so after the second round they are big enough for any length
+    assertEquals("Workspace still growing!", retained, workspace.retainedBytes());
+  }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * IntPartitionActionTest.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * Runs {@link IntPartitionAction} and {@link IntQuicksortAction} in an explicit pool of 4 threads, so that the parallel
+ * partition is used even on a machine whose default pool has no parallelism.
+ *
+ * @author Jonathan
+ */
+public class IntPartitionActionTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 1 << 20 /* 30 */;
+  private ForkJoinPool pool;
+
+  @Before
+  public void setUp() throws Exception {
+    pool = new ForkJoinPool(4);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    pool.shutdown();
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.IntPartitionAction}, partitioning a sub-range around pivots
+   * that are absent, the minimum, the maximum and a heavily duplicated value.
+   */
+  @Test
+  public void testPartition() {
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (i % 4 == 0) ? 500 : r.nextInt(1000);
+    }
+    int lo = 12345, hi = arrSize - 6789;
+    int[] pivots = { 500, -1, 0, 999, 1000, r.nextInt(1000) };
+    for (int pivot : pivots) {
+      for (int auxBase : new int[] {0, lo}) {
+        int[] partitioned = array.clone();
+        int[] aux = new int[arrSize - auxBase];
+        IntPartitionAction partition = new IntPartitionAction(partitioned, aux, auxBase, lo, hi, pivot);
+        pool.invoke(partition);
+
+        int lessEnd = partition.lessEnd(), greaterStart = partition.greaterStart();
+        assertTrue(lo <= lessEnd && lessEnd <= greaterStart && greaterStart <= hi + 1);
+        for (int i = lo; i <= hi; i++) {
+          int expected = (i < lessEnd) ? -1 : (i < greaterStart) ? 0 : 1;
+          assertEquals("Value " + partitioned[i] + " at " + i + " in the wrong partition for pivot " + pivot + "!",
+              expected, Integer.signum(Integer.compare(partitioned[i], pivot)));
+        }
+        assertArrayEquals("Values outside the range moved!", Arrays.copyOfRange(array, 0, lo),
+            Arrays.copyOfRange(partitioned, 0, lo));
+        assertArrayEquals("Values outside the range moved!", Arrays.copyOfRange(array, hi + 1, arrSize),
+            Arrays.copyOfRange(partitioned, hi + 1, arrSize));
+        assertArrayEquals("Partition is not a permutation!", sorted(array, lo, hi), sorted(partitioned, lo, hi));
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.IntQuicksortAction}, on a range large enough to be partitioned
+   * in parallel.
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testQuicksortWithParallelPartition() {
+    assertTrue(arrSize >= 4 * ParallelQuicksort.PARALLEL_PARTITION_CUTOFF);
+    int[] array = new int[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = (i % 3 == 0) ? r.nextInt(100) : r.nextInt();
+    }
+    int[] expected = array.clone();
+    Arrays.sort(expected, 1, arrSize - 1);
+
+    pool.invoke(new IntQuicksortAction(array, 1, arrSize - 2));
+    assertArrayEquals("int not a sorted permutation!", expected, array);
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.IntQuicksortAction}, checking that the scratch array for the
+   * parallel partitions is borrowed from the workspace, sized to the range, and reused by the next sort.
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testQuicksortWithWorkspace() {
+    SortWorkspace workspace = new SortWorkspace();
+    for (int sort = 0; sort < 2; sort++) {
+      int[] array = new int[arrSize];
+      for (int i = 0; i < arrSize; i++) {
+        array[i] = r.nextInt();
+      }
+      int[] expected = array.clone();
+      Arrays.sort(expected, 10, arrSize - 10);
+
+      pool.invoke(new IntQuicksortAction(array, 10, arrSize - 11, workspace));
+      assertArrayEquals("int not a sorted permutation!", expected, array);
+      assertEquals("Scratch array not borrowed from the workspace!", 4L * (arrSize - 20), workspace.retainedBytes());
+    }
+  }
+
+  private static int[] sorted(int[] array, int lo, int hi) {
+    int[] range = Arrays.copyOfRange(array, lo, hi + 1);
+    Arrays.sort(range);
+    return range;
+  }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * SampleSortActionTest.java
+ */
+
+package uk.co.bluettduncanj.parallel;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.bluettduncanj.serial.SortWorkspace;
+
+
+/**
+ * Runs the {@link SampleSortAction}s in an explicit pool of 4 threads, so that the splitter tree, the equality buckets
+ * and the stable scatter are used even on a machine whose default pool has no parallelism.
+ *
+ * @author Jonathan
+ */
+public class SampleSortActionTest {
+
+  private Random r = new Random();
+  public static final int arrSize = 1 << 20 /* 30 */;
+  private ForkJoinPool pool;
+  private SortWorkspace workspace;
+
+  @Before
+  public void setUp() throws Exception {
+    pool = new ForkJoinPool(4);
+    workspace = new SortWorkspace();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    pool.shutdown();
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.IntSampleSortAction}, with distinct and heavily duplicated
+   * values, on a sub-range.
+   */
+  @Test
+  public void testIntSampleSort() {
+    for (int range : new int[] {Integer.MAX_VALUE, 1000, 3}) {
+      int[] array = new int[arrSize];
+      for (int i = 0; i < arrSize; i++) {
+        array[i] = r.nextInt(range);
+      }
+      int[] expected = array.clone();
+      Arrays.sort(expected, 7, arrSize - 7);
+
+      pool.invoke(new IntSampleSortAction(array, 7, arrSize - 8, workspace));
+      assertArrayEquals("int not sorted with range " + range + "!", expected, array);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.LongSampleSortAction}.
+   */
+  @Test
+  public void testLongSampleSort() {
+    for (int duplicates = 0; duplicates < 2; duplicates++) {
+      long[] array = new long[arrSize];
+      for (int i = 0; i < arrSize; i++) {
+        array[i] = (duplicates == 0) ? r.nextLong() : r.nextInt(10) * (1L << 40);
+      }
+      long[] expected = array.clone();
+      Arrays.sort(expected);
+
+      pool.invoke(new LongSampleSortAction(array, 0, arrSize - 1, workspace));
+      assertArrayEquals("long not sorted!", expected, array);
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ComparableSampleSortAction}, which should be stable, with keys
+   * that are mostly distinct and keys that are mostly splitters.
+   */
+  @Test
+  public void testComparableSampleSortIsStable() {
+    for (int keys : new int[] {arrSize / 4, 50}) {
+      Item[] array = new Item[arrSize];
+      for (int i = 0; i < arrSize; i++) {
+        array[i] = new Item(r.nextInt(keys));
+      }
+      Item[] expected = array.clone();
+      Arrays.sort(expected);                                              // Arrays.sort(Object[]) is stable
+
+      pool.invoke(new ComparableSampleSortAction<Item>(array, 0, arrSize - 1, workspace));
+      for (int i = 0; i < arrSize; i++) {
+        assertSame("Comparable not stably sorted at " + i + " with " + keys + " keys!", expected[i], array[i]);
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link uk.co.bluettduncanj.parallel.ComparableSampleSortAction}, checking that a <tt>compareTo</tt>
+   * that throws while the buckets are being sorted doesn't leave any elements in the workspace's scratch array.
+   */
+  @Test
+  public void testFailedSortClearsWorkspace() {
+    Item[] array = new Item[arrSize];
+    for (int i = 0; i < arrSize; i++) {
+      array[i] = new Item(2 * r.nextInt(arrSize));
+    }
+    // Two items that only fail when compared with each other; nothing sorts between them, so the bucket sort must
+    // compare them, but classifying them against the (even) splitters succeeds
+    int key = 2 * r.nextInt(arrSize) + 1;
+    array[r.nextInt(arrSize / 2)] = new Item(key, true);
+    array[arrSize / 2 + r.nextInt(arrSize / 2)] = new Item(key, true);
+    try {
+      pool.invoke(new ComparableSampleSortAction<Item>(array, 0, arrSize - 1, workspace));
+      fail("Expected IllegalStateException");
+    }
+    catch (IllegalStateException e) {
+      // Expected
+    }
+    for (Object element : workspace.objects(0, 0)) {
+      assertNull("Element left in the workspace!", element);
+    }
+  }
+
+  /**
+   * A value whose identity distinguishes it from equal values, for checking stability. Comparing two failing items
+   * throws.
+   */
+  private static final class Item implements Comparable<Item> {
+
+    private final int key;
+    private final boolean failing;
+
+    Item(int key) {
+      this(key, false);
+    }
+
+    Item(int key, boolean failing) {
+      this.key = key;
+      this.failing = failing;
+    }
+
+    @Override
+    public int compareTo(Item other) {
+      if (failing && other.failing) {
+        throw new IllegalStateException("compareTo failed");
+      }
+      return Integer.compare(key, other.key);
+    }
+  }
+
+}